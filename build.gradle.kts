@@ -64,6 +64,18 @@ repositories {
    mavenCentral()
 }
 
+// --------------------------------------------------------------------------------------------------------
+// JMH Benchmarks: Benchmarks live in src/jmh/java and can see the main classes. Run them with 'gradlew jmh'
+// --------------------------------------------------------------------------------------------------------
+val jmh by sourceSets.creating {
+   compileClasspath += sourceSets.main.get().output
+   runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations.named("jmhImplementation") {
+   extendsFrom(configurations.implementation.get())
+}
+
 // --------------------------------------------------------------------------------------------------------
 // dependencies list
 // --------------------------------------------------------------------------------------------------------
@@ -77,6 +89,10 @@ dependencies {
    implementation("org.jline:jline-native:4.0.13")          // Native support for Linux/Mac/Win
    implementation("org.jline:jline-terminal-ffm:4.0.13")
 
+   // --- JMH Benchmarks ---
+   "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+   "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
    // --- JUnit Testing ---
    testImplementation("org.junit.jupiter:junit-jupiter-api:6.1.0-RC1")
    testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:6.1.0-RC1")
@@ -160,6 +176,18 @@ tasks.test {
    }
 }
 
+// --------------------------------------------------------------------------------------------------------
+// jmh:  Run the JMH benchmarks.  Pass JMH options with -Pjmh="...", for example: gradlew jmh -Pjmh="StackBenchmark -p size=100"
+// --------------------------------------------------------------------------------------------------------
+tasks.register<JavaExec>("jmh") {
+   group = "benchmark"
+   description = "Runs the JMH benchmarks in src/jmh/java"
+
+   classpath = jmh.runtimeClasspath
+   mainClass.set("org.openjdk.jmh.Main")
+   args((project.findProperty("jmh")?.toString() ?: "").split(" ").filter { it.isNotBlank() })
+}
+
 // --------------------------------------------------------------------------------------------------------
 // install:  Copies the Shadow Jar file to the C:\Utils directory after building and testing it
 // --------------------------------------------------------------------------------------------------------
@@ -0,0 +1,110 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommandParserBenchmark: Time how long CommandParser takes to classify and execute a single entry. The legacyClassify
+ * benchmark reproduces the regular expression chain the parser used before the dispatch table and lexer so the two can be
+ * compared directly
+ * <p>
+ * Run with: gradlew jmh -Pjmh=CommandParserBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandParserBenchmark {
+   @Param({"123.456", "12+", "1.5e10", "sqrt"})
+   String input;
+
+   StackObj stk;
+   StackObj stk2;
+
+   @Setup
+   public void setup() {
+      Main.configUndoLevels = 10;
+      stk = new StackObj();
+      stk2 = new StackObj();
+      stk.push(BigDecimal.TEN);
+   }
+
+   /**
+    * legacyClassify(): Determine the input type with the String.matches() calls the parser used previously
+    */
+   @Benchmark
+   public int legacyClassify() {
+      String cmd = input.replaceAll(",", "");
+      if (cmd.contains("/") && !cmd.substring(cmd.length() - 1).matches("/")) return 1;
+      if (cmd.matches("^-?\\d*\\.?\\d*")) return 2;
+      if (cmd.matches("^\\S*\\d%$")) return 3;
+      if (cmd.matches("^-?\\d*\\.?\\d*[Ee]?\\d*[*+\\-/^]")) return 4;
+      if (cmd.toLowerCase().matches(".*e[+-]?[0-9]+.*")) return 5;
+      return 0;
+   }
+
+   /**
+    * classify(): Determine the input type with the dispatch table lookup and single pass lexer
+    */
+   @Benchmark
+   public int classify() {
+      String cmd = input.indexOf(',') >= 0 ? input.replace(",", "") : input;
+      if (CommandParser.isCommand(cmd)) return 6;
+      if (cmd.indexOf('/') >= 0 && !cmd.endsWith("/")) return 1;
+      return CommandParser.LexNumber(cmd);
+   }
+
+   /**
+    * parse(): Full parse and execution of the input. The stack is restored afterwards so every call sees the same state
+    */
+   @Benchmark
+   public BigDecimal parse() {
+      CommandParser.Parse(stk, stk2, input, input, "");
+      BigDecimal result = stk.pop();
+      if (stk.isEmpty()) stk.push(BigDecimal.TEN);
+      return result;
+   }
+
+}
@@ -0,0 +1,84 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConversionBenchmark: Time the formatting and conversion helpers: comma formatting used when the stack is displayed,
+ * unit conversion, and decimal to fraction conversion
+ * <p>
+ * Run with: gradlew jmh -Pjmh=ConversionBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+   @Param({"12.5", "-1234567.891", "123456789012345678901234567890.0123456789"})
+   String value;
+
+   BigDecimal number;
+
+   @Setup
+   public void setup() {
+      number = new BigDecimal(value);
+   }
+
+   @Benchmark
+   public String comma() {
+      return Display.Comma(number);
+   }
+
+   @Benchmark
+   public BigDecimal convert() {
+      return UnitConverter.convert(number, "in", "mm").getValue();
+   }
+
+   @Benchmark
+   public String fraction() {
+      return StackConversions.cmdFraction(number, "64");
+   }
+
+}
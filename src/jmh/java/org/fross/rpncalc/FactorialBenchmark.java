@@ -0,0 +1,80 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FactorialBenchmark: Time Math.Factorial for increasing input sizes. The uncached benchmark clears the result cache
+ * before each call so it measures the computation itself
+ * <p>
+ * Run with: gradlew jmh -Pjmh=FactorialBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FactorialBenchmark {
+   @Param({"10", "100", "1000", "10000"})
+   int n;
+
+   BigDecimal num;
+
+   @Setup
+   public void setup() {
+      num = BigDecimal.valueOf(n);
+   }
+
+   @Benchmark
+   public BigDecimal factorial() {
+      return Math.Factorial(num);
+   }
+
+   @Benchmark
+   public BigDecimal factorialUncached() {
+      Factorial.clearCache();
+      return Math.Factorial(num);
+   }
+
+}
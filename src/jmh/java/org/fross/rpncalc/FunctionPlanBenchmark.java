@@ -0,0 +1,103 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FunctionPlanBenchmark: Time one run of a small user defined function, parsing each step as FunctionRun used to against
+ * running the compiled plan
+ * <p>
+ * Run with: gradlew jmh -Pjmh=FunctionPlanBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FunctionPlanBenchmark {
+   static final List<String> STEPS = List.of("3", "*", "2", "+", "dup", "4", "-", "swap", "d", "1.5", "+", "abs");
+
+   FunctionPlan plan;
+   StackObj stk;
+   StackObj stk2;
+
+   @Setup
+   public void setup() {
+      Main.configUndoLevels = 10;
+      plan = new FunctionPlan(STEPS, Set.of());
+      stk = new StackObj();
+      stk2 = new StackObj();
+   }
+
+   /**
+    * parseSteps(): Split and parse every step on each run
+    */
+   @Benchmark
+   public BigDecimal parseSteps() {
+      stk.push(BigDecimal.TEN);
+      for (String step : STEPS) {
+         String[] ci = step.toLowerCase().trim().split("\\s+", 2);
+         CommandParser.Parse(stk, stk2, step, ci[0], ci.length > 1 ? ci[1] : "");
+      }
+      return clear();
+   }
+
+   /**
+    * runPlan(): Run the compiled plan
+    */
+   @Benchmark
+   public BigDecimal runPlan() {
+      stk.push(BigDecimal.TEN);
+      plan.Run(stk, stk2);
+      return clear();
+   }
+
+   private BigDecimal clear() {
+      BigDecimal top = stk.peek();
+      stk.clear();
+      return top;
+   }
+
+}
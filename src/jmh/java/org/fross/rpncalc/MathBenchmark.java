@@ -0,0 +1,119 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MathBenchmark: Time the calculator's arithmetic. Each benchmark runs the operation once for every one of 'size' pairs
+ * of values, pushing the two operands and popping the result so the stack stays small. Values are a mix of ones that
+ * fit the compact long representation and ones that don't
+ * <p>
+ * Run with: gradlew jmh -Pjmh="MathBenchmark -p size=1000"
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MathBenchmark {
+   @Param({"10", "1000", "100000", "1000000"})
+   int size;
+
+   BigDecimal[] values;
+   StackObj stk;
+
+   @Setup
+   public void setup() {
+      values = new BigDecimal[size];
+      for (int i = 0; i < size; i++) {
+         values[i] = (i % 4 == 0) ? new BigDecimal("123456789012345678901234567890." + (i % 97 + 1)) : BigDecimal.valueOf(i * 7919L % 1000 + 1, 2);
+      }
+      stk = new StackObj();
+   }
+
+   @Benchmark
+   public BigDecimal add() {
+      BigDecimal total = BigDecimal.ZERO;
+      for (int i = 0; i < size; i++) {
+         stk.push(values[i]);
+         stk.push(values[size - 1 - i]);
+         total = Math.Add(stk).pop();
+      }
+      return total;
+   }
+
+   @Benchmark
+   public BigDecimal multiply() {
+      BigDecimal total = BigDecimal.ZERO;
+      for (int i = 0; i < size; i++) {
+         stk.push(values[i]);
+         stk.push(values[size - 1 - i]);
+         total = Math.Multiply(stk).pop();
+      }
+      return total;
+   }
+
+   @Benchmark
+   public BigDecimal divide() {
+      BigDecimal total = BigDecimal.ZERO;
+      for (int i = 0; i < size; i++) {
+         stk.push(values[i]);
+         stk.push(values[size - 1 - i]);
+         total = Math.Divide(stk).pop();
+      }
+      return total;
+   }
+
+   @Benchmark
+   public BigDecimal power() {
+      BigDecimal total = BigDecimal.ZERO;
+      for (int i = 0; i < size; i++) {
+         stk.push(values[i]);
+         stk.push(i % 8 + 2);
+         total = Math.Power(stk).pop();
+      }
+      return total;
+   }
+
+}
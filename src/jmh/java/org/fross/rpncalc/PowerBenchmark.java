@@ -0,0 +1,112 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PowerBenchmark: Compare the Power class against the previous BigDecimal.pow(int) implementation of '^'
+ * <p>
+ * Run with: gradlew jmh -Pjmh=PowerBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PowerBenchmark {
+   @Param({"100", "1000", "10000"})
+   int exponent;
+
+   BigDecimal base = new BigDecimal("1.0001");
+   BigDecimal power;
+   BigDecimal ten = BigDecimal.TEN;
+   BigDecimal third = new BigDecimal("0.3333333333333333333333333333333333");
+   BigDecimal two = BigDecimal.valueOf(2);
+   BigDecimal modulus = BigDecimal.valueOf(1000000007);
+
+   @Setup
+   public void setup() {
+      Main.configPrecision = Main.CONFIG_DEFAULT_PRECISION;
+      Main.configScaleCap = 100;
+      power = BigDecimal.valueOf(exponent);
+   }
+
+   /**
+    * The previous '^': an exact power that is trimmed by the scale cap afterwards
+    */
+   @Benchmark
+   public BigDecimal legacyIntegerPower() {
+      return Precision.limit(base.pow(power.intValue(), MathContext.UNLIMITED));
+   }
+
+   @Benchmark
+   public BigDecimal integerPower() {
+      return Power.pow(base, power);
+   }
+
+   @Benchmark
+   public BigDecimal realPower() {
+      return Power.realPower(ten, third, MathContext.DECIMAL128);
+   }
+
+   @Benchmark
+   public BigDecimal root() {
+      return Power.root(ten, 3, MathContext.DECIMAL128);
+   }
+
+   /**
+    * Modular exponentiation done the long way with the previous '^' and 'mod'
+    */
+   @Benchmark
+   public BigDecimal legacyModPow() {
+      return two.pow(power.intValue()).remainder(modulus);
+   }
+
+   @Benchmark
+   public BigDecimal modPow() {
+      return Power.modPow(two, power, modulus);
+   }
+
+}
@@ -0,0 +1,181 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StackBenchmark: Compare the StackArray backing the calculator stack against java.util.Stack, and time StackObj
+ * push/pop, saving undo points, and the push/pop heavy calculator operations (addall, sort, and a repeated operation)
+ * across stack sizes from 10 to 1,000,000 items
+ * <p>
+ * Run with: gradlew jmh -Pjmh="StackBenchmark -p size=1000"
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StackBenchmark {
+   @Param({"10", "1000", "100000", "1000000"})
+   int size;
+
+   BigDecimal[] values;
+
+   @Setup
+   public void setup() {
+      values = new BigDecimal[size];
+      for (int i = 0; i < size; i++) {
+         values[i] = BigDecimal.valueOf(i * 7919L % 1000, 2);
+      }
+   }
+
+   /**
+    * utilStackPushPop(): Push every value and pop them all off again using java.util.Stack
+    */
+   @Benchmark
+   public BigDecimal utilStackPushPop() {
+      Stack<BigDecimal> stk = new Stack<>();
+      BigDecimal total = BigDecimal.ZERO;
+      for (BigDecimal value : values) {
+         stk.push(value);
+      }
+      while (!stk.isEmpty()) {
+         total = total.add(stk.pop());
+      }
+      return total;
+   }
+
+   /**
+    * stackArrayPushPop(): Push every value and pop them all off again using StackArray
+    */
+   @Benchmark
+   public BigDecimal stackArrayPushPop() {
+      StackArray stk = new StackArray();
+      BigDecimal total = BigDecimal.ZERO;
+      for (BigDecimal value : values) {
+         stk.push(value);
+      }
+      while (!stk.isEmpty()) {
+         total = total.add(stk.pop());
+      }
+      return total;
+   }
+
+   /**
+    * stackObjPushPop(): Push every value and pop them all off again using StackObj
+    */
+   @Benchmark
+   public BigDecimal stackObjPushPop() {
+      StackObj stk = new StackObj();
+      BigDecimal total = BigDecimal.ZERO;
+      for (BigDecimal value : values) {
+         stk.push(value);
+      }
+      while (!stk.isEmpty()) {
+         total = total.add(stk.pop());
+      }
+      return total;
+   }
+
+   /**
+    * saveUndoPush(): Save an undo point before every push, the way each number typed at the prompt is entered
+    */
+   @Benchmark
+   public int saveUndoPush() {
+      StackObj stk = new StackObj();
+      for (BigDecimal value : values) {
+         stk.saveUndo();
+         stk.push(value);
+      }
+      return stk.undoSize();
+   }
+
+   /**
+    * addAll(): Fill a calculator stack and run addall on it
+    */
+   @Benchmark
+   public BigDecimal addAll() {
+      StackObj stk = fill();
+      StackCommands.cmdAddAll(stk, "");
+      return stk.peek();
+   }
+
+   /**
+    * sort(): Fill a calculator stack and sort it
+    */
+   @Benchmark
+   public BigDecimal sort() {
+      StackObj stk = fill();
+      stk.sort("ascending");
+      return stk.peek();
+   }
+
+   /**
+    * repeatAdd(): Push a value and add it to the running total, the same work as repeating '+' after each entry
+    */
+   @Benchmark
+   public BigDecimal repeatAdd() {
+      StackObj stk = new StackObj();
+      stk.push(BigDecimal.ZERO);
+      for (BigDecimal value : values) {
+         stk.saveUndo();
+         stk.push(value);
+         Math.Add(stk);
+      }
+      return stk.peek();
+   }
+
+   /**
+    * fill(): Return a new calculator stack holding the benchmark values
+    */
+   private StackObj fill() {
+      StackObj stk = new StackObj();
+      for (BigDecimal value : values) {
+         stk.push(value);
+      }
+      return stk;
+   }
+
+}
@@ -0,0 +1,116 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StackExportBenchmark: Time exporting a stack as text, CSV, binary and gzip-compressed text. formatText leaves out the
+ * file system to show the formatting cost alone
+ * <p>
+ * Run with: gradlew jmh -Pjmh=StackExportBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StackExportBenchmark {
+   @Param({"100000", "1000000"})
+   int size;
+
+   StackArray stack;
+   Path directory;
+
+   @Setup
+   public void setup() throws IOException {
+      stack = new StackArray();
+      for (int i = 0; i < size; i++) {
+         if (i % 10 == 0) {
+            stack.push(new BigDecimal("1.23456789012345678901234567890").movePointRight(i % 30));
+         } else {
+            stack.push(BigDecimal.valueOf(i * 7919L % 1000000, 2));
+         }
+      }
+      directory = Files.createTempDirectory("rpncalc-export");
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      for (String name : new String[]{"stack.txt", "stack.csv", "stack.stk", "stack.txt.gz"}) {
+         Files.deleteIfExists(directory.resolve(name));
+      }
+      Files.deleteIfExists(directory);
+   }
+
+   @Benchmark
+   public void formatText() throws IOException {
+      StackExport.write(stack, StackExport.Format.TEXT, OutputStream.nullOutputStream());
+   }
+
+   @Benchmark
+   public void exportText() throws IOException {
+      StackExport.write(stack, directory.resolve("stack.txt"));
+   }
+
+   @Benchmark
+   public void exportCsv() throws IOException {
+      StackExport.write(stack, directory.resolve("stack.csv"));
+   }
+
+   @Benchmark
+   public void exportBinary() throws IOException {
+      StackExport.write(stack, directory.resolve("stack.stk"));
+   }
+
+   @Benchmark
+   public void exportGzip() throws IOException {
+      StackExport.write(stack, directory.resolve("stack.txt.gz"));
+   }
+
+}
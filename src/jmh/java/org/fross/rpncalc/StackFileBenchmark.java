@@ -0,0 +1,114 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StackFileBenchmark: Time saving and restoring stacks with the binary stack file, both in memory and through the
+ * file system including the fsync and atomic rename
+ * <p>
+ * Run with: gradlew jmh -Pjmh=StackFileBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StackFileBenchmark {
+   @Param({"1000", "100000", "500000"})
+   int size;
+
+   StackArray stack;
+   byte[] encoded;
+   Path savedDirectory;
+
+   @Setup
+   public void setup() throws IOException {
+      stack = new StackArray();
+      for (int i = 0; i < size; i++) {
+         stack.push(BigDecimal.valueOf(i * 7919L % 100000, 2));
+      }
+
+      ByteBuffer buffer = StackFile.encode(stack);
+      encoded = new byte[buffer.remaining()];
+      buffer.get(encoded);
+
+      savedDirectory = StackFile.directory;
+      StackFile.directory = Files.createTempDirectory("rpncalc-bench");
+      StackFile.write(stack, "bench", "1");
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      StackFile.delete("bench");
+      Files.deleteIfExists(StackFile.directory);
+      StackFile.directory = savedDirectory;
+   }
+
+   @Benchmark
+   public ByteBuffer encode() {
+      return StackFile.encode(stack);
+   }
+
+   @Benchmark
+   public StackArray decode() throws IOException {
+      return StackFile.decode(encoded);
+   }
+
+   @Benchmark
+   public void save() throws IOException {
+      StackFile.write(stack, "bench", "1");
+   }
+
+   @Benchmark
+   public StackArray restore() throws IOException {
+      return StackFile.read("bench", "1");
+   }
+
+}
@@ -0,0 +1,103 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * StackImportBenchmark: Time importing a file of numbers, plain and gzip-compressed
+ * <p>
+ * Run with: gradlew jmh -Pjmh=StackImportBenchmark
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StackImportBenchmark {
+   @Param({"100000", "1000000"})
+   int lines;
+
+   Path plain;
+   Path compressed;
+
+   @Setup
+   public void setup() throws IOException {
+      plain = Files.createTempFile("rpncalc-import", ".txt");
+      compressed = Files.createTempFile("rpncalc-import", ".txt.gz");
+
+      try (Writer text = Files.newBufferedWriter(plain);
+           Writer gzip = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(compressed)), StandardCharsets.US_ASCII))) {
+         for (int i = 0; i < lines; i++) {
+            String line = (i % 10 == 0) ? "1.23456789e" + (i % 30) : String.valueOf(i * 7919L % 1000000 / 100.0);
+            text.write(line + "\n");
+            gzip.write(line + "\n");
+         }
+      }
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      Files.deleteIfExists(plain);
+      Files.deleteIfExists(compressed);
+   }
+
+   @Benchmark
+   public StackArray importPlain() throws IOException {
+      return StackImport.read(plain);
+   }
+
+   @Benchmark
+   public StackArray importGzip() throws IOException {
+      return StackImport.read(compressed);
+   }
+
+}
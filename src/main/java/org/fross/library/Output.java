@@ -31,6 +31,8 @@ import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
 import org.jline.utils.InfoCmp.Capability;
 
+import java.io.PrintStream;
+
 public class Output {
    // Shorthand color constants
    public static final int BLACK = AttributedStyle.BLACK;     // 0
@@ -44,11 +46,31 @@ public class Output {
 
    static boolean colorizedOutput = true;      // By default, color is enabled
    private static Terminal terminal;
+   private static PrintStream stream = null;   // Used when there isn't a terminal. Null uses System.out
+
+   // Output is collected into a frame and written with a single write and flush when flush() is called, which is done
+   // before waiting for input. Large frames are written as they grow. Anything left is written when the program exits
+   private static final int FRAME_FLUSH_SIZE = 64 * 1024;
+   private static final StringBuilder frame = new StringBuilder(8192);
+
+   static {
+      Runtime.getRuntime().addShutdownHook(new Thread(Output::flush));
+   }
 
    public static void setTerminal(Terminal t) {
       terminal = t;
    }
 
+   /**
+    * setStream(): Set where output is written when there isn't a terminal. The default is System.out
+    *
+    * @param s Stream to write to. Null goes back to System.out
+    */
+   public static synchronized void setStream(PrintStream s) {
+      flush();
+      stream = s;
+   }
+
    /**
     * enableColor(): Enable or disable colorized output
     *
@@ -68,6 +90,32 @@ public class Output {
    }
 
 
+   /**
+    * flush(): Write the buffered output frame to the terminal (or the output stream if there isn't one) and flush it.
+    * Call this whenever output needs to be seen immediately
+    */
+   public static synchronized void flush() {
+      if (terminal != null) {
+         if (!frame.isEmpty()) terminal.writer().append(frame);
+         terminal.flush();
+      } else {
+         PrintStream out = (stream != null) ? stream : System.out;
+         if (!frame.isEmpty()) out.append(frame);
+         out.flush();
+      }
+      frame.setLength(0);
+   }
+
+   /**
+    * write(): Add text to the output frame, writing it out if the frame has grown large
+    *
+    * @param msg Text to add
+    */
+   private static synchronized void write(String msg) {
+      frame.append(msg);
+      if (frame.length() >= FRAME_FLUSH_SIZE) flush();
+   }
+
    /**
     * returnColorString(): Return the colorized string
     * <p>
@@ -107,9 +155,7 @@ public class Output {
     */
    public static void printColor(int fgColor, int bgColor, String msg) {
       if (terminal != null && colorizedOutput) {
-         String styledMsg = returnColorString(fgColor, bgColor, msg);
-         terminal.writer().print(styledMsg);
-         terminal.flush();
+         write(returnColorString(fgColor, bgColor, msg));
 
       } else {
          print(msg);
@@ -149,31 +195,23 @@ public class Output {
    }
 
    /**
-    * println(): Basic System.out.println call. It's here so all text output can go through this function.
+    * println(): Basic println call. It's here so all text output can go through this function. The text is buffered until
+    * the next flush()
     *
     * @param msg Message to display
     */
    public static void println(String msg) {
-      if (terminal != null) {
-         terminal.writer().println(msg);
-         terminal.flush();
-      } else {
-         System.out.println(msg);
-      }
+      write(msg + System.lineSeparator());
    }
 
    /**
-    * print(): Basic System.out.print call. It's here so out text output can go through this function.
+    * print(): Basic print call. It's here so out text output can go through this function. The text is buffered until the
+    * next flush()
     *
     * @param msg Message to display
     */
    public static void print(String msg) {
-      if (terminal != null) {
-         terminal.writer().print(msg);
-         terminal.flush();
-      } else {
-         System.out.print(msg);
-      }
+      write(msg);
    }
 
    /**
@@ -184,6 +222,7 @@ public class Output {
     */
    public static void fatalError(String msg, int errorCode) {
       Output.printColorln(RED, "\nFATAL ERROR: " + msg);
+      flush();
       System.exit(errorCode);
    }
 
@@ -204,6 +243,9 @@ public class Output {
    public static void debugPrint(String msg) {
       if (Debug.query()) {
          Output.printColor(RED, "DEBUG:  " + msg);
+
+         // Debug output is written immediately so it lines up with what the program is doing
+         flush();
       }
    }
 
@@ -213,6 +255,9 @@ public class Output {
    public static void clearScreen() {
       if (terminal == null) return;
 
+      // Write anything buffered before the screen is cleared
+      flush();
+
       // This looks up the OS-specific "clear" command (like 'cls' or 'clear')
       terminal.puts(Capability.clear_screen);
       terminal.puts(Capability.cursor_home);
@@ -236,7 +281,7 @@ public class Output {
          Output.printColor(index, String.format("%d", index));
       }
 
-      System.out.println("\n");
+      Output.println("\n");
 
       // Test Backgrounds
       for (int index = 0; index < 256; index++) {
@@ -0,0 +1,152 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.fross.library.Output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * BatchMode: Run RPNCalc commands from a script file or standard input without the interactive display. Each line is
+ * processed exactly as if it was typed at the prompt, but the stack is not redrawn between commands. When the input ends
+ * (or an 'exit' command is reached) the final stack is printed, one item per line with line 1 (the top) at the bottom.
+ * <p>
+ * Blank lines and lines starting with '#' are ignored. Messages and errors are written to standard error so standard
+ * output only holds the final stack. If any command reports an error the rest of the script still runs, but the exit
+ * code is 2.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class BatchMode {
+   private static final int READ_BUFFER_SIZE = 64 * 1024;
+   private static final Pattern COMMAS = Pattern.compile(",");
+   private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+   /**
+    * Run(): Execute the commands in the provided script file, or standard input if no file is given, then print the stack
+    *
+    * @param scriptFile Path of the script file. Null or "-" reads standard input
+    * @param topItems   Number of items from the top of the stack to print at the end. 0 prints the entire stack
+    * @return exit code for the program. 0 for success, 1 if the input couldn't be read, 2 if a command failed
+    */
+   public static int Run(String scriptFile, int topItems) {
+      long lineCount = 0;
+      CommandParser.clearCommandFailed();
+
+      // The whole script is one undo step. An 'undo' in the script still reverses the previous command
+      Main.calcStack.beginTransaction();
+      try (BufferedReader reader = openInput(scriptFile)) {
+         String line;
+         while (Main.ProcessCommandLoop && (line = reader.readLine()) != null) {
+            lineCount++;
+            ExecuteLine(Main.calcStack, Main.calcStack2, line);
+         }
+
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Unable to read batch input" + (lineCount > 0 ? " at line " + lineCount : "") + ": " + ex.getMessage());
+         Output.flush();
+         return 1;
+
+      } finally {
+         Main.calcStack.commitTransaction();
+      }
+
+      Output.debugPrintln("Batch mode processed " + lineCount + " lines");
+      Output.flush();
+      System.out.print(FormatStack(Main.calcStack, topItems));
+      System.out.flush();
+      return CommandParser.queryCommandFailed() ? 2 : 0;
+   }
+
+   /**
+    * ExecuteLine(): Break a single line of input into the command and parameter and send it to the command parser
+    *
+    * @param calcStack  Primary stack
+    * @param calcStack2 Secondary stack
+    * @param line       Line of input
+    */
+   public static void ExecuteLine(StackObj calcStack, StackObj calcStack2, String line) {
+      // Remove the commas allowing for numbers such as "12,123" the same way the interactive prompt does
+      String cmdInput = COMMAS.matcher(line).replaceAll("").trim();
+
+      // Skip blank lines and comments
+      if (cmdInput.isEmpty() || cmdInput.charAt(0) == '#') return;
+
+      String[] ci = WHITESPACE.split(cmdInput, 2);
+      String cmdInputCmd = ci[0];
+      String cmdInputParam = (ci.length > 1) ? ci[1] : "";
+
+      // Only the last command is needed for 'repeat', so don't let the history grow with every line of a large script
+      int historySize = CommandHistory.size();
+      CommandHistory.addCommand(cmdInput, cmdInputCmd, cmdInputParam);
+      if (historySize > 0 && CommandHistory.size() > historySize) {
+         CommandHistory.remove(0);
+      }
+
+      // If recording is enabled, send the input to be recorded
+      if (UserFunctions.recordingIsEnabled()) {
+         UserFunctions.RecordCommand(cmdInputCmd + " " + cmdInputParam);
+      }
+
+      CommandParser.Parse(calcStack, calcStack2, cmdInput, cmdInputCmd, cmdInputParam);
+   }
+
+   /**
+    * FormatStack(): Return the stack as plain numbers, one per line, with the top of the stack last
+    *
+    * @param calcStack Stack to format
+    * @param topItems  Number of items from the top of the stack to include. 0 includes the entire stack
+    * @return formatted stack
+    */
+   public static String FormatStack(StackObj calcStack, int topItems) {
+      int start = (topItems > 0) ? java.lang.Math.max(0, calcStack.size() - topItems) : 0;
+      StringBuilder sb = new StringBuilder();
+
+      for (int i = start; i < calcStack.size(); i++) {
+         sb.append(calcStack.getAsString(i)).append(System.lineSeparator());
+      }
+
+      return sb.toString();
+   }
+
+   /**
+    * openInput(): Return a reader for the script file or standard input
+    */
+   private static BufferedReader openInput(String scriptFile) throws IOException {
+      if (scriptFile == null || scriptFile.isBlank() || scriptFile.equals("-")) {
+         return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+      }
+      return Files.newBufferedReader(Path.of(scriptFile), StandardCharsets.UTF_8);
+   }
+
+}
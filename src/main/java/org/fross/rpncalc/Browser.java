@@ -73,6 +73,7 @@ public class Browser {
       if (new File(bName).canExecute()) {
          // Save this file as the browser in the config and return
          prefConfig.put("browser", bName);
+         Persistence.MarkConfig();
          Output.printColorln(Output.CYAN, "Browser set to: '" + prefConfig.get("browser", "<not configured>") + "'");
 
       } else {
@@ -88,6 +89,7 @@ public class Browser {
             // If the user entered nothing, remove preference
             if (browserInput.isEmpty()) {
                prefConfig.remove("browser");
+               Persistence.MarkConfig();
 
             } else {
                // Confirm entered browser can be executed
@@ -95,6 +97,7 @@ public class Browser {
                   Output.printColorln(Output.RED, "ERROR: Provided file is not executable: '" + browserInput + "'");
                } else {
                   prefConfig.put("browser", browserInput);
+                  Persistence.MarkConfig();
                   Output.printColorln(Output.CYAN, "Browser set to: '" + prefConfig.get("browser", "<not configured>") + "'");
                }
 
@@ -26,6 +26,7 @@
  * ------------------------------------------------------------------------------*/
 package org.fross.rpncalc;
 
+import java.util.Arrays;
 import java.util.Stack;
 
 public class CommandHistory {
@@ -84,6 +85,19 @@ public class CommandHistory {
       return cmdHistory.get(cmdHistory.size() - 1);
    }
 
+   /**
+    * getParts(): Return the last command entered split into the full input, the command, and the parameter
+    *
+    * @return Array of three strings. Parts that weren't stored are empty
+    */
+   public static String[] getParts() {
+      String[] parts = Arrays.copyOf(get().split("##", 3), 3);
+      for (int i = 0; i < parts.length; i++) {
+         if (parts[i] == null) parts[i] = "";
+      }
+      return parts;
+   }
+
    /**
     * remove(i): Remove the specified command history item
     *
@@ -55,9 +55,42 @@ public class CommandLineArgs {
    @Parameter(names = {"-L", "--license"}, description = "Display program usage license")
    protected boolean clLicense = false;
 
+   @Parameter(names = {"-b", "--batch"}, description = "Run commands from standard input without the interactive display and print the final stack")
+   protected boolean clBatch = false;
+
+   @Parameter(names = {"-s", "--script"}, description = "Run the commands in the provided file without the interactive display and print the final stack")
+   protected String clScript = "";
+
+   @Parameter(names = {"-t", "--top"}, description = "In batch mode, only print this many items from the top of the stack")
+   protected int clTop = 0;
+
+   // Batch mode settings for Main
+   static boolean batchMode = false;
+   static String batchScript = "";
+   static int batchTop = 0;
+   static boolean batchSaveStacks = false;
+
    // ---------------------------------------------------------------------------------------------
    // Process command line parameters with the following methods
    // ---------------------------------------------------------------------------------------------
+   /**
+    * queryBatchMode(): Return true if the command line requests batch mode. Main needs to know this before it creates the
+    * terminal, which happens before the command line is fully processed
+    *
+    * @param argv Command line arguments
+    * @return true if batch or script mode was requested
+    */
+   public static boolean queryBatchMode(String[] argv) {
+      CommandLineArgs cli = new CommandLineArgs();
+      try {
+         JCommander.newBuilder().addObject(cli).build().parse(argv);
+      } catch (ParameterException ex) {
+         // ProcessCommandLine() will report the error
+         return false;
+      }
+      return cli.clBatch || !cli.clScript.isBlank();
+   }
+
    public static void ProcessCommandLine(String[] argv) {
       CommandLineArgs cli = new CommandLineArgs();
       JCommander jc = new JCommander();
@@ -68,6 +101,7 @@ public class CommandLineArgs {
          jc = JCommander.newBuilder().addObject(cli).build();
          jc.parse(argv);
       } catch (ParameterException ex) {
+         Output.flush();
          System.out.println(ex.getMessage());
          jc.usage();
          System.exit(0);
@@ -79,8 +113,19 @@ public class CommandLineArgs {
       // Debug Switch
       if (cli.clDebug) Debug.enable();
 
+      // Batch Mode. The stacks start empty unless a stack is loaded
+      if (cli.clBatch || !cli.clScript.isBlank()) {
+         batchMode = true;
+         batchScript = cli.clScript;
+         batchTop = cli.clTop;
+         batchSaveStacks = !cli.clLoad.isBlank();
+         Output.enableColor(false);
+      }
+
       // Set the stack name and restore stack from Preferences
-      if (!cli.clLoad.isBlank()) {
+      if (batchMode && cli.clLoad.isBlank()) {
+         Output.debugPrintln("Batch mode: starting with empty stacks");
+      } else if (!cli.clLoad.isBlank()) {
          Main.calcStack.setStackNameAndRestore(cli.clLoad, "1");
          Main.calcStack2.setStackNameAndRestore(cli.clLoad, "2");
       } else {
@@ -91,12 +136,14 @@ public class CommandLineArgs {
       // Version Display
       if (cli.clVersion) {
          Help.DisplayVersion();
+         Output.flush();
          System.exit(0);
       }
 
       // License Display
       if (cli.clLicense) {
          Help.DisplayLicense();
+         Output.flush();
          System.exit(0);
       }
 
@@ -108,6 +155,7 @@ public class CommandLineArgs {
       // Show Help and Exit
       if (cli.clHelp) {
          Help.Display();
+         Output.flush();
          System.exit(0);
       }
 
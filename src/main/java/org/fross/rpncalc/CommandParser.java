@@ -29,9 +29,194 @@ package org.fross.rpncalc;
 import org.fross.library.Output;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public class CommandParser {
+   // Patterns used to recognize input that isn't a command. Compiled once rather than on every entry
+   private static final Pattern PERCENT = Pattern.compile("^\\S*\\d%$");
+   private static final Pattern SCIENTIFIC = Pattern.compile("e[+-]?[0-9]+", Pattern.CASE_INSENSITIVE);
+
+   // Results returned by the numeric literal lexer
+   static final int LITERAL_NONE = 0;
+   static final int LITERAL_NUMBER = 1;
+   static final int LITERAL_NUMOP = 2;
+
+   /**
+    * CommandHandler: Executes a single calculator command. Receives the same arguments as Parse()
+    */
+   @FunctionalInterface
+   interface CommandHandler {
+      void run(StackObj calcStack, StackObj calcStack2, String cmdInput, String cmdInputCmd, String cmdInputParam);
+   }
+
+   // Dispatch table mapping every command name and alias to the handler that executes it
+   private static final Map<String, CommandHandler> commands = new HashMap<>();
+
+   // Set when a command rejects its input or fails. Batch mode uses it for its exit code
+   private static volatile boolean commandFailed = false;
+
+   static {
+      /*------------------------------------------------------------------------------
+       * Calculator Commands
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdUndo(stk, param), "undo", "u");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdFlipSign(stk), "flip", "f");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdClear(stk), "clear", "c");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdClean(), "clean", "cl");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdDelete(stk, param), "delete", "del", "d");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdDown(stk), "down");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdUp(stk), "up");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdFactorial(stk), "factorial", "fact");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdSwapElements(stk, param), "swap", "s");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdSqrt(stk), "sqrt");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdRound(stk, param), "round");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdAddAll(stk, param), "addall", "aa");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdModulus(stk), "modulus", "mod");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdModPow(stk), "modpow");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdRoot(stk), "root");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdAverage(stk, param), "mean", "average", "avg");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdSort(stk, param), "sort");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdMedian(stk, param), "median");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdStdDeviation(stk, param), "sd");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdCopy(stk, param), "copy", "dup");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdLog(stk), "log");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdLog10(stk), "log10");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdInteger(stk), "int");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdLinearRegression(stk, param), "lr");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdAbsoluteValue(stk), "abs");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdMinimum(stk), "min");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdMaximum(stk), "max");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdRandom(stk, param), "rand", "random");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdDice(stk, param), "dice", "roll");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdEcho(param), "echo");
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdRepeat(stk, param), "repeat", "rep");
+
+      /*------------------------------------------------------------------------------
+       * Conversions
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> cmdFraction(stk, param), "frac", "fraction");
+      register((stk, stk2, in, cmd, param) -> StackConversions.cmdConvert(stk, param), "convert", "conv");
+
+      /*------------------------------------------------------------------------------
+       * Stack Trigonometry Functions
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> StackTrig.cmdTrig(stk, cmd, param), "tan", "sin", "cos");
+      register((stk, stk2, in, cmd, param) -> StackTrig.cmdArcTrig(stk, cmd, param), "atan", "asin", "acos");
+      register((stk, stk2, in, cmd, param) -> StackTrig.cmdHypotenuse(stk), "hypot", "hypotenuse");
+
+      /*------------------------------------------------------------------------------
+       * Stack Memory Functions
+       *-----------------------------------------------------------------------------*/
+      register(CommandParser::cmdMem, "memory", "mem");
+
+      /*------------------------------------------------------------------------------
+       * Constants
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdPI(stk), "pi");
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdPHI(stk), "phi");
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdPHIBox(stk), "phibox");
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdEulersNumber(stk), "eulersnum", "eulersnumber");
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdEulersConstant(stk), "eulersconst", "eulersconstant");
+      register((stk, stk2, in, cmd, param) -> StackConstants.cmdSpeedOfLight(stk), "sol", "speedoflight");
+
+      /*------------------------------------------------------------------------------
+       * User Defined Functions
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> UserFunctions.cmdRecord(param), "rec", "record");
+      register((stk, stk2, in, cmd, param) -> UserFunctions.cmdFunction(param), "func", "function");
+
+      /*------------------------------------------------------------------------------
+       * Stack Operational Commands
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdList(stk, param), "list");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdLoad(stk, stk2, param), "load");
+      register((stk, stk2, in, cmd, param) -> StackOperations.exportStackToDisk(stk, param), "export");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdHomePage(), "hp", "homepage");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdUserGuide(), "ug", "userguide");
+      register((stk, stk2, in, cmd, param) -> StackOperations.importStackFromDisk(stk, param), "import");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdSwapStack(stk, stk2), "ss");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdDebug(), "debug");
+      register((stk, stk2, in, cmd, param) -> Configuration.cmdSet(param), "set");
+      register((stk, stk2, in, cmd, param) -> Configuration.cmdReset(), "reset");
+      register((stk, stk2, in, cmd, param) -> StackOperations.cmdReverse(stk), "rev", "reverse");
+      register((stk, stk2, in, cmd, param) -> Help.DisplayLicense(), "license");
+      register((stk, stk2, in, cmd, param) -> Help.DisplayVersion(), "ver", "version");
+      register((stk, stk2, in, cmd, param) -> Help.Display(), "h", "?", "help");
+
+      // Exit. Clear exit empties the stack before leaving
+      register((stk, stk2, in, cmd, param) -> {
+         stk.clear();
+         cmdExit();
+      }, "cx", "clearexit");
+      register((stk, stk2, in, cmd, param) -> cmdExit(), "x", "exit", "quit");
+
+      /*------------------------------------------------------------------------------
+       * Operands
+       *-----------------------------------------------------------------------------*/
+      register((stk, stk2, in, cmd, param) -> StackCommands.cmdOperand(stk, cmd), "+", "-", "*", "/", "^");
+   }
+
+   /**
+    * register(): Add a command handler to the dispatch table under each of the provided names
+    *
+    * @param handler Handler to execute
+    * @param names   Command name and any aliases
+    */
+   private static void register(CommandHandler handler, String... names) {
+      for (String name : names) {
+         if (commands.put(name, handler) != null) {
+            throw new IllegalStateException("Duplicate command registered: '" + name + "'");
+         }
+      }
+   }
+
+   /**
+    * isCommand(): Return true if the provided name is a built-in command or alias
+    *
+    * @param name Command name to check
+    * @return True if the command is registered
+    */
+   public static boolean isCommand(String name) {
+      return commands.containsKey(name);
+   }
+
+   /**
+    * getHandler(): Return the handler registered for a built-in command or alias
+    *
+    * @param name Command name
+    * @return The handler, or null if the name isn't a built-in command
+    */
+   static CommandHandler getHandler(String name) {
+      return commands.get(name);
+   }
+
+   /**
+    * ReportError(): Display an error from a command in red and record that a command failed
+    *
+    * @param msg Error message
+    */
+   public static void ReportError(String msg) {
+      commandFailed = true;
+      Output.printColorln(Output.RED, msg);
+   }
+
+   /**
+    * queryCommandFailed(): Return true if a command has reported an error since the last clearCommandFailed()
+    *
+    * @return true if a command failed
+    */
+   public static boolean queryCommandFailed() {
+      return commandFailed;
+   }
+
+   /**
+    * clearCommandFailed(): Forget any command errors reported so far
+    */
+   public static void clearCommandFailed() {
+      commandFailed = false;
+   }
 
    /**
     * Parse(): Take the user input and send it to the executing function
@@ -44,559 +229,296 @@ public class CommandParser {
     */
    public static void Parse(StackObj calcStack, StackObj calcStack2, String cmdInput, String cmdInputCmd, String cmdInputParam) {
       // Remove any commas in the command to allow for "1,234.00"
-      cmdInputCmd = cmdInputCmd.replaceAll(",", "");
-
-      // Massive switch statement to process user input and call the correct functions
-      switch (cmdInputCmd) {
-
-         /*------------------------------------------------------------------------------
-          * Calculator Commands
-          *-----------------------------------------------------------------------------*/
-         // Undo
-         case "undo":
-         case "u":
-            StackCommands.cmdUndo(calcStack, cmdInputParam);
-            break;
-
-         // Flip Sign
-         case "flip":
-         case "f":
-            StackCommands.cmdFlipSign(calcStack);
-            break;
-
-         // Clear Screen and Stack
-         case "clear":
-         case "c":
-            StackCommands.cmdClear(calcStack);
-            break;
-
-         // Clean the screen and redisplay the stack
-         case "clean":
-         case "cl":
-            StackCommands.cmdClean();
-            break;
-
-         // Delete
-         case "delete":
-         case "del":
-         case "d":
-            StackCommands.cmdDelete(calcStack, cmdInputParam);
-            break;
-
-         // Down: Shift the stack down so Line2 becomes Line1 and the original Line1 goes to the bottom
-         case "down":
-            StackCommands.cmdDown(calcStack);
-            break;
-
-         // Up: Shift the stack up so Line1 becomes Line2 and the last stack items moves into Line1
-         case "up":
-            StackCommands.cmdUp(calcStack);
-            break;
-
-         // Factorial
-         case "factorial":
-         case "fact":
-            StackCommands.cmdFactorial(calcStack);
-            break;
-
-         // Swap Elements in a stack
-         case "swap":
-         case "s":
-            StackCommands.cmdSwapElements(calcStack, cmdInputParam);
-            break;
-
-         // Square Root
-         case "sqrt":
-            StackCommands.cmdSqrt(calcStack);
-            break;
-
-         // Round
-         case "round":
-            StackCommands.cmdRound(calcStack, cmdInputParam);
-            break;
-
-         // AddAll
-         case "addall":
-         case "aa":
-            StackCommands.cmdAddAll(calcStack, cmdInputParam);
-            break;
-
-         // Modulus
-         case "modulus":
-         case "mod":
-            StackCommands.cmdModulus(calcStack);
-            break;
-
-         // Average
-         case "mean":
-         case "average":
-         case "avg":
-            StackCommands.cmdAverage(calcStack, cmdInputParam);
-            break;
-
-         // Sort
-         case "sort":
-            StackCommands.cmdSort(calcStack, cmdInputParam);
-            break;
-
-         // Median
-         case "median":
-            StackCommands.cmdMedian(calcStack, cmdInputParam);
-            break;
-
-         // Standard Deviation
-         case "sd":
-            StackCommands.cmdStdDeviation(calcStack, cmdInputParam);
-            break;
-
-         // Copy Item
-         case "copy":
-         case "dup":
-            StackCommands.cmdCopy(calcStack, cmdInputParam);
-            break;
-
-         // Natural (base e) Logarithm
-         case "log":
-            StackCommands.cmdLog(calcStack);
-            break;
-
-         // Base10 Logarithm
-         case "log10":
-            StackCommands.cmdLog10(calcStack);
-            break;
-
-         // Integer
-         case "int":
-            StackCommands.cmdInteger(calcStack);
-            break;
-
-         // Linear Regression
-         case "lr":
-            StackCommands.cmdLinearRegression(calcStack, cmdInputParam);
-            break;
-
-         // Absolute Value
-         case "abs":
-            StackCommands.cmdAbsoluteValue(calcStack);
-            break;
-
-         // Minimum Value
-         case "min":
-            StackCommands.cmdMinimum(calcStack);
-            break;
-
-         // Maximum Value
-         case "max":
-            StackCommands.cmdMaximum(calcStack);
-            break;
-
-         // Random Number Generation
-         case "rand":
-         case "random":
-            StackCommands.cmdRandom(calcStack, cmdInputParam);
-            break;
-
-         // Dice
-         case "dice":
-         case "roll":
-            StackCommands.cmdDice(calcStack, cmdInputParam);
-            break;
-
-         // Echo
-         case "echo":
-            StackCommands.cmdEcho(cmdInputParam);
-            break;
-
-         // Repeat
-         case "repeat":
-         case "rep":
-            StackCommands.cmdRepeat(calcStack, cmdInputParam);
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Conversions
-          *-----------------------------------------------------------------------------*/
-         // Fraction
-         case "frac":
-         case "fraction":
-            String[] outString = StackConversions.cmdFraction(calcStack, cmdInputParam);
-            // If there wasn't an error (which would return an empty string), display the results
-            if (!outString[0].isEmpty()) {
-               Output.printColorln(Output.YELLOW, outString[0]);
-               Output.printColorln(Output.WHITE, outString[1]);
-               Output.printColorln(Output.YELLOW, outString[2]);
-            }
-            break;
-
-         // Unit Conversion
-         case "convert":
-         case "conv":
-            StackConversions.cmdConvert(calcStack, cmdInputParam);
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Stack Trigonometry Functions
-          *-----------------------------------------------------------------------------*/
-         // Trigonometry Functions
-         case "tan":
-         case "sin":
-         case "cos":
-            StackTrig.cmdTrig(calcStack, cmdInputCmd, cmdInputParam);
-            break;
-
-         // Arc-Trigonometry Functions
-         case "atan":
-         case "asin":
-         case "acos":
-            StackTrig.cmdArcTrig(calcStack, cmdInputCmd, cmdInputParam);
-            break;
-
-         // Hypotenuse
-         case "hypot":
-         case "hypotenuse":
-            StackTrig.cmdHypotenuse(calcStack);
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Stack Memory Functions
-          *-----------------------------------------------------------------------------*/
-         case "memory":
-         case "mem":
-            // I often mistype 'mem list' instead of 'list mem' I'm going to allow that to work
-            if (cmdInput.toLowerCase().startsWith("mem list")) {
-               Output.printColorln(Output.CYAN, "Rewriting command to 'list mem'");
-               CommandParser.Parse(calcStack, calcStack2, "list mem", "list", "mem");
-            } else {
-               StackMemory.cmdMem(calcStack, cmdInputParam);
-            }
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Constants
-          *-----------------------------------------------------------------------------*/
-         // Add PI
-         case "pi":
-            StackConstants.cmdPI(calcStack);
-            break;
-
-         // Add PHI also known as The Golden Ratio
-         case "phi":
-            StackConstants.cmdPHI(calcStack);
-            break;
-
-         // PHIBox: Display the dimensions of a box given the length and add width and height to the stack
-         case "phibox":
-            StackConstants.cmdPHIBox(calcStack);
-            break;
-
-         // Euler's number
-         case "eulersnum":
-         case "eulersnumber":
-            StackConstants.cmdEulersNumber(calcStack);
-            break;
-
-         // Euler's constant
-         case "eulersconst":
-         case "eulersconstant":
-            StackConstants.cmdEulersConstant(calcStack);
-            break;
-
-         // Speed of light
-         case "sol":
-         case "speedoflight":
-            StackConstants.cmdSpeedOfLight(calcStack);
-            break;
-
-         /*------------------------------------------------------------------------------
-          * User Defined Functions
-          *-----------------------------------------------------------------------------*/
-         // Turn recording on or off
-         case "rec":
-         case "record":
-            UserFunctions.cmdRecord(cmdInputParam);
-            break;
-
-         // Allows for running or deleting functions
-         case "func":
-         case "function":
-            UserFunctions.cmdFunction(cmdInputParam);
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Stack Operational Commands
-          *-----------------------------------------------------------------------------*/
-         // List
-         case "list":
-            StackOperations.cmdList(calcStack, cmdInputParam);
-            break;
-
-         // Load new or existing stack
-         case "load":
-            StackOperations.cmdLoad(calcStack, calcStack2, cmdInputParam);
-            break;
-
-         // Export the current stack to a provided file
-         case "export":
-            StackOperations.exportStackToDisk(calcStack, cmdInputParam);
-            break;
-
-         // Open browser to homepage
-         case "hp":
-         case "homepage":
-            StackOperations.cmdHomePage();
-            break;
-
-         // Open browser to User Guide
-         case "ug":
-         case "userguide":
-            StackOperations.cmdUserGuide();
-            break;
-
-         // Import stack from disk
-         case "import":
-            StackOperations.importStackFromDisk(calcStack, cmdInputParam);
-            break;
-
-         // Swap Stack
-         case "ss":
-            StackOperations.cmdSwapStack(calcStack, calcStack2);
-            break;
-
-         // Debug Toggle
-         case "debug":
-            StackOperations.cmdDebug();
-            break;
-
-         // Set configuration options
-         case "set":
-            Configuration.cmdSet(cmdInputParam);
-            break;
-
-         // Reset configuration to defaults
-         case "reset":
-            Configuration.cmdReset();
-            break;
-
-         // Reverse Stack
-         case "rev":
-         case "reverse":
-            StackOperations.cmdReverse(calcStack);
-            break;
-
-         // Show License
-         case "license":
-            Help.DisplayLicense();
-            break;
-
-         // Version
-         case "ver":
-         case "version":
-            Help.DisplayVersion();
-            break;
-
-         // Help
-         case "h":
-         case "?":
-         case "help":
-            Help.Display();
-            break;
-
-         // Exit
-         case "cx":
-         case "clearexit":
-            calcStack.clear();
-         case "x":
-         case "exit":
-         case "quit":
-            Output.debugPrintln("Exiting Command Loop");
-            Main.ProcessCommandLoop = false;
-            break;
-
-         /*------------------------------------------------------------------------------
-          * Operands
-          *-----------------------------------------------------------------------------*/
-         case "+":
-         case "-":
-         case "*":
-         case "/":
-         case "^":
-            StackCommands.cmdOperand(calcStack, cmdInputCmd);
-            break;
-
-         default:
-            // If the user provided input is blank, such as a space, output a debug message and just ignore it
-            if (cmdInput.isBlank()) {
-               Output.debugPrintln("The input was blank");
-               return;
-            }
+      if (cmdInputCmd.indexOf(',') >= 0) {
+         cmdInputCmd = cmdInputCmd.replace(",", "");
+      }
+
+      // Look up the command in the dispatch table and execute it
+      CommandHandler handler = commands.get(cmdInputCmd);
+      if (handler != null) {
+         handler.run(calcStack, calcStack2, cmdInput, cmdInputCmd, cmdInputParam);
+         return;
+      }
+
+      // Not a built-in command. Determine if it's a function, a number, or an error
+      ParseInput(calcStack, calcStack2, cmdInput, cmdInputCmd, cmdInputParam);
+   }
 
-            // Determine if the command is a user defined function and execute if it is
-            if (UserFunctions.FunctionExists(cmdInput)) {
-               Output.debugPrintln("Executing User Defined Function: '" + cmdInput + "'");
-               UserFunctions.FunctionRun(calcStack, calcStack2, cmdInput);
-               return;
+   /**
+    * ParseInput(): Process input that is not a built-in command such as user defined functions, numbers, fractions, percents,
+    * NumOps, and scientific notation
+    *
+    * @param calcStack     Primary stack
+    * @param calcStack2    Secondary stack
+    * @param cmdInput      Full command input
+    * @param cmdInputCmd   Entered command
+    * @param cmdInputParam Entered command parameter
+    */
+   private static void ParseInput(StackObj calcStack, StackObj calcStack2, String cmdInput, String cmdInputCmd, String cmdInputParam) {
+      // If the user provided input is blank, such as a space, output a debug message and just ignore it
+      if (cmdInput.isBlank()) {
+         Output.debugPrintln("The input was blank");
+         return;
+      }
+
+      // Determine if the command is a user defined function and execute if it is
+      if (UserFunctions.FunctionExists(cmdInput)) {
+         Output.debugPrintln("Executing User Defined Function: '" + cmdInput + "'");
+         UserFunctions.FunctionRun(calcStack, calcStack2, cmdInput);
+         return;
+      }
+
+      // Check for a fraction. If number entered contains a '/' but it's not at the end, then it must be a fraction
+      if (cmdInput.indexOf('/') >= 0 && !cmdInput.endsWith("/")) {
+         Output.debugPrintln("Fraction has been entered");
+         try {
+            BigDecimal fracInteger = BigDecimal.ZERO;
+            BigDecimal fracDecimalEquiv;
+
+            // If there wasn't an integer entered, move the fraction to the parameter variable
+            if (cmdInputCmd.contains("/")) {
+               cmdInputParam = cmdInputCmd;
+            } else {
+               fracInteger = new BigDecimal(cmdInputCmd);
             }
 
-            // Check for a fraction. If number entered contains a '/' but it's not at the end, then it must be a fraction
-            if (cmdInput.contains("/") && !cmdInput.substring(cmdInput.length() - 1).matches("/")) {
-               Output.debugPrintln("Fraction has been entered");
-               try {
-                  BigDecimal fracInteger = BigDecimal.ZERO;
-                  BigDecimal fracDecimalEquiv;
-
-                  // If there wasn't an integer entered, move the fraction to the parameter variable
-                  if (cmdInputCmd.contains("/")) {
-                     cmdInputParam = cmdInputCmd;
-                  } else {
-                     fracInteger = new BigDecimal(cmdInputCmd);
-                  }
+            BigDecimal fracTop = new BigDecimal(cmdInputParam.substring(0, cmdInputParam.indexOf('/')));
+            BigDecimal fracBottom = new BigDecimal(cmdInputParam.substring(cmdInputParam.indexOf('/') + 1));
 
-                  BigDecimal fracTop = new BigDecimal(cmdInputParam.substring(0, cmdInputParam.indexOf('/')));
-                  BigDecimal fracBottom = new BigDecimal(cmdInputParam.substring(cmdInputParam.indexOf('/') + 1));
+            Output.debugPrintln("Fraction Top:\t" + fracTop);
+            Output.debugPrintln("Fraction Bot:\t" + fracBottom);
 
-                  Output.debugPrintln("Fraction Top:\t" + fracTop);
-                  Output.debugPrintln("Fraction Bot:\t" + fracBottom);
+            // Divide the fraction and get a decimal equivalent
+            fracDecimalEquiv = fracTop.divide(fracBottom, Precision.inexact());
 
-                  // Divide the fraction and get a decimal equivalent
-                  fracDecimalEquiv = fracTop.divide(fracBottom, MathContext.DECIMAL128);
-
-                  // Overall decimal equivalent (integer + decimal)
-                  // If integer is negative, make the decimal negative, so we can add them
-                  if (fracInteger.signum() < 0) {
-                     fracDecimalEquiv = fracDecimalEquiv.multiply(new BigDecimal("-1"));
-                  }
-                  BigDecimal endResult = fracInteger.add(fracDecimalEquiv);
-
-                  // Simply convert the fraction to a decimal and add it to the stack
-                  Output.debugPrintln("Fraction Entered: '" + cmdInput + "' Equals Decimal: " + endResult);
-
-                  // Save current calcStack to the undoStack
-                  calcStack.saveUndo();
-
-                  // Add the decimal number to the stack and continue with next command
-                  calcStack.push(endResult);
-
-               } catch (NumberFormatException ex) {
-                  Output.printColorln(Output.RED, "Illegal Fraction Entered: '" + cmdInput + "'");
-                  return;
-               }
-
-               return;
+            // Overall decimal equivalent (integer + decimal)
+            // If integer is negative, make the decimal negative, so we can add them
+            if (fracInteger.signum() < 0) {
+               fracDecimalEquiv = fracDecimalEquiv.multiply(new BigDecimal("-1"));
             }
-
-            // Number entered, add to stack
-            if (cmdInputCmd.matches("^-?\\d*\\.?\\d*")) {
-               // Save current calcStack to the undoStack
-               calcStack.saveUndo();
-
-               Output.debugPrintln("Placing the number '" + cmdInputCmd + "' onto the stack");
-               calcStack.push(new BigDecimal(cmdInputCmd));
-
+            BigDecimal endResult = fracInteger.add(fracDecimalEquiv);
+
+            // Simply convert the fraction to a decimal and add it to the stack
+            Output.debugPrintln("Fraction Entered: '" + cmdInput + "' Equals Decimal: " + endResult);
+
+            // Save current calcStack to the undoStack
+            calcStack.saveUndo();
+
+            // Add the decimal number to the stack and continue with next command
+            calcStack.push(endResult);
+
+         } catch (NumberFormatException ex) {
+            ReportError("Illegal Fraction Entered: '" + cmdInput + "'");
+            return;
+         }
+
+         return;
+      }
+
+      // Number entered, add to stack
+      int literal = LexNumber(cmdInputCmd);
+      if (literal == LITERAL_NUMBER) {
+         // Save current calcStack to the undoStack
+         calcStack.saveUndo();
+
+         Output.debugPrintln("Placing the number '" + cmdInputCmd + "' onto the stack");
+         calcStack.push(new BigDecimal(cmdInputCmd));
+
+         return;
+      }
+
+      // If the number entered ends with a "%" then multiply by 0.01 and add that result to the stack
+      if (PERCENT.matcher(cmdInputCmd).matches()) {
+         // Save current calcStack to the undoStack
+         calcStack.saveUndo();
+
+         String num = "";
+         try {
+            num = cmdInputCmd.substring(0, cmdInputCmd.indexOf('%'));
+            calcStack.push(new BigDecimal(num));
+            calcStack.push("0.01");
+            Math.Multiply(calcStack);
+
+            Output.debugPrintln("Percent entered:  " + num + "% * 0.01 = " + calcStack.peek());
+
+         } catch (IndexOutOfBoundsException ex) {
+            ReportError("Unable to parse '" + cmdInputCmd + "'");
+            return;
+         } catch (ArithmeticException | NullPointerException ex) {
+            ReportError("Error multiplying " + num + " by 0.01");
+            return;
+         }
+
+         return;
+      }
+
+      // Handle NumOps - numbers with a single operand at the end (*, /, +, -, ^)
+      if (literal == LITERAL_NUMOP) {
+         // Save current calcStack to the undoStack
+         calcStack.saveUndo();
+
+         Output.debugPrintln("CalcStack has " + calcStack.size() + " elements");
+
+         // Verify stack contains at least one element
+         if (!calcStack.isEmpty()) {
+            try {
+               String tempOp = cmdInputCmd.substring(cmdInputCmd.length() - 1);
+               String tempNum = cmdInput.substring(0, cmdInput.length() - 1);
+               Output.debugPrintln("NumOp Found: Num= '" + tempNum + "'");
+               Output.debugPrintln("NumOp Found: Op = '" + tempOp + "'");
+               calcStack.push(new BigDecimal(tempNum));
+               Math.Parse(tempOp, calcStack);
+
+            } catch (NumberFormatException ex) {
+               // Prevents a crash if user enters "-+" (which they shouldn't do)
+               ReportError("Unknown Command: '" + cmdInput + "'");
                return;
             }
 
-            // If the number entered ends with a "%" then multiply by 0.01 and add that result to the stack
-            if (cmdInputCmd.matches("^\\S*\\d%$")) {
-               // Save current calcStack to the undoStack
-               calcStack.saveUndo();
-
-               String num = "";
-               try {
-                  num = cmdInputCmd.substring(0, cmdInputCmd.indexOf('%'));
-                  calcStack.push(new BigDecimal(num));
-                  calcStack.push("0.01");
-                  Math.Multiply(calcStack);
-
-                  Output.debugPrintln("Percent entered:  " + num + "% * 0.01 = " + calcStack.peek());
-
-               } catch (IndexOutOfBoundsException ex) {
-                  Output.printColorln(Output.RED, "Unable to parse '" + cmdInputCmd + "'");
-                  return;
-               } catch (ArithmeticException | NullPointerException ex) {
-                  Output.printColorln(Output.RED, "Error multiplying " + num + " by 0.01");
-                  return;
+         } else {
+            ReportError("One number is required to be on the stack to use a NumOp");
+         }
+
+         return;
+      }
+
+      // Scientific notation number entered
+      // Matches 'e', an optional + or -, and one or more digits
+      if (SCIENTIFIC.matcher(cmdInputCmd).find()) {
+         Output.debugPrintln("Scientific Number Entered");
+         // Make sure the digits before and after the 'e' are numbers
+         try {
+            String[] numberSplit = cmdInputCmd.toLowerCase().trim().replace(" ", "").split("e");
+            if (numberSplit.length == 2 && Math.isNumeric(numberSplit[0]) && Math.isNumeric(numberSplit[1])) {
+               // Ensure there is no decimal in the exponent portion
+               if (numberSplit[1].contains(".")) {
+                  throw new IllegalArgumentException();
                }
 
-               return;
-            }
-
-            // Handle NumOps - numbers with a single operand at the end (*, /, +, -, ^)
-            if (cmdInputCmd.matches("^-?\\d*\\.?\\d*[Ee]?\\d*[*+\\-/^]")) {
                // Save current calcStack to the undoStack
                calcStack.saveUndo();
 
-               Output.debugPrintln("CalcStack has " + calcStack.size() + " elements");
-
-               // Verify stack contains at least one element
-               if (!calcStack.isEmpty()) {
-                  try {
-                     String tempOp = cmdInputCmd.substring(cmdInputCmd.length() - 1);
-                     String tempNum = cmdInput.substring(0, cmdInput.length() - 1);
-                     Output.debugPrintln("NumOp Found: Num= '" + tempNum + "'");
-                     Output.debugPrintln("NumOp Found: Op = '" + tempOp + "'");
-                     calcStack.push(new BigDecimal(tempNum));
-                     Math.Parse(tempOp, calcStack);
-
-                  } catch (NumberFormatException ex) {
-                     // Prevents a crash if user enters "-+" (which they shouldn't do)
-                     Output.printColorln(Output.RED, "Unknown Command: '" + cmdInput + "'");
-                     return;
-                  }
-
-               } else {
-                  Output.printColorln(Output.RED, "One number is required to be on the stack to use a NumOp");
-               }
+               Output.debugPrintln("Adding the scientific notation number '" + cmdInputCmd + "' onto the stack");
+               calcStack.push(new BigDecimal(cmdInputCmd.toLowerCase()));
 
-               return;
+            } else {
+               throw new IllegalArgumentException();
             }
 
-            // Scientific notation number entered
-            // Matches 'e', an optional + or -, and one or more digits
-            if (cmdInputCmd.toLowerCase().matches(".*e[+-]?[0-9]+.*")) {
-               Output.debugPrintln("Scientific Number Entered");
-               // Make sure the digits before and after the 'e' are numbers
-               try {
-                  String[] numberSplit = cmdInputCmd.toLowerCase().trim().replace(" ", "").split("e");
-                  if (numberSplit.length == 2 && Math.isNumeric(numberSplit[0]) && Math.isNumeric(numberSplit[1])) {
-                     // Ensure there is no decimal in the exponent portion
-                     if (numberSplit[1].contains(".")) {
-                        throw new IllegalArgumentException();
-                     }
-
-                     // Save current calcStack to the undoStack
-                     calcStack.saveUndo();
-
-                     Output.debugPrintln("Adding the scientific notation number '" + cmdInputCmd + "' onto the stack");
-                     calcStack.push(new BigDecimal(cmdInputCmd.toLowerCase()));
-
-                  } else {
-                     throw new IllegalArgumentException();
-                  }
-
-               } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex) {
-                  Output.printColorln(Output.RED, "Illegal Scientific Notation Number Entered: '" + cmdInputCmd + "'");
-                  return;
-               }
+         } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex) {
+            ReportError("Illegal Scientific Notation Number Entered: '" + cmdInputCmd + "'");
+            return;
+         }
 
-               return;
-            }
+         return;
+      }
 
-            // If a user enters an invalid command, remove it from the recording if enabled
-            if (UserFunctions.recordingEnabled) {
-               Output.debugPrintln("Removing '" + UserFunctions.recording.getLast() + "' from the recording");
-               UserFunctions.RemoveItemFromRecording();
-            }
+      // If a user enters an invalid command, remove it from the recording if enabled
+      if (UserFunctions.recordingEnabled) {
+         Output.debugPrintln("Removing '" + UserFunctions.recording.getLast() + "' from the recording");
+         UserFunctions.RemoveItemFromRecording();
+      }
 
-            // Let user know a bad command was provided
-            Output.printColorln(Output.RED, "Unknown Command: '" + cmdInput + "'");
+      // Let user know a bad command was provided
+      ReportError("Unknown Command: '" + cmdInput + "'");
 
-            // Remove this invalid command from the command history
-            if (CommandHistory.size() > 1) CommandHistory.remove();
+      // Remove this invalid command from the command history
+      if (CommandHistory.size() > 1) CommandHistory.remove();
+   }
 
-            break;
+   /**
+    * LexNumber(): Single pass scan of the command to determine if it's a plain number or a NumOp (a number followed by one
+    * of * + - / ^). Accepts the same input as the regular expressions "^-?\\d*\\.?\\d*" (numbers, which must also contain at least
+    * one digit) and "^-?\\d*\\.?\\d*[Ee]?\\d*[*+\\-/^]" (NumOps)
+    *
+    * @param cmd Command to scan
+    * @return LITERAL_NUMBER, LITERAL_NUMOP, or LITERAL_NONE
+    */
+   static int LexNumber(String cmd) {
+      int len = cmd.length();
+      int i = 0;
+      boolean digits = false;
+
+      // Optional leading minus sign
+      if (i < len && cmd.charAt(i) == '-') i++;
+
+      // Integer digits, an optional decimal point, and fractional digits
+      while (i < len && isDigit(cmd.charAt(i))) {
+         i++;
+         digits = true;
+      }
+      if (i < len && cmd.charAt(i) == '.') i++;
+      while (i < len && isDigit(cmd.charAt(i))) {
+         i++;
+         digits = true;
+      }
+
+      if (i == len) {
+         return digits ? LITERAL_NUMBER : LITERAL_NONE;
+      }
+
+      // Optional exponent marker and digits, then exactly one trailing operand
+      if (cmd.charAt(i) == 'e' || cmd.charAt(i) == 'E') i++;
+      while (i < len && isDigit(cmd.charAt(i))) i++;
+
+      if (i == len - 1 && "*+-/^".indexOf(cmd.charAt(i)) >= 0) {
+         return LITERAL_NUMOP;
+      }
+
+      return LITERAL_NONE;
+   }
+
+   /**
+    * isDigit(): Return true if the character is an ASCII digit. Matches the regular expression '\\d' class
+    *
+    * @param c Character to check
+    * @return True if c is 0-9
+    */
+   private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   /**
+    * cmdFraction(): Display the fraction of the top of stack
+    *
+    * @param calcStack     Primary stack
+    * @param cmdInputParam Fraction denominator
+    */
+   private static void cmdFraction(StackObj calcStack, String cmdInputParam) {
+      String[] outString = StackConversions.cmdFraction(calcStack, cmdInputParam);
+      // If there wasn't an error (which would return an empty string), display the results
+      if (!outString[0].isEmpty()) {
+         Output.printColorln(Output.YELLOW, outString[0]);
+         Output.printColorln(Output.WHITE, outString[1]);
+         Output.printColorln(Output.YELLOW, outString[2]);
+      }
+   }
 
-      } // End of giant switch statement
+   /**
+    * cmdMem(): Process memory commands. Rewrites 'mem list' to 'list mem'
+    *
+    * @param calcStack     Primary stack
+    * @param calcStack2    Secondary stack
+    * @param cmdInput      Full command input
+    * @param cmdInputCmd   Entered command
+    * @param cmdInputParam Entered command parameter
+    */
+   private static void cmdMem(StackObj calcStack, StackObj calcStack2, String cmdInput, String cmdInputCmd, String cmdInputParam) {
+      // I often mistype 'mem list' instead of 'list mem' I'm going to allow that to work
+      if (cmdInput.toLowerCase().startsWith("mem list")) {
+         Output.printColorln(Output.CYAN, "Rewriting command to 'list mem'");
+         CommandParser.Parse(calcStack, calcStack2, "list mem", "list", "mem");
+      } else {
+         StackMemory.cmdMem(calcStack, cmdInputParam);
+      }
+   }
 
+   /**
+    * cmdExit(): Stop the main command loop
+    */
+   private static void cmdExit() {
+      Output.debugPrintln("Exiting Command Loop");
+      Main.ProcessCommandLoop = false;
    }
 
-}
\ No newline at end of file
+}
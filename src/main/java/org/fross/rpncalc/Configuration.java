@@ -45,6 +45,12 @@ public class Configuration {
          Output.printColorln(Output.CYAN, String.format("Width:     %02d\t|  Sets the program width in characters", Main.configProgramWidth));
          Output.printColorln(Output.CYAN, "Align:      " + Main.configAlignment + "\t|  Set display alignment. Values: (l)eft, (d)ecimal, (r)ight");
          Output.printColorln(Output.CYAN, String.format("MemSlots:  %02d\t|  Sets number of available memory slots", Main.configMemorySlots));
+         Output.printColorln(Output.CYAN, String.format("Rows:      %02d\t|  Sets the number of stack rows displayed. 0 displays all", Main.configDisplayRows));
+         Output.printColorln(Output.CYAN, String.format("Undo:      %d\t|  Sets the maximum number of undo levels", Main.configUndoLevels));
+         Output.printColorln(Output.CYAN, String.format("UndoMem:   %dMB\t|  Sets the memory budget for the undo history", Main.configUndoMemory));
+         Output.printColorln(Output.CYAN, "UndoSpill: " + (Main.configUndoSpill ? "on" : "off") + "\t|  Spill evicted undo levels to a file in the temp directory");
+         Output.printColorln(Output.CYAN, "Precision: " + Precision.describe(Main.configPrecision) + "\t|  Significant digits kept in results");
+         Output.printColorln(Output.CYAN, "ScaleCap:  " + Precision.describe(Main.configScaleCap) + "\t|  Decimal places kept by exact math with unlimited precision");
          Output.printColorln(Output.CYAN, "Browser Path:      " + prefConfig.get("browser", "<Not Configured>"));
          Output.printColorln(Output.YELLOW, "-".repeat(Main.configProgramWidth) + "\n");
          return;
@@ -63,24 +69,26 @@ public class Configuration {
             case "alignment":
                value = value.toLowerCase();
                if (value.compareTo("l") != 0 && value.compareTo("d") != 0 && value.compareTo("r") != 0) {
-                  Output.printColorln(Output.RED, "Alignment can only be 'l'eft, 'd'ecimal, or 'r'ight. See help for usage");
+                  CommandParser.ReportError("Alignment can only be 'l'eft, 'd'ecimal, or 'r'ight. See help for usage");
                   return;
                }
                Main.configAlignment = value;
                Output.debugPrintln("Saving Alignment value to preferences");
                prefConfig.put("alignment", value);
+               Persistence.MarkConfig();
                Output.printColorln(Output.CYAN, "Alignment set to '" + value + "'");
                break;
 
             case "width":
                value = value.toLowerCase();
                if (Integer.parseInt(value) < Main.PROGRAM_MINIMUM_WIDTH) {
-                  Output.printColorln(Output.RED, "Error.  Minimum width is " + Main.PROGRAM_MINIMUM_WIDTH + ". Setting width to that value.");
+                  CommandParser.ReportError("Error.  Minimum width is " + Main.PROGRAM_MINIMUM_WIDTH + ". Setting width to that value.");
                   value = "" + Main.PROGRAM_MINIMUM_WIDTH;
                }
                Main.configProgramWidth = Integer.parseInt(value);
                Output.debugPrintln("Saving Program Width value to preferences");
                prefConfig.putInt("programwidth", Integer.parseInt(value));
+               Persistence.MarkConfig();
                Output.printColorln(Output.CYAN, "Program Width set to '" + value + "'");
                break;
 
@@ -92,16 +100,86 @@ public class Configuration {
                }
                break;
 
+            case "rows":
+            case "displayrows":
+               if (Integer.parseInt(value) < 0) {
+                  CommandParser.ReportError("Error.  The number of rows must be 0 (display all) or more");
+                  return;
+               }
+               Main.configDisplayRows = Integer.parseInt(value);
+               Output.debugPrintln("Saving Display Rows value to preferences");
+               prefConfig.putInt("displayrows", Main.configDisplayRows);
+               Persistence.MarkConfig();
+               Output.printColorln(Output.CYAN, "Display Rows set to '" + value + "'");
+               break;
+
+            case "undo":
+            case "undolevels":
+               if (Integer.parseInt(value) < 1) {
+                  CommandParser.ReportError("Error.  There must be at least 1 undo level");
+                  return;
+               }
+               Main.configUndoLevels = Integer.parseInt(value);
+               Output.debugPrintln("Saving Undo Levels value to preferences");
+               prefConfig.putInt("undolevels", Main.configUndoLevels);
+               Persistence.MarkConfig();
+               Output.printColorln(Output.CYAN, "Undo Levels set to '" + value + "'");
+               break;
+
+            case "undomem":
+            case "undomemory":
+               if (Integer.parseInt(value) < 1) {
+                  CommandParser.ReportError("Error.  The undo memory budget must be at least 1MB");
+                  return;
+               }
+               Main.configUndoMemory = Integer.parseInt(value);
+               Output.debugPrintln("Saving Undo Memory value to preferences");
+               prefConfig.putInt("undomemory", Main.configUndoMemory);
+               Persistence.MarkConfig();
+               Output.printColorln(Output.CYAN, "Undo Memory set to '" + value + "MB'");
+               break;
+
+            case "undospill":
+               value = value.toLowerCase();
+               if (value.compareTo("on") != 0 && value.compareTo("off") != 0) {
+                  CommandParser.ReportError("Undo spill can only be 'on' or 'off'. See help for usage");
+                  return;
+               }
+               Main.configUndoSpill = value.compareTo("on") == 0;
+               Output.debugPrintln("Saving Undo Spill value to preferences");
+               prefConfig.putBoolean("undospill", Main.configUndoSpill);
+               Persistence.MarkConfig();
+               Output.printColorln(Output.CYAN, "Undo Spill set to '" + value + "'");
+               break;
+
+            case "precision":
+               Main.configPrecision = Precision.parse(value);
+               Output.debugPrintln("Saving Precision value to preferences");
+               prefConfig.putInt("precision", Main.configPrecision);
+               Persistence.MarkConfig();
+               UserFunctions.RecompileFunctions();
+               Output.printColorln(Output.CYAN, "Precision set to '" + Precision.describe(Main.configPrecision) + "'");
+               break;
+
+            case "scalecap":
+               Main.configScaleCap = Precision.parse(value);
+               Output.debugPrintln("Saving Scale Cap value to preferences");
+               prefConfig.putInt("scalecap", Main.configScaleCap);
+               Persistence.MarkConfig();
+               UserFunctions.RecompileFunctions();
+               Output.printColorln(Output.CYAN, "Scale Cap set to '" + Precision.describe(Main.configScaleCap) + "'");
+               break;
+
             case "browser":
                Browser.ConfigureBrowser(value);
                break;
 
             default:
-               Output.printColorln(Output.RED, "ERROR: Unknown set command: '" + command + "'");
+               CommandParser.ReportError("ERROR: Unknown set command: '" + command + "'");
          }
 
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "Error parsing set command: 'set " + arg + "'  See help for set command usage");
+         CommandParser.ReportError("Error parsing set command: 'set " + arg + "'  See help for set command usage");
       }
    }
 
@@ -109,7 +187,7 @@ public class Configuration {
     * cmdReset(): Resets the configuration variables back to default
     */
    public static void cmdReset() {
-      Output.printColorln(Output.CYAN, "Alignment, Width, and Memory slots reset to default values");
+      Output.printColorln(Output.CYAN, "Alignment, Width, Memory slots, Display rows, Undo, and Precision settings reset to default values");
       Preferences prefConfig = Preferences.userRoot().node("/org/fross/rpn/config");
 
       // Reset Alignment
@@ -124,6 +202,27 @@ public class Configuration {
       StackMemory.SetMaxMemorySlots(Main.CONFIG_DEFAULT_MEMORY_SLOTS + "");
       prefConfig.putInt("memoryslots", Main.CONFIG_DEFAULT_MEMORY_SLOTS);
       Main.configMemorySlots = Main.CONFIG_DEFAULT_MEMORY_SLOTS;
+
+      // Reset the number of rows displayed
+      prefConfig.putInt("displayrows", Main.CONFIG_DEFAULT_DISPLAY_ROWS);
+      Main.configDisplayRows = Main.CONFIG_DEFAULT_DISPLAY_ROWS;
+
+      // Reset the Undo settings
+      prefConfig.putInt("undolevels", Main.CONFIG_DEFAULT_UNDO_LEVELS);
+      Main.configUndoLevels = Main.CONFIG_DEFAULT_UNDO_LEVELS;
+      prefConfig.putInt("undomemory", Main.CONFIG_DEFAULT_UNDO_MEMORY);
+      Main.configUndoMemory = Main.CONFIG_DEFAULT_UNDO_MEMORY;
+      prefConfig.putBoolean("undospill", Main.CONFIG_DEFAULT_UNDO_SPILL);
+      Main.configUndoSpill = Main.CONFIG_DEFAULT_UNDO_SPILL;
+
+      // Reset the precision settings
+      prefConfig.putInt("precision", Main.CONFIG_DEFAULT_PRECISION);
+      Main.configPrecision = Main.CONFIG_DEFAULT_PRECISION;
+      prefConfig.putInt("scalecap", Main.CONFIG_DEFAULT_SCALE_CAP);
+      Main.configScaleCap = Main.CONFIG_DEFAULT_SCALE_CAP;
+      UserFunctions.RecompileFunctions();
+
+      Persistence.MarkConfig();
    }
 
 }
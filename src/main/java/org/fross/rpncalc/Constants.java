@@ -0,0 +1,261 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Constants: PI, e, PHI and Euler's constant computed to any precision. Each value is computed the first time a
+ * precision is requested and cached, so pushing a constant again returns the same BigDecimal. When a higher precision is
+ * computed, lower precisions are rounded from it instead of starting over.
+ * <ul>
+ * <li>PI: Chudnovsky series with binary splitting</li>
+ * <li>e: sum of 1/k! with binary splitting</li>
+ * <li>PHI: (1 + sqrt(5)) / 2</li>
+ * <li>Euler's constant (gamma): Brent-McMillan algorithm in fixed point</li>
+ * </ul>
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Constants {
+   // Extra digits computed beyond the request so the rounded result is correct
+   private static final int GUARD_DIGITS = 10;
+
+   // log2(10), used to convert decimal digits to bits
+   private static final double BITS_PER_DIGIT = 3.3219280948873626;
+
+   // Chudnovsky series values
+   private static final BigInteger CHUDNOVSKY_A = BigInteger.valueOf(13591409);
+   private static final BigInteger CHUDNOVSKY_B = BigInteger.valueOf(545140134);
+   private static final BigInteger CHUDNOVSKY_C3_OVER_24 = BigInteger.valueOf(640320).pow(3).divide(BigInteger.valueOf(24));
+   private static final double CHUDNOVSKY_DIGITS_PER_TERM = 14.181647462725477;
+
+   private static final CachedConstant PI = new CachedConstant(Constants::computePi);
+   private static final CachedConstant E = new CachedConstant(Constants::computeE);
+   private static final CachedConstant PHI = new CachedConstant(Constants::computePhi);
+   private static final CachedConstant GAMMA = new CachedConstant(Constants::computeGamma);
+
+   /**
+    * pi(): PI to the requested precision
+    *
+    * @param mc Precision
+    * @return PI
+    */
+   public static BigDecimal pi(MathContext mc) {
+      return PI.get(mc);
+   }
+
+   /**
+    * e(): Euler's number to the requested precision
+    *
+    * @param mc Precision
+    * @return e
+    */
+   public static BigDecimal e(MathContext mc) {
+      return E.get(mc);
+   }
+
+   /**
+    * phi(): The golden ratio to the requested precision
+    *
+    * @param mc Precision
+    * @return PHI
+    */
+   public static BigDecimal phi(MathContext mc) {
+      return PHI.get(mc);
+   }
+
+   /**
+    * gamma(): Euler's constant (Euler-Mascheroni) to the requested precision
+    *
+    * @param mc Precision
+    * @return gamma
+    */
+   public static BigDecimal gamma(MathContext mc) {
+      return GAMMA.get(mc);
+   }
+
+   /**
+    * CachedConstant: Holds the most precise value computed so far and the values already rounded for each MathContext
+    */
+   private static class CachedConstant {
+      private final IntFunction<BigDecimal> compute;
+      private final Map<MathContext, BigDecimal> rounded = new HashMap<>();
+      private BigDecimal master = null;
+      private int masterDigits = 0;
+
+      CachedConstant(IntFunction<BigDecimal> compute) {
+         this.compute = compute;
+      }
+
+      synchronized BigDecimal get(MathContext mc) {
+         if (mc.getPrecision() <= 0) {
+            throw new IllegalArgumentException("A limited precision is required for constants");
+         }
+
+         BigDecimal value = rounded.get(mc);
+         if (value == null) {
+            if (masterDigits < mc.getPrecision()) {
+               master = compute.apply(mc.getPrecision() + GUARD_DIGITS);
+               masterDigits = mc.getPrecision();
+            }
+            value = master.round(mc);
+            rounded.put(mc, value);
+         }
+         return value;
+      }
+   }
+
+   /**
+    * computePi(): PI = 426880 * sqrt(10005) * Q / T where T / Q is the Chudnovsky series summed by binary splitting
+    */
+   private static BigDecimal computePi(int digits) {
+      MathContext mc = new MathContext(digits, RoundingMode.HALF_EVEN);
+      int terms = (int) (digits / CHUDNOVSKY_DIGITS_PER_TERM) + 1;
+
+      BigInteger[] pqt = chudnovsky(0, terms);
+      BigDecimal root = sqrt(10005, digits);
+      return root.multiply(BigDecimal.valueOf(426880)).multiply(new BigDecimal(pqt[1])).divide(new BigDecimal(pqt[2]), mc);
+   }
+
+   /**
+    * chudnovsky(): Binary splitting of the Chudnovsky series over terms a to b-1. Returns {P, Q, T}
+    */
+   private static BigInteger[] chudnovsky(int a, int b) {
+      if (b - a == 1) {
+         BigInteger p;
+         BigInteger q;
+         if (a == 0) {
+            p = BigInteger.ONE;
+            q = BigInteger.ONE;
+         } else {
+            long k = a;
+            p = BigInteger.valueOf(6 * k - 5).multiply(BigInteger.valueOf(2 * k - 1)).multiply(BigInteger.valueOf(6 * k - 1));
+            q = BigInteger.valueOf(k).pow(3).multiply(CHUDNOVSKY_C3_OVER_24);
+         }
+         BigInteger t = p.multiply(CHUDNOVSKY_A.add(CHUDNOVSKY_B.multiply(BigInteger.valueOf(a))));
+         if ((a & 1) == 1) t = t.negate();
+         return new BigInteger[]{p, q, t};
+      }
+
+      int m = (a + b) >>> 1;
+      BigInteger[] left = chudnovsky(a, m);
+      BigInteger[] right = chudnovsky(m, b);
+      return new BigInteger[]{
+            left[0].multiply(right[0]),
+            left[1].multiply(right[1]),
+            left[2].multiply(right[1]).add(left[0].multiply(right[2]))};
+   }
+
+   /**
+    * sqrt(): Square root of a small integer to the given number of decimal places
+    */
+   private static BigDecimal sqrt(long value, int digits) {
+      BigInteger scaled = BigInteger.valueOf(value).multiply(BigInteger.TEN.pow(2 * digits));
+      return new BigDecimal(Transcendental.isqrt(scaled), digits);
+   }
+
+   /**
+    * computeE(): e = 1 + sum(1/k!) with the series summed by binary splitting
+    */
+   private static BigDecimal computeE(int digits) {
+      MathContext mc = new MathContext(digits, RoundingMode.HALF_EVEN);
+
+      // Enough terms that 1/n! is below the precision
+      int n = 1;
+      double log10Factorial = 0;
+      while (log10Factorial < digits + 1) {
+         n++;
+         log10Factorial += java.lang.Math.log10(n);
+      }
+
+      BigInteger[] pq = factorialSeries(0, n);
+      return BigDecimal.ONE.add(new BigDecimal(pq[0]).divide(new BigDecimal(pq[1]), mc), mc);
+   }
+
+   /**
+    * factorialSeries(): Binary splitting of sum over k = a+1..b of 1 / ((a+1)(a+2)...k). Returns {P, Q} where
+    * Q = (a+1)(a+2)...b and P / Q is the sum
+    */
+   private static BigInteger[] factorialSeries(int a, int b) {
+      if (b - a == 1) {
+         return new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(b)};
+      }
+
+      int m = (a + b) >>> 1;
+      BigInteger[] left = factorialSeries(a, m);
+      BigInteger[] right = factorialSeries(m, b);
+      return new BigInteger[]{left[0].multiply(right[1]).add(right[0]), left[1].multiply(right[1])};
+   }
+
+   /**
+    * computePhi(): PHI = (1 + sqrt(5)) / 2
+    */
+   private static BigDecimal computePhi(int digits) {
+      MathContext mc = new MathContext(digits, RoundingMode.HALF_EVEN);
+      return BigDecimal.ONE.add(sqrt(5, digits)).divide(BigDecimal.valueOf(2), mc);
+   }
+
+   /**
+    * computeGamma(): Brent-McMillan algorithm. With B(0) = 1, A(0) = -ln(n) and for k > 0
+    * B(k) = B(k-1) * n^2 / k^2 and A(k) = (A(k-1) * n^2 / k + B(k)) / k, gamma = sum(A) / sum(B) with an error of about
+    * e^(-4n). The terms grow to about e^(2n) before shrinking so they are kept in fixed point with enough extra bits
+    */
+   private static BigDecimal computeGamma(int digits) {
+      MathContext mc = new MathContext(digits, RoundingMode.HALF_EVEN);
+
+      // e^(-4n) < 10^-digits
+      int n = (int) java.lang.Math.ceil(digits * java.lang.Math.log(10) / 4) + 1;
+      int bits = (int) java.lang.Math.ceil(digits * BITS_PER_DIGIT) + 32;
+      MathContext lnContext = new MathContext(digits + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+
+      BigDecimal lnN = Transcendental.ln(BigDecimal.valueOf(n), lnContext);
+      BigInteger a = lnN.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(bits))).setScale(0, RoundingMode.HALF_EVEN).toBigInteger().negate();
+      BigInteger b = BigInteger.ONE.shiftLeft(bits);
+      BigInteger u = a;
+      BigInteger v = b;
+      BigInteger n2 = BigInteger.valueOf((long) n * n);
+
+      for (long k = 1; ; k++) {
+         BigInteger bigK = BigInteger.valueOf(k);
+         b = b.multiply(n2).divide(bigK.multiply(bigK));
+         a = a.multiply(n2).divide(bigK).add(b).divide(bigK);
+         if (a.signum() == 0 && b.signum() == 0) break;
+         u = u.add(a);
+         v = v.add(b);
+      }
+
+      return new BigDecimal(u).divide(new BigDecimal(v), mc);
+   }
+
+}
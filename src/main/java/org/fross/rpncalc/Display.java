@@ -29,10 +29,17 @@ package org.fross.rpncalc;
 import org.fross.library.Output;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 import static org.fross.rpncalc.Main.configProgramWidth;
 
 public class Display {
+   // Cache of formatted stack rows, indexed by stack position (0 is the bottom of the stack). A row is only formatted
+   // again when the value at that position is a different object than the one that was formatted
+   private static BigDecimal[] cachedValues = new BigDecimal[0];
+   private static String[] cachedRows = new String[0];
+   private static int[] cachedDecimalIndexes = new int[0];
+   private static int cachedSize = 0;
 
    /**
     * Comma(BigDecimal): Add comma's to the integer portion and return a string
@@ -89,6 +96,90 @@ public class Display {
          return str.indexOf(".");
    }
 
+   /**
+    * ShowStack(): Display the stack contents with the configured alignment. Only the top rows, set with 'set rows', are
+    * displayed with a line showing how many are hidden. Formatted rows are cached so only changed values are formatted
+    *
+    * @param calcStack Stack to display
+    */
+   public static void ShowStack(StackObj calcStack) {
+      int size = calcStack.size();
+      int first = (Main.configDisplayRows > 0) ? java.lang.Math.max(0, size - Main.configDisplayRows) : 0;
+      int maxDigitsBeforeDecimal = 0;
+      int maxLenOfNumbers = 0;
+
+      updateRowCache(calcStack, first);
+
+      // Determine the alignment using the rows that will be displayed
+      for (int i = first; i < size; i++) {
+         maxDigitsBeforeDecimal = java.lang.Math.max(maxDigitsBeforeDecimal, cachedDecimalIndexes[i]);
+         maxLenOfNumbers = java.lang.Math.max(maxLenOfNumbers, cachedRows[i].length());
+      }
+
+      // Output information for alignment debugging
+      Output.debugPrintln("Alignment: Max digits before the decimal: " + maxDigitsBeforeDecimal);
+      Output.debugPrintln("Alignment: Max length of longest item in stack: " + maxLenOfNumbers);
+
+      // Let the user know how many items are not being displayed
+      if (first > 0) {
+         Output.printColorln(Output.CYAN, "... " + first + " more item" + (first == 1 ? "" : "s") + " not displayed ('set rows' to change)");
+      }
+
+      // Display the current stack contents
+      for (int i = first; i < size; i++) {
+         String currentStackItem = cachedRows[i];
+
+         // Display Stack Row Number without a newline
+         String stkLineNumber = String.format("%0" + Main.LINE_NUMBER_DIGITS + "d:  ", size - i);
+         Output.printColor(Output.CYAN, stkLineNumber);
+
+         // DECIMAL ALIGNMENT: Insert spaces before number to align to the decimal point
+         if (Main.configAlignment.compareTo("d") == 0) {
+            Output.print(" ".repeat(maxDigitsBeforeDecimal - cachedDecimalIndexes[i]));
+         }
+
+         // RIGHT ALIGNMENT: Insert spaces before number to right align
+         if (Main.configAlignment.compareTo("r") == 0) {
+            Output.print(" ".repeat(maxLenOfNumbers - currentStackItem.length()));
+         }
+
+         // Now that the spaces are inserted (for decimal/right) display the number
+         Output.printColorln(Output.WHITE, currentStackItem.trim());
+      }
+   }
+
+   /**
+    * updateRowCache(): Format any rows from the first displayed row to the top of the stack that have changed
+    */
+   private static void updateRowCache(StackObj calcStack, int first) {
+      int size = calcStack.size();
+
+      if (cachedValues.length < size) {
+         int newLength = java.lang.Math.max(size, cachedValues.length * 2);
+         cachedValues = Arrays.copyOf(cachedValues, newLength);
+         cachedRows = Arrays.copyOf(cachedRows, newLength);
+         cachedDecimalIndexes = Arrays.copyOf(cachedDecimalIndexes, newLength);
+      } else if (size < cachedSize) {
+         // Release rows for values no longer on the stack
+         Arrays.fill(cachedValues, size, cachedSize, null);
+         Arrays.fill(cachedRows, size, cachedSize, null);
+      }
+      cachedSize = size;
+
+      for (int i = first; i < size; i++) {
+         BigDecimal value = calcStack.get(i);
+         if (cachedValues[i] == value) continue;
+
+         // Add commas to the number if it's not in scientific notation
+         String plain = value.toPlainString();
+         String row = plain.toLowerCase().contains("e") ? plain.toLowerCase() : Comma(value);
+
+         cachedValues[i] = value;
+         cachedRows[i] = row;
+         cachedDecimalIndexes[i] = queryDecimalIndex(row);
+      }
+   }
+
    /**
     * DisplayStatusLine(): Display the last line of the header and the separator line. This is a separate function given it also
     * inserts the loaded stack and spaces everything correctly.
@@ -97,7 +188,7 @@ public class Display {
       // Format the number of memory slots used
       String sfMem = String.format("Mem:%02d", StackMemory.QueryInUseMemorySlots());
 
-      // Format the undo level to 2 digits. Can't image I'd need over 99 undo levels
+      // Format the undo level to at least 2 digits. The number of undo levels is set with 'set undo'
       String sfUndo = String.format("Undo:%02d", calcStack.undoSize());
 
       // Determine how many dashes to use after remove space for the undo and stack name
@@ -0,0 +1,167 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.io.Serial;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Factorial: Compute n! with binary splitting. The product 1 * 2 * ... * n is split in half recursively so the numbers
+ * being multiplied are always of similar size, which lets BigInteger use its faster multiplication algorithms instead of
+ * multiplying a huge accumulator by a tiny factor n times. The factors of two are pulled out and applied at the end as a
+ * single shift. Large ranges are split across the common ForkJoin pool and the final large multiplications use
+ * BigInteger.parallelMultiply().
+ * <p>
+ * The most recently used results are kept in a small LRU cache.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Factorial {
+   // Largest n accepted. 1,000,000! has about 5.5 million digits
+   public static final int MAX_INPUT = 1000000;
+
+   // Ranges this small are multiplied in a simple loop
+   private static final int LEAF_SIZE = 32;
+
+   // Ranges larger than this are split into parallel tasks
+   private static final int PARALLEL_THRESHOLD = 4096;
+
+   // Products with more bits than this use the parallel multiply
+   private static final int PARALLEL_MULTIPLY_BITS = 200000;
+
+   // Number of results to keep
+   private static final int CACHE_SIZE = 16;
+
+   private static final Map<Integer, BigInteger> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, BigInteger> eldest) {
+         return size() > CACHE_SIZE;
+      }
+   };
+
+   /**
+    * compute(): Return n! Values less than 2 return 1
+    *
+    * @param n Number to take the factorial of
+    * @return n!
+    */
+   public static BigInteger compute(int n) {
+      if (n < 2) return BigInteger.ONE;
+
+      synchronized (cache) {
+         BigInteger cached = cache.get(n);
+         if (cached != null) return cached;
+      }
+
+      // n! = oddProduct * 2^shift where oddProduct is the product of 2..n with the factors of two removed
+      RangeProduct task = new RangeProduct(2, n);
+      BigInteger oddProduct = (n > PARALLEL_THRESHOLD) ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+      BigInteger result = oddProduct.shiftLeft(n - Integer.bitCount(n));
+
+      synchronized (cache) {
+         cache.put(n, result);
+      }
+      return result;
+   }
+
+   /**
+    * clearCache(): Remove all cached results
+    */
+   static void clearCache() {
+      synchronized (cache) {
+         cache.clear();
+      }
+   }
+
+   /**
+    * multiply(): Multiply two values, using the parallel algorithm when both are large
+    */
+   private static BigInteger multiply(BigInteger a, BigInteger b) {
+      if (a.bitLength() > PARALLEL_MULTIPLY_BITS && b.bitLength() > PARALLEL_MULTIPLY_BITS) {
+         return a.parallelMultiply(b);
+      }
+      return a.multiply(b);
+   }
+
+   /**
+    * RangeProduct: The product of the odd parts of the numbers lo to hi inclusive
+    */
+   private static class RangeProduct extends RecursiveTask<BigInteger> {
+      @Serial
+      private static final long serialVersionUID = 1L;
+
+      private final int lo;
+      private final int hi;
+
+      RangeProduct(int lo, int hi) {
+         this.lo = lo;
+         this.hi = hi;
+      }
+
+      @Override
+      protected BigInteger compute() {
+         if (hi - lo < LEAF_SIZE) {
+            return leafProduct();
+         }
+
+         int mid = (lo + hi) >>> 1;
+         RangeProduct left = new RangeProduct(lo, mid);
+         RangeProduct right = new RangeProduct(mid + 1, hi);
+
+         if (hi - lo > PARALLEL_THRESHOLD && getPool() != null) {
+            right.fork();
+            BigInteger leftResult = left.compute();
+            return multiply(leftResult, right.join());
+         }
+         return multiply(left.compute(), right.compute());
+      }
+
+      /**
+       * leafProduct(): Multiply the range in a loop. Factors are collected in a long until it would overflow
+       */
+      private BigInteger leafProduct() {
+         BigInteger result = BigInteger.ONE;
+         long packed = 1;
+
+         for (int i = lo; i <= hi; i++) {
+            long factor = i >>> Integer.numberOfTrailingZeros(i);
+            if (packed > Long.MAX_VALUE / factor) {
+               result = result.multiply(BigInteger.valueOf(packed));
+               packed = 1;
+            }
+            packed *= factor;
+         }
+
+         return result.multiply(BigInteger.valueOf(packed));
+      }
+   }
+
+}
@@ -0,0 +1,227 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FunctionOptimizer: Peephole optimizer for the steps of a user defined function. The recorder saves every command
+ * verbatim, so functions often contain constant arithmetic such as '2', '3', '*' or shuffles that cancel out such as
+ * 'swap', 'swap'. The optimizer rewrites these until no rule applies:
+ * <p>
+ * - Two numbers followed by +, - or * are folded into the result<br>
+ * - 'swap swap' and 'flip flip' are removed<br>
+ * - 'dup' or a number followed by a plain 'd' (delete the top item) is removed
+ * <p>
+ * Each rewrite is checked before it is accepted by running the original steps and the replacement on scratch stacks of
+ * several depths and comparing the results. With fewer items than a command needs, these commands leave the stack
+ * unchanged, so the replacement gives the same stack there too.
+ * <p>
+ * Every recorded step saves its own undo point, and the rewrites remove steps, so a later 'undo' would go back to a
+ * different stack. Functions that undo, or that call another user defined function which might, are left as recorded.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class FunctionOptimizer {
+   // Depths of the scratch stacks used to check a rewrite, starting at the number of items the steps require
+   private static final int VERIFY_DEPTHS = 3;
+
+   /**
+    * Optimize(): Return the optimized list of steps. The original list is not modified
+    *
+    * @param steps         Steps as recorded
+    * @param functionNames Names of all user defined functions. Steps with these names are never treated as numbers
+    * @return Optimized steps
+    */
+   public static List<String> Optimize(List<String> steps, Set<String> functionNames) {
+      List<String> result = new ArrayList<>(steps);
+      if (readsUndo(steps, functionNames)) return result;
+
+      boolean changed = true;
+      while (changed) {
+         changed = false;
+         for (int i = 0; i < result.size() && !changed; i++) {
+            changed = rewrite(result, i, functionNames);
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * rewrite(): Apply the first rule that matches at position i
+    *
+    * @param steps         Steps being optimized
+    * @param i             Position to check
+    * @param functionNames Names of all user defined functions
+    * @return True if the steps were changed
+    */
+   private static boolean rewrite(List<String> steps, int i, Set<String> functionNames) {
+      String first = steps.get(i);
+      String second = i + 1 < steps.size() ? steps.get(i + 1) : null;
+      String third = i + 2 < steps.size() ? steps.get(i + 2) : null;
+
+      // Constant folding: number number operand
+      if (third != null && isNumber(first, functionNames) && isNumber(second, functionNames)
+            && (third.equals("+") || third.equals("-") || third.equals("*"))) {
+         StackObj scratch = new StackObj();
+         execute(scratch, steps.subList(i, i + 3));
+         List<String> replacement = List.of(scratch.peek().toPlainString());
+         return replace(steps, i, 3, replacement, 0);
+      }
+
+      if (second == null) return false;
+
+      // Shuffles that cancel out
+      if ((isCommand(first, "swap", "s") && isCommand(second, "swap", "s")) || (isCommand(first, "flip", "f") && isCommand(second, "flip", "f"))) {
+         return replace(steps, i, 2, List.of(), isCommand(first, "swap", "s") ? 2 : 1);
+      }
+
+      // Pushing a value and deleting it
+      if ((isCommand(first, "dup", "copy") || isNumber(first, functionNames)) && isCommand(second, "delete", "del", "d")) {
+         return replace(steps, i, 2, List.of(), isNumber(first, functionNames) ? 0 : 1);
+      }
+
+      return false;
+   }
+
+   /**
+    * replace(): Replace count steps at position i with the replacement if both leave the same stack
+    *
+    * @param steps       Steps being optimized
+    * @param i           Position of the first step to replace
+    * @param count       Number of steps to replace
+    * @param replacement Replacement steps
+    * @param required    Number of items the steps need on the stack
+    * @return True if the replacement was made
+    */
+   private static boolean replace(List<String> steps, int i, int count, List<String> replacement, int required) {
+      List<String> original = steps.subList(i, i + count);
+      if (!equivalent(original, replacement, required)) {
+         return false;
+      }
+
+      original.clear();
+      steps.addAll(i, replacement);
+      return true;
+   }
+
+   /**
+    * equivalent(): Run both lists of steps on scratch stacks and return true if the final stacks are identical
+    *
+    * @param original    Original steps
+    * @param replacement Replacement steps
+    * @param required    Number of items the steps need on the stack
+    * @return True if the stacks match at every depth checked
+    */
+   static boolean equivalent(List<String> original, List<String> replacement, int required) {
+      for (int depth = required; depth < required + VERIFY_DEPTHS; depth++) {
+         StackObj a = scratchStack(depth);
+         StackObj b = scratchStack(depth);
+         execute(a, original);
+         execute(b, replacement);
+         if (!a.getStack().equals(b.getStack())) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * scratchStack(): Create a stack holding depth distinct values
+    *
+    * @param depth Number of items
+    * @return New stack
+    */
+   private static StackObj scratchStack(int depth) {
+      StackObj stk = new StackObj();
+      for (int i = 0; i < depth; i++) {
+         stk.push(BigDecimal.valueOf(17L * (i + 1), i));
+      }
+      return stk;
+   }
+
+   /**
+    * execute(): Run steps on a stack
+    *
+    * @param stk   Stack to use
+    * @param steps Steps to run
+    */
+   private static void execute(StackObj stk, List<String> steps) {
+      for (String step : steps) {
+         String[] ci = step.toLowerCase().trim().split("\\s+", 2);
+         CommandParser.Parse(stk, stk, step, ci[0], ci.length > 1 ? ci[1] : "");
+      }
+   }
+
+   /**
+    * readsUndo(): Return true if a step could use the undo history: an undo command or a call to another user defined
+    * function
+    *
+    * @param steps         Steps to check
+    * @param functionNames Names of all user defined functions
+    * @return True if the steps could undo
+    */
+   static boolean readsUndo(List<String> steps, Set<String> functionNames) {
+      for (String step : steps) {
+         String cmd = step.toLowerCase().trim().split("\\s+", 2)[0];
+         if (isCommand(cmd, "undo", "u") || functionNames.contains(step)) return true;
+      }
+      return false;
+   }
+
+   /**
+    * isNumber(): Return true if the step is a plain number that is compiled to a literal
+    *
+    * @param step          Step to check
+    * @param functionNames Names of all user defined functions
+    * @return True if the step is a number
+    */
+   static boolean isNumber(String step, Set<String> functionNames) {
+      if (functionNames.contains(step)) return false;
+      String cmd = step.indexOf(',') >= 0 ? step.replace(",", "") : step;
+      return !CommandParser.isCommand(cmd) && CommandParser.LexNumber(cmd) == CommandParser.LITERAL_NUMBER;
+   }
+
+   /**
+    * isCommand(): Return true if the step is one of the provided commands with no parameter
+    *
+    * @param step  Step to check
+    * @param names Command name and aliases
+    * @return True if the step matches
+    */
+   private static boolean isCommand(String step, String... names) {
+      for (String name : names) {
+         if (step.equals(name)) return true;
+      }
+      return false;
+   }
+
+}
@@ -0,0 +1,173 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FunctionPlan: A user defined function compiled into an execution plan. The recorded steps are first run through
+ * FunctionOptimizer. Each optimized step is then split into command and parameter once, built-in commands are resolved to
+ * their CommandParser handler, and plain numbers are converted to a BigDecimal ahead of time. Consecutive numbers are
+ * merged into a single step that still saves an undo point for each number, as typing them would. Anything else (fractions, percents, NumOps, calls to other functions) is sent through
+ * CommandParser.Parse() when run, exactly as if it had been typed.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class FunctionPlan {
+   private final List<String> source;
+   private final List<String> optimized;
+   private final Step[] steps;
+
+   /**
+    * Step: A single compiled step. Exactly one of handler and literals is set for compiled steps, neither is set for steps
+    * that are parsed when run
+    */
+   private record Step(String input, String cmd, String param, CommandParser.CommandHandler handler, BigDecimal[] literals) {
+   }
+
+   /**
+    * FunctionPlan(): Create the plan for the provided steps
+    *
+    * @param source        Steps as recorded
+    * @param functionNames Names of all user defined functions. A step with one of these names always runs the function
+    */
+   public FunctionPlan(List<String> source, Set<String> functionNames) {
+      this.source = List.copyOf(source);
+      this.optimized = List.copyOf(FunctionOptimizer.Optimize(this.source, functionNames));
+
+      List<Step> compiled = new ArrayList<>(optimized.size());
+      for (String input : optimized) {
+         Step step = compileStep(input, functionNames);
+
+         // Merge consecutive numbers into one step
+         Step previous = compiled.isEmpty() ? null : compiled.getLast();
+         if (step.literals != null && previous != null && previous.literals != null) {
+            BigDecimal[] merged = Arrays.copyOf(previous.literals, previous.literals.length + 1);
+            merged[merged.length - 1] = step.literals[0];
+            compiled.set(compiled.size() - 1, new Step(previous.input + " " + input, null, "", null, merged));
+         } else {
+            compiled.add(step);
+         }
+      }
+      this.steps = compiled.toArray(new Step[0]);
+   }
+
+   /**
+    * compileStep(): Split the step into command and parameter the same way the command loop does and resolve it
+    *
+    * @param input         Recorded step
+    * @param functionNames Names of all user defined functions
+    * @return Compiled step
+    */
+   private static Step compileStep(String input, Set<String> functionNames) {
+      String[] ci = input.toLowerCase().trim().split("\\s+", 2);
+      String cmd = ci[0];
+      String param = ci.length > 1 ? ci[1] : "";
+
+      // Parse() removes the commas before it looks anything up
+      String lookup = cmd.indexOf(',') >= 0 ? cmd.replace(",", "") : cmd;
+
+      // Built-in commands take precedence over everything else
+      CommandParser.CommandHandler handler = CommandParser.getHandler(lookup);
+      if (handler != null) {
+         return new Step(input, lookup, param, handler, null);
+      }
+
+      // A plain number is pushed directly unless a user defined function shadows it
+      if (FunctionOptimizer.isNumber(input, functionNames)) {
+         return new Step(input, lookup, param, null, new BigDecimal[]{new BigDecimal(lookup)});
+      }
+
+      return new Step(input, cmd, param, null, null);
+   }
+
+   /**
+    * Run(): Execute each step of the plan against the stacks
+    *
+    * @param calcStack  Primary stack
+    * @param calcStack2 Secondary stack
+    */
+   public void Run(StackObj calcStack, StackObj calcStack2) {
+      for (Step step : steps) {
+         if (step.handler != null) {
+            step.handler.run(calcStack, calcStack2, step.input, step.cmd, step.param);
+         } else if (step.literals != null) {
+            for (BigDecimal literal : step.literals) {
+               calcStack.saveUndo();
+               calcStack.push(literal);
+            }
+         } else {
+            CommandParser.Parse(calcStack, calcStack2, step.input, step.cmd, step.param);
+         }
+      }
+   }
+
+   /**
+    * getSource(): Return the steps as they were recorded
+    *
+    * @return Unmodifiable list of steps
+    */
+   public List<String> getSource() {
+      return source;
+   }
+
+   /**
+    * getOptimized(): Return the steps after optimization
+    *
+    * @return Unmodifiable list of steps
+    */
+   public List<String> getOptimized() {
+      return optimized;
+   }
+
+   /**
+    * isOptimized(): Return true if the optimizer changed the recorded steps
+    *
+    * @return True if the optimized steps differ from the recorded ones
+    */
+   public boolean isOptimized() {
+      return !optimized.equals(source);
+   }
+
+   /**
+    * compiledSteps(): Return the number of steps that were resolved ahead of time rather than parsed when run
+    *
+    * @return Number of compiled steps
+    */
+   int compiledSteps() {
+      int count = 0;
+      for (Step step : steps) {
+         if (step.handler != null || step.literals != null) count++;
+      }
+      return count;
+   }
+
+}
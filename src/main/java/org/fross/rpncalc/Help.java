@@ -56,11 +56,14 @@ public class Help {
       Output.printColorln(Output.CYAN, Format.CenterText(helpWidth, USERGUIDE));
 
       Output.printColorln(Output.YELLOW, "\nCommand Line Options:");
+      Output.printColorln(Output.WHITE, " -b       Batch mode. Run commands from standard input and print the final stack");
       Output.printColorln(Output.WHITE, " -D       Start in debug mode. Same as using the 'debug' command");
       Output.printColorln(Output.WHITE, " -l       Load a saved named stack or create the stack if it doesn't exist");
       Output.printColorln(Output.WHITE, " -h | ?   Show this help information");
       Output.printColorln(Output.WHITE, " -v       Display version information as well as latest GitHub release");
       Output.printColorln(Output.WHITE, " -L       Display the program usage license. Same as the 'license' command");
+      Output.printColorln(Output.WHITE, " -s FILE  Run the commands in FILE in batch mode and print the final stack");
+      Output.printColorln(Output.WHITE, " -t NUM   In batch mode, only print the top NUM items of the stack");
       Output.printColorln(Output.WHITE, " -z       Disable colorized output");
 
       Output.printColorln(Output.YELLOW, "\nOperands:");
@@ -89,10 +92,12 @@ public class Help {
       Output.printColorln(Output.WHITE, " min | max      Add the minimum or maximum stack value to the stack");
       Output.printColorln(Output.WHITE, " median [keep]  Replace stack with median value. 'keep' will retain stack");
       Output.printColorln(Output.WHITE, " mod            Modulus. Perform a division and return the remainder");
+      Output.printColorln(Output.WHITE, " modpow         Modular exponentiation. line3 ^ line2 mod line1 for integers");
       Output.printColorln(Output.WHITE, " sort a|d       Sorts the stack in an ascending or descending manner");
       Output.printColorln(Output.WHITE, " sqrt           Perform a square root of the line1 value");
       Output.printColorln(Output.WHITE, " rand [L] [H]   Random integer between L and H inclusive.  Default is 1-100");
       Output.printColorln(Output.WHITE, " repeat [Num]   Repeat the last command Num times.  Default is 1");
+      Output.printColorln(Output.WHITE, " root           Take the line1 root of line2. '8 3 root' is the cube root of 8");
       Output.printColorln(Output.WHITE, " round [n]      Round to n decimal places. Default is 0 decimals");
       Output.printColorln(Output.WHITE, " s [#] [#]      Swap the last two elements in the stack or the lines provided");
       Output.printColorln(Output.WHITE, " sd [keep]      Standard deviation of stack items. 'keep' will retain stack");
@@ -140,12 +145,18 @@ public class Help {
       Output.printColorln(Output.WHITE, " set align l|d|r   Set alignment of the stack display to 'l'eft, 'd'ecimal, or 'r'ight");
       Output.printColorln(Output.WHITE, " set browser FILE  Set the full path (using slashes) to the web browser");
       Output.printColorln(Output.WHITE, " set memslots NUM  Set the number of memory slots");
+      Output.printColorln(Output.WHITE, " set precision NUM|unlimited  Set the significant digits kept in results");
+      Output.printColorln(Output.WHITE, " set rows NUM      Set the number of stack rows displayed. 0 displays all");
+      Output.printColorln(Output.WHITE, " set scalecap NUM|unlimited  Limit decimal places of exact results when precision is unlimited");
+      Output.printColorln(Output.WHITE, " set undo NUM      Set the maximum number of undo levels");
+      Output.printColorln(Output.WHITE, " set undomem NUM   Set the undo history memory budget in MB");
+      Output.printColorln(Output.WHITE, " set undospill on|off  Save removed undo levels to a file in the temp directory");
       Output.printColorln(Output.WHITE, " set width NUM     Set the width of the display to num");
 
       Output.printColorln(Output.YELLOW, "\nOperational Commands:");
       Output.printColorln(Output.WHITE, " debug             Toggle DEBUG mode on/off");
       Output.printColorln(Output.WHITE, " h|?               Show this help information.  Either key will work");
-      Output.printColorln(Output.WHITE, " export FILE       Export the current stack to the provided file (one number per line)");
+      Output.printColorln(Output.WHITE, " export FILE       Export the current stack to the provided file (.csv, .stk binary, .gz compressed)");
       Output.printColorln(Output.WHITE, " hp | homepage     Open up the configured browser to the RPNCalc Home Page");
       Output.printColorln(Output.WHITE, " import FILE       Replace current stack with file contents (one number per line)");
       DisplayListCommands(Output.WHITE);
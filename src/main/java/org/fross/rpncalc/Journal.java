@@ -0,0 +1,656 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.fross.library.Output;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Journal: Write-ahead session journal so the stacks and memory slots survive a crash or kill -9 without saving
+ * everything after each command.
+ * <p>
+ * Every change to the two stacks and the memory slots is appended to the journal as a small record. The records for
+ * one command are written as a single frame with a length and CRC32 when the command completes, so a frame is applied
+ * completely or not at all. The write reaches the operating system before the next prompt and a background thread
+ * forces it to disk, covering every frame written since its last fsync with one call (group commit).
+ * <p>
+ * The journal starts from a snapshot of the complete state. When the journal grows larger than the snapshot (or at
+ * least a few megabytes) a new snapshot is written and the journal restarts empty, so replay time stays bounded. Each
+ * snapshot has an epoch number and a journal is only replayed on top of the snapshot with the same epoch, so a crash
+ * part way through compaction never applies a record twice.
+ * <p>
+ * A normal exit saves the stacks and memory slots as before and then removes the journal. If the journal is still
+ * there at the next start, Recover() replays it and saves the result before anything else is loaded.
+ * <p>
+ * Stack changes reach the journal through a StackArray.Listener. Like the commands that make them, the records are
+ * only written on the main thread, so recording a change doesn't take a lock.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Journal {
+   // Record types
+   private static final byte PUSH = 1;
+   private static final byte POP = 2;
+   private static final byte INSERT = 3;
+   private static final byte REMOVE = 4;
+   private static final byte SET = 5;
+   private static final byte CLEAR = 6;
+   private static final byte SET_ALL = 7;
+   private static final byte COMBINE = 8;
+   private static final byte SWAP = 9;
+   private static final byte MEMORY = 10;
+   private static final byte MEMORY_SIZE = 11;
+
+   // Class Constants
+   private static final byte[] JOURNAL_MAGIC = {'R', 'P', 'N', 'J'};
+   private static final byte[] SNAPSHOT_MAGIC = {'R', 'P', 'N', 'C'};
+   private static final byte VERSION = 1;
+   private static final int JOURNAL_HEADER_SIZE = JOURNAL_MAGIC.length + 1 + Long.BYTES;
+   private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+   private static final String JOURNAL_FILE = "session.jnl";
+   private static final String SNAPSHOT_FILE = "session.snap";
+   private static final String LOCK_FILE = "session.lock";
+
+   // Directory holding the journal. Tests point this somewhere else
+   static Path directory = Path.of(System.getProperty("user.home"), ".rpncalc", "journal");
+
+   // The journal is compacted once it is larger than this and larger than the last snapshot
+   static long compactBytes = 4L * 1024 * 1024;
+
+   // Class Variables
+   private static FileChannel lockChannel = null;
+   private static FileLock lock = null;
+   private static boolean active = false;
+   private static StackObj stack1;
+   private static StackObj stack2;
+   private static String stackName;
+   private static long epoch = 0;
+   private static long journalBytes = 0;
+   private static long snapshotBytes = 0;
+   private static ByteBuffer pending = ByteBuffer.allocate(4096);
+
+   // Group commit. The main thread counts frames written and the sync thread counts frames forced to disk
+   private static final Object syncLock = new Object();
+   private static FileChannel journal = null;
+   private static long framesWritten = 0;
+   private static long framesSynced = 0;
+   private static Thread syncThread = null;
+
+   // Record the changes to the stack in each slot. The id is written with each record
+   private static final StackLog[] stackLogs = {new StackLog(1), new StackLog(2)};
+
+   /**
+    * StackLog: Records the changes made to one of the journaled stacks
+    */
+   private record StackLog(int id) implements StackArray.Listener {
+      @Override
+      public void pushed(BigDecimal item) {
+         if (!active) return;
+         Record(PUSH, id);
+         pending = StackFile.putValue(pending, item);
+      }
+
+      @Override
+      public void pushed(long unscaledValue, int scale) {
+         if (!active) return;
+         Record(PUSH, id);
+         StackFile.putCompact(pending, unscaledValue, scale);
+      }
+
+      @Override
+      public void popped() {
+         if (!active) return;
+         Record(POP, id);
+      }
+
+      @Override
+      public void inserted(int index, BigDecimal item) {
+         if (!active) return;
+         Record(INSERT, id);
+         StackFile.putVarint(pending, index);
+         pending = StackFile.putValue(pending, item);
+      }
+
+      @Override
+      public void removed(int index) {
+         if (!active) return;
+         Record(REMOVE, id);
+         StackFile.putVarint(pending, index);
+      }
+
+      @Override
+      public void replaced(int index, BigDecimal item) {
+         if (!active) return;
+         Record(SET, id);
+         StackFile.putVarint(pending, index);
+         pending = StackFile.putValue(pending, item);
+      }
+
+      @Override
+      public void cleared() {
+         if (!active) return;
+         Record(CLEAR, id);
+      }
+
+      @Override
+      public void replacedAll(StackArray stack) {
+         if (!active) return;
+         Record(SET_ALL, id);
+         PutBytes(StackFile.encode(stack));
+      }
+
+      @Override
+      public void combined(long unscaledValue, int scale) {
+         if (!active) return;
+         Record(COMBINE, id);
+         StackFile.putCompact(pending, unscaledValue, scale);
+      }
+   }
+
+   /**
+    * Recovered: State rebuilt from the snapshot and journal of a session that didn't exit normally
+    */
+   record Recovered(String name, StackArray stack1, StackArray stack2, BigDecimal[] memory, int frames) {
+   }
+
+   /**
+    * Recover(): Called at startup before any stacks are loaded. If the last session didn't exit normally, replay its
+    * journal and save the result as the stacks and memory slots would have been saved on exit
+    */
+   public static synchronized void Recover() {
+      if (!AcquireLock()) return;
+
+      try {
+         Recovered state = Replay();
+         if (state != null) {
+            StackObj stk = new StackObj();
+            stk.stackName = state.name();
+            stk.calcStack = state.stack1();
+            StackManagement.SaveStack(stk, "1");
+            stk.calcStack = state.stack2();
+            StackManagement.SaveStack(stk, "2");
+            StackMemory.SaveMemSlots(state.memory());
+
+            Output.printColorln(Output.CYAN, "Recovered stack '" + state.name() + "' from the session journal (" + state.frames()
+                  + " commands replayed)");
+         }
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not recover the previous session from the journal");
+         Output.printColorln(Output.RED, ex.getMessage());
+      }
+
+      DeleteFiles();
+   }
+
+   /**
+    * Start(): Begin journaling changes to the provided stacks and the memory slots
+    *
+    * @param stk1 Primary Stack
+    * @param stk2 Secondary Stack
+    */
+   public static synchronized void Start(StackObj stk1, StackObj stk2) {
+      if (active || !AcquireLock()) return;
+
+      stack1 = stk1;
+      stack2 = stk2;
+      StartSyncThread();
+
+      try {
+         active = true;
+         Checkpoint();
+      } catch (IOException ex) {
+         Disable(ex);
+      }
+   }
+
+   /**
+    * Commit(): Write the changes made by the last command as one frame and ask for it to be forced to disk. Called
+    * after every command
+    */
+   public static synchronized void Commit() {
+      if (!active) return;
+
+      try {
+         // Loading a different stack starts a new snapshot under its name
+         if (!stack1.queryStackName().equals(stackName)) {
+            Checkpoint();
+            return;
+         }
+         if (pending.position() == 0) return;
+
+         CRC32 crc = new CRC32();
+         crc.update(pending.array(), 0, pending.position());
+         ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE).putInt(pending.position()).putInt((int) crc.getValue()).flip();
+         ByteBuffer body = pending.flip();
+         long length = header.remaining() + body.remaining();
+         while (header.hasRemaining() || body.hasRemaining()) {
+            journal.write(new ByteBuffer[]{header, body});
+         }
+         pending.clear();
+         journalBytes += length;
+
+         synchronized (syncLock) {
+            framesWritten++;
+            syncLock.notifyAll();
+         }
+
+         if (journalBytes > java.lang.Math.max(compactBytes, snapshotBytes)) {
+            Checkpoint();
+         }
+      } catch (IOException ex) {
+         Disable(ex);
+      }
+   }
+
+   /**
+    * Sync(): Block until every committed frame has been forced to disk
+    */
+   public static void Sync() {
+      synchronized (syncLock) {
+         while (framesSynced < framesWritten) {
+            try {
+               syncLock.wait();
+            } catch (InterruptedException ex) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Close(): Stop journaling after a normal exit has saved the stacks and memory slots, and remove the journal
+    */
+   public static synchronized void Close() {
+      if (!active) return;
+      Stop();
+      DeleteFiles();
+   }
+
+   /**
+    * Stop(): Stop journaling and release the journal without removing it, as if the program had been killed
+    */
+   static synchronized void Stop() {
+      Sync();
+      active = false;
+      stack1.calcStack.setListener(null);
+      stack2.calcStack.setListener(null);
+      pending.clear();
+
+      try {
+         synchronized (syncLock) {
+            if (journal != null) journal.close();
+            journal = null;
+         }
+         if (lock != null) lock.release();
+         if (lockChannel != null) lockChannel.close();
+      } catch (IOException ex) {
+         Output.debugPrintln("Journal: error closing: " + ex.getMessage());
+      }
+      lock = null;
+      lockChannel = null;
+   }
+
+   /**
+    * Checkpoint(): Write a snapshot of the complete state and start a new empty journal on top of it
+    *
+    * @throws IOException if the snapshot or journal can't be written
+    */
+   static synchronized void Checkpoint() throws IOException {
+      epoch++;
+      stackName = stack1.queryStackName();
+
+      // The snapshot covers everything, so changes not yet committed are already in it
+      pending.clear();
+      ByteBuffer snapshot = EncodeSnapshot(epoch, stackName, stack1.calcStack, stack2.calcStack, StackMemory.memorySlots);
+      snapshotBytes = snapshot.remaining();
+      StackFile.writeAtomically(directory.resolve(SNAPSHOT_FILE), snapshot);
+
+      // A crash before the new journal is in place leaves the old journal, which has the old epoch and is ignored
+      ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE).put(JOURNAL_MAGIC).put(VERSION).putLong(epoch).flip();
+      StackFile.writeAtomically(directory.resolve(JOURNAL_FILE), header);
+      FileChannel channel = FileChannel.open(directory.resolve(JOURNAL_FILE), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      journalBytes = JOURNAL_HEADER_SIZE;
+
+      synchronized (syncLock) {
+         if (journal != null) journal.close();
+         journal = channel;
+         framesSynced = framesWritten;
+         syncLock.notifyAll();
+      }
+
+      // Ids follow the stack in each slot as of this snapshot. 'ss' after this point is recorded as a swap
+      stack1.calcStack.setListener(stackLogs[0]);
+      stack2.calcStack.setListener(stackLogs[1]);
+
+      Output.debugPrintln("Journal: checkpoint " + epoch + " for stack '" + stackName + "' (" + snapshotBytes + " bytes)");
+   }
+
+   /**
+    * Replay(): Rebuild the state of the last session from its snapshot and journal
+    *
+    * @return The recovered state, or null if there is no snapshot
+    * @throws IOException if the snapshot is damaged
+    */
+   static Recovered Replay() throws IOException {
+      Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+      if (!Files.isRegularFile(snapshotFile)) return null;
+
+      ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+      if (snapshot.remaining() < SNAPSHOT_MAGIC.length + 1 + Long.BYTES + Integer.BYTES) throw new IOException("Journal snapshot is damaged");
+      int end = snapshot.limit() - Integer.BYTES;
+      CRC32 crc = new CRC32();
+      crc.update(snapshot.array(), 0, end);
+      if ((int) crc.getValue() != snapshot.getInt(end) || !Arrays.equals(snapshot.array(), 0, 4, SNAPSHOT_MAGIC, 0, 4)
+            || snapshot.get(SNAPSHOT_MAGIC.length) != VERSION) {
+         throw new IOException("Journal snapshot is damaged");
+      }
+
+      snapshot.position(SNAPSHOT_MAGIC.length + 1).limit(end);
+      long snapshotEpoch = snapshot.getLong();
+      String name = new String(GetBytes(snapshot), StandardCharsets.UTF_8);
+      BigDecimal[] memory = new BigDecimal[StackFile.getVarint(snapshot)];
+      for (int i = 0; i < memory.length; i++) {
+         if (snapshot.get() != 0) memory[i] = StackFile.getValue(snapshot);
+      }
+      StackArray[] byId = {null, StackFile.decode(GetBytes(snapshot)), StackFile.decode(GetBytes(snapshot))};
+
+      // Apply each complete frame. A torn or damaged frame ends the journal
+      StackArray[] slots = {null, byId[1], byId[2]};
+      BigDecimal[][] memoryHolder = {memory};
+      int frames = 0;
+      Path journalFile = directory.resolve(JOURNAL_FILE);
+      if (Files.isRegularFile(journalFile)) {
+         ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+         if (log.remaining() >= JOURNAL_HEADER_SIZE && Arrays.equals(log.array(), 0, 4, JOURNAL_MAGIC, 0, 4)
+               && log.get(JOURNAL_MAGIC.length) == VERSION && log.getLong(JOURNAL_MAGIC.length + 1) == snapshotEpoch) {
+            log.position(JOURNAL_HEADER_SIZE);
+            while (log.remaining() >= FRAME_HEADER_SIZE) {
+               int length = log.getInt();
+               int frameCrc = log.getInt();
+               if (length < 0 || length > log.remaining()) break;
+
+               crc.reset();
+               crc.update(log.array(), log.position(), length);
+               if ((int) crc.getValue() != frameCrc) break;
+
+               ByteBuffer frame = log.slice(log.position(), length);
+               log.position(log.position() + length);
+               try {
+                  while (frame.hasRemaining()) {
+                     Apply(frame, byId, slots, memoryHolder);
+                  }
+               } catch (RuntimeException ex) {
+                  throw new IOException("Journal record could not be applied (" + ex.getMessage() + ")");
+               }
+               frames++;
+            }
+         }
+      }
+
+      return new Recovered(name, slots[1], slots[2], memoryHolder[0], frames);
+   }
+
+   /**
+    * Apply(): Apply one journal record to the recovered state
+    */
+   private static void Apply(ByteBuffer frame, StackArray[] byId, StackArray[] slots, BigDecimal[][] memory) throws IOException {
+      byte type = frame.get();
+      switch (type) {
+         case SWAP -> {
+            StackArray temp = slots[1];
+            slots[1] = slots[2];
+            slots[2] = temp;
+         }
+         case MEMORY -> {
+            int slot = StackFile.getVarint(frame);
+            BigDecimal value = (frame.get() != 0) ? StackFile.getValue(frame) : null;
+            if (slot < memory[0].length) memory[0][slot] = value;
+         }
+         case MEMORY_SIZE -> memory[0] = new BigDecimal[StackFile.getVarint(frame)];
+         default -> {
+            StackArray stack = byId[frame.get()];
+            switch (type) {
+               case PUSH -> stack.push(StackFile.getValue(frame));
+               case POP -> stack.pop();
+               case INSERT -> stack.add(StackFile.getVarint(frame), StackFile.getValue(frame));
+               case REMOVE -> stack.remove(StackFile.getVarint(frame));
+               case SET -> stack.set(StackFile.getVarint(frame), StackFile.getValue(frame));
+               case CLEAR -> stack.clear();
+               case SET_ALL -> stack.setAll(StackFile.decode(GetBytes(frame)));
+               case COMBINE -> {
+                  stack.pop();
+                  stack.set(stack.size() - 1, StackFile.getValue(frame));
+               }
+               default -> throw new IOException("Unknown journal record type " + type);
+            }
+         }
+      }
+   }
+
+   /**
+    * LogSwap(): Record the primary and secondary stacks being swapped
+    */
+   public static void LogSwap() {
+      if (!active) return;
+      Record(SWAP, 0);
+   }
+
+   /**
+    * LogMemory(): Record a memory slot being changed
+    *
+    * @param slot  Memory slot number
+    * @param value New value, or null if the slot was cleared
+    */
+   public static void LogMemory(int slot, BigDecimal value) {
+      if (!active) return;
+      Record(MEMORY, 0);
+      StackFile.putVarint(pending, slot);
+      pending.put((byte) (value == null ? 0 : 1));
+      if (value != null) pending = StackFile.putValue(pending, value);
+   }
+
+   /**
+    * LogMemorySize(): Record the memory slots being replaced by a new set of empty slots
+    *
+    * @param slots Number of memory slots
+    */
+   public static void LogMemorySize(int slots) {
+      if (!active) return;
+      Record(MEMORY_SIZE, 0);
+      StackFile.putVarint(pending, slots);
+   }
+
+   /**
+    * Record(): Start a record in the pending frame, making room for its fixed size fields. Stack records carry the
+    * stack id, swaps and memory records don't
+    */
+   private static void Record(byte type, int id) {
+      if (pending.remaining() < 2 + 2 * StackFile.MAX_COMPACT_SIZE) pending = StackFile.grow(pending, 2 + 2 * StackFile.MAX_COMPACT_SIZE);
+      pending.put(type);
+      if (id > 0) pending.put((byte) id);
+   }
+
+   /**
+    * PutBytes(): Add a length prefixed block of bytes to the pending frame
+    */
+   private static void PutBytes(ByteBuffer bytes) {
+      if (pending.remaining() < StackFile.MAX_VARINT_SIZE + bytes.remaining()) {
+         pending = StackFile.grow(pending, StackFile.MAX_VARINT_SIZE + bytes.remaining());
+      }
+      StackFile.putVarint(pending, bytes.remaining());
+      pending.put(bytes);
+   }
+
+   /**
+    * GetBytes(): Read a length prefixed block of bytes
+    */
+   private static byte[] GetBytes(ByteBuffer buffer) throws IOException {
+      int length = StackFile.getVarint(buffer);
+      if (length < 0 || length > buffer.remaining()) throw new IOException("Journal is damaged (bad length)");
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return bytes;
+   }
+
+   /**
+    * EncodeSnapshot(): Build the snapshot file. It holds the epoch, stack name, memory slots and both stacks in stack
+    * file format, followed by a CRC32
+    */
+   private static ByteBuffer EncodeSnapshot(long snapshotEpoch, String name, StackArray stk1, StackArray stk2, BigDecimal[] memory) {
+      ByteBuffer saved = pending;
+      byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      ByteBuffer encoded1 = StackFile.encode(stk1);
+      ByteBuffer encoded2 = StackFile.encode(stk2);
+
+      // Build it in the pending buffer's place so PutBytes() and putValue() can grow it
+      pending = ByteBuffer.allocate(64 + nameBytes.length + encoded1.remaining() + encoded2.remaining() + memory.length * 12);
+      pending.put(SNAPSHOT_MAGIC).put(VERSION).putLong(snapshotEpoch);
+      PutBytes(ByteBuffer.wrap(nameBytes));
+      StackFile.putVarint(pending, memory.length);
+      for (BigDecimal value : memory) {
+         if (pending.remaining() < 1) pending = StackFile.grow(pending, 1);
+         pending.put((byte) (value == null ? 0 : 1));
+         if (value != null) pending = StackFile.putValue(pending, value);
+      }
+      PutBytes(encoded1);
+      PutBytes(encoded2);
+      if (pending.remaining() < Integer.BYTES) pending = StackFile.grow(pending, Integer.BYTES);
+
+      CRC32 crc = new CRC32();
+      crc.update(pending.array(), 0, pending.position());
+      pending.putInt((int) crc.getValue());
+
+      ByteBuffer snapshot = pending.flip();
+      pending = saved;
+      return snapshot;
+   }
+
+   /**
+    * AcquireLock(): Lock the journal directory so a second copy of RPNCalc doesn't replay or overwrite a running
+    * session's journal
+    *
+    * @return true if this process holds the lock
+    */
+   private static boolean AcquireLock() {
+      if (lock != null && lock.isValid()) return true;
+
+      try {
+         Files.createDirectories(directory);
+         lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         lock = lockChannel.tryLock();
+      } catch (IOException | OverlappingFileLockException ex) {
+         lock = null;
+      }
+
+      if (lock == null) {
+         Output.debugPrintln("Journal: another session holds the journal lock. Journaling is off for this session");
+         try {
+            if (lockChannel != null) lockChannel.close();
+         } catch (IOException ex) {
+            // Nothing more to do
+         }
+         lockChannel = null;
+         return false;
+      }
+
+      return true;
+   }
+
+   /**
+    * DeleteFiles(): Remove the journal and snapshot
+    */
+   private static void DeleteFiles() {
+      try {
+         Files.deleteIfExists(directory.resolve(JOURNAL_FILE));
+         Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE));
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not remove the session journal: " + ex.getMessage());
+      }
+   }
+
+   /**
+    * Disable(): Turn journaling off after an error writing it. The stacks are still saved on exit
+    */
+   private static void Disable(IOException ex) {
+      Output.printColorln(Output.RED, "ERROR: Could not write the session journal. Journaling is off for this session");
+      Output.printColorln(Output.RED, ex.getMessage());
+      Stop();
+   }
+
+   /**
+    * StartSyncThread(): Start the thread that forces committed frames to disk. Frames committed while it is busy are
+    * covered by its next fsync
+    */
+   private static void StartSyncThread() {
+      if (syncThread != null) return;
+
+      syncThread = new Thread(() -> {
+         while (true) {
+            FileChannel channel;
+            long target;
+            synchronized (syncLock) {
+               while (framesSynced >= framesWritten) {
+                  try {
+                     syncLock.wait();
+                  } catch (InterruptedException ex) {
+                     return;
+                  }
+               }
+               target = framesWritten;
+               channel = journal;
+            }
+
+            try {
+               if (channel != null) channel.force(false);
+            } catch (IOException ex) {
+               // The channel was closed by a checkpoint, which forced the snapshot that replaces it
+            }
+
+            synchronized (syncLock) {
+               framesSynced = java.lang.Math.max(framesSynced, target);
+               syncLock.notifyAll();
+            }
+         }
+      }, "rpncalc-journal-sync");
+      syncThread.setDaemon(true);
+      syncThread.start();
+   }
+
+}
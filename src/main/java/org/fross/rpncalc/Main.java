@@ -50,6 +50,12 @@ public class Main {
    public static final int CONFIG_DEFAULT_PROGRAM_WIDTH = 80;
    public static final int CONFIG_DEFAULT_MEMORY_SLOTS = 10;
    public static final String CONFIG_DEFAULT_ALIGNMENT = "l";
+   public static final int CONFIG_DEFAULT_UNDO_LEVELS = 1000;
+   public static final int CONFIG_DEFAULT_UNDO_MEMORY = 64;
+   public static final boolean CONFIG_DEFAULT_UNDO_SPILL = false;
+   public static final int CONFIG_DEFAULT_DISPLAY_ROWS = 30;
+   public static final int CONFIG_DEFAULT_PRECISION = Precision.UNLIMITED;
+   public static final int CONFIG_DEFAULT_SCALE_CAP = Precision.UNLIMITED;
    public static final int LINE_NUMBER_DIGITS = 2;
    public static final String INPUT_PROMPT = ">> ";
 
@@ -65,6 +71,12 @@ public class Main {
    static int configProgramWidth = CONFIG_DEFAULT_PROGRAM_WIDTH;
    static int configMemorySlots = CONFIG_DEFAULT_MEMORY_SLOTS;
    static String configAlignment = CONFIG_DEFAULT_ALIGNMENT;
+   static int configUndoLevels = CONFIG_DEFAULT_UNDO_LEVELS;
+   static int configUndoMemory = CONFIG_DEFAULT_UNDO_MEMORY;
+   static boolean configUndoSpill = CONFIG_DEFAULT_UNDO_SPILL;
+   static int configDisplayRows = CONFIG_DEFAULT_DISPLAY_ROWS;
+   static int configPrecision = CONFIG_DEFAULT_PRECISION;
+   static int configScaleCap = CONFIG_DEFAULT_SCALE_CAP;
 
    /*
     * Main(): Start of program and holds main command loop
@@ -85,21 +97,28 @@ public class Main {
       // Force JLine to assume the terminal supports ANSI color and movement
       System.setProperty("org.jline.terminal.type", "xterm-256color");
 
-      // Create a terminal used for input and output with JLine
-      try {
-         // This will print the actual reason (like "Missing library" or "Access Denied") to the console
-         System.setProperty("org.jline.terminal.debug", "true");
-         terminal = TerminalBuilder.builder()
-               .system(true)
-               .build();
+      // Batch mode reads from a file or standard input and doesn't need a terminal. Standard output is kept for the final
+      // stack so messages go to standard error
+      boolean batchMode = CommandLineArgs.queryBatchMode(args);
+      if (batchMode) Output.setStream(System.err);
 
-         // Let Output and Input classes know which terminal to use
-         Output.setTerminal(terminal);
-         UserInput.setTerminal(terminal);
-
-      } catch (IOException ex) {
-         // Note: Since terminal failed, we use System.out as a fallback
-         Output.println("Unable to create a terminal. Visuals will be impacted.");
+      // Create a terminal used for input and output with JLine
+      if (!batchMode) {
+         try {
+            // This will print the actual reason (like "Missing library" or "Access Denied") to the console
+            System.setProperty("org.jline.terminal.debug", "true");
+            terminal = TerminalBuilder.builder()
+                  .system(true)
+                  .build();
+
+            // Let Output and Input classes know which terminal to use
+            Output.setTerminal(terminal);
+            UserInput.setTerminal(terminal);
+
+         } catch (IOException ex) {
+            // Note: Since terminal failed, we use System.out as a fallback
+            Output.println("Unable to create a terminal. Visuals will be impacted.");
+         }
       }
 
       // Process application level properties file
@@ -125,11 +144,29 @@ public class Main {
       if (prefConfig.getInt("memoryslots", -1) == -1) {
          prefConfig.putInt("memoryslots", CONFIG_DEFAULT_MEMORY_SLOTS);
       }
+      if (prefConfig.getInt("undolevels", -1) == -1) {
+         prefConfig.putInt("undolevels", CONFIG_DEFAULT_UNDO_LEVELS);
+      }
+      if (prefConfig.getInt("undomemory", -1) == -1) {
+         prefConfig.putInt("undomemory", CONFIG_DEFAULT_UNDO_MEMORY);
+      }
+      if (prefConfig.getInt("displayrows", -1) == -1) {
+         prefConfig.putInt("displayrows", CONFIG_DEFAULT_DISPLAY_ROWS);
+      }
 
       // Set configuration variables from preferences
       configProgramWidth = prefConfig.getInt("programwidth", CONFIG_DEFAULT_PROGRAM_WIDTH);
       configMemorySlots = prefConfig.getInt("memoryslots", CONFIG_DEFAULT_MEMORY_SLOTS);
       configAlignment = prefConfig.get("alignment", CONFIG_DEFAULT_ALIGNMENT);
+      configUndoLevels = prefConfig.getInt("undolevels", CONFIG_DEFAULT_UNDO_LEVELS);
+      configUndoMemory = prefConfig.getInt("undomemory", CONFIG_DEFAULT_UNDO_MEMORY);
+      configUndoSpill = prefConfig.getBoolean("undospill", CONFIG_DEFAULT_UNDO_SPILL);
+      configDisplayRows = prefConfig.getInt("displayrows", CONFIG_DEFAULT_DISPLAY_ROWS);
+      configPrecision = prefConfig.getInt("precision", CONFIG_DEFAULT_PRECISION);
+      configScaleCap = prefConfig.getInt("scalecap", CONFIG_DEFAULT_SCALE_CAP);
+
+      // If the last session didn't exit normally, replay its journal before any stacks are loaded
+      Journal.Recover();
 
       // Process Command Line Options
       CommandLineArgs.ProcessCommandLine(args);
@@ -141,11 +178,30 @@ public class Main {
       Output.debugPrintln("  - StackName:     " + calcStack.queryStackName());
       Output.debugPrintln("  - Program Width: " + configProgramWidth);
       Output.debugPrintln("  - Memory Slots:  " + configMemorySlots);
+      Output.debugPrintln("  - Undo Levels:   " + configUndoLevels + " (" + configUndoMemory + "MB, spill " + (configUndoSpill ? "on" : "off") + ")");
+      Output.debugPrintln("  - Precision:     " + Precision.describe(configPrecision) + " (scale cap " + Precision.describe(configScaleCap) + ")");
       Output.debugPrintln("  - Color Enabled: " + Output.queryColorEnabled());
 
       // Restore the items in the memory slots during startup
       StackMemory.RestoreMemSlots();
 
+      // Load the user defined functions into memory
+      UserFunctions.LoadFunctions();
+
+      // Run the batch commands and exit without starting the interactive command loop
+      if (CommandLineArgs.batchMode) {
+         int exitCode = BatchMode.Run(CommandLineArgs.batchScript, CommandLineArgs.batchTop);
+         StackMemory.SaveMemSlots();
+         UserFunctions.FlushFunctionWrites();
+
+         // Only save the stacks if one was loaded with -l. Otherwise batch runs would overwrite the default stack
+         if (CommandLineArgs.batchSaveStacks) {
+            StackManagement.SaveStack(calcStack, "1");
+            StackManagement.SaveStack(calcStack2, "2");
+         }
+         System.exit(exitCode);
+      }
+
       // Display the initial program header information
       Output.printColorln(Output.CYAN, "+" + "-".repeat(configProgramWidth - 2) + "+");
       Output.printColorln(Output.CYAN, Format.CenterText(configProgramWidth, "RPN Calculator  v" + VERSION, "|", "|"));
@@ -153,77 +209,19 @@ public class Main {
       Output.printColorln(Output.CYAN, Format.CenterText(configProgramWidth, "Enter command 'h' for help details", "|", "|"));
       Output.printColorln(Output.CYAN, Format.CenterText(configProgramWidth, "", "|", "|"));
 
+      // Record every change to the stacks and memory slots so a crash doesn't lose the session
+      Journal.Start(calcStack, calcStack2);
+
+      // Save changes in the background from here on
+      Persistence.Start(calcStack, calcStack2);
+
       // Start Main Command Loop
       while (ProcessCommandLoop) {
-         int maxDigitsBeforeDecimal = 0;
-         int maxLenOfNumbers = 0;
-
          // Display the dashed status line
          Display.ShowStatusLine(calcStack);
 
-         // Loop through the stack and count the max digits before the decimal for use with the decimal
-         // alignment mode & overall length for right alignment mode
-         for (int i = 0; i < calcStack.size(); i++) {
-            int decimalIndex;
-            String currentStackItem;
-
-            // Add a comma to the current stack item if it's not in scientific notation
-            if (calcStack.getAsString(i).toLowerCase().contains("e")) {
-               currentStackItem = calcStack.getAsString(i);
-            } else {
-               currentStackItem = Display.Comma(calcStack.get(i));
-            }
-
-            // Determine where the decimal point is located. If no decimal exists (-1) assume it's at the end
-            decimalIndex = Display.queryDecimalIndex(currentStackItem);
-
-            // If current stack item has more digits ahead of decimal make that the max - commas are included.
-            if (maxDigitsBeforeDecimal < decimalIndex) {
-               maxDigitsBeforeDecimal = decimalIndex;
-            }
-
-            // Determine the length of the longest item in the stack for right alignment
-            if (currentStackItem.length() > maxLenOfNumbers) {
-               maxLenOfNumbers = currentStackItem.length();
-            }
-
-         }
-
-         // Output information for alignment debugging
-         Output.debugPrintln("Alignment: Max digits before the decimal: " + maxDigitsBeforeDecimal);
-         Output.debugPrintln("Alignment: Max length of longest item in stack: " + maxLenOfNumbers);
-
          // Display the current stack contents
-         for (int i = 0; i < calcStack.size(); i++) {
-            String currentStackItem;
-
-            // Add commas to the number if it's not in scientific notation
-            if (calcStack.getAsString(i).toLowerCase().contains("e")) {
-               currentStackItem = calcStack.getAsString(i).toLowerCase();
-            } else {
-               currentStackItem = Display.Comma(calcStack.get(i));
-            }
-
-            // Display Stack Row Number without a newline
-            String stkLineNumber = String.format("%0" + LINE_NUMBER_DIGITS + "d:  ", calcStack.size() - i);
-            Output.printColor(Output.CYAN, stkLineNumber);
-
-            // DECIMAL ALIGNMENT: Insert spaces before number to align to the decimal point
-            if (configAlignment.compareTo("d") == 0) {
-               int decimalIndex = Display.queryDecimalIndex(currentStackItem);
-
-               // Output the spaces in front so the decimals align
-               Output.print(" ".repeat(maxDigitsBeforeDecimal - decimalIndex));
-            }
-
-            // RIGHT ALIGNMENT: Insert spaces before number to right align
-            if (configAlignment.compareTo("r") == 0) {
-               Output.print(" ".repeat(maxLenOfNumbers - currentStackItem.length()));
-            }
-
-            // Now that the spaces are inserted (for decimal/right) display the number
-            Output.printColorln(Output.WHITE, currentStackItem.trim());
-         }
+         Display.ShowStack(calcStack);
 
          // Input command from user
          try {
@@ -273,8 +271,17 @@ public class Main {
             UserFunctions.RecordCommand(cmdInputCmd + " " + cmdInputParam);
          }
 
-         // Call the parser to send the command to the correct function to execute
-         CommandParser.Parse(calcStack, calcStack2, cmdInput, cmdInputCmd, cmdInputParam);
+         // Call the parser to send the command to the correct function to execute. The background writer waits until
+         // the command is complete
+         Persistence.Begin();
+         try {
+            CommandParser.Parse(calcStack, calcStack2, cmdInput, cmdInputCmd, cmdInputParam);
+
+            // Write the command's changes to the session journal
+            Journal.Commit();
+         } finally {
+            Persistence.End();
+         }
 
          // Clear input parameters before we start again with the next command
          cmdInputCmd = "";
@@ -288,12 +295,13 @@ public class Main {
          UserFunctions.cmdRecord("off");
       }
 
-      // Save the items in the memory slots to the preferences system
-      StackMemory.SaveMemSlots();
+      // Write any stacks, memory slots, settings and functions that have changed since the last background save
+      Persistence.Close();
 
-      // Save the primary and secondary stacks to the preferences system
-      StackManagement.SaveStack(calcStack, "1");
-      StackManagement.SaveStack(calcStack2, "2");
+      // Everything is saved so the session journal is no longer needed
+      Journal.Close();
 
+      // Write out anything still buffered before exiting
+      Output.flush();
    }
 }
\ No newline at end of file
@@ -26,11 +26,11 @@
  * ------------------------------------------------------------------------------*/
 package org.fross.rpncalc;
 
+import org.fross.library.Debug;
 import org.fross.library.Output;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
 import java.security.SecureRandom;
 
 /**
@@ -73,7 +73,7 @@ public class Math {
             break;
 
          default:
-            Output.printColorln(Output.RED, "ERROR:  Illegal Operand sent to Math.Parse(): '" + op + "'");
+            CommandParser.ReportError("ERROR:  Illegal Operand sent to Math.Parse(): '" + op + "'");
       }
 
       return result;
@@ -86,11 +86,17 @@ public class Math {
     * @return StackObj
     */
    public static StackObj Add(StackObj stk) {
+      // Use long arithmetic if both values fit to avoid creating BigDecimals
+      if (Precision.compactAllowed() && stk.compactOperation('+')) {
+         if (Debug.query()) Output.debugPrintln("Adding (compact): result = " + stk.peek());
+         return stk;
+      }
+
       BigDecimal b = stk.pop();
       BigDecimal a = stk.pop();
-      BigDecimal result = a.add(b, stk.mc);
+      BigDecimal result = Precision.limit(a.add(b, Precision.get()));
 
-      Output.debugPrintln("Adding: " + a + " + " + b.toString() + " = " + result);
+      if (Debug.query()) Output.debugPrintln("Adding: " + a + " + " + b.toString() + " = " + result);
       stk.push(result);
       return stk;
    }
@@ -102,11 +108,17 @@ public class Math {
     * @return StackObj
     */
    public static StackObj Subtract(StackObj stk) {
+      // Use long arithmetic if both values fit to avoid creating BigDecimals
+      if (Precision.compactAllowed() && stk.compactOperation('-')) {
+         if (Debug.query()) Output.debugPrintln("Subtracting (compact): result = " + stk.peek());
+         return stk;
+      }
+
       BigDecimal b = stk.pop();
       BigDecimal a = stk.pop();
-      BigDecimal result = a.subtract(b, stk.mc);
+      BigDecimal result = Precision.limit(a.subtract(b, Precision.get()));
 
-      Output.debugPrintln("Subtracting: " + a + " - " + b.toString() + " = " + result);
+      if (Debug.query()) Output.debugPrintln("Subtracting: " + a + " - " + b.toString() + " = " + result);
       stk.push(result);
       return stk;
    }
@@ -118,11 +130,17 @@ public class Math {
     * @return StackObj
     */
    public static StackObj Multiply(StackObj stk) {
+      // Use long arithmetic if both values fit to avoid creating BigDecimals
+      if (Precision.compactAllowed() && stk.compactOperation('*')) {
+         if (Debug.query()) Output.debugPrintln("Multiplying (compact): result = " + stk.peek());
+         return stk;
+      }
+
       BigDecimal b = stk.pop();
       BigDecimal a = stk.pop();
-      BigDecimal result = a.multiply(b, stk.mc);
+      BigDecimal result = Precision.limit(a.multiply(b, Precision.get()));
 
-      Output.debugPrintln("Multiplying: " + a + " * " + b.toString() + " = " + result);
+      if (Debug.query()) Output.debugPrintln("Multiplying: " + a + " * " + b.toString() + " = " + result);
       stk.push(result);
       return stk;
    }
@@ -136,7 +154,7 @@ public class Math {
    public static StackObj Divide(StackObj stk) {
       // Ensure we don't divide by zero
       if (stk.peek().compareTo(BigDecimal.ZERO) == 0) {
-         Output.printColorln(Output.RED, "Dividing by zero is not allowed. You could wind up going back in time...");
+         CommandParser.ReportError("Dividing by zero is not allowed. You could wind up going back in time...");
          return stk;
       }
 
@@ -145,18 +163,19 @@ public class Math {
       BigDecimal result = BigDecimal.ZERO;
 
       try {
-         result = a.divide(b, MathContext.DECIMAL128);
+         result = a.divide(b, Precision.inexact());
       } catch (ArithmeticException | NullPointerException ex) {
-         Output.printColorln(Output.RED, "Error dividing " + a + " / " + b);
+         CommandParser.ReportError("Error dividing " + a + " / " + b);
       }
 
-      Output.debugPrintln("Dividing: " + a.toString() + " / " + b.toString() + " = " + result);
+      if (Debug.query()) Output.debugPrintln("Dividing: " + a.toString() + " / " + b.toString() + " = " + result);
       stk.push(result);
       return stk;
    }
 
    /**
-    * Power(): The second to the last item in the stack to the power of the last item
+    * Power(): The second to the last item in the stack to the power of the last item. Integer, decimal and negative
+    * exponents are all supported by the Power class
     *
     * @param stk Primary Stack
     * @return StackObj
@@ -164,34 +183,36 @@ public class Math {
    public static StackObj Power(StackObj stk) {
       BigDecimal power = stk.pop();
       BigDecimal base = stk.pop();
-      BigDecimal result = base.pow(power.intValue(), stk.mc);
-
-      Output.debugPrintln(base + " ^ " + power + " = " + result);
+      BigDecimal result;
 
-      // Warn user the decimal has been dropped
-      // TODO: Should make this more international at some point
-      if (power.toPlainString().contains(".")) {
-         Output.printColorln(Output.CYAN, "Warning: The decimal portion of '" + power + "' has been dropped for the calculation");
+      try {
+         result = Power.pow(base, power);
+      } catch (ArithmeticException ex) {
+         // Leave the operands on the stack so nothing is lost
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         stk.push(base);
+         stk.push(power);
+         return stk;
       }
 
+      if (Debug.query()) Output.debugPrintln(base + " ^ " + power + " = " + result);
       stk.push(result);
       return stk;
    }
 
    /**
-    * factorial(): Return the factorial of the provided integer
+    * factorial(): Return the factorial of the provided integer. The work is done in BigInteger by the Factorial class
     *
     * @param num The factorial number
     * @return BigDecimal result
     */
    public static BigDecimal Factorial(BigDecimal num) {
-      BigDecimal result = BigDecimal.ONE;
-
-      for (BigDecimal factor = new BigDecimal("2"); factor.compareTo(num) <= 0; factor = factor.add(BigDecimal.ONE)) {
-         result = result.multiply(factor, MathContext.UNLIMITED);
+      if (num.compareTo(BigDecimal.valueOf(Factorial.MAX_INPUT)) > 0) {
+         throw new ArithmeticException("Factorial input is larger than " + Factorial.MAX_INPUT);
       }
 
-      return result;
+      // Any decimal portion is dropped
+      return new BigDecimal(Factorial.compute(num.intValue()));
    }
 
    /**
@@ -240,11 +261,11 @@ public class Math {
 
       // Add up the numbers in the stack
       for (int i = 0; i < size; i++) {
-         totalCounter = totalCounter.add(stk.get(i), stk.mc);
+         totalCounter = totalCounter.add(stk.get(i));
       }
 
       // Return the average
-      return (totalCounter.divide(new BigDecimal(String.valueOf(size)), MathContext.DECIMAL128));
+      return (totalCounter.divide(new BigDecimal(String.valueOf(size)), Precision.inexact()));
 
    }
 
@@ -289,10 +310,8 @@ public class Math {
    public static BigDecimal median(StackObj stk) {
       BigDecimal result;
 
-      // Save current calcStack to the undoStack
-      stk.saveUndo();
-
-      // sort the stack
+      // Sort inside a transaction that is rolled back afterwards to get back to the original stack order
+      stk.beginTransaction();
       stk.sort("descending");
 
       try {
@@ -302,20 +321,19 @@ public class Math {
             int upperIndex = stk.size() / 2 + 1;
 
             Output.debugPrintln("Median: UpperIndex=" + upperIndex + "  |  LowerIndex=" + lowerIndex);
-            result = (stk.get(lowerIndex - 1).add(stk.get(upperIndex - 1), stk.mc)).divide(new BigDecimal("2"), MathContext.DECIMAL128);
+            result = (stk.get(lowerIndex - 1).add(stk.get(upperIndex - 1))).divide(new BigDecimal("2"), Precision.inexact());
 
          } else {
             // Odd number of items
             result = stk.get(stk.size() / 2);
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR: Could not calculate the median");
+         CommandParser.ReportError("ERROR: Could not calculate the median");
          return BigDecimal.ZERO;
+      } finally {
+         stk.rollbackTransaction();
       }
 
-      // Undo the sort to get back to the original stack order
-      StackCommands.cmdUndo(stk, String.valueOf(stk.undoSize()));
-
       return result;
    }
 
@@ -0,0 +1,444 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.fross.library.Output;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Persistence: Write-behind saving of the stacks, memory slots, configuration and user defined functions.
+ * <p>
+ * Nothing is written while a command runs. The main thread holds a lock while it processes a command and marks what it
+ * changed; stacks don't need marking as each StackArray counts its own changes. A virtual thread waits until something
+ * has changed, lets further changes collect for up to flushDelay milliseconds, and then writes only the stacks and
+ * memory slots that are different from what it last saved. The lock is only taken to copy the changes out, so the
+ * prompt never waits on the disk. Close() writes whatever is still outstanding and stops the thread.
+ * <p>
+ * Until Start() is called (batch mode and the tests) every save happens straight away on the calling thread.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Persistence {
+   // Class Constants
+   private static final String PREFS_MEMORY_SLOTS = "/org/fross/rpn/memoryslots";
+   private static final String PREFS_CONFIG = "/org/fross/rpn/config";
+
+   // Longest time a change waits before the thread starts writing it
+   static long flushDelay = 1000;
+
+   // The main thread holds the lock while it runs a command and the writer thread while it copies out the changes
+   private static final ReentrantLock lock = new ReentrantLock();
+   private static final Condition changed = lock.newCondition();
+   private static final Condition flushed = lock.newCondition();
+
+   // Class Variables. Everything below is guarded by the lock
+   private static Thread writer = null;
+   private static boolean closing = false;
+   private static boolean pending = false;
+   private static long flushesRequested = 0;
+   private static long flushesCompleted = 0;
+
+   // The two stacks being saved and what was last saved from each
+   private static StackObj[] stacks = null;
+   private static final Saved[] saved = new Saved[2];
+
+   // Changes waiting to be written. A stack saved twice before the flush is only written once
+   private static final Map<Path, StackWrite> stackWrites = new LinkedHashMap<>();
+   private static final BitSet dirtySlots = new BitSet();
+   private static boolean slotsResized = false;
+   private static boolean configChanged = false;
+   private static final List<Runnable> functionWrites = new ArrayList<>();
+
+   /**
+    * Saved: The stack array, its change counter and the stack name at the time a stack slot was last saved
+    */
+   private record Saved(String name, StackArray array, long version) {
+      boolean matches(StackObj stk) {
+         return array == stk.calcStack && version == stk.calcStack.version() && name.equals(stk.queryStackName());
+      }
+   }
+
+   /**
+    * StackWrite: An encoded stack file waiting to be written
+    */
+   private record StackWrite(String name, String slot, ByteBuffer contents) {
+   }
+
+   /**
+    * Batch: Everything copied out for one flush
+    */
+   private record Batch(List<StackWrite> stacks, Map<String, String> slots, BigDecimal[] allSlots, boolean config,
+                        List<Runnable> functions) {
+   }
+
+   /**
+    * Start(): Start saving the provided primary and secondary stacks in the background. Stacks that already have a
+    * stack file are taken as saved
+    *
+    * @param stk1 Primary stack
+    * @param stk2 Secondary stack
+    */
+   public static void Start(StackObj stk1, StackObj stk2) {
+      lock.lock();
+      try {
+         if (writer != null) return;
+         stacks = new StackObj[]{stk1, stk2};
+         for (int i = 0; i < stacks.length; i++) {
+            String slot = Integer.toString(i + 1);
+            saved[i] = StackFile.exists(stacks[i].queryStackName(), slot) ? saved(stacks[i]) : null;
+         }
+         closing = false;
+         writer = Thread.ofVirtual().name("rpncalc-persistence").start(Persistence::Run);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Begin(): Called by the main thread before it runs a command. The writer thread can't read the stacks until End()
+    */
+   public static void Begin() {
+      lock.lock();
+   }
+
+   /**
+    * End(): Called by the main thread once the command is complete. Wakes the writer thread to look for changes
+    */
+   public static void End() {
+      try {
+         if (writer != null) {
+            pending = true;
+            changed.signal();
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * MarkMemorySlot(): Record that a memory slot has changed
+    *
+    * @param slot Memory slot number
+    */
+   static void MarkMemorySlot(int slot) {
+      lock.lock();
+      try {
+         if (writer != null) dirtySlots.set(slot);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * MarkMemoryResized(): Record that the number of memory slots has changed so every slot is rewritten
+    */
+   static void MarkMemoryResized() {
+      lock.lock();
+      try {
+         if (writer != null) slotsResized = true;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * MarkConfig(): Record that a configuration setting was changed in the preferences system
+    */
+   static void MarkConfig() {
+      lock.lock();
+      try {
+         if (writer != null) configChanged = true;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * QueueFunctionWrite(): Queue a change to the user defined functions in the preferences system. Queued changes run in
+    * order. Without the writer thread the change runs immediately
+    *
+    * @param write Preferences change to make
+    */
+   static void QueueFunctionWrite(Runnable write) {
+      lock.lock();
+      try {
+         if (writer != null) {
+            functionWrites.add(write);
+            return;
+         }
+      } finally {
+         lock.unlock();
+      }
+      write.run();
+   }
+
+   /**
+    * SaveStacks(): Save both stacks now, before they are replaced by loading another stack. The stacks are copied right
+    * away and written by the writer thread, or written immediately if it isn't running
+    *
+    * @param stk1 Primary stack
+    * @param stk2 Secondary stack
+    */
+   public static void SaveStacks(StackObj stk1, StackObj stk2) {
+      lock.lock();
+      try {
+         if (writer != null) {
+            CaptureStacks();
+            pending = true;
+            changed.signal();
+            return;
+         }
+      } finally {
+         lock.unlock();
+      }
+
+      StackManagement.SaveStack(stk1, "1");
+      StackManagement.SaveStack(stk2, "2");
+   }
+
+   /**
+    * MarkSaved(): Record that both stacks match their stack files, typically because they were just loaded from them
+    */
+   public static void MarkSaved() {
+      lock.lock();
+      try {
+         if (writer == null) return;
+         for (int i = 0; i < stacks.length; i++) {
+            saved[i] = saved(stacks[i]);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Flush(): Block until every change made so far has been written
+    */
+   public static void Flush() {
+      lock.lock();
+      try {
+         if (writer == null) return;
+         long target = ++flushesRequested;
+         changed.signal();
+         while (flushesCompleted < target && writer != null) {
+            flushed.awaitUninterruptibly();
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Close(): Write everything still outstanding and stop the writer thread. Later saves happen on the calling thread
+    */
+   public static void Close() {
+      Thread thread;
+      lock.lock();
+      try {
+         if (writer == null) return;
+         thread = writer;
+         closing = true;
+         changed.signal();
+      } finally {
+         lock.unlock();
+      }
+
+      try {
+         thread.join();
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Run(): Writer thread. Waits for a change, waits up to flushDelay for more, then writes them all
+    */
+   private static void Run() {
+      lock.lock();
+      try {
+         while (true) {
+            while (!pending && !closing && flushesRequested == flushesCompleted) {
+               changed.awaitUninterruptibly();
+            }
+
+            // Let more changes collect unless someone is waiting for the flush
+            long remaining = TimeUnit.MILLISECONDS.toNanos(flushDelay);
+            while (remaining > 0 && !closing && flushesRequested == flushesCompleted) {
+               try {
+                  remaining = changed.awaitNanos(remaining);
+               } catch (InterruptedException ex) {
+                  break;
+               }
+            }
+
+            boolean last = closing;
+            long request = flushesRequested;
+            pending = false;
+            Batch batch = Capture();
+
+            lock.unlock();
+            try {
+               Write(batch);
+            } finally {
+               lock.lock();
+            }
+
+            flushesCompleted = request;
+            if (last) {
+               writer = null;
+               flushed.signalAll();
+               return;
+            }
+            flushed.signalAll();
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Capture(): Copy out everything that changed since the last flush. Called with the lock held
+    *
+    * @return The changes to write
+    */
+   private static Batch Capture() {
+      CaptureStacks();
+      List<StackWrite> stackBatch = new ArrayList<>(stackWrites.values());
+      stackWrites.clear();
+
+      Map<String, String> slots = new LinkedHashMap<>();
+      BigDecimal[] allSlots = null;
+      if (slotsResized) {
+         allSlots = StackMemory.memorySlots.clone();
+      } else {
+         for (int i = dirtySlots.nextSetBit(0); i >= 0 && i < StackMemory.memorySlots.length; i = dirtySlots.nextSetBit(i + 1)) {
+            BigDecimal value = StackMemory.memorySlots[i];
+            slots.put(Integer.toString(i), value == null ? null : value.toPlainString());
+         }
+      }
+      dirtySlots.clear();
+      slotsResized = false;
+
+      boolean config = configChanged;
+      configChanged = false;
+
+      List<Runnable> functions = new ArrayList<>(functionWrites);
+      functionWrites.clear();
+
+      return new Batch(stackBatch, slots, allSlots, config, functions);
+   }
+
+   /**
+    * CaptureStacks(): Encode each stack that changed since it was last saved and queue it to be written. Called with
+    * the lock held
+    */
+   private static void CaptureStacks() {
+      for (int i = 0; i < stacks.length; i++) {
+         StackObj stk = stacks[i];
+         if (saved[i] != null && saved[i].matches(stk)) continue;
+
+         String name = stk.queryStackName();
+         String slot = Integer.toString(i + 1);
+         stackWrites.put(StackFile.path(name, slot), new StackWrite(name, slot, StackFile.encode(stk.calcStack)));
+         saved[i] = saved(stk);
+      }
+   }
+
+   /**
+    * saved(): Return what is known about the stack once it has been saved
+    */
+   private static Saved saved(StackObj stk) {
+      return new Saved(stk.queryStackName(), stk.calcStack, stk.calcStack.version());
+   }
+
+   /**
+    * Write(): Write a batch of changes. Called without the lock
+    *
+    * @param batch The changes to write
+    */
+   private static void Write(Batch batch) {
+      for (StackWrite stackWrite : batch.stacks()) {
+         Output.debugPrintln("Persistence: writing stack '" + stackWrite.name() + "' #" + stackWrite.slot());
+         try {
+            StackFile.writeAtomically(StackFile.path(stackWrite.name(), stackWrite.slot()), stackWrite.contents());
+            StackManagement.RemoveLegacyStack(stackWrite.name(), stackWrite.slot());
+         } catch (IOException ex) {
+            Output.printColorln(Output.RED, "ERROR: Could not save stack '" + stackWrite.name() + "' #" + stackWrite.slot());
+            Output.printColorln(Output.RED, ex.getMessage());
+         }
+      }
+
+      if (batch.allSlots() != null || !batch.slots().isEmpty()) {
+         if (batch.allSlots() != null) {
+            StackMemory.SaveMemSlots(batch.allSlots());
+         } else {
+            Preferences p = Preferences.userRoot().node(PREFS_MEMORY_SLOTS);
+            batch.slots().forEach((slot, value) -> {
+               if (value == null) p.remove(slot);
+               else p.put(slot, value);
+            });
+         }
+         FlushPrefs(PREFS_MEMORY_SLOTS, "memory slots");
+      }
+
+      if (batch.config()) FlushPrefs(PREFS_CONFIG, "configuration");
+
+      if (!batch.functions().isEmpty()) {
+         batch.functions().forEach(Runnable::run);
+         FlushPrefs(UserFunctions.PREFS_PATH_FUNCTIONS, "user defined functions");
+      }
+   }
+
+   /**
+    * FlushPrefs(): Force a preferences node out to the backing store
+    *
+    * @param path Preferences node
+    * @param what Description for the error message
+    */
+   private static void FlushPrefs(String path, String what) {
+      try {
+         Preferences.userRoot().node(path).flush();
+      } catch (BackingStoreException | IllegalStateException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not save the " + what + " to the preferences system");
+      }
+   }
+
+}
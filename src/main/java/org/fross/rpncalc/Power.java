@@ -0,0 +1,255 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Power: Raise numbers to integer, rational and real powers, take nth roots, and do modular exponentiation.
+ * <p>
+ * Integer exponents are done by repeated squaring. When the precision is unlimited the result is exact unless the
+ * scale cap would trim it, in which case only the digits that survive the cap are computed. Other exponents use
+ * exp(y * ln(x)) at the inexact precision with enough extra digits to cover the error growth of the product.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Power {
+   // Exact results with more digits than this are refused when the precision is unlimited
+   public static final int MAX_EXACT_DIGITS = 1000000;
+
+   // Extra digits carried by the intermediate steps
+   private static final int GUARD_DIGITS = 10;
+
+   // Largest decimal exponent a BigDecimal result can have
+   private static final double MAX_MAGNITUDE = 999999999;
+
+   /**
+    * pow(): Raise base to the provided exponent using the configured precision
+    *
+    * @param base     Number to raise
+    * @param exponent Any integer or decimal exponent
+    * @return base^exponent
+    * @throws ArithmeticException if the result is not a real number or is too large to represent
+    */
+   public static BigDecimal pow(BigDecimal base, BigDecimal exponent) {
+      if (exponent.signum() == 0) return BigDecimal.ONE;
+
+      if (base.signum() == 0) {
+         if (exponent.signum() < 0) throw new ArithmeticException("Zero can not be raised to a negative power");
+         return BigDecimal.ZERO;
+      }
+
+      // Exponents that are not integers, or are too large to count squarings with, go through exp/ln
+      BigDecimal stripped = exponent.stripTrailingZeros();
+      if (stripped.scale() > 0 || stripped.precision() - stripped.scale() > 9) {
+         return realPower(base, exponent, Precision.inexact());
+      }
+
+      return integerPower(base, stripped.intValue());
+   }
+
+   /**
+    * integerPower(): Raise base to an integer power by repeated squaring, applying the configured precision
+    *
+    * @param base Non-zero number to raise
+    * @param n    Exponent
+    * @return base^n
+    */
+   static BigDecimal integerPower(BigDecimal base, int n) {
+      double magnitude = n * log10(base);
+      if (java.lang.Math.abs(magnitude) > MAX_MAGNITUDE) {
+         throw new ArithmeticException("The result of " + base + " ^ " + n + " is too " + (magnitude > 0 ? "large" : "small") + " to represent");
+      }
+
+      // Negative powers and limited precision are both rounded. BigDecimal.pow(n, mc) squares with a few guard digits
+      // of its own and may be off by an ulp, so give it ours as well and round once at the end
+      MathContext mc = (n < 0) ? Precision.inexact() : Precision.get();
+      if (mc.getPrecision() != Precision.UNLIMITED) {
+         return base.pow(n, new MathContext(mc.getPrecision() + GUARD_DIGITS, RoundingMode.HALF_EVEN)).round(mc);
+      }
+
+      // Unlimited precision. If the scale cap would trim the exact result, compute only the digits it keeps
+      int cap = Main.configScaleCap;
+      boolean capped = cap != Precision.UNLIMITED && (long) n * base.scale() > cap;
+      double digits = capped ? java.lang.Math.max(java.lang.Math.floor(magnitude) + 1 + cap, Precision.INEXACT_DIGITS)
+            : n * log10(new BigDecimal(base.unscaledValue())) + 1;
+      if (digits > MAX_EXACT_DIGITS) {
+         throw new ArithmeticException("The result of " + base + " ^ " + n + " would have more than " + MAX_EXACT_DIGITS
+               + " digits. Use 'set precision' to round it");
+      }
+
+      if (capped) {
+         return Precision.limit(base.pow(n, new MathContext((int) digits + GUARD_DIGITS, RoundingMode.HALF_EVEN)));
+      }
+      return base.pow(n);
+   }
+
+   /**
+    * realPower(): Raise base to any power with exp(y * ln(x)). A negative base needs an exponent that is a fraction with
+    * an odd denominator, such as 1/3, to have a real result
+    *
+    * @param base     Number to raise
+    * @param exponent Exponent
+    * @param mc       Precision of the result
+    * @return base^exponent
+    */
+   public static BigDecimal realPower(BigDecimal base, BigDecimal exponent, MathContext mc) {
+      if (exponent.signum() == 0) return BigDecimal.ONE;
+      if (base.signum() == 0) {
+         if (exponent.signum() < 0) throw new ArithmeticException("Zero can not be raised to a negative power");
+         return BigDecimal.ZERO;
+      }
+
+      boolean negate = false;
+      if (base.signum() < 0) {
+         // The exponent is u / 10^s, which reduces to p / q. The factors of two in 10^s cancel against u, so q is odd only
+         // when u has at least s factors of two, and p is odd only when it has exactly s
+         // An integer exponent with a negative scale is a multiple of ten and so even
+         BigDecimal stripped = exponent.stripTrailingZeros();
+         if (stripped.scale() >= 0) {
+            int twos = stripped.unscaledValue().abs().getLowestSetBit();
+            if (twos < stripped.scale()) {
+               throw new ArithmeticException(base + " ^ " + exponent + " is not a real number");
+            }
+            negate = (twos == stripped.scale());
+         }
+         base = base.negate();
+      }
+
+      // The error in ln(x) is multiplied by y * ln(x), so carry a digit for each power of ten in that product
+      double product = java.lang.Math.abs(exponent.doubleValue() * log10(base) * 2.302585092994046);
+      int extra = (product > 1) ? (int) java.lang.Math.ceil(java.lang.Math.log10(product)) : 0;
+      MathContext wc = new MathContext(mc.getPrecision() + extra + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+
+      BigDecimal result = tidy(Transcendental.exp(exponent.multiply(Transcendental.ln(base, wc), wc), wc).round(mc));
+      return negate ? result.negate() : result;
+   }
+
+   /**
+    * root(): The nth root of x by Newton iteration, doubling the precision with each step
+    *
+    * @param x  Number to take the root of. Negative values need an odd n
+    * @param n  Root to take, 1 or larger
+    * @param mc Precision of the result
+    * @return x^(1/n)
+    */
+   public static BigDecimal root(BigDecimal x, int n, MathContext mc) {
+      if (n < 1) throw new ArithmeticException("The root must be a positive integer");
+      if (x.signum() == 0 || n == 1) return x;
+      if (x.signum() < 0) {
+         if (n % 2 == 0) throw new ArithmeticException("An even root of a negative number is not a real number");
+         return root(x.negate(), n, mc).negate();
+      }
+
+      // Seed from a double, splitting off the power of ten so values outside the double range still work
+      double logRoot = log10(x) / n;
+      double whole = java.lang.Math.floor(logRoot);
+      BigDecimal y = new BigDecimal(java.lang.Math.pow(10, logRoot - whole)).movePointRight((int) whole);
+
+      // y = ((n - 1) * y + x / y^(n - 1)) / n. Each step doubles the correct digits, so start near the 15 digits of
+      // the double and finish with a step at the full working precision
+      BigDecimal nBig = BigDecimal.valueOf(n);
+      BigDecimal nMinusOne = BigDecimal.valueOf(n - 1);
+      int target = mc.getPrecision() + GUARD_DIGITS;
+      int digits = 15;
+      do {
+         digits = java.lang.Math.min(digits * 2, target);
+         MathContext step = new MathContext(digits, RoundingMode.HALF_EVEN);
+         y = nMinusOne.multiply(y).add(x.divide(y.pow(n - 1, step), step)).divide(nBig, step);
+      } while (digits < target);
+
+      MathContext wc = new MathContext(target, RoundingMode.HALF_EVEN);
+      y = nMinusOne.multiply(y).add(x.divide(y.pow(n - 1, wc), wc)).divide(nBig, wc);
+
+      return tidy(y.round(mc));
+   }
+
+   /**
+    * modPow(): Modular exponentiation of integers
+    *
+    * @param base     Integer base
+    * @param exponent Integer exponent. Negative exponents need base to be invertible modulo the modulus
+    * @param modulus  Positive integer modulus
+    * @return base^exponent mod modulus
+    */
+   public static BigDecimal modPow(BigDecimal base, BigDecimal exponent, BigDecimal modulus) {
+      BigInteger m = toInteger(modulus);
+      if (m.signum() <= 0) throw new ArithmeticException("The modulus must be a positive integer");
+
+      BigInteger b = toInteger(base);
+      BigInteger e = toInteger(exponent);
+      if (e.signum() < 0 && !b.gcd(m).equals(BigInteger.ONE)) {
+         throw new ArithmeticException(b + " has no inverse modulo " + m + " so the exponent can not be negative");
+      }
+
+      return new BigDecimal(b.modPow(e, m));
+   }
+
+   /**
+    * toInteger(): Convert a BigDecimal to a BigInteger if it has no fractional part
+    *
+    * @param value Number to convert
+    * @return BigInteger value
+    */
+   private static BigInteger toInteger(BigDecimal value) {
+      try {
+         return value.toBigIntegerExact();
+      } catch (ArithmeticException ex) {
+         throw new ArithmeticException("'" + value.toPlainString() + "' is not an integer");
+      }
+   }
+
+   /**
+    * log10(): Approximate base 10 logarithm of the absolute value, good for sizing results
+    *
+    * @param x Non-zero value
+    * @return log10(|x|) as a double
+    */
+   static double log10(BigDecimal x) {
+      int e = x.precision() - x.scale() - 1;
+      double mantissa = x.abs().round(MathContext.DECIMAL64).movePointLeft(e).doubleValue();
+      return e + java.lang.Math.log10(mantissa);
+   }
+
+   /**
+    * tidy(): Remove the trailing zeros a rounded result picks up when it is exact, such as the cube root of 8. A result
+    * ending in at least a third of its digits as zeros is taken to be exact
+    *
+    * @param value Rounded result
+    * @return The value, without the trailing zeros if it is exact
+    */
+   private static BigDecimal tidy(BigDecimal value) {
+      BigDecimal stripped = value.stripTrailingZeros();
+      if (value.precision() - stripped.precision() < java.lang.Math.max(1, value.precision() / 3)) return value;
+      if (stripped.scale() >= 0 || value.scale() <= 0) return stripped;
+      return value.setScale(0, RoundingMode.UNNECESSARY);
+   }
+
+}
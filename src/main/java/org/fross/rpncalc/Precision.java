@@ -0,0 +1,141 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Precision: The single precision policy used by every calculation. It is set with 'set precision' and 'set scalecap'
+ * and read from Main.configPrecision and Main.configScaleCap.
+ * <p>
+ * With a fixed precision every result is rounded to that many significant digits. With unlimited precision, addition,
+ * subtraction, multiplication and powers are exact and results that can't be exact (division, roots, trig, logs) use
+ * 34 digits. In unlimited mode an optional scale cap, off by default, trims decimal places beyond the cap so a long chain
+ * of multiplications can't grow the digit count without bound. Results of 34 significant digits or less are never
+ * trimmed, so very small numbers keep their value.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Precision {
+   // Used for both settings to mean there is no limit, matching MathContext
+   public static final int UNLIMITED = 0;
+
+   // Significant digits for results that can't be exact when the precision is unlimited
+   public static final int INEXACT_DIGITS = 34;
+
+   // Significant digits for constants such as PI when the precision is unlimited
+   public static final int CONSTANT_DIGITS = 51;
+
+   // Compact long arithmetic produces at most this many digits
+   private static final int COMPACT_DIGITS = 19;
+
+   private static MathContext context = MathContext.UNLIMITED;
+   private static final MathContext CONSTANT_CONTEXT = new MathContext(CONSTANT_DIGITS, RoundingMode.HALF_EVEN);
+
+   /**
+    * get(): MathContext for add, subtract, multiply and power
+    *
+    * @return MathContext for the configured precision
+    */
+   public static MathContext get() {
+      if (context.getPrecision() != Main.configPrecision) {
+         context = (Main.configPrecision == UNLIMITED) ? MathContext.UNLIMITED : new MathContext(Main.configPrecision, RoundingMode.HALF_EVEN);
+      }
+      return context;
+   }
+
+   /**
+    * inexact(): MathContext for operations whose results don't terminate such as division, roots, and trig
+    *
+    * @return MathContext for the configured precision, or 34 digits if unlimited
+    */
+   public static MathContext inexact() {
+      return (Main.configPrecision == UNLIMITED) ? MathContext.DECIMAL128 : get();
+   }
+
+   /**
+    * constants(): MathContext for constants such as PI and e
+    *
+    * @return MathContext for the configured precision, or 51 digits if unlimited
+    */
+   public static MathContext constants() {
+      return (Main.configPrecision == UNLIMITED) ? CONSTANT_CONTEXT : get();
+   }
+
+   /**
+    * limit(): Apply the scale cap to an exact result. Only does anything when the precision is unlimited
+    *
+    * @param value Result of a calculation
+    * @return The value, rounded if it has more decimal places than the cap allows
+    */
+   public static BigDecimal limit(BigDecimal value) {
+      int cap = Main.configScaleCap;
+      if (cap == UNLIMITED || Main.configPrecision != UNLIMITED || value.scale() <= cap || value.precision() <= INEXACT_DIGITS) {
+         return value;
+      }
+
+      int keep = java.lang.Math.max(value.precision() - (value.scale() - cap), INEXACT_DIGITS);
+      return value.round(new MathContext(keep, RoundingMode.HALF_EVEN));
+   }
+
+   /**
+    * compactAllowed(): True if long arithmetic on the stack can't produce more digits than the precision allows
+    *
+    * @return true if StackObj.compactOperation() may be used
+    */
+   public static boolean compactAllowed() {
+      return Main.configPrecision == UNLIMITED || Main.configPrecision >= COMPACT_DIGITS;
+   }
+
+   /**
+    * describe(): Text version of a precision or scale cap setting
+    *
+    * @param digits Setting value
+    * @return 'unlimited' or the number
+    */
+   public static String describe(int digits) {
+      return (digits == UNLIMITED) ? "unlimited" : String.valueOf(digits);
+   }
+
+   /**
+    * parse(): Convert the text from a set command into a setting value
+    *
+    * @param value 'unlimited' or a positive number
+    * @return The setting
+    * @throws NumberFormatException if the value is not valid
+    */
+   public static int parse(String value) {
+      if (value.trim().toLowerCase().startsWith("unl")) return UNLIMITED;
+
+      int digits = Integer.parseInt(value.trim());
+      if (digits < 1) throw new NumberFormatException("Must be at least 1");
+      return digits;
+   }
+
+}
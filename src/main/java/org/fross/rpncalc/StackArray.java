@@ -0,0 +1,579 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EmptyStackException;
+import java.util.RandomAccess;
+
+/**
+ * StackArray: A growable array holding the calculator stack. java.util.Stack extends Vector so every call takes a lock
+ * even though the calculator is single threaded. This class isn't synchronized, and also supports bulk replacement and
+ * copying of the whole stack with a single array copy. It is a java.util.List so anything reading the stack through
+ * getStack() keeps working. The bottom of the stack is index 0.
+ * <p>
+ * Values whose unscaled value fits in a long are also kept in compact form (unscaled long plus scale). Add, subtract,
+ * multiply and sum use plain long arithmetic on these and only fall back to BigDecimal on overflow. Results computed
+ * this way are stored compact only and the BigDecimal is created the first time it is read. The results are exactly
+ * the same as BigDecimal arithmetic with MathContext.UNLIMITED, including the scale.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class StackArray extends AbstractList<BigDecimal> implements RandomAccess {
+   private static final int DEFAULT_CAPACITY = 16;
+   private static final BigDecimal[] EMPTY = new BigDecimal[0];
+   private static final int PARALLEL_SORT_THRESHOLD = 100000;
+   private static final int MAX_COMPACT_PRECISION = 18;
+   private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+         1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L,
+         10000000000000000L, 100000000000000000L, 1000000000000000000L};
+
+   /**
+    * Listener: Receives each change to a stack after it is made. The session journal uses it to record changes without
+    * the stack knowing about the journal
+    */
+   interface Listener {
+      void pushed(BigDecimal item);
+
+      void pushed(long unscaledValue, int scale);
+
+      void popped();
+
+      void inserted(int index, BigDecimal item);
+
+      void removed(int index);
+
+      void replaced(int index, BigDecimal item);
+
+      void cleared();
+
+      void replacedAll(StackArray stack);
+
+      void combined(long unscaledValue, int scale);
+   }
+
+   // items[i] is null when the value has only been stored in compact form and not yet read as a BigDecimal
+   private BigDecimal[] items;
+   private long[] unscaled;
+   private int[] scales;
+   private boolean[] compact;
+   private int size = 0;
+
+   // Told about every change to this stack, or null. Copies never have a listener
+   private Listener listener = null;
+
+   // Incremented by every change so the persistence thread can tell whether the stack needs saving
+   private long version = 0;
+
+   // Constructors
+   public StackArray() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   public StackArray(int capacity) {
+      int length = java.lang.Math.max(capacity, DEFAULT_CAPACITY);
+      this.items = new BigDecimal[length];
+      this.unscaled = new long[length];
+      this.scales = new int[length];
+      this.compact = new boolean[length];
+   }
+
+   /**
+    * add(): Insert an item at the provided index, shifting the items above it up one position
+    *
+    * @param index Index to insert at. The bottom of the stack is 0
+    * @param item  Item to insert
+    */
+   @Override
+   public void add(int index, BigDecimal item) {
+      if (index < 0 || index > size) {
+         throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for stack size " + size);
+      }
+      ensureCapacity(size + 1);
+      shift(index, index + 1, size - index);
+      store(index, item);
+      size++;
+      modCount++;
+      version++;
+      if (listener != null) listener.inserted(index, item);
+   }
+
+   /**
+    * clear(): Remove all items from the stack. The capacity is kept
+    */
+   @Override
+   public void clear() {
+      removeAll();
+      version++;
+      if (listener != null) listener.cleared();
+   }
+
+   /**
+    * combineTop(): Replace the top two items with the result of 'second op top' using long arithmetic. Nothing is changed
+    * if either item isn't compact or the result would overflow, and the caller should use BigDecimal instead
+    *
+    * @param op '+', '-', or '*'
+    * @return true if the operation was performed
+    */
+   public boolean combineTop(char op) {
+      int top = size - 1;
+      if (top < 1 || !compact[top] || !compact[top - 1]) return false;
+
+      long a = unscaled[top - 1];
+      long b = unscaled[top];
+      int scaleA = scales[top - 1];
+      int scaleB = scales[top];
+      long result;
+      int resultScale;
+
+      try {
+         switch (op) {
+            case '+':
+            case '-':
+               // Align both values to the larger scale the same way BigDecimal.add() does
+               resultScale = java.lang.Math.max(scaleA, scaleB);
+               a = rescale(a, resultScale - scaleA);
+               b = rescale(b, resultScale - scaleB);
+               result = (op == '+') ? java.lang.Math.addExact(a, b) : java.lang.Math.subtractExact(a, b);
+               break;
+
+            case '*':
+               resultScale = java.lang.Math.addExact(scaleA, scaleB);
+               result = java.lang.Math.multiplyExact(a, b);
+               break;
+
+            default:
+               return false;
+         }
+      } catch (ArithmeticException ex) {
+         return false;
+      }
+
+      items[top] = null;
+      compact[top] = false;
+      items[top - 1] = null;
+      unscaled[top - 1] = result;
+      scales[top - 1] = resultScale;
+      compact[top - 1] = true;
+      size--;
+      modCount++;
+      version++;
+      if (listener != null) listener.combined(result, resultScale);
+      return true;
+   }
+
+   /**
+    * copy(): Return an independent copy of this stack
+    *
+    * @return copy of the stack
+    */
+   public StackArray copy() {
+      StackArray copy = new StackArray(size);
+      copyRange(this, 0, copy, 0, size);
+      copy.size = size;
+      return copy;
+   }
+
+   /**
+    * get(): Return the item at the provided index
+    *
+    * @param index Index of the item. The bottom of the stack is 0
+    * @return item at that index
+    */
+   @Override
+   public BigDecimal get(int index) {
+      checkIndex(index);
+      return materialize(index);
+   }
+
+   /**
+    * peek(): Return the item on the top of the stack without removing it
+    *
+    * @return item at the top of the stack
+    */
+   public BigDecimal peek() {
+      if (size == 0) throw new EmptyStackException();
+      return materialize(size - 1);
+   }
+
+   /**
+    * pop(): Remove and return the item on the top of the stack
+    *
+    * @return item that was on the top of the stack
+    */
+   public BigDecimal pop() {
+      if (size == 0) throw new EmptyStackException();
+      BigDecimal item = materialize(--size);
+      items[size] = null;
+      compact[size] = false;
+      modCount++;
+      version++;
+      if (listener != null) listener.popped();
+      return item;
+   }
+
+   /**
+    * push(): Add an item to the top of the stack
+    *
+    * @param item Item to add
+    */
+   public void push(BigDecimal item) {
+      if (size == items.length) ensureCapacity(size + 1);
+      store(size++, item);
+      modCount++;
+      version++;
+      if (listener != null) listener.pushed(item);
+   }
+
+   /**
+    * pushCompact(): Add a value given as an unscaled long and scale to the top of the stack. If it fits the compact
+    * form the BigDecimal isn't created until it is read
+    *
+    * @param unscaledValue Unscaled value
+    * @param scale         Scale
+    */
+   void pushCompact(long unscaledValue, int scale) {
+      if (unscaledValue <= -POWERS_OF_TEN[MAX_COMPACT_PRECISION] || unscaledValue >= POWERS_OF_TEN[MAX_COMPACT_PRECISION]) {
+         push(BigDecimal.valueOf(unscaledValue, scale));
+         return;
+      }
+
+      if (size == items.length) ensureCapacity(size + 1);
+      items[size] = null;
+      unscaled[size] = unscaledValue;
+      scales[size] = scale;
+      compact[size] = true;
+      size++;
+      modCount++;
+      version++;
+      if (listener != null) listener.pushed(unscaledValue, scale);
+   }
+
+   /**
+    * isCompact(): True if the item at the index is held as an unscaled long and scale
+    *
+    * @param index Index of the item
+    * @return true if unscaledAt() and scaleAt() can be used
+    */
+   boolean isCompact(int index) {
+      checkIndex(index);
+      return compact[index];
+   }
+
+   /**
+    * unscaledAt(): Unscaled value of a compact item
+    *
+    * @param index Index of the item
+    * @return unscaled value
+    */
+   long unscaledAt(int index) {
+      return unscaled[index];
+   }
+
+   /**
+    * scaleAt(): Scale of a compact item
+    *
+    * @param index Index of the item
+    * @return scale
+    */
+   int scaleAt(int index) {
+      return scales[index];
+   }
+
+   /**
+    * remove(): Remove and return the item at the provided index, shifting the items above it down one position
+    *
+    * @param index Index of the item to remove
+    * @return item removed
+    */
+   @Override
+   public BigDecimal remove(int index) {
+      checkIndex(index);
+      BigDecimal item = materialize(index);
+      shift(index + 1, index, size - index - 1);
+      size--;
+      items[size] = null;
+      compact[size] = false;
+      modCount++;
+      version++;
+      if (listener != null) listener.removed(index);
+      return item;
+   }
+
+   /**
+    * set(): Replace the item at the provided index
+    *
+    * @param index Index of the item to replace
+    * @param item  New value
+    * @return previous value at that index
+    */
+   @Override
+   public BigDecimal set(int index, BigDecimal item) {
+      checkIndex(index);
+      BigDecimal previous = materialize(index);
+      store(index, item);
+      version++;
+      if (listener != null) listener.replaced(index, item);
+      return previous;
+   }
+
+   /**
+    * setAll(): Replace the entire contents of the stack with the provided items
+    *
+    * @param newItems Items to place on the stack, bottom of the stack first
+    */
+   public void setAll(Collection<BigDecimal> newItems) {
+      if (newItems instanceof StackArray source) {
+         removeAll();
+         ensureCapacity(source.size);
+         copyRange(source, 0, this, 0, source.size);
+         size = source.size;
+      } else {
+         BigDecimal[] source = newItems.toArray(EMPTY);
+         removeAll();
+         ensureCapacity(source.length);
+         for (int i = 0; i < source.length; i++) {
+            store(i, source[i]);
+         }
+         size = source.length;
+      }
+
+      version++;
+
+      if (listener != null) listener.replacedAll(this);
+   }
+
+   /**
+    * appendAll(): Add every item of another stack to the top of this one, keeping compact values compact
+    *
+    * @param source Stack to copy the items from
+    */
+   void appendAll(StackArray source) {
+      int length = source.size;
+      ensureCapacity(size + length);
+      copyRange(source, 0, this, size, length);
+      size += length;
+      modCount++;
+      version++;
+
+      if (listener != null) listener.replacedAll(this);
+   }
+
+   /**
+    * size(): Return the number of items on the stack
+    *
+    * @return number of items
+    */
+   @Override
+   public int size() {
+      return size;
+   }
+
+   /**
+    * sort(): Sort the stack in place in O(n log n). Very large stacks are sorted in parallel
+    *
+    * @param comparator Comparator defining the order from the bottom of the stack to the top
+    */
+   @Override
+   public void sort(Comparator<? super BigDecimal> comparator) {
+      for (int i = 0; i < size; i++) {
+         materialize(i);
+      }
+
+      if (size >= PARALLEL_SORT_THRESHOLD) {
+         Arrays.parallelSort(items, 0, size, comparator);
+      } else {
+         Arrays.sort(items, 0, size, comparator);
+      }
+
+      // The compact values no longer line up with the sorted items
+      for (int i = 0; i < size; i++) {
+         store(i, items[i]);
+      }
+      modCount++;
+      version++;
+      if (listener != null) listener.replacedAll(this);
+   }
+
+   /**
+    * sum(): Return the total of every item on the stack. Compact values are added with long arithmetic until a value isn't
+    * compact or the total overflows, then the rest is added with BigDecimal
+    *
+    * @return total of the stack. Zero if it's empty
+    */
+   public BigDecimal sum() {
+      return sum(true);
+   }
+
+   /**
+    * sum(): Return the total of every item on the stack, optionally without the long arithmetic
+    *
+    * @param allowCompact true if compact values may be added with long arithmetic
+    * @return total of the stack. Zero if it's empty
+    */
+   public BigDecimal sum(boolean allowCompact) {
+      long total = 0;
+      int totalScale = 0;
+      int i = 0;
+
+      for (; allowCompact && i < size && compact[i]; i++) {
+         try {
+            int newScale = java.lang.Math.max(totalScale, scales[i]);
+            long value = rescale(unscaled[i], newScale - scales[i]);
+            total = java.lang.Math.addExact(rescale(total, newScale - totalScale), value);
+            totalScale = newScale;
+         } catch (ArithmeticException ex) {
+            break;
+         }
+      }
+
+      BigDecimal result = BigDecimal.valueOf(total, totalScale);
+      for (; i < size; i++) {
+         result = result.add(materialize(i));
+      }
+
+      return result;
+   }
+
+   /**
+    * toArray(): Return the stack contents as an array, bottom of the stack first
+    *
+    * @return array copy of the stack
+    */
+   @Override
+   public BigDecimal[] toArray() {
+      for (int i = 0; i < size; i++) {
+         materialize(i);
+      }
+      return Arrays.copyOf(items, size);
+   }
+
+   /**
+    * setListener(): Set the listener told about every change to this stack, or remove it with null
+    *
+    * @param listener Listener to use
+    */
+   void setListener(Listener listener) {
+      this.listener = listener;
+   }
+
+   /**
+    * version(): Return a counter that changes every time the stack is changed
+    *
+    * @return Change counter
+    */
+   long version() {
+      return version;
+   }
+
+   /**
+    * checkIndex(): Ensure the provided index refers to an item on the stack
+    */
+   private void checkIndex(int index) {
+      if (index < 0 || index >= size) {
+         throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for stack size " + size);
+      }
+   }
+
+   /**
+    * copyRange(): Copy items along with their compact values from one stack to another
+    */
+   private static void copyRange(StackArray from, int fromIndex, StackArray to, int toIndex, int length) {
+      System.arraycopy(from.items, fromIndex, to.items, toIndex, length);
+      System.arraycopy(from.unscaled, fromIndex, to.unscaled, toIndex, length);
+      System.arraycopy(from.scales, fromIndex, to.scales, toIndex, length);
+      System.arraycopy(from.compact, fromIndex, to.compact, toIndex, length);
+   }
+
+   /**
+    * ensureCapacity(): Grow the backing arrays by half again, or to the required size if that is larger
+    */
+   private void ensureCapacity(int required) {
+      if (required > items.length) {
+         int length = java.lang.Math.max(required, items.length + (items.length >> 1));
+         items = Arrays.copyOf(items, length);
+         unscaled = Arrays.copyOf(unscaled, length);
+         scales = Arrays.copyOf(scales, length);
+         compact = Arrays.copyOf(compact, length);
+      }
+   }
+
+   /**
+    * materialize(): Return the BigDecimal at the index, creating it from the compact value the first time it's needed
+    */
+   private BigDecimal materialize(int index) {
+      BigDecimal item = items[index];
+      if (item == null) {
+         item = BigDecimal.valueOf(unscaled[index], scales[index]);
+         items[index] = item;
+      }
+      return item;
+   }
+
+   /**
+    * rescale(): Multiply an unscaled value by 10^digits. Throws ArithmeticException if it won't fit in a long
+    */
+   private static long rescale(long value, int digits) {
+      if (digits == 0) return value;
+      if (digits >= POWERS_OF_TEN.length) throw new ArithmeticException("Rescale overflow");
+      return java.lang.Math.multiplyExact(value, POWERS_OF_TEN[digits]);
+   }
+
+   /**
+    * removeAll(): Empty the stack without telling the listener. Used by clear() and setAll()
+    */
+   private void removeAll() {
+      Arrays.fill(items, 0, size, null);
+      Arrays.fill(compact, 0, size, false);
+      size = 0;
+      modCount++;
+   }
+
+   /**
+    * shift(): Move a block of items along with their compact values within the stack
+    */
+   private void shift(int from, int to, int length) {
+      copyRange(this, from, this, to, length);
+   }
+
+   /**
+    * store(): Place a BigDecimal at the index, keeping a compact copy if the unscaled value fits in a long
+    */
+   private void store(int index, BigDecimal item) {
+      items[index] = item;
+      compact[index] = item != null && item.precision() <= MAX_COMPACT_PRECISION;
+      if (compact[index]) {
+         unscaled[index] = item.unscaledValue().longValue();
+         scales[index] = item.scale();
+      }
+   }
+
+}
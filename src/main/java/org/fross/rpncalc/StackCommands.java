@@ -26,12 +26,14 @@
  * ------------------------------------------------------------------------------*/
 package org.fross.rpncalc;
 
+import org.fross.library.Debug;
 import org.fross.library.Output;
+import org.jline.terminal.Terminal;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
-import java.util.Stack;
+import java.util.HashSet;
+import java.util.List;
 
 public class StackCommands {
    /**
@@ -43,7 +45,7 @@ public class StackCommands {
    public static void cmdAddAll(StackObj calcStack, String arg) {
       // Ensure we have enough numbers on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  This operation requires at least two items on the stack");
+         CommandParser.ReportError("ERROR:  This operation requires at least two items on the stack");
          return;
       }
 
@@ -61,19 +63,13 @@ public class StackCommands {
          // keepFlag is already set to false, so just ignore this error
       }
 
-      // Counter to hold the accumulating total
-      BigDecimal totalCounter = BigDecimal.ZERO;
+      // Total the stack and round it with the same precision policy as '+'. Values that fit in a long are added without
+      // creating BigDecimals when the precision allows it
+      BigDecimal totalCounter = Precision.limit(calcStack.sum(Precision.compactAllowed()).round(Precision.get()));
 
-      // If the 'keep' flag was sent, get the stack items instead of using pop
-      if (keepFlag) {
-         for (int i = 0; i < calcStack.size(); i++) {
-            totalCounter = totalCounter.add(calcStack.get(i));
-         }
-      } else {
-         // Loop through the stack items popping them off until there is nothing left
-         while (!calcStack.isEmpty()) {
-            totalCounter = totalCounter.add(calcStack.pop());
-         }
+      // If the 'keep' flag wasn't sent, remove the items that were added
+      if (!keepFlag) {
+         calcStack.clear();
       }
 
       // Add result back to the stack
@@ -88,7 +84,7 @@ public class StackCommands {
    public static void cmdAbsoluteValue(StackObj calcStack) {
       // Ensure we have enough numbers on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  This operation requires at least one item on the stack");
+         CommandParser.ReportError("ERROR:  This operation requires at least one item on the stack");
          return;
       }
 
@@ -111,7 +107,7 @@ public class StackCommands {
    public static void cmdAverage(StackObj calcStack, String arg) {
       // Ensure we have enough numbers on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  Average requires at least two items on the stack");
+         CommandParser.ReportError("ERROR:  Average requires at least two items on the stack");
          return;
       }
 
@@ -174,7 +170,7 @@ public class StackCommands {
 
       // Ensure we have at least one number to copy
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "Error: The stack must contain at least one number to copy");
+         CommandParser.ReportError("Error: The stack must contain at least one number to copy");
          return;
       }
 
@@ -183,7 +179,7 @@ public class StackCommands {
 
       // Determine if the provided argument is not a number
       if (!Math.isNumeric(arg)) {
-         Output.printColorln(Output.RED, "ERROR:  '" + arg + "' is not a valid line number");
+         CommandParser.ReportError("ERROR:  '" + arg + "' is not a valid line number");
          return;
       }
 
@@ -197,7 +193,7 @@ public class StackCommands {
             lineNumToCopy = 1 + lineNumToCopy;
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR:  '" + arg + "' is not a valid relative value");
+         CommandParser.ReportError("ERROR:  '" + arg + "' is not a valid relative value");
       }
 
       // Save current calcStack to the undoStack
@@ -209,13 +205,13 @@ public class StackCommands {
       try {
          // Ensure the number entered is valid
          if (lineNumToCopy > calcStack.size()) {
-            Output.printColorln(Output.RED, "Invalid line number entered");
+            CommandParser.ReportError("Invalid line number entered");
          } else {
             // Perform the copy
             calcStack.push(calcStack.get(calcStack.size() - lineNumToCopy));
          }
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "Error parsing line number for copy: '" + lineNumToCopy + "'");
+         CommandParser.ReportError("Error parsing line number for copy: '" + lineNumToCopy + "'");
          Output.debugPrintln(e.getMessage());
       }
    }
@@ -232,7 +228,7 @@ public class StackCommands {
 
       // Ensure we have at least one item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "There must be at least one item on the stack to delete");
+         CommandParser.ReportError("There must be at least one item on the stack to delete");
          return;
       }
 
@@ -259,14 +255,14 @@ public class StackCommands {
                startLine = Integer.parseInt(arg.split("-")[0]);
                endLine = Integer.parseInt(arg.split("-")[1]);
             } catch (Exception e) {
-               Output.printColorln(Output.RED, "Invalid range provided: '" + arg + "'");
+               CommandParser.ReportError("Invalid range provided: '" + arg + "'");
                return;
             }
          }
 
          // An invalid or no argument was provided
          if (!arg.isBlank() && startLine == 0) {
-            Output.printColorln(Output.RED, "Invalid line number provided: '" + arg + "'");
+            CommandParser.ReportError("Invalid line number provided: '" + arg + "'");
             return;
 
             // No argument was provided - delete the item on the top of the stack
@@ -288,7 +284,7 @@ public class StackCommands {
       try {
          // Ensure the number entered is valid
          if (startLine < 1 || endLine > calcStack.size()) {
-            Output.printColorln(Output.RED, "Deletion range must be between 1 and " + calcStack.size());
+            CommandParser.ReportError("Deletion range must be between 1 and " + calcStack.size());
 
          } else {
             int counter = 0;   // Account for a shrinking calcStack.size() as items are removed
@@ -304,7 +300,7 @@ public class StackCommands {
          }
 
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "Error parsing line number for element delete: '" + arg + "'");
+         CommandParser.ReportError("Error parsing line number for element delete: '" + arg + "'");
          Output.debugPrintln(e.getMessage());
       }
    }
@@ -326,7 +322,7 @@ public class StackCommands {
             die = Long.parseLong(param.trim().split("[Dd]")[1]);
          }
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "ERROR: Couldn't parse dice parameter('" + param + "').  Format: 'dice xdy' where x=rolls, y=sides");
+         CommandParser.ReportError("ERROR: Couldn't parse dice parameter('" + param + "').  Format: 'dice xdy' where x=rolls, y=sides");
          return;
       }
 
@@ -335,10 +331,10 @@ public class StackCommands {
 
       // Verify that the entered numbers are valid
       if (die <= 0) {
-         Output.printColorln(Output.RED, "ERROR: die must have greater than zero sides");
+         CommandParser.ReportError("ERROR: die must have greater than zero sides");
          return;
       } else if (rolls < 1) {
-         Output.printColorln(Output.RED, "ERROR: You have to specify at least 1 roll");
+         CommandParser.ReportError("ERROR: You have to specify at least 1 roll");
          return;
       }
 
@@ -360,7 +356,7 @@ public class StackCommands {
    public static void cmdDown(StackObj calcStack) {
       // Ensure we have at least 2 values on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "Error: There must be at least two items on the stack");
+         CommandParser.ReportError("Error: There must be at least two items on the stack");
          return;
       }
 
@@ -379,7 +375,7 @@ public class StackCommands {
    public static void cmdEcho(String msg) {
       // Ensure we have a message to display
       if (msg.isEmpty()) {
-         Output.printColorln(Output.RED, "Error: The message to echo is empty");
+         CommandParser.ReportError("Error: The message to echo is empty");
          return;
       }
 
@@ -401,13 +397,19 @@ public class StackCommands {
    public static void cmdFactorial(StackObj calcStack) {
       // Ensure we have an item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "Error: There must be at least one item on the stack to perform a factorial");
+         CommandParser.ReportError("Error: There must be at least one item on the stack to perform a factorial");
          return;
       }
 
       // Ensure the provided number is not zero or negative
       if (calcStack.peek().compareTo(BigDecimal.ZERO) < 1) {
-         Output.printColorln(Output.RED, "ERROR: Factorial requires a number greater than zero");
+         CommandParser.ReportError("ERROR: Factorial requires a number greater than zero");
+         return;
+      }
+
+      // Ensure the result can be computed in a reasonable amount of memory
+      if (calcStack.peek().compareTo(BigDecimal.valueOf(Factorial.MAX_INPUT)) > 0) {
+         CommandParser.ReportError("ERROR: Factorial is limited to numbers less than or equal to " + Factorial.MAX_INPUT);
          return;
       }
 
@@ -431,7 +433,7 @@ public class StackCommands {
     */
    public static void cmdFlipSign(StackObj calcStack) {
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "Error: There must be at least one item on the stack to flip it's sign");
+         CommandParser.ReportError("Error: There must be at least one item on the stack to flip it's sign");
 
       } else {
          // Save current calcStack to the undoStack
@@ -457,7 +459,7 @@ public class StackCommands {
          calcStack.push(new BigDecimal(calcStack.pop().toBigInteger()).toEngineeringString());
 
       } else {
-         Output.printColorln(Output.RED, "ERROR: Must be at least one item on the stack");
+         CommandParser.ReportError("ERROR: Must be at least one item on the stack");
       }
    }
 
@@ -481,7 +483,7 @@ public class StackCommands {
 
       // Ensure we have at least 2 values on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "Error: There must be at least two items on the stack to calculate a linear regression");
+         CommandParser.ReportError("Error: There must be at least two items on the stack to calculate a linear regression");
          return;
       }
 
@@ -503,7 +505,7 @@ public class StackCommands {
          }
 
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR: Acceptable linear regression options are 'add' or a number for 'x'");
+         CommandParser.ReportError("ERROR: Acceptable linear regression options are 'add' or a number for 'x'");
          return;
       }
 
@@ -543,11 +545,11 @@ public class StackCommands {
 
       BigDecimal a_top = sumY.multiply(sumX2).subtract(sumX.multiply(sumXY));
       BigDecimal a_bottom = n.multiply(sumX2).subtract(sumX.pow(2));
-      BigDecimal a = a_top.divide(a_bottom, MathContext.DECIMAL128);
+      BigDecimal a = a_top.divide(a_bottom, Precision.inexact());
 
       BigDecimal b_top = n.multiply(sumXY).subtract(sumX.multiply(sumY));
       // b_bottom is the same as a_bottom so just it that
-      BigDecimal b = b_top.divide(a_bottom, MathContext.DECIMAL128);
+      BigDecimal b = b_top.divide(a_bottom, Precision.inexact());
 
       // Output details if debug is enabled
       Output.debugPrintln("n:         " + n.toPlainString());
@@ -587,16 +589,25 @@ public class StackCommands {
     * @param calcStack Primary Stack
     */
    public static void cmdLog(StackObj calcStack) {
-      if (!calcStack.isEmpty()) {
-         // Save current calcStack to the undoStack
-         calcStack.saveUndo();
-
-         Output.debugPrintln("Taking the natural logarithm of " + calcStack.peek().toString());
-         calcStack.push(java.lang.Math.log(calcStack.pop().doubleValue()));
+      if (calcStack.isEmpty()) {
+         CommandParser.ReportError("ERROR: Must be at least one item on the stack");
+         return;
+      }
 
-      } else {
-         Output.printColorln(Output.RED, "ERROR: Must be at least one item on the stack");
+      Output.debugPrintln("Taking the natural logarithm of " + calcStack.peek().toString());
+      BigDecimal result;
+      try {
+         result = Transcendental.ln(calcStack.peek(), Precision.inexact());
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
       }
+
+      // Save current calcStack to the undoStack
+      calcStack.saveUndo();
+
+      calcStack.pop();
+      calcStack.push(result);
    }
 
    /**
@@ -605,16 +616,25 @@ public class StackCommands {
     * @param calcStack Primary Stack
     */
    public static void cmdLog10(StackObj calcStack) {
-      if (!calcStack.isEmpty()) {
-         // Save current calcStack to the undoStack
-         calcStack.saveUndo();
-
-         Output.debugPrintln("Taking the base 10 logarithm of " + calcStack.peek());
-         calcStack.push(java.lang.Math.log10(calcStack.pop().doubleValue()));
+      if (calcStack.isEmpty()) {
+         CommandParser.ReportError("ERROR: Must be at least one item on the stack");
+         return;
+      }
 
-      } else {
-         Output.printColorln(Output.RED, "ERROR: Must be at least one item on the stack");
+      Output.debugPrintln("Taking the base 10 logarithm of " + calcStack.peek());
+      BigDecimal result;
+      try {
+         result = Transcendental.log10(calcStack.peek(), Precision.inexact());
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
       }
+
+      // Save current calcStack to the undoStack
+      calcStack.saveUndo();
+
+      calcStack.pop();
+      calcStack.push(result);
    }
 
    /**
@@ -628,7 +648,7 @@ public class StackCommands {
 
       // Ensure we have enough numbers on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  This operation requires at least one item on the stack");
+         CommandParser.ReportError("ERROR:  This operation requires at least one item on the stack");
          return false;
       }
 
@@ -657,7 +677,7 @@ public class StackCommands {
    public static void cmdMedian(StackObj calcStack, String arg) {
       // Ensure we have enough numbers on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  Median requires at least two items on the stack");
+         CommandParser.ReportError("ERROR:  Median requires at least two items on the stack");
          return;
       }
 
@@ -697,7 +717,7 @@ public class StackCommands {
 
       // Ensure we have enough numbers on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  This operation requires at least one item on the stack");
+         CommandParser.ReportError("ERROR:  This operation requires at least one item on the stack");
          return false;
       }
 
@@ -725,7 +745,7 @@ public class StackCommands {
    public static void cmdModulus(StackObj calcStack) {
       // Ensure we have at least 2 items on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  There must be at least two items on the stack");
+         CommandParser.ReportError("ERROR:  There must be at least two items on the stack");
          return;
       }
 
@@ -737,12 +757,45 @@ public class StackCommands {
       BigDecimal a = calcStack.pop();
 
       // Calculate the result. Negative numbers can cause problems - see the following for the result calculation
-      BigDecimal remainder = a.remainder(b, MathContext.DECIMAL128);
+      BigDecimal remainder = a.remainder(b, Precision.inexact());
 
       Output.debugPrintln("Modulus: " + a + " % " + b + " = " + remainder.toPlainString());
       calcStack.push(remainder);
    }
 
+   /**
+    * cmdModPow(): Modular exponentiation. line3 is raised to the power of line2 and reduced modulo line1. All three
+    * must be integers
+    *
+    * @param calcStack Primary Stack
+    */
+   public static void cmdModPow(StackObj calcStack) {
+      if (calcStack.size() < 3) {
+         CommandParser.ReportError("ERROR:  There must be at least three items on the stack");
+         return;
+      }
+
+      BigDecimal modulus = calcStack.peek();
+      BigDecimal exponent = calcStack.get(calcStack.size() - 2);
+      BigDecimal base = calcStack.get(calcStack.size() - 3);
+      BigDecimal result;
+      try {
+         result = Power.modPow(base, exponent, modulus);
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
+      }
+
+      // Save current calcStack to the undoStack
+      calcStack.saveUndo();
+
+      Output.debugPrintln("ModPow: " + base + " ^ " + exponent + " mod " + modulus + " = " + result);
+      calcStack.pop();
+      calcStack.pop();
+      calcStack.pop();
+      calcStack.push(result);
+   }
+
    /**
     * cmdOperand(): An operand was entered such as + or -
     *
@@ -753,14 +806,16 @@ public class StackCommands {
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
 
-      Output.debugPrintln("CalcStack has " + calcStack.size() + " elements");
-      Output.debugPrintln("Operand entered: '" + op + "'");
+      if (Debug.query()) {
+         Output.debugPrintln("CalcStack has " + calcStack.size() + " elements");
+         Output.debugPrintln("Operand entered: '" + op + "'");
+      }
 
       // Verify stack contains at least two elements
       if (calcStack.size() >= 2) {
          Math.Parse(op, calcStack);
       } else {
-         Output.printColorln(Output.RED, "Two numbers are required for this operation");
+         CommandParser.ReportError("Two numbers are required for this operation");
       }
 
    }
@@ -784,8 +839,8 @@ public class StackCommands {
             high = Long.parseLong(param.trim().split("\\s")[1]);
          }
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "Error parsing low and high parameters.  Low: '" + low + "' High: '" + high + "'");
-         Output.printColorln(Output.RED, "See usage information in the help page");
+         CommandParser.ReportError("Error parsing low and high parameters.  Low: '" + low + "' High: '" + high + "'");
+         CommandParser.ReportError("See usage information in the help page");
          return;
       }
 
@@ -794,7 +849,7 @@ public class StackCommands {
 
       // Verify that the low number <= the high number
       if (low > high) {
-         Output.printColorln(Output.RED, "ERROR: the first number much be less than or equal to the high number");
+         CommandParser.ReportError("ERROR: the first number much be less than or equal to the high number");
          return;
       }
 
@@ -820,7 +875,7 @@ public class StackCommands {
 
       // Ensure we have something in the history stack
       if (CommandHistory.size() < 1) {
-         Output.printColorln(Output.RED, "ERROR: No previous command to repeat");
+         CommandParser.ReportError("ERROR: No previous command to repeat");
          return;
       }
 
@@ -833,33 +888,81 @@ public class StackCommands {
          if (arg.isEmpty()) {
             repetitions = 1;
          } else {
-            Output.printColorln(Output.RED, "Invalid repetition number provided: '" + arg + "'");
+            CommandParser.ReportError("Invalid repetition number provided: '" + arg + "'");
             return;
          }
       }
 
       try {
-         cmdInput = CommandHistory.get().split("##")[0];
-         cmdInputCmd = CommandHistory.get().split("##")[1];
-         cmdInputParam = CommandHistory.get().split("##")[2];
+         String[] previous = CommandHistory.getParts();
+         cmdInput = previous[0];
+         cmdInputCmd = previous[1];
+         cmdInputParam = previous[2];
 
-      } catch (ArrayIndexOutOfBoundsException e) {
-         // TODO: Ignore this error as it will trigger if just a command is entered with no parameter. There must be a better way...
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "Unable to parse previous command: '" + CommandHistory.get() + "'");
+         CommandParser.ReportError("Unable to parse previous command: '" + CommandHistory.get() + "'");
          return;
       }
 
       // Show the user the command we'll repeat
       Output.debugPrintln("[REPEAT CMD] Full cmdInput: '" + cmdInput + "'  |  cmdInputCmd: '" + cmdInputCmd + "'  |  cmdInputParam: '" + cmdInputParam + "'");
 
-      // Execute the previous command
-      for (int i = 0; i < repetitions; i++) {
-         CommandParser.Parse(calcStack, calcStack, cmdInput, cmdInputCmd, cmdInputParam);
+      // Resolve the previous command once so each repetition doesn't go back through the parser
+      FunctionPlan operation = new FunctionPlan(List.of(cmdInput), new HashSet<>(UserFunctions.GetFunctionNames()));
+
+      // Execute the previous command. The repetitions are undone as a single step and Ctrl-C stops them
+      Terminal.SignalHandler previousHandler = UserInput.catchInterrupts();
+      calcStack.beginTransaction();
+      try {
+         for (int i = 0; i < repetitions; i++) {
+            if (UserInput.checkInterrupt()) {
+               Output.printColorln(Output.YELLOW, "Repeat interrupted after " + i + " of " + repetitions + " repetitions");
+               break;
+            }
+            operation.Run(calcStack, calcStack);
+         }
+      } finally {
+         calcStack.commitTransaction();
+         UserInput.releaseInterrupts(previousHandler);
       }
 
    }
 
+   /**
+    * cmdRoot(): Take the nth root of line2 where n is line1
+    *
+    * @param calcStack Primary Stack
+    */
+   public static void cmdRoot(StackObj calcStack) {
+      if (calcStack.size() < 2) {
+         CommandParser.ReportError("ERROR:  There must be at least two items on the stack");
+         return;
+      }
+
+      BigDecimal n = calcStack.peek();
+      BigDecimal x = calcStack.get(calcStack.size() - 2);
+      if (n.signum() <= 0 || n.stripTrailingZeros().scale() > 0 || n.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0) {
+         CommandParser.ReportError("ERROR:  The root in line1 must be a positive integer");
+         return;
+      }
+
+      BigDecimal result;
+      try {
+         result = Power.root(x, n.intValue(), Precision.inexact());
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
+      }
+
+      // Save current calcStack to the undoStack
+      calcStack.saveUndo();
+
+      Output.debugPrintln("Root: " + n + " root of " + x + " = " + result);
+      calcStack.pop();
+      calcStack.pop();
+      calcStack.push(result);
+   }
+
    /**
     * cmdRound(): Round to the provided decimal place. If none is provided round to the nearest integer
     * <p>
@@ -874,7 +977,7 @@ public class StackCommands {
 
       // Ensure we have something on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  There must be at least one item on the stack");
+         CommandParser.ReportError("ERROR:  There must be at least one item on the stack");
          return;
       }
 
@@ -883,7 +986,7 @@ public class StackCommands {
          decimalPlaces = Integer.parseInt(arg);
          // Ensure a negative number is not provided for decimal points to round
          if (decimalPlaces < 0) {
-            Output.printColorln(Output.RED, "ERROR:  '" + arg + "' number of decimal places must be >= 0");
+            CommandParser.ReportError("ERROR:  '" + arg + "' number of decimal places must be >= 0");
             return;
          }
 
@@ -892,7 +995,7 @@ public class StackCommands {
             decimalPlaces = 0;
          } else {
             // Error out for any non-valid characters
-            Output.printColorln(Output.RED, "ERROR:  '" + arg + "' not a valid number of decimal places");
+            CommandParser.ReportError("ERROR:  '" + arg + "' not a valid number of decimal places");
             return;
          }
       }
@@ -916,7 +1019,7 @@ public class StackCommands {
    public static void cmdSort(StackObj calcStack, String param) {
       // Ensure we have enough numbers on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  Sort requires at least two items on the stack");
+         CommandParser.ReportError("ERROR:  Sort requires at least two items on the stack");
          return;
       }
 
@@ -933,7 +1036,7 @@ public class StackCommands {
             throw new IllegalArgumentException();
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR: Sort requires an (a)scending or (d)escending argument");
+         CommandParser.ReportError("ERROR: Sort requires an (a)scending or (d)escending argument");
       }
 
    }
@@ -951,7 +1054,7 @@ public class StackCommands {
 
       // Verify at least two elements exist
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "Error: There must be at least 2 elements on the stack to swap");
+         CommandParser.ReportError("Error: There must be at least 2 elements on the stack to swap");
          return;
       }
 
@@ -963,16 +1066,16 @@ public class StackCommands {
          }
 
       } catch (NumberFormatException e) {
-         Output.printColorln(Output.RED, "Error parsing line number for stack swap: '" + item1 + "' and '" + item2 + "'");
+         CommandParser.ReportError("Error parsing line number for stack swap: '" + item1 + "' and '" + item2 + "'");
          return;
 
       } catch (Exception e) {
-         Output.printColorln(Output.RED, "ERROR:\n" + e.getMessage());
+         CommandParser.ReportError("ERROR:\n" + e.getMessage());
       }
 
       // Make sure the numbers are valid
       if (item1 < 1 || item1 > calcStack.size() || item2 < 1 || item2 > calcStack.size()) {
-         Output.printColorln(Output.RED, "Invalid element entered.  Must be between 1 and " + calcStack.size());
+         CommandParser.ReportError("Invalid element entered.  Must be between 1 and " + calcStack.size());
 
       } else {
          // Save current calcStack to the undoStack
@@ -992,13 +1095,13 @@ public class StackCommands {
    public static void cmdSqrt(StackObj calcStack) {
       // Verify we have an item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  There must be at least one item on the stack");
+         CommandParser.ReportError("ERROR:  There must be at least one item on the stack");
          return;
       }
 
       // If the number to take the square root of is negative, return an error
       if (calcStack.peek().compareTo(BigDecimal.ZERO) < 0) {
-         Output.printColorln(Output.RED, "ERROR:  You can not take the square root of a negative number");
+         CommandParser.ReportError("ERROR:  You can not take the square root of a negative number");
          return;
       }
 
@@ -1006,7 +1109,7 @@ public class StackCommands {
       calcStack.saveUndo();
 
       Output.debugPrintln("Taking the square root of the last stack item");
-      calcStack.push(calcStack.pop().sqrt(MathContext.DECIMAL128));
+      calcStack.push(calcStack.pop().sqrt(Precision.inexact()));
    }
 
    /**
@@ -1020,7 +1123,7 @@ public class StackCommands {
    public static void cmdStdDeviation(StackObj calcStack, String arg) {
       // Ensure we have enough numbers on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  Standard Deviation requires at least two items on the stack");
+         CommandParser.ReportError("ERROR:  Standard Deviation requires at least two items on the stack");
          return;
       }
 
@@ -1064,7 +1167,7 @@ public class StackCommands {
       calcStack.saveUndo();
 
       // Step4: Take the square root of that result and push onto the stack
-      calcStack.push(mean2.sqrt(MathContext.DECIMAL128));
+      calcStack.push(mean2.sqrt(Precision.inexact()));
    }
 
    /**
@@ -1086,7 +1189,7 @@ public class StackCommands {
 
          // Ensure number provided as > 0 and less than the size of the undo stack
          if (lineNum <= 0 || lineNum > calcStack.undoSize()) {
-            Output.printColorln(Output.RED, "An invalid undo line number entered: '" + arg + "'");
+            CommandParser.ReportError("An invalid undo line number entered: '" + arg + "'");
             return;
          }
       } catch (NumberFormatException ex) {
@@ -1094,7 +1197,7 @@ public class StackCommands {
             // No number was provided, use the top stack item
             lineNum = calcStack.undoSize();
          } else {
-            Output.printColorln(Output.RED, "An invalid undo line number entered: '" + arg + "'");
+            CommandParser.ReportError("An invalid undo line number entered: '" + arg + "'");
             return;
          }
       }
@@ -1102,18 +1205,12 @@ public class StackCommands {
       Output.debugPrintln("  - Restoring back to line number: " + lineNum + "  |  index number: " + (lineNum - 1));
 
       if (calcStack.undoSize() >= 1) {
-         // Replace the calcStack items with the correct undo stack ones
-         Stack<Stack<BigDecimal>> currentUndoStack = calcStack.undoGet();
-         calcStack.replaceStack(currentUndoStack.get(lineNum - 1));
-
-         // Discard the items in the Undo stack after the selected index
-         for (int i = calcStack.undoSize(); i > lineNum - 1; i--) {
-            Output.debugPrintln("  - Removing unneeded undo stack item at line " + (i) + " / index: " + (i - 1) + ":  " + calcStack.undoGet(i - 1));
-            calcStack.undoRemove(i - 1);
-         }
+         // Reverse the changes back to the selected line. That undo item and the ones after it are discarded
+         Output.debugPrintln("  - Removing " + (calcStack.undoSize() - lineNum + 1) + " unneeded undo stack item(s)");
+         calcStack.undoRestore(lineNum);
 
       } else {
-         Output.printColorln(Output.RED, "Error: Already at oldest change");
+         CommandParser.ReportError("Error: Already at oldest change");
       }
    }
 
@@ -1126,7 +1223,7 @@ public class StackCommands {
    public static void cmdUp(StackObj calcStack) {
       // Ensure we have at least 2 values on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "Error: There must be at least two items on the stack");
+         CommandParser.ReportError("Error: There must be at least two items on the stack");
          return;
       }
 
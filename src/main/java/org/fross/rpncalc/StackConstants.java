@@ -29,7 +29,6 @@ package org.fross.rpncalc;
 import org.fross.library.Output;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
 
 import static org.fross.rpncalc.StackConversions.cmdFraction;
@@ -42,7 +41,7 @@ public class StackConstants {
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
 
-      calcStack.push("0.577215664901532860606512090082402431");
+      calcStack.push(Constants.gamma(Precision.constants()));
 
       Output.printColorln(Output.CYAN, "Euler's constant (y) has been added to the stack");
    }
@@ -54,7 +53,7 @@ public class StackConstants {
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
 
-      calcStack.push("2.71828182845904523536028747135266249775724709369995");
+      calcStack.push(Constants.e(Precision.constants()));
 
       Output.printColorln(Output.CYAN, "Euler's number (e) has been added to the stack");
    }
@@ -66,7 +65,7 @@ public class StackConstants {
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
 
-      calcStack.push("3.14159265358979323846264338327950288419716939937510");
+      calcStack.push(Constants.pi(Precision.constants()));
 
       Output.printColorln(Output.CYAN, "The value PI added to the stack");
    }
@@ -75,8 +74,8 @@ public class StackConstants {
     * cmdPHI(): Add the value PHI (Golden Ratio) to the stack
     */
    public static void cmdPHI(StackObj calcStack) {
-      BigDecimal phi = new BigDecimal("1.61803398874989");
-      BigDecimal phiInverse = BigDecimal.ONE.divide(phi, MathContext.DECIMAL128);
+      BigDecimal phi = Constants.phi(Precision.constants());
+      BigDecimal phiInverse = phi.subtract(BigDecimal.ONE);   // 1/PHI = PHI - 1
 
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
@@ -98,8 +97,8 @@ public class StackConstants {
     * cmdPHIBox(): Given the length, display a width and height for a box. Display and add width/height to stack
     */
    public static void cmdPHIBox(StackObj calcStack) {
-      BigDecimal phi = new BigDecimal("1.61803398874989");
-      BigDecimal phiInverse = BigDecimal.ONE.divide(phi, MathContext.DECIMAL128);
+      BigDecimal phi = Constants.phi(Precision.constants());
+      BigDecimal phiInverse = phi.subtract(BigDecimal.ONE);   // 1/PHI = PHI - 1
       String base = "16";
 
       // Verify there is at least one number on the stack
@@ -132,7 +131,7 @@ public class StackConstants {
          calcStack.push(height);
 
       } else {
-         Output.printColorln(Output.RED, "ERROR:  There must be at least one number on the stack");
+         CommandParser.ReportError("ERROR:  There must be at least one number on the stack");
       }
    }
 
@@ -30,7 +30,6 @@ import org.fross.library.Output;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
 import java.math.RoundingMode;
 
 public class StackConversions {
@@ -56,7 +55,7 @@ public class StackConversions {
          } else if (args.split(" ").length == 2) {
             // Since we're pulling from the stack, make sure it isn't empty
             if (calcStack.isEmpty()) {
-               Output.printColorln(Output.RED, "ERROR:  This operation requires at least one item on the stack or a provided amount");
+               CommandParser.ReportError("ERROR:  This operation requires at least one item on the stack or a provided amount");
                return;
             }
             amount = calcStack.peek();
@@ -65,12 +64,12 @@ public class StackConversions {
 
             // Error out - must be 2 or 3 parameters
          } else {
-            Output.printColorln(Output.RED, "ERROR:  Convert requires 2 or 3 parameters. Please see the Help");
+            CommandParser.ReportError("ERROR:  Convert requires 2 or 3 parameters. Please see the Help");
             return;
          }
 
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR:  Could not process command:\n convert " + args);
+         CommandParser.ReportError("ERROR:  Could not process command:\n convert " + args);
          StackConversions.DisplayConversionUnits(Output.CYAN);
          return;
       }
@@ -90,7 +89,7 @@ public class StackConversions {
          Output.printColorln(Output.CYAN, "Conversion: " + Display.Comma(amount) + " " + fromUnit + " = " + Display.Comma(result) + " " + toUnit);
 
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR: Could not process the conversion\n" + ex.getMessage());
+         CommandParser.ReportError("ERROR: Could not process the conversion\n" + ex.getMessage());
       }
 
    }
@@ -161,7 +160,7 @@ public class StackConversions {
 
       // Verify we have an item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR:  There must be at least one item on the stack");
+         CommandParser.ReportError("ERROR:  There must be at least one item on the stack");
          return outputString;
       }
 
@@ -181,7 +180,7 @@ public class StackConversions {
       try {
          if (!param.isEmpty()) denominator = new BigInteger(param);
       } catch (NumberFormatException ex) {
-         Output.printColorln(Output.RED, "ERROR: '" + param + "' is not a valid denominator");
+         CommandParser.ReportError("ERROR: '" + param + "' is not a valid denominator");
          return outputString;
       }
 
@@ -191,9 +190,9 @@ public class StackConversions {
       BigDecimal roundedNumber = BigDecimal.ZERO;
       try {
          roundedNumber = startingNumber.multiply(new BigDecimal(denominator)).add(new BigDecimal("0.5")).setScale(0, RoundingMode.FLOOR);
-         roundedNumber = roundedNumber.divide(new BigDecimal(denominator), MathContext.DECIMAL128);
+         roundedNumber = roundedNumber.divide(new BigDecimal(denominator), Precision.inexact());
       } catch (ArithmeticException ex) {
-         Output.printColorln(Output.RED, "Error calculating the rounded fraction\n" + ex.getMessage());
+         CommandParser.ReportError("Error calculating the rounded fraction\n" + ex.getMessage());
       }
 
       // Determine the integer portion of the number
@@ -0,0 +1,237 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * StackExport: Write a stack to a file as text with one number per line, as CSV with the stack line numbers, or in the
+ * binary stack file format. The format comes from the file name: '.csv' is CSV, '.stk' is binary and anything else is
+ * text. A '.gz' on the end compresses the output with gzip.
+ * <p>
+ * The file is written to a temporary file in the same directory, forced to disk and moved over the target, so an
+ * existing file is only replaced by a complete export. Large stacks are formatted in blocks on the common ForkJoin pool
+ * and the blocks are written in stack order. Compact values are formatted straight from their unscaled long and scale.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class StackExport {
+   /**
+    * Format: Export file formats
+    */
+   enum Format {
+      TEXT, CSV, BINARY
+   }
+
+   // Class Constants
+   static final String CSV_HEADER = "line,value";
+   static final int BLOCK_SIZE = 65536;
+   private static final int MAX_BLOCKS_IN_FLIGHT = 2 * ForkJoinPool.getCommonPoolParallelism() + 2;
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   /**
+    * format(): Return the export format for a file name
+    *
+    * @param file File being exported to
+    * @return Export format
+    */
+   static Format format(Path file) {
+      String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+      if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+
+      if (name.endsWith(".csv")) return Format.CSV;
+      if (name.endsWith(".stk")) return Format.BINARY;
+      return Format.TEXT;
+   }
+
+   /**
+    * write(): Export the stack to the file, replacing it if it exists. The bottom of the stack is written first
+    *
+    * @param stack Stack to export
+    * @param file  File to write. The name selects the format and compression
+    * @throws IOException if the file can't be written. An existing file is left unchanged
+    */
+   public static void write(StackArray stack, Path file) throws IOException {
+      Path target = file.toAbsolutePath();
+      Format format = format(target);
+      boolean gzip = target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+
+      // A new file rather than Files.createTempFile() so it gets the usual permissions for the user
+      Path temp = target.resolveSibling("." + target.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+      try {
+         try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+              OutputStream out = open(channel, gzip)) {
+            write(stack, format, out);
+            if (out instanceof GZIPOutputStream gzipOut) gzipOut.finish();
+            out.flush();
+            channel.force(true);
+         }
+
+         StackFile.moveAtomically(temp, target);
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+
+   /**
+    * open(): Return a buffered stream writing to the channel, compressed if requested. Compression uses the fastest
+    * deflate level. On lists of numbers it is about two and a half times faster than the default level for files about
+    * an eighth larger
+    */
+   private static OutputStream open(FileChannel channel, boolean gzip) throws IOException {
+      OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+      if (!gzip) return out;
+
+      return new GZIPOutputStream(out, BUFFER_SIZE) {
+         {
+            def.setLevel(Deflater.BEST_SPEED);
+         }
+      };
+   }
+
+   /**
+    * write(): Write the stack to the stream in the requested format
+    *
+    * @param stack  Stack to export
+    * @param format Export format
+    * @param out    Stream to write to
+    * @throws IOException if the stream can't be written
+    */
+   static void write(StackArray stack, Format format, OutputStream out) throws IOException {
+      if (format == Format.BINARY) {
+         ByteBuffer encoded = StackFile.encode(stack);
+         out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+         return;
+      }
+
+      boolean csv = (format == Format.CSV);
+      if (csv) out.write((CSV_HEADER + "\n").getBytes(StandardCharsets.US_ASCII));
+
+      int size = stack.size();
+      if (size <= BLOCK_SIZE) {
+         out.write(formatBlock(stack, 0, size, csv));
+         return;
+      }
+
+      // Format blocks in parallel but write them in order, keeping only a few formatted blocks in memory
+      ArrayDeque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>();
+      try {
+         for (int from = 0; from < size; from += BLOCK_SIZE) {
+            int start = from;
+            int end = java.lang.Math.min(size, from + BLOCK_SIZE);
+            inFlight.add(ForkJoinPool.commonPool().submit(() -> formatBlock(stack, start, end, csv)));
+
+            if (inFlight.size() >= MAX_BLOCKS_IN_FLIGHT) out.write(inFlight.remove().join());
+         }
+
+         while (!inFlight.isEmpty()) {
+            out.write(inFlight.remove().join());
+         }
+      } finally {
+         for (ForkJoinTask<byte[]> task : inFlight) {
+            task.cancel(false);
+         }
+      }
+   }
+
+   /**
+    * formatBlock(): Format part of the stack as lines of text
+    *
+    * @param stack Stack to export
+    * @param from  Index of the first item
+    * @param to    Index after the last item
+    * @param csv   Start each line with the stack line number and a comma
+    * @return The lines as ASCII
+    */
+   private static byte[] formatBlock(StackArray stack, int from, int to, boolean csv) {
+      StringBuilder sb = new StringBuilder((to - from) * 16);
+      int size = stack.size();
+
+      for (int i = from; i < to; i++) {
+         // Line 1 is the top of the stack, as on the screen
+         if (csv) sb.append(size - i).append(',');
+
+         if (stack.isCompact(i)) {
+            appendPlain(sb, stack.unscaledAt(i), stack.scaleAt(i));
+         } else {
+            sb.append(stack.get(i).toPlainString());
+         }
+         sb.append('\n');
+      }
+
+      return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+   }
+
+   /**
+    * appendPlain(): Append the same text as BigDecimal.valueOf(unscaled, scale).toPlainString() without creating the
+    * BigDecimal
+    *
+    * @param sb       Builder to append to
+    * @param unscaled Unscaled value
+    * @param scale    Scale
+    */
+   static void appendPlain(StringBuilder sb, long unscaled, int scale) {
+      if (scale == 0) {
+         sb.append(unscaled);
+
+      } else if (scale < 0) {
+         if (unscaled == 0) {
+            sb.append(BigDecimal.valueOf(0, scale).toPlainString());
+         } else {
+            sb.append(unscaled).repeat('0', -scale);
+         }
+
+      } else {
+         // Compact values are within +/-10^18 so the absolute value can't overflow
+         if (unscaled < 0) sb.append('-');
+         String digits = Long.toString(java.lang.Math.abs(unscaled));
+         int point = digits.length() - scale;
+         if (point > 0) {
+            sb.append(digits, 0, point).append('.').append(digits, point, digits.length());
+         } else {
+            sb.append("0.").repeat('0', -point).append(digits);
+         }
+      }
+   }
+
+}
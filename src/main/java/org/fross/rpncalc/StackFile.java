@@ -0,0 +1,415 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * StackFile: Saved stacks in a compact binary file, one per stack name and slot, in ~/.rpncalc/stacks. Saving to a
+ * Preferences key per element lost precision when the values were read back as doubles, and needed a backing store
+ * lookup for every element. A stack file is read with a single bulk read and restores exactly.
+ * <p>
+ * File layout, integers big-endian:
+ * <pre>
+ *   "RPNS"   magic
+ *   byte     format version
+ *   int      number of elements
+ *   elements bottom of the stack first: scale (zigzag varint), byte count (varint), unscaled value in two's complement
+ *            as produced by BigInteger.toByteArray()
+ *   int      CRC32 of everything before it
+ * </pre>
+ * Files are written to a temporary file, forced to disk and then moved over the old one, so a crash part way through a
+ * save leaves the previous stack intact.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class StackFile {
+   // Class Constants
+   static final byte[] MAGIC = {'R', 'P', 'N', 'S'};
+   private static final byte VERSION = 1;
+   private static final String EXTENSION = ".stk";
+   private static final int HEADER_SIZE = MAGIC.length + 1 + Integer.BYTES;
+   static final int MAX_VARINT_SIZE = 5;
+   static final int MAX_COMPACT_SIZE = 2 * MAX_VARINT_SIZE + Long.BYTES;
+
+   // Directory holding the stack files. Tests point this somewhere else
+   static Path directory = Path.of(System.getProperty("user.home"), ".rpncalc", "stacks");
+
+   /**
+    * exists(): True if a stack file has been saved for this name and slot
+    *
+    * @param name Stack name
+    * @param slot Stack slot, 1 or 2
+    * @return true if the file exists
+    */
+   public static boolean exists(String name, String slot) {
+      return Files.isRegularFile(path(name, slot));
+   }
+
+   /**
+    * write(): Save the stack to its file, replacing the old one atomically
+    *
+    * @param stack Stack contents
+    * @param name  Stack name
+    * @param slot  Stack slot, 1 or 2
+    * @throws IOException if the file can't be written
+    */
+   public static void write(StackArray stack, String name, String slot) throws IOException {
+      writeAtomically(path(name, slot), encode(stack));
+   }
+
+   /**
+    * writeAtomically(): Write the buffer to a temporary file in the same directory, force it to disk and move it over
+    * the target
+    *
+    * @param target File to replace
+    * @param buffer Complete file contents
+    * @throws IOException if the file can't be written
+    */
+   static void writeAtomically(Path target, ByteBuffer buffer) throws IOException {
+      Path dir = target.getParent();
+      Files.createDirectories(dir);
+      Path temp = Files.createTempFile(dir, ".rpncalc", ".tmp");
+      try {
+         try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+               channel.write(buffer);
+            }
+            channel.force(true);
+         }
+
+         moveAtomically(temp, target);
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+
+   /**
+    * moveAtomically(): Move a completed file over the target so readers see either the old or the new file, never part
+    * of one. Falls back to a plain move on file systems that can't do it atomically
+    *
+    * @param source Completed file
+    * @param target File to replace
+    * @throws IOException if the file can't be moved
+    */
+   static void moveAtomically(Path source, Path target) throws IOException {
+      try {
+         Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+         Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   /**
+    * read(): Load a saved stack with a single bulk read of its file
+    *
+    * @param name Stack name
+    * @param slot Stack slot, 1 or 2
+    * @return The saved stack, bottom of the stack first
+    * @throws IOException if the file can't be read or is damaged
+    */
+   public static StackArray read(String name, String slot) throws IOException {
+      return decode(Files.readAllBytes(path(name, slot)));
+   }
+
+   /**
+    * names(): The names of all stacks that have a saved file
+    *
+    * @return Sorted stack names
+    */
+   public static TreeSet<String> names() {
+      TreeSet<String> names = new TreeSet<>();
+      if (!Files.isDirectory(directory)) return names;
+
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+         for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            String withoutExtension = fileName.substring(0, fileName.length() - EXTENSION.length());
+            int dot = withoutExtension.lastIndexOf('.');
+            if (dot > 0) names.add(URLDecoder.decode(withoutExtension.substring(0, dot), StandardCharsets.UTF_8));
+         }
+      } catch (IOException ex) {
+         // An unreadable directory simply has no saved stacks
+      }
+
+      return names;
+   }
+
+   /**
+    * delete(): Remove the saved files for a stack name
+    *
+    * @param name Stack name
+    * @throws IOException if a file can't be removed
+    */
+   static void delete(String name) throws IOException {
+      if (!Files.isDirectory(directory)) return;
+
+      String prefix = escape(name) + ".";
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+         for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (fileName.startsWith(prefix) && fileName.indexOf('.', prefix.length()) == fileName.length() - EXTENSION.length()) {
+               Files.delete(file);
+            }
+         }
+      }
+   }
+
+   /**
+    * path(): The file for a stack name and slot. The name is URL encoded so any name makes a valid file name
+    *
+    * @param name Stack name
+    * @param slot Stack slot, 1 or 2
+    * @return Path to the stack file
+    */
+   static Path path(String name, String slot) {
+      return directory.resolve(escape(name) + "." + slot + EXTENSION);
+   }
+
+   /**
+    * escape(): URL encode a stack name for use as a file name. '*' is left alone by URLEncoder but isn't allowed in file
+    * names on Windows
+    */
+   private static String escape(String name) {
+      return URLEncoder.encode(name, StandardCharsets.UTF_8).replace("*", "%2A");
+   }
+
+   /**
+    * encode(): Build the complete file contents including the checksum
+    *
+    * @param stack Stack contents
+    * @return Buffer ready to be written
+    */
+   static ByteBuffer encode(StackArray stack) {
+      int size = stack.size();
+
+      // Most values take three to ten bytes. The buffer grows if they don't
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + size * 10);
+      buffer.put(MAGIC).put(VERSION).putInt(size);
+
+      for (int i = 0; i < size; i++) {
+         // Compact values are written straight from the long without creating a BigDecimal or BigInteger
+         if (stack.isCompact(i)) {
+            if (buffer.remaining() < MAX_COMPACT_SIZE) buffer = grow(buffer, MAX_COMPACT_SIZE);
+            putCompact(buffer, stack.unscaledAt(i), stack.scaleAt(i));
+         } else {
+            buffer = putValue(buffer, stack.get(i));
+         }
+      }
+
+      if (buffer.remaining() < Integer.BYTES) buffer = grow(buffer, Integer.BYTES);
+      CRC32 crc = new CRC32();
+      crc.update(buffer.array(), 0, buffer.position());
+      buffer.putInt((int) crc.getValue());
+
+      return buffer.flip();
+   }
+
+   /**
+    * decode(): Rebuild a stack from the file contents, checking the header and checksum
+    *
+    * @param bytes File contents
+    * @return The stack
+    * @throws IOException if the contents are not a valid stack file
+    */
+   static StackArray decode(byte[] bytes) throws IOException {
+      if (bytes.length < HEADER_SIZE + Integer.BYTES || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+         throw new IOException("Not a stack file");
+      }
+      if (bytes[MAGIC.length] != VERSION) {
+         throw new IOException("Unsupported stack file version " + bytes[MAGIC.length]);
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      int end = bytes.length - Integer.BYTES;
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, end);
+      if ((int) crc.getValue() != buffer.getInt(end)) {
+         throw new IOException("Stack file is damaged (checksum mismatch)");
+      }
+
+      buffer.position(MAGIC.length + 1);
+      int size = buffer.getInt();
+      if (size < 0 || size > end - HEADER_SIZE) throw new IOException("Stack file is damaged (bad element count)");
+
+      StackArray stack = new StackArray(size);
+      buffer.limit(end);
+      try {
+         for (int i = 0; i < size; i++) {
+            int scale = unzigzag(getVarint(buffer));
+            int length = getVarint(buffer);
+            if (length < 1 || length > buffer.remaining()) throw new IOException("Stack file is damaged (bad element length)");
+
+            if (length <= Long.BYTES) {
+               // Sign extend from the first byte
+               long unscaled = buffer.get();
+               for (int b = 1; b < length; b++) {
+                  unscaled = (unscaled << 8) | (buffer.get() & 0xFF);
+               }
+               stack.pushCompact(unscaled, scale);
+            } else {
+               stack.push(new BigDecimal(new BigInteger(bytes, buffer.position(), length), scale));
+               buffer.position(buffer.position() + length);
+            }
+         }
+      } catch (RuntimeException ex) {
+         throw new IOException("Stack file is damaged (" + ex.getMessage() + ")");
+      }
+
+      if (buffer.hasRemaining()) throw new IOException("Stack file is damaged (unexpected data after the last element)");
+      return stack;
+   }
+
+   /**
+    * putValue(): Write a value, growing the buffer if needed
+    *
+    * @param buffer Buffer to write to
+    * @param value  Value to write
+    * @return The buffer, or a larger copy of it
+    */
+   static ByteBuffer putValue(ByteBuffer buffer, BigDecimal value) {
+      BigInteger unscaled = value.unscaledValue();
+      if (unscaled.bitLength() < Long.SIZE) {
+         if (buffer.remaining() < MAX_COMPACT_SIZE) buffer = grow(buffer, MAX_COMPACT_SIZE);
+         putCompact(buffer, unscaled.longValue(), value.scale());
+         return buffer;
+      }
+
+      byte[] bytes = unscaled.toByteArray();
+      if (buffer.remaining() < 2 * MAX_VARINT_SIZE + bytes.length) buffer = grow(buffer, 2 * MAX_VARINT_SIZE + bytes.length);
+      putVarint(buffer, zigzag(value.scale()));
+      putVarint(buffer, bytes.length);
+      buffer.put(bytes);
+      return buffer;
+   }
+
+   /**
+    * putCompact(): Write a value whose unscaled value fits in a long using the same bytes as BigInteger.toByteArray().
+    * The buffer must have MAX_COMPACT_SIZE bytes remaining
+    *
+    * @param buffer   Buffer to write to
+    * @param unscaled Unscaled value
+    * @param scale    Scale
+    */
+   static void putCompact(ByteBuffer buffer, long unscaled, int scale) {
+      int length = (Long.SIZE - Long.numberOfLeadingZeros(unscaled ^ (unscaled >> 63))) / 8 + 1;
+      putVarint(buffer, zigzag(scale));
+      putVarint(buffer, length);
+      for (int b = length - 1; b >= 0; b--) {
+         buffer.put((byte) (unscaled >>> (b * 8)));
+      }
+   }
+
+   /**
+    * getValue(): Read a value written by putValue() or putCompact()
+    *
+    * @param buffer Buffer positioned at the value
+    * @return The value
+    * @throws IOException if the value is damaged
+    */
+   static BigDecimal getValue(ByteBuffer buffer) throws IOException {
+      int scale = unzigzag(getVarint(buffer));
+      int length = getVarint(buffer);
+      if (length < 1 || length > buffer.remaining()) throw new IOException("Damaged value (bad length)");
+
+      if (length <= Long.BYTES) {
+         long unscaled = buffer.get();
+         for (int b = 1; b < length; b++) {
+            unscaled = (unscaled << 8) | (buffer.get() & 0xFF);
+         }
+         return BigDecimal.valueOf(unscaled, scale);
+      }
+
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new BigDecimal(new BigInteger(bytes), scale);
+   }
+
+   /**
+    * putVarint(): Write an int seven bits at a time, low bits first, with the high bit marking that more follow
+    */
+   static void putVarint(ByteBuffer buffer, int value) {
+      while ((value & ~0x7F) != 0) {
+         buffer.put((byte) ((value & 0x7F) | 0x80));
+         value >>>= 7;
+      }
+      buffer.put((byte) value);
+   }
+
+   /**
+    * getVarint(): Read an int written by putVarint()
+    */
+   static int getVarint(ByteBuffer buffer) throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+         byte b = buffer.get();
+         value |= (b & 0x7F) << shift;
+         if (b >= 0) return value;
+      }
+      throw new IOException("Damaged value (bad varint)");
+   }
+
+   /**
+    * zigzag(): Map a signed int to an unsigned one so small negative scales also encode in one byte
+    */
+   private static int zigzag(int value) {
+      return (value << 1) ^ (value >> 31);
+   }
+
+   /**
+    * unzigzag(): Reverse zigzag()
+    */
+   private static int unzigzag(int value) {
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   /**
+    * grow(): Return a larger copy of the buffer with at least the needed bytes remaining
+    */
+   static ByteBuffer grow(ByteBuffer buffer, int needed) {
+      int capacity = java.lang.Math.max(buffer.capacity() + (buffer.capacity() >> 1), buffer.position() + needed);
+      ByteBuffer larger = ByteBuffer.allocate(capacity);
+      return larger.put(buffer.flip());
+   }
+
+}
@@ -0,0 +1,291 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * StackImport: Read a file with one number per line into a stack without holding the whole file in memory. Files
+ * written by StackExport as CSV or in the binary stack file format are recognised by their first bytes and read too.
+ * <p>
+ * The file is read in chunks that end on a line break. Each chunk is parsed on the common ForkJoin pool into its own
+ * StackArray and the chunks are appended to the result in file order, so only a few chunks of text are in memory at
+ * once. Plain decimals with up to 18 digits are parsed straight from the bytes into the compact form without creating
+ * a String or BigDecimal; anything else goes through new BigDecimal(String) so the result is the same as before.
+ * Gzip-compressed files are recognised by their header and decompressed as they are read.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class StackImport {
+   // Class Constants
+   static final int CHUNK_SIZE = 1 << 20;
+   private static final int MAX_CHUNKS_IN_FLIGHT = 2 * ForkJoinPool.getCommonPoolParallelism() + 2;
+   private static final int MAX_COMPACT_DIGITS = 18;
+   private static final int MAX_BAD_LINE_LENGTH = 40;
+   private static final byte[] CSV_HEADER = StackExport.CSV_HEADER.getBytes(StandardCharsets.US_ASCII);
+
+   /**
+    * Chunk: The values parsed from one chunk, the number of lines it held and the first bad line if there was one
+    */
+   private record Chunk(StackArray values, int lines, int badLine, String badText) {
+   }
+
+   /**
+    * read(): Read the numbers in the file into a new stack. The first line of the file is the bottom of the stack and
+    * empty lines are skipped
+    *
+    * @param file File to read. It may be gzip-compressed
+    * @return Stack holding the values
+    * @throws IOException           if the file can't be read
+    * @throws NumberFormatException if a line isn't a number. The message gives the line number
+    */
+   public static StackArray read(Path file) throws IOException {
+      try (InputStream in = open(file)) {
+         return read(in);
+      }
+   }
+
+   /**
+    * open(): Open the file for reading, decompressing it if it starts with the gzip header
+    *
+    * @param file File to open
+    * @return Stream of the file's uncompressed contents
+    * @throws IOException if the file can't be opened
+    */
+   static InputStream open(Path file) throws IOException {
+      InputStream in = new BufferedInputStream(Files.newInputStream(file));
+      in.mark(2);
+      boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+      in.reset();
+      return gzip ? new GZIPInputStream(in, 1 << 16) : in;
+   }
+
+   /**
+    * read(): Read the numbers in the stream into a new stack
+    *
+    * @param in Stream with one number per line
+    * @return Stack holding the values
+    * @throws IOException           if the stream can't be read
+    * @throws NumberFormatException if a line isn't a number
+    */
+   static StackArray read(InputStream in) throws IOException {
+      // Look at the start of the file for the binary format or the CSV header
+      if (!in.markSupported()) in = new BufferedInputStream(in);
+      in.mark(CSV_HEADER.length + 1);
+      byte[] start = in.readNBytes(CSV_HEADER.length + 1);
+      in.reset();
+
+      if (start.length >= StackFile.MAGIC.length && Arrays.equals(start, 0, StackFile.MAGIC.length, StackFile.MAGIC, 0, StackFile.MAGIC.length)) {
+         return StackFile.decode(in.readAllBytes());
+      }
+      boolean csv = start.length > CSV_HEADER.length && Arrays.equals(start, 0, CSV_HEADER.length, CSV_HEADER, 0, CSV_HEADER.length)
+            && (start[CSV_HEADER.length] == '\n' || start[CSV_HEADER.length] == '\r');
+
+      StackArray result = new StackArray();
+      ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+      long linesBefore = 0;
+      int chunksRead = 0;
+
+      byte[] carry = new byte[0];
+      int carryLength = 0;
+
+      try {
+         while (true) {
+            // Fill a chunk with the partial line left from the last one followed by new data. A line longer than a
+            // chunk makes the next chunk bigger
+            byte[] chunk = new byte[java.lang.Math.max(CHUNK_SIZE, carryLength * 2)];
+            System.arraycopy(carry, 0, chunk, 0, carryLength);
+            int length = carryLength + in.readNBytes(chunk, carryLength, chunk.length - carryLength);
+            boolean eof = length < chunk.length;
+
+            // Everything up to the last line break is parsed now, the rest is carried into the next chunk
+            int end = length;
+            if (!eof) {
+               end = lastLineBreak(chunk, length) + 1;
+            }
+            carry = chunk;
+            carryLength = 0;
+            if (end < length) {
+               carry = Arrays.copyOfRange(chunk, end, length);
+               carryLength = length - end;
+            }
+
+            // A file that fits in one chunk is parsed on this thread
+            if (eof && inFlight.isEmpty()) {
+               append(result, parse(chunk, 0, end, csv, chunksRead == 0), linesBefore);
+               return result;
+            }
+
+            if (end > 0) {
+               int chunkEnd = end;
+               boolean first = (chunksRead++ == 0);
+               inFlight.add(ForkJoinPool.commonPool().submit(() -> parse(chunk, 0, chunkEnd, csv, first)));
+            }
+
+            // Keep the result in file order and bound the text waiting to be parsed
+            while (!inFlight.isEmpty() && (eof || inFlight.size() >= MAX_CHUNKS_IN_FLIGHT)) {
+               linesBefore = append(result, inFlight.remove().join(), linesBefore);
+            }
+
+            if (eof) return result;
+         }
+      } finally {
+         for (ForkJoinTask<Chunk> task : inFlight) {
+            task.cancel(false);
+         }
+      }
+   }
+
+   /**
+    * lastLineBreak(): Return the index of the last '\n' in the buffer, or -1 if there isn't one
+    */
+   private static int lastLineBreak(byte[] buffer, int length) {
+      for (int i = length - 1; i >= 0; i--) {
+         if (buffer[i] == '\n') return i;
+      }
+      return -1;
+   }
+
+   /**
+    * append(): Add a parsed chunk to the result or report its bad line
+    *
+    * @param result      Stack being built
+    * @param chunk       Next chunk in file order
+    * @param linesBefore Lines in the file before this chunk
+    * @return Lines in the file up to the end of this chunk
+    */
+   private static long append(StackArray result, Chunk chunk, long linesBefore) {
+      if (chunk.badText() != null) {
+         String text = chunk.badText();
+         if (text.length() > MAX_BAD_LINE_LENGTH) text = text.substring(0, MAX_BAD_LINE_LENGTH) + "...";
+         throw new NumberFormatException("Line " + (linesBefore + chunk.badLine()) + " is not a number: '" + text + "'");
+      }
+
+      result.appendAll(chunk.values());
+      return linesBefore + chunk.lines();
+   }
+
+   /**
+    * parse(): Parse the lines in part of a buffer. Lines end with '\n' or "\r\n" and empty lines are skipped
+    *
+    * @param buffer Text to parse
+    * @param from   Index of the first byte
+    * @param to     Index after the last byte
+    * @param csv    Lines are CSV with the number in the last column
+    * @param first  This is the start of the file, so skip the CSV header
+    * @return The values, or the first line that isn't a number
+    */
+   private static Chunk parse(byte[] buffer, int from, int to, boolean csv, boolean first) {
+      StackArray values = new StackArray();
+      int lines = 0;
+      int start = from;
+
+      while (start < to) {
+         int end = start;
+         while (end < to && buffer[end] != '\n') end++;
+         lines++;
+
+         int lineEnd = end;
+         if (lineEnd > start && buffer[lineEnd - 1] == '\r') lineEnd--;
+
+         // The number is after the last comma of a CSV line. The header line is skipped
+         int valueStart = start;
+         if (csv && first && lines == 1) {
+            valueStart = lineEnd;
+         } else if (csv && lineEnd > start) {
+            valueStart = lineEnd;
+            while (valueStart > start && buffer[valueStart - 1] != ',') valueStart--;
+            if (valueStart == start) {
+               return new Chunk(null, lines, lines, new String(buffer, start, lineEnd - start, StandardCharsets.UTF_8));
+            }
+         }
+
+         if (lineEnd > valueStart && !parseCompact(buffer, valueStart, lineEnd, values)) {
+            String text = new String(buffer, valueStart, lineEnd - valueStart, StandardCharsets.UTF_8);
+            try {
+               values.push(new BigDecimal(text));
+            } catch (NumberFormatException ex) {
+               return new Chunk(null, lines, lines, text);
+            }
+         }
+         start = end + 1;
+      }
+
+      return new Chunk(values, lines, 0, null);
+   }
+
+   /**
+    * parseCompact(): Parse a plain decimal with an optional sign and at most 18 significant digits straight into the
+    * compact form. The unscaled value and scale are the same as new BigDecimal(String) would give
+    *
+    * @param buffer Text to parse
+    * @param from   Index of the first byte of the line
+    * @param to     Index after the last byte of the line
+    * @param values Stack to push the value onto
+    * @return true if the value was pushed, false if the line needs the full BigDecimal parser
+    */
+   static boolean parseCompact(byte[] buffer, int from, int to, StackArray values) {
+      int i = from;
+      boolean negative = buffer[i] == '-';
+      if (negative || buffer[i] == '+') i++;
+
+      long unscaled = 0;
+      int digits = 0;
+      int scale = -1;
+      boolean anyDigit = false;
+
+      for (; i < to; i++) {
+         int b = buffer[i];
+         if (b >= '0' && b <= '9') {
+            anyDigit = true;
+            if ((unscaled != 0 || b != '0') && ++digits > MAX_COMPACT_DIGITS) return false;
+            unscaled = unscaled * 10 + (b - '0');
+            if (scale >= 0) scale++;
+         } else if (b == '.' && scale < 0) {
+            scale = 0;
+         } else {
+            return false;
+         }
+      }
+
+      if (!anyDigit) return false;
+      values.pushCompact(negative ? -unscaled : unscaled, java.lang.Math.max(scale, 0));
+      return true;
+   }
+
+}
@@ -28,6 +28,10 @@ package org.fross.rpncalc;
 
 import org.fross.library.Output;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
@@ -48,52 +52,121 @@ public class StackManagement {
    }
 
    /**
-    * QueryStacks(): Return a string array of all current stacks
+    * QueryStacks(): Return a string array of all current stacks. This includes stacks saved by earlier versions in the
+    * preferences system that haven't been saved to a stack file yet
     *
     * @return String array of all of the current stack
     */
    public static String[] QueryStacks() {
-      String[] stacks = {};
+      TreeSet<String> stacks = StackFile.names();
       Preferences prefsQuery = Preferences.userRoot().node(PREFS_PATH);
 
       try {
-         stacks = prefsQuery.childrenNames();
+         stacks.addAll(List.of(prefsQuery.childrenNames()));
       } catch (BackingStoreException ex) {
          Output.printColor(Output.RED, "Error Reading Stacks from Java Preferences");
       }
 
-      return (stacks);
+      return stacks.toArray(new String[0]);
    }
 
    /**
-    * SaveStack(): Save the provided stack into the preferences system
+    * RestoreStack(): Load a saved stack. The stack file is used if there is one, otherwise a stack saved by an earlier
+    * version in the preferences system is read
+    *
+    * @param name      Stack name
+    * @param stackSlot Stack slot number, 1 or 2
+    * @return The saved stack, empty if there isn't one
+    */
+   public static StackArray RestoreStack(String name, String stackSlot) {
+      Output.debugPrintln("RestoreStack: " + StackFile.path(name, stackSlot));
+
+      if (StackFile.exists(name, stackSlot)) {
+         try {
+            return StackFile.read(name, stackSlot);
+         } catch (IOException ex) {
+            CommandParser.ReportError("ERROR: Error restoring stack '" + name + "' #" + stackSlot + ".  Skipping...");
+            CommandParser.ReportError(ex.getMessage());
+            return new StackArray();
+         }
+      }
+
+      return RestoreLegacyStack(name, stackSlot);
+   }
+
+   /**
+    * RestoreLegacyStack(): Read a stack saved one element per key in the preferences system by an earlier version
+    *
+    * @param name      Stack name
+    * @param stackSlot Stack slot number, 1 or 2
+    * @return The saved stack, empty if there isn't one
+    */
+   private static StackArray RestoreLegacyStack(String name, String stackSlot) {
+      StackArray stack = new StackArray();
+      String path = PREFS_PATH + "/" + name + "/" + stackSlot;
+
+      // Don't create an empty node for a stack that was never saved
+      try {
+         if (!Preferences.userRoot().nodeExists(path)) return stack;
+      } catch (BackingStoreException | IllegalArgumentException ex) {
+         return stack;
+      }
+
+      Preferences prefs = Preferences.userRoot().node(path);
+      int numElements = prefs.getInt("StackElements", 0);
+
+      // The values were saved with toPlainString() so they restore exactly
+      for (int i = 0; i < numElements; i++) {
+         try {
+            stack.push(new BigDecimal(prefs.get("Stack" + i, "0")));
+         } catch (NumberFormatException ex) {
+            Output.printColor(Output.RED, "ERROR: Error restoring stack.  Skipping...");
+            break;
+         }
+      }
+
+      return stack;
+   }
+
+   /**
+    * SaveStack(): Save the provided stack to its stack file
     *
     * @param stk       - Stack to Save
     * @param stackSlot - Stack Save slot number. Should be default, 1, or 2.
     */
    public static void SaveStack(StackObj stk, String stackSlot) {
-      Output.debugPrintln("SaveStack: " + PREFS_PATH + "/" + stk.queryStackName() + "/" + stackSlot);
-
-      // Override the default stack location with the provided one
-      Preferences p = Preferences.userRoot().node(PREFS_PATH + "/" + stk.queryStackName() + "/" + stackSlot);
+      String name = stk.queryStackName();
+      Output.debugPrintln("SaveStack: " + StackFile.path(name, stackSlot) + " (" + stk.size() + " elements)");
 
-      // Let's clear out any stack values that may exist
       try {
-         p.clear();
-      } catch (BackingStoreException e) {
-         Output.printColorln(Output.RED, "ERROR: Could not clear current preferences in Stack #" + stackSlot);
-         Output.printColorln(Output.RED, e.getMessage());
+         StackFile.write(stk.calcStack, name, stackSlot);
+      } catch (IOException ex) {
+         CommandParser.ReportError("ERROR: Could not save stack '" + name + "' #" + stackSlot);
+         CommandParser.ReportError(ex.getMessage());
+         return;
       }
 
-      // Save number of elements to key StackElements
-      p.putInt("StackElements", stk.size());
+      RemoveLegacyStack(name, stackSlot);
+   }
 
-      // Loop through each member of the stack and save it to the preferences
-      for (int i = 0; i <= stk.size() - 1; i++) {
-         Output.debugPrintln("  - Saving #" + (stk.size() - i) + ":  " + stk.get(i).toPlainString());
-         p.put("Stack" + i, stk.get(i).toPlainString());
+   /**
+    * RemoveLegacyStack(): Remove any copy of the stack an earlier version left in the preferences system. Called once
+    * the stack file has been written
+    *
+    * @param name      Stack name
+    * @param stackSlot Stack slot number
+    */
+   static void RemoveLegacyStack(String name, String stackSlot) {
+      try {
+         Preferences root = Preferences.userRoot();
+         String path = PREFS_PATH + "/" + name;
+         if (root.nodeExists(path + "/" + stackSlot)) {
+            root.node(path + "/" + stackSlot).removeNode();
+            if (root.node(path).childrenNames().length == 0) root.node(path).removeNode();
+         }
+      } catch (BackingStoreException | IllegalArgumentException | IllegalStateException ex) {
+         Output.debugPrintln("Could not remove the preferences copy of stack '" + name + "': " + ex.getMessage());
       }
-
    }
 
    /**
@@ -29,7 +29,6 @@ package org.fross.rpncalc;
 import org.fross.library.Output;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
 import java.util.prefs.Preferences;
 
 public class StackMemory {
@@ -66,7 +65,7 @@ public class StackMemory {
 
          // Ensure provided slot is within range
          if (memSlot < 0 || memSlot >= memorySlots.length) {
-            Output.printColorln(Output.RED, "ERROR: Memory Slot Number must be between 0 and " + (memorySlots.length - 1));
+            CommandParser.ReportError("ERROR: Memory Slot Number must be between 0 and " + (memorySlots.length - 1));
             return;
          }
 
@@ -77,9 +76,9 @@ public class StackMemory {
                // Ensure there is a value to save to the memory slot
                if (!calcStack.isEmpty()) {
                   Output.printColorln(Output.CYAN, "Adding '" + calcStack.peek() + "' to Memory Slot #" + memSlot);
-                  memorySlots[memSlot] = calcStack.peek();
+                  SetMemSlot(memSlot, calcStack.peek());
                } else {
-                  Output.printColorln(Output.RED, "ERROR: There must be at least one value on the stack");
+                  CommandParser.ReportError("ERROR: There must be at least one value on the stack");
                }
                break;
 
@@ -87,13 +86,15 @@ public class StackMemory {
             case "clr":
             case "clear":
                Output.printColorln(Output.CYAN, "Clearing Memory Slot #" + memSlot);
-               memorySlots[memSlot] = null;
+               SetMemSlot(memSlot, null);
                break;
 
             case "clrall":
             case "clearall":
                Output.printColorln(Output.CYAN, "Clearing All Memory Slots");
-               Arrays.fill(memorySlots, null);
+               for (int i = 0; i < memorySlots.length; i++) {
+                  SetMemSlot(i, null);
+               }
                break;
 
             // Copy the value from the memory slot provided back onto the stack
@@ -104,7 +105,7 @@ public class StackMemory {
 
                Output.printColorln(Output.CYAN, "Copying value from Memory Slot #" + memSlot);
                if (memorySlots[memSlot] != null) calcStack.push(memorySlots[memSlot]);
-               else Output.printColorln(Output.RED, "Memory Slot #" + memSlot + " is empty");
+               else CommandParser.ReportError("Memory Slot #" + memSlot + " is empty");
                break;
 
             // Copy everything back onto the stack. Lower number to stop of stack (line 1)
@@ -127,24 +128,24 @@ public class StackMemory {
                try {
                   if (calcStack.size() <= memorySlots.length) {
                      for (int i = calcStack.size() - 1; i >= 0; i--) {
-                        memorySlots[calcStack.size() - 1 - i] = calcStack.get(i);
+                        SetMemSlot(calcStack.size() - 1 - i, calcStack.get(i));
                      }
                   } else {
-                     Output.printColorln(Output.RED, "ERROR: There are not enough memory slots to hold the stack. See -m switch");
+                     CommandParser.ReportError("ERROR: There are not enough memory slots to hold the stack. See -m switch");
                      return;
                   }
                } catch (Exception ex) {
-                  Output.printColorln(Output.RED, "ERROR: An known error occurred copying stack to memory slots");
+                  CommandParser.ReportError("ERROR: An known error occurred copying stack to memory slots");
                   return;
                }
                break;
 
             default:
                // Slot was valid number, but unknown mem command
-               Output.printColorln(Output.RED, "ERROR: Unknown memory command: '" + argParse[1] + "'.  See help");
+               CommandParser.ReportError("ERROR: Unknown memory command: '" + argParse[1] + "'.  See help");
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "Error parsing mem command: 'mem " + arg + "'  See help for mem command usage");
+         CommandParser.ReportError("Error parsing mem command: 'mem " + arg + "'  See help for mem command usage");
       }
    }
 
@@ -178,7 +179,7 @@ public class StackMemory {
             }
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "Error: Unable to restore memory slots from preferences");
+         CommandParser.ReportError("Error: Unable to restore memory slots from preferences");
       }
 
       Output.debugPrintln("");
@@ -188,6 +189,15 @@ public class StackMemory {
     * SaveMemSlots(): Save the memory slots to the preferences system
     */
    public static void SaveMemSlots() {
+      SaveMemSlots(memorySlots);
+   }
+
+   /**
+    * SaveMemSlots(): Save the provided memory slot values to the preferences system
+    *
+    * @param slots Memory slot values. Empty slots are null
+    */
+   public static void SaveMemSlots(BigDecimal[] slots) {
       Preferences p = Preferences.userRoot().node("/org/fross/rpn/memoryslots");
 
       Output.debugPrintln("Saving Memory Slots:");
@@ -195,19 +205,31 @@ public class StackMemory {
          // Clear out any slots in the store in prep for writing the current slots
          p.clear();
 
-         for (int i = 0; i < StackMemory.memorySlots.length; i++) {
-            if (memorySlots[i] != null) {
-               Output.debugPrintln("  - Slot #" + i + ":  " + memorySlots[i]);
-               p.put(Integer.toString(i), memorySlots[i].toPlainString());
+         for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+               Output.debugPrintln("  - Slot #" + i + ":  " + slots[i]);
+               p.put(Integer.toString(i), slots[i].toPlainString());
             }
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "Error: Unable to save memory slots to preferences successfully");
+         CommandParser.ReportError("Error: Unable to save memory slots to preferences successfully");
       }
 
       Output.debugPrintln("");
    }
 
+   /**
+    * SetMemSlot(): Change a memory slot, record the change in the session journal and mark it to be saved
+    *
+    * @param slot  Memory slot number
+    * @param value New value, or null to clear the slot
+    */
+   static void SetMemSlot(int slot, BigDecimal value) {
+      memorySlots[slot] = value;
+      Journal.LogMemory(slot, value);
+      Persistence.MarkMemorySlot(slot);
+   }
+
    /**
     * SetMaxMemorySlots(): Sets the number of memory slot available to be used
     *
@@ -223,16 +245,19 @@ public class StackMemory {
          if (requestedSlots >= 1) {
             memorySlots = new BigDecimal[requestedSlots];
          } else {
-            Output.printColorln(Output.RED, "Error: There must be at least 1 memory slot.  Setting to 1.");
+            CommandParser.ReportError("Error: There must be at least 1 memory slot.  Setting to 1.");
             memorySlots = new BigDecimal[1];
          }
+         Journal.LogMemorySize(memorySlots.length);
+         Persistence.MarkMemoryResized();
 
          Main.configMemorySlots = Integer.parseInt(slots);
          Output.debugPrintln("Saving Memory Slots value to preferences");
          prefConfig.putInt("memoryslots", Integer.parseInt(slots));
+         Persistence.MarkConfig();
 
       } catch (NumberFormatException ex) {
-         Output.printColorln(Output.RED, "Error: Could not set the number of memory slots to '" + slots + "'");
+         CommandParser.ReportError("Error: Could not set the number of memory slots to '" + slots + "'");
          return false;
       }
 
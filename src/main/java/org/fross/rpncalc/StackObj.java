@@ -30,14 +30,22 @@ import org.fross.library.Output;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.util.Stack;
-import java.util.prefs.Preferences;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
 
 public class StackObj implements Cloneable {
    // Class Variables
    protected String stackName;
-   protected Stack<BigDecimal> calcStack = new Stack<>();
-   protected Stack<Stack<BigDecimal>> undoStack = new Stack<>();
+   protected StackArray calcStack = new StackArray();
+   protected UndoHistory undoHistory = new UndoHistory();
+
+   // Open undo transactions, innermost first. The history and stack are kept together as 'ss' can swap them into the
+   // other StackObj while a transaction is open
+   private record Transaction(UndoHistory history, StackArray stack) {
+   }
+
+   private ArrayDeque<Transaction> transactions = new ArrayDeque<>();
 
    // Default global match context with unlimited precision
    public final MathContext mc = MathContext.UNLIMITED;
@@ -52,15 +60,23 @@ public class StackObj implements Cloneable {
     * clear(): Remove all items from the calculator stack
     */
    public void clear() {
+      if (!calcStack.isEmpty()) {
+         undoHistory.recordReplace(calcStack.toArray());
+      }
       calcStack.clear();
    }
 
    /**
-    * clone(): Return a clone of the calcStack object
+    * clone(): Return a clone of the calcStack object. The stack contents are copied so the clone can be changed
+    * independently. The clone starts with an empty undo history
     */
    @Override
    public StackObj clone() throws CloneNotSupportedException {
-      return (StackObj) super.clone();
+      StackObj clone = (StackObj) super.clone();
+      clone.calcStack = calcStack.copy();
+      clone.undoHistory = new UndoHistory();
+      clone.transactions = new ArrayDeque<>();
+      return clone;
    }
 
    /**
@@ -73,6 +89,34 @@ public class StackObj implements Cloneable {
       return this.get(index).toPlainString();
    }
 
+   /**
+    * compactOperation(): Replace the top two items with the result of 'line2 op line1' using long arithmetic when both
+    * values fit. The result is identical to the BigDecimal operation. If it can't be done this way nothing is changed
+    *
+    * @param op '+', '-', or '*'
+    * @return true if the operation was performed
+    */
+   public boolean compactOperation(char op) {
+      int top = calcStack.size() - 1;
+      BigDecimal b = null;
+      BigDecimal a = null;
+
+      // The undo history needs the values being removed
+      if (undoHistory.isRecording() && top >= 1) {
+         b = calcStack.get(top);
+         a = calcStack.get(top - 1);
+      }
+
+      if (!calcStack.combineTop(op)) return false;
+
+      if (b != null) {
+         undoHistory.recordRemove(top, b);
+         undoHistory.recordRemove(top - 1, a);
+         undoHistory.recordInsert(top - 1);
+      }
+      return true;
+   }
+
    /**
     * get(): Return the calculator stack item at the index provided
     *
@@ -84,11 +128,11 @@ public class StackObj implements Cloneable {
    }
 
    /**
-    * getStack(): Return the entire calculator stack as a stack<BigDecimal>
+    * getStack(): Return the entire calculator stack as a List<BigDecimal>. The bottom of the stack is index 0
     *
     * @return entire stack object
     */
-   public Stack<BigDecimal> getStack() {
+   public List<BigDecimal> getStack() {
       return calcStack;
    }
 
@@ -106,11 +150,9 @@ public class StackObj implements Cloneable {
     *
     * @param stk Primary stack object
     */
-   public void replaceStack(Stack<BigDecimal> stk) {
-      calcStack.clear();
-      for (int i = 0; i < stk.size(); i++) {
-         calcStack.add(i, stk.get(i));
-      }
+   public void replaceStack(List<BigDecimal> stk) {
+      undoHistory.recordReplace(calcStack.toArray());
+      calcStack.setAll(stk);
    }
 
    /**
@@ -128,7 +170,9 @@ public class StackObj implements Cloneable {
     * @return value at the top of the stack and remove it from the stack
     */
    public BigDecimal pop() {
-      return calcStack.pop();
+      BigDecimal item = calcStack.pop();
+      undoHistory.recordRemove(calcStack.size(), item);
+      return item;
    }
 
    /**
@@ -137,6 +181,7 @@ public class StackObj implements Cloneable {
     * @param item BigDecimal item to add to the stack
     */
    public void push(BigDecimal item) {
+      undoHistory.recordInsert(calcStack.size());
       calcStack.push(item);
    }
 
@@ -147,9 +192,9 @@ public class StackObj implements Cloneable {
     */
    public void push(String item) {
       try {
-         this.calcStack.push(new BigDecimal(item, this.mc));
+         this.push(new BigDecimal(item, this.mc));
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "Error: " + ex.getMessage());
+         CommandParser.ReportError("Error: " + ex.getMessage());
       }
    }
 
@@ -163,13 +208,15 @@ public class StackObj implements Cloneable {
       try {
          // BigDecimal constructor can throw NumberFormatException
          // .add(index, element) handles the shifting logic for you
-         calcStack.add(location, new BigDecimal(item, this.mc));
+         BigDecimal value = new BigDecimal(item, this.mc);
+         calcStack.add(location, value);
+         undoHistory.recordInsert(location);
 
       } catch (NumberFormatException ex) {
-         Output.printColorln(Output.RED, "Error: '" + item + "' is not a valid number.");
+         CommandParser.ReportError("Error: '" + item + "' is not a valid number.");
 
-      } catch (ArrayIndexOutOfBoundsException ex) {
-         Output.printColorln(Output.RED, "Error: Location " + location + " is out of bounds.");
+      } catch (IndexOutOfBoundsException ex) {
+         CommandParser.ReportError("Error: Location " + location + " is out of bounds.");
       }
    }
 
@@ -179,7 +226,7 @@ public class StackObj implements Cloneable {
     * @param item Double item to add to the stack
     */
    public void push(Double item) {
-      calcStack.push(new BigDecimal(String.valueOf(item), this.mc));
+      this.push(new BigDecimal(String.valueOf(item), this.mc));
    }
 
    /**
@@ -188,7 +235,7 @@ public class StackObj implements Cloneable {
     * @param item Integer item to add to the stack
     */
    public void push(int item) {
-      calcStack.push(new BigDecimal(String.valueOf(item), this.mc));
+      this.push(new BigDecimal(String.valueOf(item), this.mc));
    }
 
    /**
@@ -206,53 +253,54 @@ public class StackObj implements Cloneable {
     * @param index index value of item to remove from the stack
     */
    public void remove(int index) {
-      calcStack.remove(index);
+      undoHistory.recordRemove(index, calcStack.remove(index));
    }
 
    /**
-    * saveUndo(): Add the current calcStack to the undo stack. Usually done before a calculator operation is performed
+    * saveUndo(): Save an undo point for the current calcStack. Usually done before a calculator operation is performed. The
+    * stack isn't copied, the undo history logs the changes made after this point so it can be reversed
     */
-   @SuppressWarnings("unchecked")
    public void saveUndo() {
-      try {
-         undoStack.push((Stack<BigDecimal>) calcStack.clone());
-      } catch (ClassCastException ex) {
-         Output.printColor(Output.RED, "Error saving to the undo state");
-      }
+      undoHistory.save(calcStack);
+   }
 
+   /**
+    * beginTransaction(): Start a compound operation. Everything done until it is committed is undone in a single step
+    */
+   public void beginTransaction() {
+      undoHistory.begin();
+      transactions.push(new Transaction(undoHistory, calcStack));
    }
 
    /**
-    * setStackNameAndRestore(): Set the name of this stack and load it from the saved stacks in preferences
+    * commitTransaction(): End the most recent compound operation keeping its changes
+    */
+   public void commitTransaction() {
+      transactions.pop().history().commit();
+   }
+
+   /**
+    * rollbackTransaction(): End the most recent compound operation and reverse every change it made
+    */
+   public void rollbackTransaction() {
+      Transaction transaction = transactions.pop();
+      transaction.history().rollback(transaction.stack());
+   }
+
+   /**
+    * setStackNameAndRestore(): Set the name of this stack and load it from the saved stacks
     *
     * @param name Name of the stack
     * @param slot number of the stack
     */
    public void setStackNameAndRestore(String name, String slot) {
-      final String PREFS_PATH = "/org/fross/rpn/stacks";
       this.stackName = name;
 
-      // Clear this stack before restoring
-      this.clear();
-
-      Output.debugPrintln("RestoreStack: " + PREFS_PATH + "/" + this.queryStackName() + "/" + slot);
-
-      // Override the default stack location with the provided one
-      Preferences prefs = Preferences.userRoot().node(PREFS_PATH + "/" + this.queryStackName() + "/" + slot);
-      int numElements = prefs.getInt("StackElements", 0);
-
-      // Restore the stack items to the stack.  If there is an error, abort the stack restore & continue on
-      Output.debugPrintln("Restoring Stack:");
-
-      for (int i = 0; i < numElements; i++) {
-         try {
-            this.push(prefs.getDouble("Stack" + i, 0.0));
-            Output.debugPrintln("  - Restoring #" + (numElements - i) + ":  " + this.get(i));
-         } catch (Exception ex) {
-            Output.printColor(Output.RED, "ERROR: Error restoring stack.  Skipping...");
-            break;
-         }
-      }
+      // The restored stack is copied in as a whole rather than pushed one element at a time. The previous contents are
+      // logged as a single replace, even when empty, so undo goes back to the stack as it was before the load
+      undoHistory.recordReplace(calcStack.toArray());
+      calcStack.setAll(StackManagement.RestoreStack(name, slot));
+      Output.debugPrintln("Restored " + calcStack.size() + " elements");
 
       // Set the stack number to be 1 on a newly restored stack
       if (StackManagement.QueryCurrentStackNum() == 2) {
@@ -275,57 +323,57 @@ public class StackObj implements Cloneable {
     */
    public void sort(String mode) {
       if (!mode.equalsIgnoreCase("ascending") && !mode.equalsIgnoreCase("descending")) {
-         Output.printColorln(Output.RED, "ERROR: sort requires a 'ascending' or 'descending' parameter");
+         CommandParser.ReportError("ERROR: sort requires a 'ascending' or 'descending' parameter");
          return;
       }
 
-      StackObj sortedStack = new StackObj();
+      // Record the unsorted stack so the sort can be undone
+      undoHistory.recordReplace(calcStack.toArray());
 
-      while (!calcStack.isEmpty()) {
-         // Pull out a value from the stack
-         BigDecimal tmpValue = calcStack.pop();
-
-         // While temporary stack is not empty and top of stack is greater than the tempValue
-         // while (!sortedStack.isEmpty() && sortedStack.peek() > tmpValue) {
-         while (!sortedStack.isEmpty() && sortedStack.peek().compareTo(tmpValue) > 0) {
-            calcStack.push(sortedStack.pop());
-         }
-
-         sortedStack.push(tmpValue);
-      }
-
-      // Fill the calcStack back with the sorted values from sortedStack
+      // The top of the stack is the end of the array. Descending puts the largest value on the top of the stack
       if (mode.equalsIgnoreCase("ascending")) {
-         // Ascending
-         for (int i = sortedStack.size() - 1; i >= 0; i--) {
-            calcStack.push(sortedStack.get(i));
-         }
+         calcStack.sort(Comparator.reverseOrder());
       } else {
-         // Descending
-         for (int i = 0; i < sortedStack.size(); i++) {
-            calcStack.push(sortedStack.get(i));
-         }
+         calcStack.sort(Comparator.naturalOrder());
       }
+   }
 
+   /**
+    * sum(): Return the total of all the items on the stack. The stack is not changed
+    *
+    * @return sum of the stack items
+    */
+   public BigDecimal sum() {
+      return calcStack.sum();
+   }
+
+   /**
+    * sum(): Return the total of all the items on the stack, optionally without the long arithmetic
+    *
+    * @param allowCompact true if long arithmetic may be used for compact values
+    * @return sum of the stack items
+    */
+   public BigDecimal sum(boolean allowCompact) {
+      return calcStack.sum(allowCompact);
    }
 
    /**
-    * undoGet(): Return the element of the undo stack at the index provided
+    * undoGet(): Return the stack as it was at the undo index provided
     *
     * @param index Index of the undo item to return
-    * @return stack stack object
+    * @return stack contents at that undo point
     */
-   public Stack<BigDecimal> undoGet(int index) {
-      return undoStack.get(index);
+   public List<BigDecimal> undoGet(int index) {
+      return undoHistory.get(calcStack, index);
    }
 
    /**
-    * undoGet(): If no index is provided, return the entire undo stack
+    * undoGet(): If no index is provided, return the stack contents at every undo point. Oldest first
     *
-    * @return entire undo stack
+    * @return list of all undo states
     */
-   public Stack<Stack<BigDecimal>> undoGet() {
-      return undoStack;
+   public List<List<BigDecimal>> undoGet() {
+      return undoHistory.getAll(calcStack);
    }
 
    /**
@@ -334,7 +382,16 @@ public class StackObj implements Cloneable {
     * @param index index of item to remove from the undo stack
     */
    public void undoRemove(int index) {
-      undoStack.remove(index);
+      undoHistory.remove(index);
+   }
+
+   /**
+    * undoRestore(): Restore the stack to the provided undo line number. That undo item and all newer ones are removed
+    *
+    * @param lineNum Undo line number (index + 1) to restore
+    */
+   public void undoRestore(int lineNum) {
+      undoHistory.restore(calcStack, lineNum);
    }
 
    /**
@@ -343,7 +400,7 @@ public class StackObj implements Cloneable {
     * @return size Integer of the undo stack size
     */
    public int undoSize() {
-      return undoStack.size();
+      return undoHistory.size();
    }
 
 }
@@ -30,13 +30,11 @@ import org.fross.library.Debug;
 import org.fross.library.Output;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.prefs.Preferences;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
 
 public class StackOperations {
    /**
@@ -90,8 +88,10 @@ public class StackOperations {
             int numDashes = Main.configProgramWidth - headerText.length();
             Output.printColorln(Output.YELLOW, "\n" + headerText + "-".repeat(numDashes));
 
-            for (int i = 0; i < calcStack.undoSize(); i++) {
-               String sn = String.format("%02d:  %s", i + 1, calcStack.undoGet(i));
+            // Rebuild all the undo states in one pass rather than once per line
+            List<List<BigDecimal>> undoStates = calcStack.undoGet();
+            for (int i = 0; i < undoStates.size(); i++) {
+               String sn = String.format("%02d:  %s", i + 1, undoStates.get(i));
                Output.printColorln(Output.CYAN, sn);
             }
             Output.printColorln(Output.YELLOW, "-".repeat(Main.configProgramWidth) + "\n");
@@ -99,22 +99,26 @@ public class StackOperations {
 
          case "function":
          case "func":
-            try {
-               Output.printColorln(Output.YELLOW, "\n-User Defined Functions" + "-".repeat(Main.configProgramWidth - 23));
-               Preferences p = Preferences.userRoot().node(UserFunctions.PREFS_PATH_FUNCTIONS);
-
-               // Loop through each function (child of the root) and display the details
-               for (String functionName : p.childrenNames()) {
-                  Output.printColorln(Output.WHITE, functionName);
-                  Preferences functionPref = Preferences.userRoot().node(UserFunctions.PREFS_PATH_FUNCTIONS + "/" + functionName);
-                  for (int i = 0; i < Integer.parseInt(functionPref.get("FunctionSteps", "Error")); i++) {
-                     Output.printColorln(Output.CYAN, "   Step " + i + ":  " + functionPref.get("Step" + i, "Error"));
+            Output.printColorln(Output.YELLOW, "\n-User Defined Functions" + "-".repeat(Main.configProgramWidth - 23));
+
+            // Loop through each function and display the details
+            for (String functionName : UserFunctions.GetFunctionNames()) {
+               Output.printColorln(Output.WHITE, functionName);
+               FunctionPlan plan = UserFunctions.GetFunctionPlan(functionName);
+               List<String> steps = plan.getSource();
+               for (int i = 0; i < steps.size(); i++) {
+                  Output.printColorln(Output.CYAN, "   Step " + i + ":  " + steps.get(i));
+               }
+
+               // Show the optimized steps if the optimizer was able to simplify the function
+               if (plan.isOptimized()) {
+                  List<String> optimized = plan.getOptimized();
+                  Output.printColorln(Output.YELLOW, "   Optimized (" + steps.size() + " -> " + optimized.size() + " steps):");
+                  for (int i = 0; i < optimized.size(); i++) {
+                     Output.printColorln(Output.CYAN, "   Step " + i + ":  " + optimized.get(i));
                   }
-                  Output.println("");
                }
-            } catch (Exception ex) {
-               Output.printColorln(Output.RED, "Error reading preferences system");
-               return;
+               Output.println("");
             }
             Output.printColorln(Output.YELLOW, "-".repeat(Main.configProgramWidth) + "\n");
             break;
@@ -135,7 +139,7 @@ public class StackOperations {
             break;
 
          default:
-            Output.printColorln(Output.RED, "Error:  Unknown list command '" + arg + "'\n");
+            CommandParser.ReportError("Error:  Unknown list command '" + arg + "'\n");
             Output.printColorln(Output.CYAN, "Allowed list commands:");
             Help.DisplayListCommands(Output.CYAN);
             Output.printColorln(Output.CYAN, "\nSee help or user guide for additional information");
@@ -149,13 +153,15 @@ public class StackOperations {
     */
    public static void cmdLoad(StackObj calcStack, StackObj calcStack2, String stackToLoad) {
       // Save current Stack
-      StackManagement.SaveStack(calcStack, "1");
-      StackManagement.SaveStack(calcStack2, "2");
+      Persistence.SaveStacks(calcStack, calcStack2);
 
       // Set new stack
       Output.debugPrintln("Loading new stack: '" + stackToLoad + "'");
       calcStack.setStackNameAndRestore(stackToLoad, "1");
       calcStack2.setStackNameAndRestore(stackToLoad, "2");
+
+      // The new stacks match their stack files so they aren't saved again until they change
+      Persistence.MarkSaved();
    }
 
    /**
@@ -192,22 +198,25 @@ public class StackOperations {
 
       tempStack.stackName = calcStack.stackName;
       tempStack.calcStack = calcStack.calcStack;
-      tempStack.undoStack = calcStack.undoStack;
+      tempStack.undoHistory = calcStack.undoHistory;
 
       calcStack.stackName = calcStack2.stackName;
       calcStack.calcStack = calcStack2.calcStack;
-      calcStack.undoStack = calcStack2.undoStack;
+      calcStack.undoHistory = calcStack2.undoHistory;
 
       calcStack2.stackName = tempStack.stackName;
       calcStack2.calcStack = tempStack.calcStack;
-      calcStack2.undoStack = tempStack.undoStack;
+      calcStack2.undoHistory = tempStack.undoHistory;
+      Journal.LogSwap();
 
       // Update the current stack number for the status line refresh
       StackManagement.ToggleCurrentStackNum();
    }
 
    /**
-    * ExportStackToDisk(): Save the current stack contacts to the provided file
+    * ExportStackToDisk(): Save the current stack contacts to the provided file. The file name selects the format: '.csv'
+    * for CSV with line numbers, '.stk' for the binary stack file format and anything else for one number per line. A
+    * trailing '.gz' compresses the file
     *
     * @param arg Filename of the export
     */
@@ -216,50 +225,24 @@ public class StackOperations {
 
       // Return if no filename is given
       if (arg.isEmpty()) {
-         Output.printColorln(Output.RED, "Export requires a filename to be provided");
+         CommandParser.ReportError("Export requires a filename to be provided");
          return;
       }
 
       // Ensure we have at least one item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "Export requires at least one item on the stack");
+         CommandParser.ReportError("Export requires at least one item on the stack");
          return;
       }
 
       Output.debugPrintln("Export filename: '" + fileName + "'");
 
-      // If the file exists, then delete it
+      // Write to a temporary file and move it over the export file once it's complete
       try {
-         File file = new File(fileName);
-         if (file.exists()) {
-            Output.debugPrintln("'" + fileName + "' exists - deleting");
-
-            // Delete the file.  If it returns false, then throw an error
-            if (!file.delete()) {
-               throw new Exception("File Delete Failed");
-            }
-         }
-      } catch (Exception ex) {
-         Output.printColorln(Output.RED, "'" + fileName + "' exists but could not be deleted\n" + ex.getMessage());
-         return;
-      }
-
-      //
-      try {
-         // Create the output filename and write the stack values to it
-         if (new File(fileName).createNewFile()) {
-            FileWriter fw = new FileWriter(fileName);
-
-            for (int i = 0; i < calcStack.size(); i++) {
-               fw.write(calcStack.get(i).toPlainString() + "\n");
-            }
-
-            // Close the FileWriter and flush the data to the file
-            fw.close();
-         }
-
-      } catch (IOException ex) {
-         Output.printColorln(Output.RED, "Could not export stack values to '" + fileName + "'");
+         StackExport.write(calcStack.calcStack, Path.of(fileName));
+      } catch (IOException | InvalidPathException ex) {
+         CommandParser.ReportError("Could not export stack values to '" + fileName + "'");
+         CommandParser.ReportError(ex.getMessage());
          return;
       }
 
@@ -281,7 +264,8 @@ public class StackOperations {
    }
 
    /**
-    * LoadStackFromDisk(): Load the contents of a file into the stack. The file should have one stack item per line
+    * LoadStackFromDisk(): Load the contents of a file into the stack. The file should have one stack item per line, or
+    * be a CSV or binary file from export, and may be gzip-compressed. The stack is only replaced if every line can be read
     *
     * @param arg filename
     */
@@ -290,39 +274,29 @@ public class StackOperations {
 
       Output.debugPrintln("Import filename as entered: '" + fileName + "'");
 
-      // Save current calcStack to the undoStack
-      calcStack.saveUndo();
-
+      StackArray imported;
       try {
          // Verify the filename provided is a file and can be read
          if (new File(fileName).canRead() && new File(fileName).isFile()) {
-            // Read lines from the file into the ArrayList
-            ArrayList<String> linesRead = new ArrayList<>(Files.readAllLines(Paths.get(fileName)));
-
-            // Clear the stack before importing the new values
-            calcStack.clear();
-
-            // Convert the strings to BigDecimal values. Skip empty lines
-            for (String s : linesRead) {
-               if (!s.isEmpty()) {
-                  calcStack.push(new BigDecimal(s));
-               }
-            }
-
+            imported = StackImport.read(Path.of(fileName));
          } else {
             throw new IOException();
          }
       } catch (IOException ex) {
-         Output.printColorln(Output.RED, "ERROR: Could not read from the file '" + fileName + "'");
-         Output.printColorln(Output.RED, "ERROR: Please note the file must be in lower case");
+         CommandParser.ReportError("ERROR: Could not read from the file '" + fileName + "'");
+         CommandParser.ReportError("ERROR: Please note the file must be in lower case");
          return;
       } catch (NumberFormatException ex) {
-         Output.printColorln(Output.RED, "The data in '" + fileName + "' can't be read as it is not in the correct format.\nThe import file format is simply one number per line");
+         CommandParser.ReportError("The data in '" + fileName + "' can't be read as it is not in the correct format.\nThe import file format is simply one number per line");
+         CommandParser.ReportError(ex.getMessage());
          return;
       }
 
-      Output.printColorln(Output.CYAN, "Import successful from '" + fileName + "'");
+      // Save current calcStack to the undoStack and replace it with the imported values
+      calcStack.saveUndo();
+      calcStack.replaceStack(imported);
 
+      Output.printColorln(Output.CYAN, "Import successful from '" + fileName + "' (" + imported.size() + " items)");
    }
 
    /**
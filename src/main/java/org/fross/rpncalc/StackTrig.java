@@ -26,7 +26,7 @@
  * ------------------------------------------------------------------------------*/
 package org.fross.rpncalc;
 
-import org.fross.library.Output;
+import java.math.BigDecimal;
 
 public class StackTrig {
    /**
@@ -39,50 +39,51 @@ public class StackTrig {
    public static void cmdArcTrig(StackObj calcStack, String cmd, String arg) {
       // Ensure we have at least one item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR: Must be at least one item on the stack");
+         CommandParser.ReportError("ERROR: Must be at least one item on the stack");
          return;
       }
 
-      double result;
-      double originalValue;
-
-      originalValue = calcStack.peek().doubleValue();
-
-      // Save current calcStack to the undoStack
-      calcStack.saveUndo();
-
-      // Calculate the arc trig function
-      switch (cmd) {
-         case "asin":
-            result = java.lang.Math.asin(calcStack.pop().doubleValue());
-            break;
-
-         case "acos":
-            result = java.lang.Math.acos(calcStack.pop().doubleValue());
-            break;
-
-         case "atan":
-            result = java.lang.Math.atan(calcStack.pop().doubleValue());
-            break;
-
-         default:
-            Output.printColorln(Output.RED, "ERROR: Unknown command: '" + cmd + "'");
-            calcStack.push(originalValue);
-            return;
+      // Results are in degrees unless 'rad' is provided as a parameter
+      if (!arg.isEmpty() && arg.toLowerCase().charAt(0) != 'r') {
+         CommandParser.ReportError("ERROR: unknown " + cmd + " parameter: '" + arg + "'");
+         return;
       }
 
+      BigDecimal result;
       try {
-         // Display value in degrees or if 'rad' is a parameter, as radians
-         if (arg.toLowerCase().charAt(0) == 'r') {
-            calcStack.push(result);
-         } else {
-            calcStack.push(originalValue);
-            Output.printColorln(Output.RED, "ERROR: unknown " + cmd + " parameter: '" + arg + "'");
+         // Calculate the arc trig function
+         switch (cmd) {
+            case "asin":
+               result = Transcendental.asin(calcStack.peek(), Precision.inexact());
+               break;
+
+            case "acos":
+               result = Transcendental.acos(calcStack.peek(), Precision.inexact());
+               break;
+
+            case "atan":
+               result = Transcendental.atan(calcStack.peek(), Precision.inexact());
+               break;
+
+            default:
+               CommandParser.ReportError("ERROR: Unknown command: '" + cmd + "'");
+               return;
+         }
+
+         if (arg.isEmpty()) {
+            result = Transcendental.toDegrees(result, Precision.inexact());
          }
 
-      } catch (StringIndexOutOfBoundsException ex) {
-         calcStack.push(java.lang.Math.toDegrees(result));
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
       }
+
+      // Save current calcStack to the undoStack
+      calcStack.saveUndo();
+
+      calcStack.pop();
+      calcStack.push(result);
    }
 
    /**
@@ -93,7 +94,7 @@ public class StackTrig {
    public static void cmdHypotenuse(StackObj calcStack) {
       // Ensure we have two items on the stack
       if (calcStack.size() < 2) {
-         Output.printColorln(Output.RED, "ERROR:  There must be two items on the stack to calculate the hypotenuse");
+         CommandParser.ReportError("ERROR:  There must be two items on the stack to calculate the hypotenuse");
          return;
       }
 
@@ -114,45 +115,49 @@ public class StackTrig {
    public static void cmdTrig(StackObj calcStack, String cmd, String arg) {
       // Ensure we have at least one item on the stack
       if (calcStack.isEmpty()) {
-         Output.printColorln(Output.RED, "ERROR: Must be at least one item on the stack");
+         CommandParser.ReportError("ERROR: Must be at least one item on the stack");
          return;
       }
 
-      double angle = 0.0;
+      // Angles are in degrees unless 'rad' is provided as a parameter
+      if (!arg.isEmpty() && arg.toLowerCase().charAt(0) != 'r') {
+         CommandParser.ReportError("ERROR: unknown " + cmd + " parameter: '" + arg + "'");
+         return;
+      }
+      boolean radians = !arg.isEmpty();
 
+      BigDecimal angle = calcStack.peek();
+      BigDecimal result;
       try {
-         angle = calcStack.pop().doubleValue();
-
-         // Calculations are done in radians. Convert if 'rad' is NOT provided as a parameter
-         if (arg.toLowerCase().charAt(0) != 'r') {
-            Output.printColorln(Output.RED, "ERROR: unknown " + cmd + " parameter: '" + arg + "'");
-            calcStack.push(angle);
-            return;
+         switch (cmd) {
+            case "tan":
+               result = radians ? Transcendental.tan(angle, Precision.inexact()) : Transcendental.tanDegrees(angle, Precision.inexact());
+               break;
+
+            case "sin":
+               result = radians ? Transcendental.sin(angle, Precision.inexact()) : Transcendental.sinDegrees(angle, Precision.inexact());
+               break;
+
+            case "cos":
+               result = radians ? Transcendental.cos(angle, Precision.inexact()) : Transcendental.cosDegrees(angle, Precision.inexact());
+               break;
+
+            default:
+               CommandParser.ReportError("ERROR: Could not understand trig command: '" + cmd + "'");
+               return;
          }
-      } catch (StringIndexOutOfBoundsException ex) {
-         angle = java.lang.Math.toRadians(angle);
+
+      } catch (ArithmeticException ex) {
+         CommandParser.ReportError("ERROR: " + ex.getMessage());
+         return;
       }
 
       // Save current calcStack to the undoStack
       calcStack.saveUndo();
 
       // Push the result back onto the stack
-      switch (cmd) {
-         case "tan":
-            calcStack.push(java.lang.Math.tan(angle));
-            break;
-
-         case "sin":
-            calcStack.push(java.lang.Math.sin(angle));
-            break;
-
-         case "cos":
-            calcStack.push(java.lang.Math.cos(angle));
-            break;
-
-         default:
-            Output.printColorln(Output.RED, "ERROR: Could not understand trig command: '" + cmd + "'");
-      }
+      calcStack.pop();
+      calcStack.push(result);
    }
 
 }
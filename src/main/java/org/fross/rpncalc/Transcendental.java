@@ -0,0 +1,572 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Transcendental: BigDecimal versions of the trig, exponential and logarithm functions. Every function takes a
+ * MathContext and the result is correct to that precision. Arguments are reduced with BigDecimal and a few guard digits,
+ * then a short Taylor series is summed in binary fixed point on BigInteger, which avoids BigDecimal division in the inner
+ * loops:
+ * <ul>
+ * <li>sin/cos/tan: reduced by multiples of PI/2 to [-PI/4, PI/4]. Degree inputs are reduced modulo 360 exactly first</li>
+ * <li>atan/asin/acos: argument halving until the series converges quickly</li>
+ * <li>exp: divided by a power of two and squared back</li>
+ * <li>ln/log10: split into a power of ten and a mantissa, which is reduced with repeated square roots</li>
+ * </ul>
+ * PI comes from the Constants cache and ln(10) is cached at the highest precision requested so far.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class Transcendental {
+   // Extra digits carried through intermediate calculations
+   private static final int GUARD_DIGITS = 10;
+
+   // Cached ln(10) and the precision it was computed to
+   private static BigDecimal ln10Cache = null;
+   private static int ln10Precision = 0;
+
+   // log2(10), used to convert decimal digits to bits
+   private static final double BITS_PER_DIGIT = 3.3219280948873626;
+
+   private static final BigDecimal TWO = BigDecimal.valueOf(2);
+   private static final BigDecimal TEN = BigDecimal.TEN;
+   private static final BigDecimal DEGREES_90 = BigDecimal.valueOf(90);
+   private static final BigDecimal DEGREES_180 = BigDecimal.valueOf(180);
+   private static final BigDecimal DEGREES_360 = BigDecimal.valueOf(360);
+   private static final BigDecimal SQRT_10 = new BigDecimal("3.1622776601683793");
+
+   // Beyond this exp() would overflow the BigDecimal exponent
+   private static final BigDecimal EXP_LIMIT = new BigDecimal("2000000000");
+
+   /**
+    * pi(): Return PI to the requested precision
+    *
+    * @param mc Precision
+    * @return PI
+    */
+   public static BigDecimal pi(MathContext mc) {
+      checkPrecision(mc);
+      return Constants.pi(mc);
+   }
+
+   /**
+    * sin(): Sine of an angle in radians
+    *
+    * @param x  Angle in radians
+    * @param mc Precision
+    * @return sin(x)
+    */
+   public static BigDecimal sin(BigDecimal x, MathContext mc) {
+      return sinCos(x, mc)[0].round(mc);
+   }
+
+   /**
+    * cos(): Cosine of an angle in radians
+    *
+    * @param x  Angle in radians
+    * @param mc Precision
+    * @return cos(x)
+    */
+   public static BigDecimal cos(BigDecimal x, MathContext mc) {
+      return sinCos(x, mc)[1].round(mc);
+   }
+
+   /**
+    * tan(): Tangent of an angle in radians
+    *
+    * @param x  Angle in radians
+    * @param mc Precision
+    * @return tan(x)
+    */
+   public static BigDecimal tan(BigDecimal x, MathContext mc) {
+      return tan(sinCos(x, mc), mc);
+   }
+
+   /**
+    * sinDegrees(): Sine of an angle in degrees
+    *
+    * @param x  Angle in degrees
+    * @param mc Precision
+    * @return sin(x)
+    */
+   public static BigDecimal sinDegrees(BigDecimal x, MathContext mc) {
+      return sinCosDegrees(x, mc)[0].round(mc);
+   }
+
+   /**
+    * cosDegrees(): Cosine of an angle in degrees
+    *
+    * @param x  Angle in degrees
+    * @param mc Precision
+    * @return cos(x)
+    */
+   public static BigDecimal cosDegrees(BigDecimal x, MathContext mc) {
+      return sinCosDegrees(x, mc)[1].round(mc);
+   }
+
+   /**
+    * tanDegrees(): Tangent of an angle in degrees
+    *
+    * @param x  Angle in degrees
+    * @param mc Precision
+    * @return tan(x)
+    */
+   public static BigDecimal tanDegrees(BigDecimal x, MathContext mc) {
+      return tan(sinCosDegrees(x, mc), mc);
+   }
+
+   /**
+    * asin(): Arc sine in radians
+    *
+    * @param x  Value between -1 and 1
+    * @param mc Precision
+    * @return asin(x)
+    */
+   public static BigDecimal asin(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.abs().compareTo(BigDecimal.ONE) > 0) {
+         throw new ArithmeticException("asin requires a value between -1 and 1");
+      }
+
+      MathContext wc = working(mc, 0);
+      if (x.abs().compareTo(BigDecimal.ONE) == 0) {
+         return pi(wc).divide(TWO, wc).multiply(BigDecimal.valueOf(x.signum())).round(mc);
+      }
+
+      // asin(x) = atan(x / sqrt(1 - x^2))
+      BigDecimal root = BigDecimal.ONE.subtract(x.multiply(x)).sqrt(wc);
+      return atanWorking(x.divide(root, wc), wc).round(mc);
+   }
+
+   /**
+    * acos(): Arc cosine in radians
+    *
+    * @param x  Value between -1 and 1
+    * @param mc Precision
+    * @return acos(x)
+    */
+   public static BigDecimal acos(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.abs().compareTo(BigDecimal.ONE) > 0) {
+         throw new ArithmeticException("acos requires a value between -1 and 1");
+      }
+
+      MathContext wc = working(mc, 0);
+      if (x.compareTo(BigDecimal.ONE.negate()) == 0) {
+         return pi(mc);
+      }
+
+      // acos(x) = 2 * atan(sqrt((1 - x) / (1 + x))) which avoids cancellation as x approaches 1
+      BigDecimal ratio = BigDecimal.ONE.subtract(x).divide(BigDecimal.ONE.add(x), wc).sqrt(wc);
+      return atanWorking(ratio, wc).multiply(TWO).round(mc);
+   }
+
+   /**
+    * atan(): Arc tangent in radians
+    *
+    * @param x  Value
+    * @param mc Precision
+    * @return atan(x)
+    */
+   public static BigDecimal atan(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      return atanWorking(x, working(mc, 0)).round(mc);
+   }
+
+   /**
+    * exp(): e raised to the provided power
+    *
+    * @param x  Exponent
+    * @param mc Precision
+    * @return e^x
+    */
+   public static BigDecimal exp(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.signum() == 0) return BigDecimal.ONE;
+      if (x.abs().compareTo(EXP_LIMIT) > 0) {
+         throw new ArithmeticException("exp argument is too large");
+      }
+
+      if (x.signum() < 0) {
+         MathContext wc = working(mc, 0);
+         return BigDecimal.ONE.divide(exp(x.negate(), wc), mc);
+      }
+
+      // Divide by 2^k so the series converges quickly, then square the result k times. Each squaring doubles the
+      // relative error so carry an extra digit for every three or so squarings
+      int k = java.lang.Math.max(0, java.lang.Math.getExponent(x.doubleValue()) + 9);
+      MathContext wc = working(mc, k * 3 / 10 + 1);
+      int bits = bits(wc, BigDecimal.ONE);
+
+      BigInteger one = BigInteger.ONE.shiftLeft(bits);
+      BigInteger r = toFixed(x, bits - k);
+      BigInteger term = one;
+      BigInteger fixedSum = one;
+      for (int i = 1; term.signum() != 0; i++) {
+         term = term.multiply(r).shiftRight(bits).divide(BigInteger.valueOf(i));
+         fixedSum = fixedSum.add(term);
+      }
+
+      BigDecimal sum = fromFixed(fixedSum, bits, wc);
+      for (int i = 0; i < k; i++) {
+         sum = sum.multiply(sum, wc);
+      }
+
+      return sum.round(mc);
+   }
+
+   /**
+    * ln(): Natural logarithm
+    *
+    * @param x  Value greater than zero
+    * @param mc Precision
+    * @return ln(x)
+    */
+   public static BigDecimal ln(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.signum() <= 0) {
+         throw new ArithmeticException("Logarithm requires a number greater than zero");
+      }
+      if (x.compareTo(BigDecimal.ONE) == 0) return BigDecimal.ZERO;
+
+      // Split x into m * 10^e with sqrt(0.1) <= m < sqrt(10) so ln(m) and e * ln(10) never cancel each other
+      int e = x.precision() - x.scale() - 1;
+      BigDecimal m = x.movePointLeft(e);
+      if (m.compareTo(SQRT_10) >= 0) {
+         e++;
+         m = m.movePointLeft(1);
+      }
+
+      MathContext wc = working(mc, Integer.toString(java.lang.Math.abs(e)).length());
+      BigDecimal result = lnMantissa(m, wc);
+      if (e != 0) {
+         result = result.add(ln10(wc).multiply(BigDecimal.valueOf(e)), wc);
+      }
+
+      return result.round(mc);
+   }
+
+   /**
+    * log10(): Base 10 logarithm. Exact powers of ten return an exact integer
+    *
+    * @param x  Value greater than zero
+    * @param mc Precision
+    * @return log10(x)
+    */
+   public static BigDecimal log10(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.signum() <= 0) {
+         throw new ArithmeticException("Logarithm requires a number greater than zero");
+      }
+
+      BigDecimal stripped = x.stripTrailingZeros();
+      if (stripped.unscaledValue().equals(BigInteger.ONE)) {
+         return BigDecimal.valueOf(-(long) stripped.scale());
+      }
+
+      MathContext wc = working(mc, 0);
+      return ln(x, wc).divide(ln10(wc), mc);
+   }
+
+   /**
+    * toDegrees(): Convert radians to degrees
+    *
+    * @param x  Angle in radians
+    * @param mc Precision
+    * @return Angle in degrees
+    */
+   public static BigDecimal toDegrees(BigDecimal x, MathContext mc) {
+      MathContext wc = working(mc, 0);
+      return x.multiply(DEGREES_180).divide(pi(wc), mc);
+   }
+
+   /**
+    * checkPrecision(): Transcendental results are infinite so an unlimited MathContext can't be honored
+    */
+   private static int checkPrecision(MathContext mc) {
+      if (mc.getPrecision() <= 0) {
+         throw new IllegalArgumentException("A limited precision is required for transcendental functions");
+      }
+      return mc.getPrecision();
+   }
+
+   /**
+    * working(): The MathContext used for intermediate results
+    */
+   private static MathContext working(MathContext mc, int extraDigits) {
+      return new MathContext(mc.getPrecision() + GUARD_DIGITS + extraDigits, RoundingMode.HALF_EVEN);
+   }
+
+   /**
+    * ln10(): ln(10) to the requested precision, cached
+    */
+   private static synchronized BigDecimal ln10(MathContext mc) {
+      if (ln10Precision < mc.getPrecision()) {
+         ln10Cache = lnMantissa(TEN, working(mc, 0));
+         ln10Precision = mc.getPrecision();
+      }
+      return ln10Cache.round(mc);
+   }
+
+   /**
+    * bits(): Fixed point bits needed for the working precision. Values below one get extra bits so the result keeps its
+    * relative precision
+    */
+   private static int bits(MathContext wc, BigDecimal magnitude) {
+      int bits = (int) java.lang.Math.ceil(wc.getPrecision() * BITS_PER_DIGIT) + 8;
+      int exponent = magnitude.precision() - magnitude.scale();
+      if (magnitude.signum() != 0 && exponent < 0) {
+         bits += (int) java.lang.Math.ceil(-exponent * BITS_PER_DIGIT);
+      }
+      return bits;
+   }
+
+   /**
+    * toFixed(): Convert to a fixed point BigInteger holding x * 2^bits
+    */
+   private static BigInteger toFixed(BigDecimal x, int bits) {
+      BigDecimal scaled = (bits >= 0) ? x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(bits))) : x.divide(new BigDecimal(BigInteger.ONE.shiftLeft(-bits)));
+      return scaled.setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+   }
+
+   /**
+    * fromFixed(): Convert a fixed point BigInteger back to a BigDecimal
+    */
+   private static BigDecimal fromFixed(BigInteger value, int bits, MathContext mc) {
+      return new BigDecimal(value).divide(new BigDecimal(BigInteger.ONE.shiftLeft(bits)), mc);
+   }
+
+   /**
+    * isqrt(): Integer square root by Newton's method, seeded from a double. BigInteger.sqrt() and BigDecimal.sqrt() are
+    * correct but much slower at these sizes
+    */
+   static BigInteger isqrt(BigInteger n) {
+      if (n.signum() == 0) return n;
+
+      int shift = java.lang.Math.max(0, n.bitLength() - 106) & ~1;
+      BigInteger x = BigInteger.valueOf((long) java.lang.Math.sqrt(n.shiftRight(shift).doubleValue()) + 1).shiftLeft(shift / 2);
+
+      // The first step lands on or above the root, after which the estimates decrease until they converge
+      x = x.add(n.divide(x)).shiftRight(1);
+      while (true) {
+         BigInteger y = x.add(n.divide(x)).shiftRight(1);
+         if (y.compareTo(x) >= 0) return x;
+         x = y;
+      }
+   }
+
+   /**
+    * lnMantissa(): ln(m) for m between 0.1 and 10. Square roots bring m close to 1, then the series
+    * ln(m) = 2 * (z + z^3/3 + z^5/5 + ...) with z = (m - 1) / (m + 1) is summed and scaled back up
+    */
+   private static BigDecimal lnMantissa(BigDecimal m, MathContext mc) {
+      // Each square root costs about one bit when scaled back up
+      int bits = bits(mc, m.subtract(BigDecimal.ONE)) + 16;
+      BigInteger one = BigInteger.ONE.shiftLeft(bits);
+      BigInteger limit = one.divide(BigInteger.valueOf(1000));
+      BigInteger mf = toFixed(m, bits);
+
+      int k = 0;
+      while (mf.subtract(one).abs().compareTo(limit) > 0) {
+         mf = isqrt(mf.shiftLeft(bits));
+         k++;
+      }
+
+      BigInteger z = mf.subtract(one).shiftLeft(bits).divide(mf.add(one));
+      BigInteger z2 = z.multiply(z).shiftRight(bits);
+      BigInteger power = z;
+      BigInteger sum = z;
+      for (int i = 3; ; i += 2) {
+         power = power.multiply(z2).shiftRight(bits);
+         BigInteger term = power.divide(BigInteger.valueOf(i));
+         if (term.signum() == 0) break;
+         sum = sum.add(term);
+      }
+
+      return fromFixed(sum.shiftLeft(k + 1), bits, mc);
+   }
+
+   /**
+    * atanWorking(): atan(x) at the working precision, unrounded
+    */
+   private static BigDecimal atanWorking(BigDecimal x, MathContext wc) {
+      if (x.signum() == 0) return BigDecimal.ZERO;
+      if (x.signum() < 0) return atanWorking(x.negate(), wc).negate();
+
+      // atan(x) = PI/2 - atan(1/x)
+      if (x.compareTo(BigDecimal.ONE) > 0) {
+         return pi(wc).divide(TWO, wc).subtract(atanWorking(BigDecimal.ONE.divide(x, wc), wc), wc);
+      }
+
+      // atan(x) = 2 * atan(x / (1 + sqrt(1 + x^2))) until x is small. Each halving costs a bit when scaled back up
+      int bits = bits(wc, x) + 8;
+      BigInteger one = BigInteger.ONE.shiftLeft(bits);
+      BigInteger limit = one.divide(BigInteger.valueOf(100));
+      BigInteger xf = toFixed(x, bits);
+
+      int k = 0;
+      while (xf.compareTo(limit) > 0) {
+         BigInteger root = isqrt(one.add(xf.multiply(xf).shiftRight(bits)).shiftLeft(bits));
+         xf = xf.shiftLeft(bits).divide(one.add(root));
+         k++;
+      }
+
+      BigInteger x2 = xf.multiply(xf).shiftRight(bits);
+      BigInteger power = xf;
+      BigInteger sum = xf;
+      for (int i = 3; ; i += 2) {
+         power = power.multiply(x2).shiftRight(bits).negate();
+         BigInteger term = power.divide(BigInteger.valueOf(i));
+         if (term.signum() == 0) break;
+         sum = sum.add(term);
+      }
+
+      return fromFixed(sum.shiftLeft(k), bits, wc);
+   }
+
+   /**
+    * sinCos(): Return {sin(x), cos(x)} at working precision for an angle in radians
+    */
+   private static BigDecimal[] sinCos(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+      if (x.signum() == 0) return new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ONE};
+
+      // Large angles need extra digits of PI so the reduced angle keeps full precision
+      int exponent = x.precision() - x.scale();
+      int extraDigits = java.lang.Math.max(0, exponent);
+      MathContext wc;
+      BigInteger n;
+      BigDecimal r;
+      while (true) {
+         wc = working(mc, extraDigits);
+
+         // x = n * PI/2 + r with |r| <= PI/4
+         BigDecimal halfPi = pi(wc).divide(TWO, wc);
+         n = x.divide(halfPi, wc).setScale(0, RoundingMode.HALF_EVEN).toBigIntegerExact();
+         r = x.subtract(halfPi.multiply(new BigDecimal(n)), wc);
+         if (n.signum() == 0) break;
+
+         // Near a multiple of PI/2 the subtraction cancels the leading digits of x. If more digits were lost than the
+         // extra digits of PI covered, redo the reduction with that many more
+         int lost = (r.signum() == 0) ? wc.getPrecision() : exponent - (r.precision() - r.scale());
+         if (lost <= extraDigits) break;
+         extraDigits = lost + GUARD_DIGITS;
+      }
+
+      int bits = bits(wc, r);
+      BigInteger rf = toFixed(r, bits);
+      return quadrant(n.intValue() & 3, fromFixed(sinSeries(rf, bits), bits, wc), fromFixed(cosSeries(rf, bits), bits, wc));
+   }
+
+   /**
+    * sinCosDegrees(): Return {sin(x), cos(x)} at working precision for an angle in degrees. Multiples of 90 degrees
+    * return exact values
+    */
+   private static BigDecimal[] sinCosDegrees(BigDecimal x, MathContext mc) {
+      checkPrecision(mc);
+
+      // Reduce to [0, 360) exactly before any rounding happens
+      BigDecimal degrees = x.remainder(DEGREES_360);
+      if (degrees.signum() < 0) degrees = degrees.add(DEGREES_360);
+
+      BigDecimal[] quotient = degrees.divideAndRemainder(DEGREES_90);
+      int q = quotient[0].intValue();
+      BigDecimal remainder = quotient[1];
+      if (remainder.signum() == 0) {
+         return quadrant(q, BigDecimal.ZERO, BigDecimal.ONE);
+      }
+
+      // Take the remainder from the nearest multiple of 90 so the radian angle never needs reducing again, which
+      // would cancel digits for angles just short of a multiple of 90
+      if (remainder.multiply(TWO).compareTo(DEGREES_90) > 0) {
+         remainder = remainder.subtract(DEGREES_90);
+         q = (q + 1) & 3;
+      }
+
+      MathContext wc = working(mc, 0);
+      BigDecimal[] reduced = sinCos(remainder.multiply(pi(wc), wc).divide(DEGREES_180, wc), wc);
+      return quadrant(q, reduced[0], reduced[1]);
+   }
+
+   /**
+    * quadrant(): Map sin and cos of the reduced angle back to the original quadrant
+    */
+   private static BigDecimal[] quadrant(int q, BigDecimal s, BigDecimal c) {
+      return switch (q) {
+         case 1 -> new BigDecimal[]{c, s.negate()};
+         case 2 -> new BigDecimal[]{s.negate(), c.negate()};
+         case 3 -> new BigDecimal[]{c.negate(), s};
+         default -> new BigDecimal[]{s, c};
+      };
+   }
+
+   /**
+    * tan(): sin / cos, rejecting the angles where cos is exactly zero
+    */
+   private static BigDecimal tan(BigDecimal[] sinCos, MathContext mc) {
+      if (sinCos[1].signum() == 0) {
+         throw new ArithmeticException("tan is undefined for this angle");
+      }
+      return sinCos[0].divide(sinCos[1], mc);
+   }
+
+   /**
+    * sinSeries(): Taylor series for sin(r) in fixed point
+    */
+   private static BigInteger sinSeries(BigInteger r, int bits) {
+      BigInteger r2 = r.multiply(r).shiftRight(bits);
+      BigInteger term = r;
+      BigInteger sum = r;
+
+      for (long i = 2; term.signum() != 0; i += 2) {
+         term = term.multiply(r2).shiftRight(bits).divide(BigInteger.valueOf(i * (i + 1))).negate();
+         sum = sum.add(term);
+      }
+      return sum;
+   }
+
+   /**
+    * cosSeries(): Taylor series for cos(r) in fixed point
+    */
+   private static BigInteger cosSeries(BigInteger r, int bits) {
+      BigInteger r2 = r.multiply(r).shiftRight(bits);
+      BigInteger term = BigInteger.ONE.shiftLeft(bits);
+      BigInteger sum = term;
+
+      for (long i = 1; term.signum() != 0; i += 2) {
+         term = term.multiply(r2).shiftRight(bits).divide(BigInteger.valueOf(i * (i + 1))).negate();
+         sum = sum.add(term);
+      }
+      return sum;
+   }
+
+}
@@ -0,0 +1,814 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.fross.library.Output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UndoHistory: The undo history for a stack. Instead of copying the whole stack every time an undo point is saved, the
+ * history keeps a log of the edits made to the stack (insert, remove, replace). Saving an undo point just marks the
+ * current end of the log so it is O(1) regardless of the stack size. Restoring to an undo point walks the log backwards
+ * reversing each edit until it reaches that mark.
+ * <p>
+ * Edits made before the first undo point is saved are not logged as there is nothing to restore them to.
+ * <p>
+ * The history is bounded by the configured number of undo levels and an approximate memory budget. When either is
+ * exceeded the oldest undo points are evicted. If spilling is enabled, evicted undo points are appended to a file in the
+ * temporary directory instead of being discarded so deep undo is still possible. The undo level limit then applies to
+ * the undo points held in memory, so the newest ones are always on the heap. The file is closed and deleted when
+ * the history is cleared or the program exits.
+ * <p>
+ * Compound operations (user defined functions, repeat, batch scripts) run inside a transaction. The transaction saves a
+ * single undo point when it begins. Undo points saved while it is open become savepoints inside it, which an undo issued
+ * inside the transaction uses, and are dropped when it commits so the whole operation is undone in one step. If the edits
+ * logged during a transaction outgrow the undo memory budget they are collapsed into one snapshot of the stack as it was
+ * when the transaction began, and edits stop being logged until the transaction ends.
+ *
+ * @author Michael Fross (michael@fross.org)
+ */
+public class UndoHistory {
+   // Edit types
+   private static final byte EDIT_INSERT = 0;    // An item was inserted at the index.  Reverse: remove it
+   private static final byte EDIT_REMOVE = 1;    // An item was removed from the index.  Reverse: insert it back
+   private static final byte EDIT_REPLACE = 2;   // The whole stack was replaced.  Reverse: restore the saved contents
+
+   // Rough memory cost used for the undo memory budget
+   private static final int EDIT_OVERHEAD_BYTES = 16;
+   private static final int BIGDECIMAL_OVERHEAD_BYTES = 40;
+
+   // Edit log stored as parallel arrays so recording an edit doesn't allocate an object. Evicted edits are skipped over
+   // using firstEdit and the arrays are compacted once enough have built up
+   private byte[] editTypes = new byte[16];
+   private int[] editIndexes = new int[16];
+   private Object[] editValues = new Object[16];
+   private int firstEdit = 0;
+   private int editCount = 0;
+   private long editBytes = 0;
+
+   // Position in the edit log where each undo point starts
+   private int[] undoPoints = new int[8];
+   private int firstUndoPoint = 0;
+   private int undoCount = 0;
+
+   // Undo points that have been spilled to disk. Each one starts at its file offset and runs to the next one's offset
+   private File spillFile = null;
+   private RandomAccessFile spill = null;
+   private long[] spillOffsets = new long[8];
+   private int spillCount = 0;
+
+   // Histories with an open spill file. They are closed and deleted at shutdown
+   private static final Set<UndoHistory> openSpills = ConcurrentHashMap.newKeySet();
+
+   static {
+      Runtime.getRuntime().addShutdownHook(new Thread(UndoHistory::closeSpills));
+   }
+
+   // Transaction state. Marks (where each nested transaction began) and savepoints are edit log positions relative to the
+   // start of the transaction's undo point, so they stay valid when the log is compacted
+   private int transactionDepth = 0;
+   private int[] transactionMarks = new int[4];
+   private int[] savepoints = new int[16];
+   private int savepointCount = 0;
+   private boolean transactionCollapsed = false;
+
+   /**
+    * clear(): Remove all undo points and logged edits
+    */
+   public void clear() {
+      Arrays.fill(editValues, firstEdit, editCount, null);
+      firstEdit = 0;
+      editCount = 0;
+      editBytes = 0;
+      firstUndoPoint = 0;
+      undoCount = 0;
+      transactionDepth = 0;
+      savepointCount = 0;
+      transactionCollapsed = false;
+      clearSpill();
+   }
+
+   /**
+    * isRecording(): Edits only need to be logged once at least one undo point exists
+    *
+    * @return true if edits are being logged
+    */
+   public boolean isRecording() {
+      return size() > 0 && !transactionCollapsed;
+   }
+
+   /**
+    * memoryUsed(): Return the approximate number of bytes the in memory edit log is using
+    *
+    * @return approximate bytes used
+    */
+   public long memoryUsed() {
+      return editBytes;
+   }
+
+   /**
+    * save(): Save an undo point at the current end of the edit log. Older undo points are evicted if the configured undo
+    * levels or undo memory budget have been exceeded
+    */
+   public void save() {
+      // Inside a transaction only a savepoint is recorded
+      if (transactionDepth > 0) {
+         if (!transactionCollapsed) {
+            if (savepointCount == savepoints.length) {
+               savepoints = Arrays.copyOf(savepoints, savepointCount * 2);
+            }
+            savepoints[savepointCount++] = transactionPosition();
+         }
+         return;
+      }
+
+      addUndoPoint();
+
+      // Remove the oldest undo points until we are back within the limits. The newest one is always kept. When spilling,
+      // the level limit is how many are held in memory since spilled undo points don't count against it
+      while (memorySize() > 1 && ((Main.configUndoSpill ? memorySize() : size()) > Main.configUndoLevels || editBytes > maxBytes())) {
+         evictOldest();
+      }
+   }
+
+   /**
+    * save(): Save an undo point as above. If a transaction is open and the edit log has outgrown the undo memory budget,
+    * the transaction's edits are first collapsed into a snapshot of the stack as it was when the transaction began
+    *
+    * @param current Current stack contents. It is not modified
+    */
+   public void save(List<BigDecimal> current) {
+      if (transactionDepth == 1 && !transactionCollapsed && editBytes > maxBytes()) {
+         collapseTransaction(current);
+      }
+      save();
+   }
+
+   /**
+    * begin(): Start a transaction. The outermost transaction saves an undo point that everything done until it commits is
+    * undone to. Transactions may be nested
+    */
+   public void begin() {
+      if (transactionDepth == 0) {
+         save();
+         savepointCount = 0;
+      }
+
+      // A nested transaction must be able to roll back, so edits are logged again from here even if collapsed
+      transactionCollapsed = false;
+
+      if (transactionDepth == transactionMarks.length) {
+         transactionMarks = Arrays.copyOf(transactionMarks, transactionDepth * 2);
+      }
+      transactionMarks[transactionDepth++] = transactionPosition();
+   }
+
+   /**
+    * commit(): End the innermost transaction keeping its changes. Savepoints made inside it are dropped
+    */
+   public void commit() {
+      if (transactionDepth == 0) {
+         throw new IllegalStateException("No undo transaction is in progress");
+      }
+
+      int mark = transactionMarks[--transactionDepth];
+      if (transactionDepth == 0) {
+         savepointCount = 0;
+         transactionCollapsed = false;
+      } else {
+         dropSavepointsAfter(mark);
+      }
+   }
+
+   /**
+    * rollback(): End the innermost transaction and reverse every change made since it began. Rolling back the outermost
+    * transaction also removes the undo point it saved
+    *
+    * @param stk Current stack contents. It is updated in place
+    */
+   public void rollback(List<BigDecimal> stk) {
+      if (transactionDepth == 0) {
+         throw new IllegalStateException("No undo transaction is in progress");
+      }
+
+      int mark = transactionMarks[--transactionDepth];
+      if (transactionDepth == 0) {
+         savepointCount = 0;
+         transactionCollapsed = false;
+         restore(stk, size());
+      } else {
+         reverseTo(stk, transactionStart() + mark);
+         dropSavepointsAfter(mark);
+      }
+   }
+
+   /**
+    * inTransaction(): Return true if a transaction is open
+    *
+    * @return true if inside a transaction
+    */
+   public boolean inTransaction() {
+      return transactionDepth > 0;
+   }
+
+   /**
+    * size(): Return the number of undo points including any spilled to disk
+    *
+    * @return number of undo points
+    */
+   public int size() {
+      return spillCount + memorySize();
+   }
+
+   /**
+    * recordInsert(): Log that an item was inserted into the stack at the provided index
+    *
+    * @param index Index of the inserted item
+    */
+   public void recordInsert(int index) {
+      if (isRecording()) addEdit(EDIT_INSERT, index, null);
+   }
+
+   /**
+    * recordRemove(): Log that an item was removed from the stack at the provided index
+    *
+    * @param index Index the item was removed from
+    * @param value The value removed
+    */
+   public void recordRemove(int index, BigDecimal value) {
+      if (isRecording()) addEdit(EDIT_REMOVE, index, value);
+   }
+
+   /**
+    * recordReplace(): Log that the entire stack contents are being replaced
+    *
+    * @param previousContents The stack contents before the replacement, bottom of the stack first
+    */
+   public void recordReplace(BigDecimal[] previousContents) {
+      if (isRecording()) addEdit(EDIT_REPLACE, 0, previousContents);
+   }
+
+   /**
+    * restore(): Return the stack to the way it was at the provided undo line number and discard that undo point and all
+    * the newer ones. The undo line number is one more than the index of the undo point.
+    *
+    * @param stk     Current stack contents. It is updated in place
+    * @param lineNum Undo line number to restore
+    */
+   public void restore(List<BigDecimal> stk, int lineNum) {
+      int index = lineNum - 1;
+
+      // Undoing the last change inside a transaction goes back to its most recent savepoint
+      if (transactionDepth > 0 && lineNum == size() && savepointCount > 0) {
+         int position = savepoints[--savepointCount];
+         reverseTo(stk, transactionStart() + position);
+         for (int i = 0; i < transactionDepth; i++) {
+            transactionMarks[i] = java.lang.Math.min(transactionMarks[i], position);
+         }
+         return;
+      }
+
+      if (index >= spillCount) {
+         // The undo point is still in memory
+         int target = undoPoints[firstUndoPoint + index - spillCount];
+         for (int i = editCount - 1; i >= target; i--) {
+            reverseEdit(stk, editTypes[i], editIndexes[i], editValues[i]);
+         }
+         discardEdits(target);
+         undoCount = firstUndoPoint + index - spillCount;
+
+      } else {
+         // Reverse everything in memory and then the spilled undo points back to the one requested
+         for (int i = editCount - 1; i >= firstEdit; i--) {
+            reverseEdit(stk, editTypes[i], editIndexes[i], editValues[i]);
+         }
+         reverseSpilled(stk, index);
+
+         // Everything in memory is newer than the restored point
+         discardEdits(firstEdit);
+         firstEdit = 0;
+         editCount = 0;
+         firstUndoPoint = 0;
+         undoCount = 0;
+         truncateSpill(index);
+      }
+
+      // The transaction's undo point has been undone. Start it again from the restored stack
+      if (transactionDepth > 0) {
+         addUndoPoint();
+         Arrays.fill(transactionMarks, 0, transactionDepth, 0);
+         savepointCount = 0;
+         transactionCollapsed = false;
+      }
+   }
+
+   /**
+    * remove(): Remove the undo point at the provided index. The edits it covered are merged into the previous undo point so
+    * the remaining undo points still restore correctly. If it's the oldest undo point its edits are no longer needed.
+    *
+    * @param index Index of the undo point to remove
+    */
+   public void remove(int index) {
+      if (index < 0 || index >= size()) {
+         throw new IndexOutOfBoundsException("Undo index " + index + " is out of range");
+      }
+
+      if (index < spillCount) {
+         // A spilled undo point is merged by dropping its starting offset. If it's the oldest, the bytes are just skipped
+         System.arraycopy(spillOffsets, index + 1, spillOffsets, index, spillCount - index - 1);
+         spillCount--;
+         if (spillCount == 0 && memorySize() == 0) clearSpill();
+
+      } else if (index == 0) {
+         // Drop the edits belonging to the oldest undo point
+         int dropTo = (memorySize() > 1) ? undoPoints[firstUndoPoint + 1] : editCount;
+         discardOldestEdits(dropTo);
+         firstUndoPoint++;
+
+      } else {
+         // Merging the oldest in memory undo point into a spilled one leaves its edits in memory ahead of the first undo
+         // point. They are still reversed when restoring to a spilled undo point
+         int pos = firstUndoPoint + index - spillCount;
+         System.arraycopy(undoPoints, pos + 1, undoPoints, pos, undoCount - pos - 1);
+         undoCount--;
+      }
+   }
+
+   /**
+    * get(): Rebuild the stack as it was at the provided undo index
+    *
+    * @param current Current stack contents. It is not modified
+    * @param index   Index of the undo point
+    * @return The stack contents at that undo point
+    */
+   public List<BigDecimal> get(List<BigDecimal> current, int index) {
+      List<BigDecimal> state = new ArrayList<>(current);
+
+      if (index >= spillCount) {
+         for (int i = editCount - 1; i >= undoPoints[firstUndoPoint + index - spillCount]; i--) {
+            reverseEdit(state, editTypes[i], editIndexes[i], editValues[i]);
+         }
+      } else {
+         for (int i = editCount - 1; i >= firstEdit; i--) {
+            reverseEdit(state, editTypes[i], editIndexes[i], editValues[i]);
+         }
+         reverseSpilled(state, index);
+      }
+
+      return state;
+   }
+
+   /**
+    * getAll(): Rebuild every undo point's stack in a single backwards pass through the edit log. The oldest is returned first.
+    *
+    * @param current Current stack contents. It is not modified
+    * @return List of the stack contents at each undo point
+    */
+   public List<List<BigDecimal>> getAll(List<BigDecimal> current) {
+      List<List<BigDecimal>> states = new ArrayList<>(size());
+      List<BigDecimal> state = new ArrayList<>(current);
+      int editIndex = editCount - 1;
+
+      for (int u = undoCount - 1; u >= firstUndoPoint; u--) {
+         for (; editIndex >= undoPoints[u]; editIndex--) {
+            reverseEdit(state, editTypes[editIndex], editIndexes[editIndex], editValues[editIndex]);
+         }
+         states.add(new ArrayList<>(state));
+      }
+
+      // Any edits left in memory belong to the newest spilled undo point
+      for (; editIndex >= firstEdit; editIndex--) {
+         reverseEdit(state, editTypes[editIndex], editIndexes[editIndex], editValues[editIndex]);
+      }
+
+      for (int s = spillCount - 1; s >= 0; s--) {
+         reverseSpilled(state, s, s + 1);
+         states.add(new ArrayList<>(state));
+      }
+
+      // States were built newest first
+      Collections.reverse(states);
+      return states;
+   }
+
+   /**
+    * addUndoPoint(): Mark the current end of the edit log as a new undo point
+    */
+   private void addUndoPoint() {
+      if (undoCount == undoPoints.length) {
+         compact();
+         if (undoCount == undoPoints.length) {
+            undoPoints = Arrays.copyOf(undoPoints, undoCount * 2);
+         }
+      }
+      undoPoints[undoCount++] = editCount;
+   }
+
+   /**
+    * maxBytes(): The undo memory budget in bytes
+    */
+   private static long maxBytes() {
+      return (long) Main.configUndoMemory * 1024 * 1024;
+   }
+
+   /**
+    * transactionStart(): Position in the edit log where the open transaction's undo point starts
+    */
+   private int transactionStart() {
+      return undoPoints[undoCount - 1];
+   }
+
+   /**
+    * transactionPosition(): Current end of the edit log relative to the start of the transaction's undo point
+    */
+   private int transactionPosition() {
+      return editCount - transactionStart();
+   }
+
+   /**
+    * reverseTo(): Reverse the logged edits from the end of the log back to the provided position and discard them
+    */
+   private void reverseTo(List<BigDecimal> stk, int position) {
+      for (int i = editCount - 1; i >= position; i--) {
+         reverseEdit(stk, editTypes[i], editIndexes[i], editValues[i]);
+      }
+      discardEdits(position);
+   }
+
+   /**
+    * dropSavepointsAfter(): Remove the savepoints made after the provided transaction position
+    */
+   private void dropSavepointsAfter(int position) {
+      while (savepointCount > 0 && savepoints[savepointCount - 1] > position) {
+         savepointCount--;
+      }
+   }
+
+   /**
+    * collapseTransaction(): Replace the edits logged by the open transaction with one snapshot of the stack as it was when
+    * the transaction began and stop logging edits until the transaction ends
+    */
+   private void collapseTransaction(List<BigDecimal> current) {
+      List<BigDecimal> state = new ArrayList<>(current);
+      int start = transactionStart();
+      for (int i = editCount - 1; i >= start; i--) {
+         reverseEdit(state, editTypes[i], editIndexes[i], editValues[i]);
+      }
+      discardEdits(start);
+      addEdit(EDIT_REPLACE, 0, state.toArray(new BigDecimal[0]));
+
+      savepointCount = 0;
+      transactionMarks[0] = 0;
+      transactionCollapsed = true;
+   }
+
+   /**
+    * memorySize(): The number of undo points held in memory
+    */
+   int memorySize() {
+      return undoCount - firstUndoPoint;
+   }
+
+   /**
+    * addEdit(): Append an edit to the log, growing the arrays as needed
+    */
+   private void addEdit(byte type, int index, Object value) {
+      if (editCount == editTypes.length) {
+         compact();
+         if (editCount == editTypes.length) {
+            int newSize = editCount * 2;
+            editTypes = Arrays.copyOf(editTypes, newSize);
+            editIndexes = Arrays.copyOf(editIndexes, newSize);
+            editValues = Arrays.copyOf(editValues, newSize);
+         }
+      }
+
+      editTypes[editCount] = type;
+      editIndexes[editCount] = index;
+      editValues[editCount] = value;
+      editBytes += estimateBytes(value);
+      editCount++;
+   }
+
+   /**
+    * compact(): Shift the live part of the log to the front of the arrays once enough evicted space has built up
+    */
+   private void compact() {
+      if (firstEdit > 0 && firstEdit >= editCount / 2) {
+         int live = editCount - firstEdit;
+         System.arraycopy(editTypes, firstEdit, editTypes, 0, live);
+         System.arraycopy(editIndexes, firstEdit, editIndexes, 0, live);
+         System.arraycopy(editValues, firstEdit, editValues, 0, live);
+         Arrays.fill(editValues, live, editCount, null);
+
+         for (int i = firstUndoPoint; i < undoCount; i++) {
+            undoPoints[i] -= firstEdit;
+         }
+         editCount = live;
+         firstEdit = 0;
+      }
+
+      if (firstUndoPoint > 0 && firstUndoPoint >= undoCount / 2) {
+         System.arraycopy(undoPoints, firstUndoPoint, undoPoints, 0, memorySize());
+         undoCount = memorySize();
+         firstUndoPoint = 0;
+      }
+   }
+
+   /**
+    * discardEdits(): Remove the edits from the provided position to the end of the log
+    */
+   private void discardEdits(int from) {
+      for (int i = from; i < editCount; i++) {
+         editBytes -= estimateBytes(editValues[i]);
+         editValues[i] = null;
+      }
+      editCount = from;
+   }
+
+   /**
+    * discardOldestEdits(): Remove the edits from the start of the log up to the provided position
+    */
+   private void discardOldestEdits(int to) {
+      for (int i = firstEdit; i < to; i++) {
+         editBytes -= estimateBytes(editValues[i]);
+         editValues[i] = null;
+      }
+      firstEdit = to;
+   }
+
+   /**
+    * evictOldest(): Remove the oldest undo point held in memory. If spilling is enabled its edits are written to disk,
+    * otherwise they are discarded along with anything already spilled since that can no longer be reached
+    */
+   private void evictOldest() {
+      int evictTo = undoPoints[firstUndoPoint + 1];
+
+      if (Main.configUndoSpill && spillOldest(evictTo)) {
+         discardOldestEdits(evictTo);
+         firstUndoPoint++;
+      } else {
+         clearSpill();
+         remove(0);
+      }
+   }
+
+   /**
+    * estimateBytes(): Approximate the memory used by a logged edit
+    */
+   private static long estimateBytes(Object value) {
+      long bytes = EDIT_OVERHEAD_BYTES;
+
+      if (value instanceof BigDecimal bd) {
+         bytes += estimateBytes(bd);
+      } else if (value instanceof BigDecimal[] contents) {
+         bytes += 16L + 4L * contents.length;
+         for (BigDecimal bd : contents) {
+            bytes += estimateBytes(bd);
+         }
+      }
+
+      return bytes;
+   }
+
+   /**
+    * estimateBytes(): Approximate the memory used by a BigDecimal. Each decimal digit needs a little under half a byte
+    */
+   private static long estimateBytes(BigDecimal bd) {
+      return BIGDECIMAL_OVERHEAD_BYTES + bd.precision() / 2;
+   }
+
+   /**
+    * reverseEdit(): Apply the opposite of the logged edit to the provided stack contents
+    */
+   private static void reverseEdit(List<BigDecimal> stk, byte type, int index, Object value) {
+      switch (type) {
+         case EDIT_INSERT:
+            stk.remove(index);
+            break;
+
+         case EDIT_REMOVE:
+            stk.add(index, (BigDecimal) value);
+            break;
+
+         case EDIT_REPLACE:
+            stk.clear();
+            stk.addAll(Arrays.asList((BigDecimal[]) value));
+            break;
+      }
+   }
+
+   /*------------------------------------------------------------------------------
+    * Spill file handling
+    *-----------------------------------------------------------------------------*/
+
+   /**
+    * spillOldest(): Append the edits from the start of the log up to the provided position to the spill file
+    *
+    * @return true if the edits were written
+    */
+   private boolean spillOldest(int to) {
+      try {
+         if (spill == null) {
+            spillFile = File.createTempFile(".rpncalc_undo_", ".spill");
+            spillFile.deleteOnExit();
+            spill = new RandomAccessFile(spillFile, "rw");
+            openSpills.add(this);
+            Output.debugPrintln("Undo spill file created: '" + spillFile.getAbsolutePath() + "'");
+         }
+
+         // Build the record in memory so it's written to disk in a single call. Edits left ahead of the first undo point
+         // belong to the newest spilled undo point, so they are written first and the new record starts after them
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bytes);
+         int recordStart = 0;
+         for (int i = firstEdit; i < to; i++) {
+            if (i == undoPoints[firstUndoPoint]) recordStart = out.size();
+            out.writeByte(editTypes[i]);
+            out.writeInt(editIndexes[i]);
+            if (editTypes[i] == EDIT_REMOVE) {
+               writeValue(out, (BigDecimal) editValues[i]);
+            } else if (editTypes[i] == EDIT_REPLACE) {
+               BigDecimal[] contents = (BigDecimal[]) editValues[i];
+               out.writeInt(contents.length);
+               for (BigDecimal bd : contents) {
+                  writeValue(out, bd);
+               }
+            }
+         }
+
+         if (spillCount == spillOffsets.length) {
+            spillOffsets = Arrays.copyOf(spillOffsets, spillCount * 2);
+         }
+
+         long offset = spill.length();
+         spill.seek(offset);
+         spill.write(bytes.toByteArray());
+         spillOffsets[spillCount++] = offset + recordStart;
+         return true;
+
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not write to the undo spill file. Oldest undo discarded\n" + ex.getMessage());
+         return false;
+      }
+   }
+
+   /**
+    * reverseSpilled(): Reverse the spilled undo points from the newest back to the provided index
+    */
+   private void reverseSpilled(List<BigDecimal> stk, int index) {
+      reverseSpilled(stk, index, spillCount);
+   }
+
+   /**
+    * reverseSpilled(): Reverse the spilled undo points from the end index (exclusive) back to the start index
+    */
+   private void reverseSpilled(List<BigDecimal> stk, int start, int end) {
+      try {
+         // Read the needed records in one pass
+         long startOffset = spillOffsets[start];
+         byte[] buffer = new byte[(int) (spillEnd(end) - startOffset)];
+         spill.seek(startOffset);
+         spill.readFully(buffer);
+
+         // Parse the edits, then reverse them newest first
+         DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer));
+         ArrayList<Object[]> edits = new ArrayList<>();
+         while (in.available() > 0) {
+            byte type = in.readByte();
+            int index = in.readInt();
+            Object value = null;
+            if (type == EDIT_REMOVE) {
+               value = readValue(in);
+            } else if (type == EDIT_REPLACE) {
+               BigDecimal[] contents = new BigDecimal[in.readInt()];
+               for (int i = 0; i < contents.length; i++) {
+                  contents[i] = readValue(in);
+               }
+               value = contents;
+            }
+            edits.add(new Object[]{type, index, value});
+         }
+
+         for (int i = edits.size() - 1; i >= 0; i--) {
+            reverseEdit(stk, (Byte) edits.get(i)[0], (Integer) edits.get(i)[1], edits.get(i)[2]);
+         }
+
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not read from the undo spill file\n" + ex.getMessage());
+      }
+   }
+
+   /**
+    * spillEnd(): Return the file offset where the spilled undo point ending at the provided index stops
+    */
+   private long spillEnd(int end) throws IOException {
+      return (end < spillCount) ? spillOffsets[end] : spill.length();
+   }
+
+   /**
+    * truncateSpill(): Remove the spilled undo points from the provided index onwards
+    */
+   private void truncateSpill(int index) {
+      if (index == 0) {
+         clearSpill();
+         return;
+      }
+
+      try {
+         spill.setLength(spillOffsets[index]);
+      } catch (IOException ex) {
+         Output.printColorln(Output.RED, "ERROR: Could not truncate the undo spill file\n" + ex.getMessage());
+      }
+      spillCount = index;
+   }
+
+   /**
+    * clearSpill(): Remove all spilled undo points and delete the spill file
+    */
+   private synchronized void clearSpill() {
+      spillCount = 0;
+      openSpills.remove(this);
+      if (spill != null) {
+         try {
+            spill.close();
+         } catch (IOException ex) {
+            Output.debugPrintln("Could not close the undo spill file: " + ex.getMessage());
+         }
+         if (!spillFile.delete()) {
+            Output.debugPrintln("Could not delete the undo spill file: '" + spillFile.getAbsolutePath() + "'");
+         }
+         spill = null;
+         spillFile = null;
+      }
+   }
+
+   /**
+    * closeSpills(): Close and delete the spill file of every history that has one. Run at shutdown
+    */
+   static void closeSpills() {
+      for (UndoHistory history : openSpills) {
+         history.clearSpill();
+      }
+   }
+
+   /**
+    * writeValue(): Write a BigDecimal as its scale followed by the length prefixed unscaled value
+    */
+   private static void writeValue(DataOutputStream out, BigDecimal bd) throws IOException {
+      byte[] unscaled = bd.unscaledValue().toByteArray();
+      out.writeInt(bd.scale());
+      out.writeInt(unscaled.length);
+      out.write(unscaled);
+   }
+
+   /**
+    * readValue(): Read a BigDecimal written by writeValue()
+    */
+   private static BigDecimal readValue(DataInputStream in) throws IOException {
+      int scale = in.readInt();
+      byte[] unscaled = new byte[in.readInt()];
+      in.readFully(unscaled);
+      return new BigDecimal(new BigInteger(unscaled), scale);
+   }
+
+}
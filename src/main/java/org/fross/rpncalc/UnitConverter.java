@@ -27,8 +27,6 @@
 package org.fross.rpncalc;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,8 +36,6 @@ import java.util.Map;
  */
 public class UnitConverter {
 
-   private static final MathContext MC = new MathContext(34, RoundingMode.HALF_UP);
-
    // Conversion factors to base units
    private static final Map<String, ConversionFactor> CONVERSIONS = new HashMap<>();
 
@@ -134,8 +130,8 @@ public class UnitConverter {
          result = convertTemperature(amount, from, to);
       } else {
          // Convert to base unit, then to target unit
-         BigDecimal inBase = amount.multiply(fromFactor.factor, MC);
-         result = inBase.divide(toFactor.factor, MC);
+         BigDecimal inBase = amount.multiply(fromFactor.factor, Precision.inexact());
+         result = inBase.divide(toFactor.factor, Precision.inexact());
       }
 
       return new ConversionResult(result, toUnit);
@@ -149,7 +145,7 @@ public class UnitConverter {
             celsius = value;
             break;
          case "f":
-            celsius = value.subtract(new BigDecimal("32")).multiply(new BigDecimal("5")).divide(new BigDecimal("9"), MC);
+            celsius = value.subtract(new BigDecimal("32")).multiply(new BigDecimal("5")).divide(new BigDecimal("9"), Precision.inexact());
             break;
          case "k":
             celsius = value.subtract(new BigDecimal("273.15"));
@@ -163,7 +159,7 @@ public class UnitConverter {
          case "c":
             return celsius;
          case "f":
-            return celsius.multiply(new BigDecimal("9")).divide(new BigDecimal("5"), MC).add(new BigDecimal("32"));
+            return celsius.multiply(new BigDecimal("9")).divide(new BigDecimal("5"), Precision.inexact()).add(new BigDecimal("32"));
          case "k":
             return celsius.add(new BigDecimal("273.15"));
          default:
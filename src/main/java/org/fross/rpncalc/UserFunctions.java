@@ -34,6 +34,10 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
@@ -45,6 +49,11 @@ public class UserFunctions {
    static boolean recordingEnabled = false;
    static ArrayList<String> recording = new ArrayList<>();
 
+   // In-memory copy of the stored functions compiled into execution plans. Loaded once from preferences and kept in sync
+   // with it so lookups and function execution never touch the backing store
+   private static Map<String, FunctionPlan> functions = null;
+
+
    /**
     * cmdFunction(): Allow users to manage functions
     *
@@ -60,21 +69,15 @@ public class UserFunctions {
                try {
                   FunctionDelete(command[1]);
                } catch (ArrayIndexOutOfBoundsException ex) {
-                  Output.printColorln(Output.RED, "ERROR: 'function del' requires a valid function name to delete");
+                  CommandParser.ReportError("ERROR: 'function del' requires a valid function name to delete");
                }
                break;
 
             case "delall":
-               Preferences p = Preferences.userRoot().node(UserFunctions.PREFS_PATH_FUNCTIONS);
-
-               // Loop through each function (child of the root) and delete it
-               try {
-                  for (String functionName : p.childrenNames()) {
-                     Output.debugPrintln("Removing function: " + functionName);
-                     FunctionDelete(functionName);
-                  }
-               } catch (BackingStoreException e) {
-                  Output.printColorln(Output.RED, "Error:  Could not remove the user defined functions");
+               // Loop through each function and delete it
+               for (String functionName : GetFunctionNames()) {
+                  Output.debugPrintln("Removing function: " + functionName);
+                  FunctionDelete(functionName);
                }
                break;
 
@@ -98,7 +101,7 @@ public class UserFunctions {
                   }
 
                } catch (Exception ex) {
-                  Output.printColorln(Output.RED, "ERROR: Couldn't determine the func export filename");
+                  CommandParser.ReportError("ERROR: Couldn't determine the func export filename");
                   return;
                }
 
@@ -111,21 +114,22 @@ public class UserFunctions {
                // Output the full path/name of the output file
                Output.printColorln(Output.CYAN, "Export filename: '" + new File(fileNameStr).getAbsolutePath() + "'");
 
-               // Output preferences as an XML file
+               // Output preferences as an XML file. Queued function writes must land in preferences first
                try {
+                  FlushFunctionWrites();
                   FileOutputStream fos = new FileOutputStream(fileNameStr);
                   Preferences pExport = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS);
                   pExport.exportSubtree(fos);
                   fos.close();
 
                } catch (IOException ex) {
-                  Output.printColorln(Output.RED, "Error:  RPNCalc can't write to '" + fileNameStr + "'");
+                  CommandParser.ReportError("Error:  RPNCalc can't write to '" + fileNameStr + "'");
                } catch (BackingStoreException ex) {
-                  Output.printColorln(Output.RED, "Error:  Could not export the user defined functions (BackingStoreException)");
+                  CommandParser.ReportError("Error:  Could not export the user defined functions (BackingStoreException)");
                } catch (IllegalStateException ex) {
-                  Output.printColorln(Output.RED, "Error:  Could not export the user defined functions (IllegalStateException)");
+                  CommandParser.ReportError("Error:  Could not export the user defined functions (IllegalStateException)");
                } catch (Exception ex) {
-                  Output.printColorln(Output.RED, "Error:  Could not export the user defined functions (Exception)");
+                  CommandParser.ReportError("Error:  Could not export the user defined functions (Exception)");
                }
                break;
 
@@ -148,7 +152,7 @@ public class UserFunctions {
                      Output.fatalError("Could not read user input", 5);
                   }
                } catch (Exception ex) {
-                  Output.printColorln(Output.RED, "ERROR: Couldn't determine the function import filename");
+                  CommandParser.ReportError("ERROR: Couldn't determine the function import filename");
                   return;
                }
 
@@ -158,31 +162,33 @@ public class UserFunctions {
                   break;
                }
 
-               // Import preferences from the XML file
+               // Import preferences from the XML file and reload the functions from preferences
                try {
+                  FlushFunctionWrites();
                   FileInputStream fis = new FileInputStream(fileNameStr);
                   Preferences.importPreferences(fis);
                   fis.close();
+                  LoadFunctions();
 
                   Output.printColorln(Output.CYAN, "Import complete");
 
                } catch (IOException ex) {
-                  Output.printColorln(Output.RED, "Error:  RPNCalc can't read from '" + fileNameStr + "'");
+                  CommandParser.ReportError("Error:  RPNCalc can't read from '" + fileNameStr + "'");
                } catch (IllegalStateException ex) {
-                  Output.printColorln(Output.RED, "Error:  Could not import the user defined functions (IllegalStateException)");
+                  CommandParser.ReportError("Error:  Could not import the user defined functions (IllegalStateException)");
                } catch (Exception ex) {
-                  Output.printColorln(Output.RED, "Error:  Could not import the user defined functions (Exception)");
+                  CommandParser.ReportError("Error:  Could not import the user defined functions (Exception)");
                }
                break;
 
             default:
-               Output.printColorln(Output.RED, "ERROR: Illegal argument for function command.  Please see help");
+               CommandParser.ReportError("ERROR: Illegal argument for function command.  Please see help");
                break;
          }
 
       } catch (StringIndexOutOfBoundsException ex) {
          // User did not enter a command
-         Output.printColorln(Output.RED, "ERROR: An argument is requirement for function command.  Please see help");
+         CommandParser.ReportError("ERROR: An argument is requirement for function command.  Please see help");
       }
    }
 
@@ -243,7 +249,7 @@ public class UserFunctions {
 
                         // Ensure there are no spaces in the name
                         if (functionName.contains(" ")) {
-                           Output.printColor(Output.RED, "Error: Spaces in function names are not allowed\n");
+                           CommandParser.ReportError("Error: Spaces in function names are not allowed");
                            functionName = "";
                         } else {
                            functionNameValid = true;
@@ -258,14 +264,14 @@ public class UserFunctions {
                   Output.printColorln(Output.CYAN, "Recording off - No valid commands were recorded");
                }
             } else {
-               Output.printColorln(Output.RED, "Recording is already turned off");
+               CommandParser.ReportError("Recording is already turned off");
             }
          } else {
-            Output.printColorln(Output.RED, "ERROR: Illegal argument for record.  Must be 'on' or 'off'. Please see help");
+            CommandParser.ReportError("ERROR: Illegal argument for record.  Must be 'on' or 'off'. Please see help");
          }
       } catch (StringIndexOutOfBoundsException ex) {
          // User did not enter a command
-         Output.printColorln(Output.RED, "ERROR: An argument is requirement (on | off) for the record command.  Please see help");
+         CommandParser.ReportError("ERROR: An argument is requirement (on | off) for the record command.  Please see help");
       }
 
    }
@@ -278,18 +284,22 @@ public class UserFunctions {
    public static void FunctionDelete(String fname) {
       // Verify user defined function exists
       if (!FunctionExists(fname)) {
-         Output.printColorln(Output.RED, "ERROR: '" + fname + "' is not a valid user defined function");
+         CommandParser.ReportError("ERROR: '" + fname + "' is not a valid user defined function");
          return;
       }
 
-      // Remove the user defined function
-      Preferences pChild = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS + "/" + fname);
-      try {
-         pChild.removeNode();
-
-      } catch (BackingStoreException e) {
-         Output.printColorln(Output.RED, "ERROR: Could not remove the function named: " + fname);
+      // Remove the user defined function from memory and queue the removal from preferences
+      synchronized (UserFunctions.class) {
+         functions.remove(fname);
+         CompileFunctions();
       }
+      Persistence.QueueFunctionWrite(() -> {
+         try {
+            Preferences.userRoot().node(PREFS_PATH_FUNCTIONS + "/" + fname).removeNode();
+         } catch (BackingStoreException | IllegalStateException e) {
+            CommandParser.ReportError("ERROR: Could not remove the function named: " + fname);
+         }
+      });
 
       Output.printColorln(Output.CYAN, "User defined function deleted: '" + fname + "'");
    }
@@ -300,57 +310,118 @@ public class UserFunctions {
     * @param fname Function name to check for existence
     * @return Boolean value checking for existence
     */
-   public static boolean FunctionExists(String fname) {
-      Preferences pParent = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS);
-      boolean childExists = false;
+   public static synchronized boolean FunctionExists(String fname) {
+      if (functions == null) LoadFunctions();
+      return functions.containsKey(fname);
+   }
+
+   /**
+    * LoadFunctions(): Read every user defined function from the preferences system into memory. Called at startup and after an
+    * import. Other function changes update the in-memory copy directly
+    */
+   public static synchronized void LoadFunctions() {
+      Map<String, List<String>> sources = new TreeMap<>();
 
-      // Verify that the user defined function exists
       try {
-         for (String child : pParent.childrenNames()) {
-            if (child.equals(fname)) {
-               childExists = true;
-               break;
+         Preferences pParent = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS);
+         for (String functionName : pParent.childrenNames()) {
+            Preferences pChild = pParent.node(functionName);
+            int numSteps = pChild.getInt("FunctionSteps", 0);
+            List<String> steps = new ArrayList<>(numSteps);
+            for (int i = 0; i < numSteps; i++) {
+               steps.add(pChild.get("Step" + i, "Error"));
             }
+            sources.put(functionName, steps);
          }
       } catch (BackingStoreException e1) {
-         Output.printColorln(Output.RED, "ERROR: Could not read from Java preferences");
+         CommandParser.ReportError("ERROR: Could not read from Java preferences");
+      }
+
+      // Compile each function once all the names are known
+      functions = new TreeMap<>();
+      for (Map.Entry<String, List<String>> entry : sources.entrySet()) {
+         functions.put(entry.getKey(), new FunctionPlan(entry.getValue(), sources.keySet()));
       }
 
-      return childExists;
+      Output.debugPrintln("Loaded " + functions.size() + " user defined function(s)");
    }
 
    /**
-    * FunctionRun(): Execute the user defined function provided. Assumes functionName has been checked and is valid
+    * GetFunctionNames(): Return the names of the user defined functions in sorted order
+    *
+    * @return Copy of the function names
     */
-   public static void FunctionRun(StackObj calcStack, StackObj calcStack2, String functionName) {
-      Preferences pChild = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS + "/" + functionName);
-      Output.printColorln(Output.CYAN, "Executing User Defined Function: '" + functionName + "'");
+   public static synchronized List<String> GetFunctionNames() {
+      if (functions == null) LoadFunctions();
+      return new ArrayList<>(functions.keySet());
+   }
 
-      // Loop through the steps in the function and send them to be executed
-      for (int i = 0; i < Integer.parseInt(pChild.get("FunctionSteps", "Error")); i++) {
-         String fullCommand = pChild.get("Step" + i, "Error");
-         String command = "";
-         String param = "";
+   /**
+    * GetFunctionSteps(): Return the steps of the provided user defined function
+    *
+    * @param fname Function name
+    * @return List of steps, or an empty list if the function doesn't exist
+    */
+   public static synchronized List<String> GetFunctionSteps(String fname) {
+      FunctionPlan plan = GetFunctionPlan(fname);
+      return plan == null ? List.of() : plan.getSource();
+   }
 
-         try {
-            // If the number of spaces in the full command is zero, don't execute a split so we don't get an ArrayIndexOutOfBoundsException
-            // Reference:  https://stackoverflow.com/questions/275944/how-do-i-count-the-number-of-occurrences-of-a-char-in-a-string
-            if (fullCommand.codePoints().filter(ch -> ch == ' ').findAny().isEmpty()) {
-               command = fullCommand.toLowerCase().trim();
-            } else {
-               String[] ci = fullCommand.toLowerCase().trim().split("\\s+", 2);
-               command = ci[0];
-               param = ci[1];
-            }
+   /**
+    * GetFunctionPlan(): Return the compiled execution plan of the provided user defined function
+    *
+    * @param fname Function name
+    * @return The plan, or null if the function doesn't exist
+    */
+   public static synchronized FunctionPlan GetFunctionPlan(String fname) {
+      if (functions == null) LoadFunctions();
+      return functions.get(fname);
+   }
 
-         } catch (Exception e) {
-            Output.printColorln(Output.RED, "ERROR: Problem parsing the command: '" + fullCommand + "' into command and arguments");
-         }
+   /**
+    * RecompileFunctions(): Rebuild every plan. Constants are folded at the current precision so this is needed when the
+    * precision settings change
+    */
+   public static synchronized void RecompileFunctions() {
+      if (functions != null) CompileFunctions();
+   }
+
+   /**
+    * CompileFunctions(): Recompile every function. A step is compiled differently if it names another function, so all
+    * plans are rebuilt whenever a function is added or removed. Caller must hold the UserFunctions lock
+    */
+   private static void CompileFunctions() {
+      Set<String> names = functions.keySet();
+      functions.replaceAll((name, plan) -> new FunctionPlan(plan.getSource(), names));
+   }
 
-         Output.debugPrintln("Step " + i + ":  " + pChild.get("Step" + i, "Error"));
-         CommandParser.Parse(calcStack, calcStack2, fullCommand, command, param);
+   /**
+    * FlushFunctionWrites(): Block until all queued function changes have been written to the preferences system
+    */
+   public static void FlushFunctionWrites() {
+      Persistence.Flush();
+   }
+
+   /**
+    * FunctionRun(): Execute the compiled plan of the user defined function provided
+    */
+   public static void FunctionRun(StackObj calcStack, StackObj calcStack2, String functionName) {
+      FunctionPlan plan = GetFunctionPlan(functionName);
+      if (plan == null) {
+         CommandParser.ReportError("ERROR: '" + functionName + "' is not a valid user defined function");
+         return;
       }
 
+      Output.printColorln(Output.CYAN, "Executing User Defined Function: '" + functionName + "'");
+      Output.debugPrintln("Steps: " + plan.getSource());
+
+      // The function is undone as a single step
+      calcStack.beginTransaction();
+      try {
+         plan.Run(calcStack, calcStack2);
+      } finally {
+         calcStack.commitTransaction();
+      }
    }
 
    /**
@@ -396,7 +467,7 @@ public class UserFunctions {
             recording.remove(index);
          }
       } catch (Exception ex) {
-         Output.printColorln(Output.RED, "ERROR: Can't remove recorded item from index at position: " + index);
+         CommandParser.ReportError("ERROR: Can't remove recorded item from index at position: " + index);
       }
    }
 
@@ -413,25 +484,33 @@ public class UserFunctions {
    public static void SaveRecordingToPrefs(String functionName) {
       Output.debugPrintln("Function's Name set to: '" + functionName + "'");
 
-      // Save the recording and clear it
-      Output.debugPrintln("Save Recordings: " + PREFS_PATH_FUNCTIONS + "/" + functionName);
-      Preferences p = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS + "/" + functionName);
-
-      // Delete any existing function items with the same name
-      try {
-         p.clear();
-      } catch (BackingStoreException e) {
-         Output.printColorln(Output.RED, "ERROR: Could not clear '" + functionName + "' prior to savings");
+      // Save the recording in memory and clear it
+      List<String> steps = List.copyOf(recording);
+      synchronized (UserFunctions.class) {
+         if (functions == null) LoadFunctions();
+         functions.put(functionName, new FunctionPlan(steps, Set.of()));
+         CompileFunctions();
       }
+      recording.clear();
 
-      // Save the recording into the preference
-      p.putInt("FunctionSteps", recording.size());
-      for (int i = 0; i < recording.size(); i++) {
-         p.put("Step" + i, recording.get(i));
-      }
+      // Queue the write to the preferences system
+      Output.debugPrintln("Save Recordings: " + PREFS_PATH_FUNCTIONS + "/" + functionName);
+      Persistence.QueueFunctionWrite(() -> {
+         Preferences p = Preferences.userRoot().node(PREFS_PATH_FUNCTIONS + "/" + functionName);
 
-      // Erase the recording as it's saved
-      recording.clear();
+         // Delete any existing function items with the same name
+         try {
+            p.clear();
+         } catch (BackingStoreException e) {
+            CommandParser.ReportError("ERROR: Could not clear '" + functionName + "' prior to savings");
+         }
+
+         // Save the recording into the preference
+         p.putInt("FunctionSteps", steps.size());
+         for (int i = 0; i < steps.size(); i++) {
+            p.put("Step" + i, steps.get(i));
+         }
+      });
    }
 
 }
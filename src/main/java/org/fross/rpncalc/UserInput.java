@@ -40,6 +40,9 @@ public class UserInput {
    private static LineReader lineReader = null;
    private static Terminal terminal = null;
 
+   // Set when Ctrl-C is pressed while interrupts are being caught
+   private static volatile boolean interrupted = false;
+
    /**
     * setTerminal(): Main should call this once at startup
     */
@@ -47,6 +50,41 @@ public class UserInput {
       terminal = t;
    }
 
+   /**
+    * catchInterrupts(): Until releaseInterrupts() is called, Ctrl-C sets a flag read by checkInterrupt() instead of ending
+    * the program. Only loops that check the flag should do this, everywhere else Ctrl-C keeps its normal behaviour
+    *
+    * @return The previous handler to pass to releaseInterrupts()
+    */
+   public static Terminal.SignalHandler catchInterrupts() {
+      interrupted = false;
+      if (terminal == null) return null;
+      return terminal.handle(Terminal.Signal.INT, signal -> interrupted = true);
+   }
+
+   /**
+    * releaseInterrupts(): Put back the Ctrl-C handling that was in place before catchInterrupts()
+    *
+    * @param previous Handler returned by catchInterrupts()
+    */
+   public static void releaseInterrupts(Terminal.SignalHandler previous) {
+      if (terminal != null && previous != null) terminal.handle(Terminal.Signal.INT, previous);
+      interrupted = false;
+   }
+
+   /**
+    * checkInterrupt(): Return true if Ctrl-C was pressed since the last check and clear the flag
+    *
+    * @return true if the user asked to interrupt the running command
+    */
+   public static boolean checkInterrupt() {
+      if (interrupted) {
+         interrupted = false;
+         return true;
+      }
+      return false;
+   }
+
    /**
     * GetInput(): Read user input from the terminal
     */
@@ -72,6 +110,9 @@ public class UserInput {
          }
       }
 
+      // Write out everything displayed since the last prompt before waiting for input
+      Output.flush();
+
       // Read the user input
       try {
          inputString = lineReader.readLine(prompt);
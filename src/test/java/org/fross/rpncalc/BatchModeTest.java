@@ -0,0 +1,150 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.fross.library.Output;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class BatchModeTest {
+   /**
+    * Test lines are executed the same way as entered at the prompt
+    */
+   @Test
+   void testExecuteLine() {
+      StackObj stk = new StackObj();
+      StackObj stk2 = new StackObj();
+      CommandHistory.clear();
+
+      String[] script = {"# Comment line", "1,234.5", "", "  2  ", "+", "10", "*", "sqrt", "4", "2", "^"};
+      for (String line : script) {
+         BatchMode.ExecuteLine(stk, stk2, line);
+      }
+
+      assertEquals(2, stk.size());
+      assertEquals(111.19802, stk.get(0).doubleValue(), 0.00001);
+      assertEquals("16", stk.getAsString(1));
+
+      // Only the last command is kept for repeat
+      assertEquals(1, CommandHistory.size());
+      BatchMode.ExecuteLine(stk, stk2, "2");
+      BatchMode.ExecuteLine(stk, stk2, "rep 2");
+      assertEquals(5, stk.size());
+      assertEquals("2", stk.getAsString(4));
+      CommandHistory.clear();
+   }
+
+   /**
+    * Test the final stack output
+    */
+   @Test
+   void testFormatStack() {
+      StackObj stk = new StackObj();
+      stk.push("1.5");
+      stk.push("-2");
+      stk.push("123456789.123");
+
+      String nl = System.lineSeparator();
+      assertEquals("1.5" + nl + "-2" + nl + "123456789.123" + nl, BatchMode.FormatStack(stk, 0));
+      assertEquals("-2" + nl + "123456789.123" + nl, BatchMode.FormatStack(stk, 2));
+      assertEquals("1.5" + nl + "-2" + nl + "123456789.123" + nl, BatchMode.FormatStack(stk, 10));
+   }
+
+   /**
+    * Test the exit code is 2 when a command fails, and 1 when the script can't be read
+    */
+   @Test
+   void testExitCode(@TempDir Path dir) throws IOException {
+      Path good = Files.writeString(dir.resolve("good.rpn"), "2\n3\n+\n");
+      Path unknown = Files.writeString(dir.resolve("unknown.rpn"), "2\nbogus\n3\n");
+      Path underflow = Files.writeString(dir.resolve("underflow.rpn"), "2\n+\n");
+      Path divideByZero = Files.writeString(dir.resolve("zero.rpn"), "2\n0\n/\n");
+
+      try {
+         assertEquals(0, BatchMode.Run(good.toString(), 0));
+         assertEquals("5", Main.calcStack.getAsString(0));
+         Main.calcStack.clear();
+
+         // The rest of the script still runs after an error
+         assertEquals(2, BatchMode.Run(unknown.toString(), 0));
+         assertEquals(2, Main.calcStack.size());
+         Main.calcStack.clear();
+
+         assertEquals(2, BatchMode.Run(underflow.toString(), 0));
+         Main.calcStack.clear();
+         assertEquals(2, BatchMode.Run(divideByZero.toString(), 0));
+         Main.calcStack.clear();
+
+         // An error in an earlier run doesn't carry over
+         assertEquals(0, BatchMode.Run(good.toString(), 0));
+         assertEquals(1, BatchMode.Run(dir.resolve("missing.rpn").toString(), 0));
+
+      } finally {
+         Main.calcStack.clear();
+         CommandHistory.clear();
+      }
+   }
+
+   /**
+    * Test standard output only holds the final stack when messages are sent to another stream
+    */
+   @Test
+   void testOutputStreams(@TempDir Path dir) throws IOException {
+      Path divideByZero = Files.writeString(dir.resolve("zero.rpn"), "2\n0\n/\n");
+      PrintStream savedOut = System.out;
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+      try {
+         Output.setStream(new PrintStream(err, true));
+         System.setOut(new PrintStream(out, true));
+         assertEquals(2, BatchMode.Run(divideByZero.toString(), 0));
+      } finally {
+         System.setOut(savedOut);
+         Output.setStream(null);
+         Main.calcStack.clear();
+         CommandHistory.clear();
+      }
+
+      String nl = System.lineSeparator();
+      assertEquals("2" + nl + "0" + nl, out.toString());
+      assertTrue(err.toString().contains("Dividing by zero"));
+   }
+
+}
@@ -113,4 +113,22 @@ class CommandLineArgsTest {
       assertTrue(cli.clLicense);
       assertEquals("MixedLoadFile2.txt", cli.clLoad);
    }
-}
\ No newline at end of file
+
+   @Test
+   void testBatchCommandLineArgs() {
+      String[] argv5 = {"-b", "--script", "script.rpn", "-t", "3"};
+
+      CommandLineArgs cli = new CommandLineArgs();
+      JCommander jc = JCommander.newBuilder().addObject(cli).build();
+      jc.parse(argv5);
+
+      assertTrue(cli.clBatch);
+      assertEquals("script.rpn", cli.clScript);
+      assertEquals(3, cli.clTop);
+
+      assertTrue(CommandLineArgs.queryBatchMode(new String[]{"--script", "file.rpn"}));
+      assertTrue(CommandLineArgs.queryBatchMode(new String[]{"--batch"}));
+      assertFalse(CommandLineArgs.queryBatchMode(new String[]{"-l", "-b"}));
+      assertFalse(CommandLineArgs.queryBatchMode(new String[]{"-D"}));
+   }
+}
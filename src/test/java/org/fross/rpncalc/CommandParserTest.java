@@ -36,8 +36,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class CommandParserTest {
 
    /**
-    * Parser is just a big switch statement and takes commands entered and runs the specific method. The key part to test is the
-    * 'default:' portion where numbers, fractions, and NumOps are entered
+    * Parser looks up commands in a dispatch table and runs the specific method. The key part to test is the fallback
+    * portion where numbers, fractions, and NumOps are entered
     **/
 
    // Test standard number inputs
@@ -77,6 +77,33 @@ class CommandParserTest {
       assertEquals(7, stk1.size());
    }
 
+   // Test the numeric literal lexer that replaced the number and NumOp regular expressions
+   @Test
+   void testLexNumber() {
+      assertEquals(CommandParser.LITERAL_NUMBER, CommandParser.LexNumber("123"));
+      assertEquals(CommandParser.LITERAL_NUMBER, CommandParser.LexNumber("-0.0000123"));
+      assertEquals(CommandParser.LITERAL_NUMBER, CommandParser.LexNumber(".234"));
+      assertEquals(CommandParser.LITERAL_NUMBER, CommandParser.LexNumber("5."));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("."));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("-."));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("1.2.3"));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("sqrt"));
+
+      assertEquals(CommandParser.LITERAL_NUMOP, CommandParser.LexNumber("12+"));
+      assertEquals(CommandParser.LITERAL_NUMOP, CommandParser.LexNumber("-1.5*"));
+      assertEquals(CommandParser.LITERAL_NUMOP, CommandParser.LexNumber("2e3^"));
+      assertEquals(CommandParser.LITERAL_NUMOP, CommandParser.LexNumber("4/"));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("12++"));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("12%"));
+      assertEquals(CommandParser.LITERAL_NONE, CommandParser.LexNumber("1e-5"));
+
+      // A lone decimal point is an unknown command and must leave the stack alone
+      StackObj stk1 = new StackObj();
+      StackObj stk2 = new StackObj();
+      CommandParser.Parse(stk1, stk2, ".", ".", "");
+      assertEquals(0, stk1.size());
+   }
+
    // Test fractional inputs
    @Test
    void testFractionInput() {
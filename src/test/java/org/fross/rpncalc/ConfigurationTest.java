@@ -41,6 +41,8 @@ class ConfigurationTest {
    String align = prefConfig.get("alignment", Main.CONFIG_DEFAULT_ALIGNMENT);
    int width = prefConfig.getInt("programwidth", Main.CONFIG_DEFAULT_PROGRAM_WIDTH);
    int memSlots = prefConfig.getInt("memoryslots", Main.CONFIG_DEFAULT_MEMORY_SLOTS);
+   int precision = prefConfig.getInt("precision", Main.CONFIG_DEFAULT_PRECISION);
+   int scaleCap = prefConfig.getInt("scalecap", Main.CONFIG_DEFAULT_SCALE_CAP);
 
    @Test
    void testSetMemSlots() {
@@ -58,6 +60,31 @@ class ConfigurationTest {
       prefConfig.putInt("memoryslots", memSlots);
    }
 
+   @Test
+   void testSetPrecision() {
+      Configuration.cmdSet("precision 20");
+      assertEquals(20, Main.configPrecision);
+      assertEquals("20", prefConfig.get("precision", ""));
+
+      Configuration.cmdSet("precision unlimited");
+      assertEquals(Precision.UNLIMITED, Main.configPrecision);
+
+      // Invalid values leave the setting alone
+      Configuration.cmdSet("precision 0");
+      assertEquals(Precision.UNLIMITED, Main.configPrecision);
+
+      Configuration.cmdSet("scalecap 50");
+      assertEquals(50, Main.configScaleCap);
+      Configuration.cmdSet("scalecap unlimited");
+      assertEquals(Precision.UNLIMITED, Main.configScaleCap);
+
+      // Rest configuration to original user value
+      prefConfig.putInt("precision", precision);
+      prefConfig.putInt("scalecap", scaleCap);
+      Main.configPrecision = Main.CONFIG_DEFAULT_PRECISION;
+      Main.configScaleCap = Main.CONFIG_DEFAULT_SCALE_CAP;
+   }
+
    @Test
    void testSetWidth() {
       // Test Width
@@ -0,0 +1,90 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class ConstantsTest {
+   static final MathContext MC101 = new MathContext(101);
+
+   @Test
+   void testPi() {
+      assertEquals("3.1415926535897932384626433832795028841971693993751058209749445923078164062862089986280348253421170680",
+            Constants.pi(MC101).toPlainString());
+      assertEquals("3.14159", Constants.pi(new MathContext(6)).toPlainString());
+
+      // Agrees with 4 * atan(1) at a high precision
+      MathContext mc = new MathContext(1000);
+      assertEquals(0, Constants.pi(mc).compareTo(Transcendental.atan(BigDecimal.ONE, mc).multiply(BigDecimal.valueOf(4), mc)));
+   }
+
+   @Test
+   void testE() {
+      assertEquals("2.7182818284590452353602874713526624977572470936999595749669676277240766303535475945713821785251664274",
+            Constants.e(MC101).toPlainString());
+
+      MathContext mc = new MathContext(500);
+      assertEquals(0, Constants.e(mc).compareTo(Transcendental.exp(BigDecimal.ONE, mc)));
+   }
+
+   @Test
+   void testPhi() {
+      BigDecimal phi = Constants.phi(MC101);
+      assertEquals("1.6180339887498948482045868343656381177203091798057628621354486227052604628189024497072072041893911375",
+            phi.toPlainString());
+
+      // PHI^2 = PHI + 1
+      assertEquals(0, phi.multiply(phi, new MathContext(99)).compareTo(phi.add(BigDecimal.ONE, new MathContext(99))));
+   }
+
+   @Test
+   void testGamma() {
+      assertEquals("0.57721566490153286060651209008240243104215933593992359880576723488486772677766467093694706329174674951",
+            Constants.gamma(MC101).toPlainString());
+   }
+
+   /**
+    * A repeated request returns the cached value and lower precisions are rounded from a higher one
+    */
+   @Test
+   void testCache() {
+      MathContext mc = new MathContext(40);
+      assertSame(Constants.pi(mc), Constants.pi(mc));
+      assertSame(Constants.gamma(mc), Constants.gamma(new MathContext(40)));
+      assertEquals(Constants.e(new MathContext(300)).round(new MathContext(20)), Constants.e(new MathContext(20)));
+      assertThrows(IllegalArgumentException.class, () -> Constants.pi(MathContext.UNLIMITED));
+   }
+
+}
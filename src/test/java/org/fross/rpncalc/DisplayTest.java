@@ -26,8 +26,11 @@
  * ------------------------------------------------------------------------------*/
 package org.fross.rpncalc;
 
+import org.fross.library.Output;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -57,4 +60,40 @@ public class DisplayTest {
       assertEquals(6, Display.queryDecimalIndex("-1e+22"));
    }
 
+   @Test
+   void testShowStack() {
+      int savedRows = Main.configDisplayRows;
+      String savedAlignment = Main.configAlignment;
+      PrintStream savedOut = System.out;
+      ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+      try {
+         Output.flush();
+         System.setOut(new PrintStream(captured, true));
+         Main.configDisplayRows = 2;
+         Main.configAlignment = "d";
+
+         StackObj stk = new StackObj();
+         stk.push("1");
+         stk.push("12345.5");
+         stk.push("-2.25");
+         Display.ShowStack(stk);
+
+         // Change the top of the stack and display again. The cached rows below it must still line up
+         stk.pop();
+         stk.push("100.125");
+         Display.ShowStack(stk);
+         Output.flush();
+      } finally {
+         System.setOut(savedOut);
+         Main.configDisplayRows = savedRows;
+         Main.configAlignment = savedAlignment;
+      }
+
+      String nl = System.lineSeparator();
+      String more = "... 1 more item not displayed ('set rows' to change)" + nl;
+      String expected = more + "02:  12,345.5" + nl + "01:      -2.25" + nl + more + "02:  12,345.5" + nl + "01:     100.125" + nl;
+      assertEquals(expected, captured.toString());
+   }
+
 }
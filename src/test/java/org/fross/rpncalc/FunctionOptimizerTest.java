@@ -0,0 +1,131 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class FunctionOptimizerTest {
+
+   /**
+    * Constant sub-expressions are folded, repeatedly if needed
+    */
+   @Test
+   void testConstantFolding() {
+      assertEquals(List.of("6"), FunctionOptimizer.Optimize(List.of("2", "3", "*"), Set.of()));
+      assertEquals(List.of("10"), FunctionOptimizer.Optimize(List.of("2", "3", "*", "4", "+"), Set.of()));
+      assertEquals(List.of("-1.5"), FunctionOptimizer.Optimize(List.of("1.5", "3", "-"), Set.of()));
+      assertEquals(List.of("1234"), FunctionOptimizer.Optimize(List.of("1,000", "234", "+"), Set.of()));
+      assertEquals(List.of("5", "*", "6"), FunctionOptimizer.Optimize(List.of("5", "*", "2", "3", "*"), Set.of()));
+
+      // Division isn't folded and neither are function names that look like numbers
+      assertEquals(List.of("1", "3", "/"), FunctionOptimizer.Optimize(List.of("1", "3", "/"), Set.of()));
+      assertEquals(List.of("2", "3", "*"), FunctionOptimizer.Optimize(List.of("2", "3", "*"), Set.of("3")));
+   }
+
+   /**
+    * Shuffles that cancel out are removed
+    */
+   @Test
+   void testNoOpRemoval() {
+      assertEquals(List.of("sqrt"), FunctionOptimizer.Optimize(List.of("swap", "s", "sqrt"), Set.of()));
+      assertEquals(List.of(), FunctionOptimizer.Optimize(List.of("flip", "f", "dup", "d", "7", "del"), Set.of()));
+      assertEquals(List.of("+"), FunctionOptimizer.Optimize(List.of("swap", "flip", "flip", "swap", "+"), Set.of()));
+
+      // Commands with parameters are left alone
+      assertEquals(List.of("swap 1 3", "swap 1 3"), FunctionOptimizer.Optimize(List.of("swap 1 3", "swap 1 3"), Set.of()));
+      assertEquals(List.of("dup", "d 2"), FunctionOptimizer.Optimize(List.of("dup", "d 2"), Set.of()));
+   }
+
+   /**
+    * The equivalence check rejects replacements that change the stack
+    */
+   @Test
+   void testEquivalent() {
+      assertTrue(FunctionOptimizer.equivalent(List.of("swap", "swap"), List.of(), 2));
+      assertFalse(FunctionOptimizer.equivalent(List.of("swap"), List.of(), 2));
+      assertFalse(FunctionOptimizer.equivalent(List.of("2", "3", "+"), List.of("6"), 0));
+   }
+
+   /**
+    * The optimized plan leaves the same stack as the recorded steps
+    */
+   @Test
+   void testPlan() {
+      List<String> steps = List.of("2", "3", "*", "swap", "swap", "+", "dup", "d", "4", "5", "flip", "flip", "*", "-");
+      FunctionPlan plan = new FunctionPlan(steps, Set.of());
+      assertTrue(plan.isOptimized());
+      assertEquals(List.of("6", "+", "20", "-"), plan.getOptimized());
+      assertEquals(steps, plan.getSource());
+
+      StackObj expected = new StackObj();
+      expected.push("10");
+      for (String step : steps) {
+         CommandParser.Parse(expected, expected, step, step, "");
+      }
+
+      StackObj stk = new StackObj();
+      stk.push("10");
+      plan.Run(stk, stk);
+      assertEquals(expected.getStack(), stk.getStack());
+      assertEquals("-4", stk.peek().toPlainString());
+   }
+
+   /**
+    * Functions that read the undo history are not optimized and give the same stack as typing the steps
+    */
+   @Test
+   void testUndo() {
+      List<List<String>> functions = List.of(List.of("2", "3", "+", "undo"), List.of("1", "2", "undo"),
+            List.of("5", "swap", "swap", "undo"), List.of("7", "d", "u"), List.of("2", "3", "*", "myfunc"));
+
+      for (List<String> steps : functions) {
+         assertEquals(steps, FunctionOptimizer.Optimize(steps, Set.of("myfunc")));
+
+         StackObj expected = new StackObj();
+         expected.push("10");
+         for (String step : steps) {
+            CommandParser.Parse(expected, expected, step, step, "");
+         }
+
+         StackObj stk = new StackObj();
+         stk.push("10");
+         new FunctionPlan(steps, Set.of()).Run(stk, stk);
+         assertEquals(expected.getStack(), stk.getStack(), steps.toString());
+      }
+   }
+
+}
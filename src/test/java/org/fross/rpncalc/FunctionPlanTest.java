@@ -0,0 +1,108 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class FunctionPlanTest {
+
+   /**
+    * Built-in commands and plain numbers are compiled, everything else is parsed when run
+    */
+   @Test
+   void testCompile() {
+      FunctionPlan plan = new FunctionPlan(List.of("2", "*", "1,000", "swap", "50%", "1.5e3", "round 2", "12+"), Set.of());
+      assertEquals(8, plan.getSource().size());
+      assertEquals(5, plan.compiledSteps());
+
+      // A step naming a user defined function is never compiled as a number
+      plan = new FunctionPlan(List.of("5", "sqrt"), Set.of("5"));
+      assertEquals(1, plan.compiledSteps());
+   }
+
+   /**
+    * Running a plan must give the same stack as parsing the steps one at a time
+    */
+   @Test
+   void testRun() {
+      List<String> steps = List.of("2", "*", "1,000", "+", "50%", "-", "3", "swap", "round 2", "1.5e3", "12+", "sqrt", "dup 2");
+
+      StackObj expected = new StackObj();
+      StackObj expected2 = new StackObj();
+      expected.push("7");
+      for (String step : steps) {
+         String[] ci = step.split("\\s+", 2);
+         CommandParser.Parse(expected, expected2, step, ci[0], ci.length > 1 ? ci[1] : "");
+      }
+
+      StackObj stk = new StackObj();
+      StackObj stk2 = new StackObj();
+      stk.push("7");
+      new FunctionPlan(steps, Set.of()).Run(stk, stk2);
+
+      assertEquals(expected.getStack(), stk.getStack());
+      assertEquals(expected.size(), stk.size());
+
+      // Every step still records the same undo history
+      assertEquals(expected.undoSize(), stk.undoSize());
+      assertEquals(expected.undoGet(), stk.undoGet());
+   }
+
+   /**
+    * Merged numbers keep an undo point each, so undo after them removes only the last one
+    */
+   @Test
+   void testMergedNumbersUndo() {
+      List<String> steps = List.of("1", "2", "3", "undo");
+
+      StackObj expected = new StackObj();
+      expected.push("10");
+      for (String step : steps) {
+         CommandParser.Parse(expected, expected, step, step, "");
+      }
+
+      StackObj stk = new StackObj();
+      stk.push("10");
+      FunctionPlan plan = new FunctionPlan(steps, Set.of());
+      assertEquals(2, plan.compiledSteps());
+      plan.Run(stk, stk);
+
+      assertEquals(List.of("10", "1", "2"), stk.getStack().stream().map(BigDecimal::toPlainString).toList());
+      assertEquals(expected.getStack(), stk.getStack());
+      assertEquals(expected.undoGet(), stk.undoGet());
+   }
+
+}
@@ -0,0 +1,235 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class JournalTest {
+   @TempDir
+   Path tempDir;
+
+   Path savedDirectory;
+   long savedCompactBytes;
+   BigDecimal[] savedMemory;
+   StackObj stk1;
+   StackObj stk2;
+
+   @BeforeEach
+   void setup() {
+      savedDirectory = Journal.directory;
+      savedCompactBytes = Journal.compactBytes;
+      savedMemory = StackMemory.memorySlots;
+      Journal.directory = tempDir;
+      StackMemory.memorySlots = new BigDecimal[10];
+
+      stk1 = new StackObj();
+      stk2 = new StackObj();
+      stk1.push(new BigDecimal("100"));
+      stk1.push(new BigDecimal("-2.5"));
+      stk2.push(new BigDecimal("42"));
+      Journal.Start(stk1, stk2);
+   }
+
+   @AfterEach
+   void restore() {
+      Journal.Stop();
+      Journal.directory = savedDirectory;
+      Journal.compactBytes = savedCompactBytes;
+      StackMemory.memorySlots = savedMemory;
+   }
+
+   /**
+    * Stop journaling as a crash would and rebuild the state from the files
+    */
+   Journal.Recovered crash() throws IOException {
+      Journal.Stop();
+      return Journal.Replay();
+   }
+
+   /**
+    * Every kind of change is replayed exactly
+    */
+   @Test
+   void testReplay() throws IOException {
+      stk1.push(new BigDecimal("1.5"));
+      Journal.Commit();
+
+      // Compact long arithmetic
+      stk1.push(new BigDecimal("2"));
+      stk1.push(new BigDecimal("3"));
+      Math.Parse("+", stk1);
+      Journal.Commit();
+
+      // BigDecimal arithmetic
+      stk1.push(new BigDecimal("12345678901234567890.123"));
+      stk1.push(new BigDecimal("1.0000000000000000000000000001"));
+      Math.Parse("*", stk1);
+      Journal.Commit();
+
+      stk2.push(new BigDecimal("7"));
+      stk2.push("8", 0);
+      stk2.getStack().set(1, new BigDecimal("9.75"));
+      Journal.Commit();
+
+      stk1.sort("ascending");
+      stk1.remove(0);
+      Journal.Commit();
+
+      StackMemory.SetMemSlot(3, new BigDecimal("3.14159"));
+      StackMemory.SetMemSlot(4, new BigDecimal("1"));
+      StackMemory.SetMemSlot(4, null);
+      Journal.Commit();
+
+      // Undo goes through the same stack operations
+      stk1.saveUndo();
+      stk1.push(new BigDecimal("99"));
+      Journal.Commit();
+      StackCommands.cmdUndo(stk1, "");
+      Journal.Commit();
+
+      List<BigDecimal> expected1 = new ArrayList<>(stk1.getStack());
+      List<BigDecimal> expected2 = new ArrayList<>(stk2.getStack());
+
+      // Changes that were never committed are lost
+      stk1.push(new BigDecimal("1000"));
+      StackMemory.SetMemSlot(5, BigDecimal.TEN);
+
+      Journal.Recovered state = crash();
+      assertEquals("default", state.name());
+      assertEquals(expected1, state.stack1());
+      assertEquals(expected2, state.stack2());
+      assertEquals(new BigDecimal("3.14159"), state.memory()[3]);
+      assertNull(state.memory()[4]);
+      assertNull(state.memory()[5]);
+      assertEquals(8, state.frames());
+   }
+
+   /**
+    * 'ss' swaps which stack is primary in the recovered state
+    */
+   @Test
+   void testSwap() throws IOException {
+      StackOperations.cmdSwapStack(stk1, stk2);
+      stk1.push(new BigDecimal("5"));
+      Journal.Commit();
+      StackManagement.ToggleCurrentStackNum();
+
+      Journal.Recovered state = crash();
+      assertEquals(List.of(new BigDecimal("42"), new BigDecimal("5")), state.stack1());
+      assertEquals(List.of(new BigDecimal("100"), new BigDecimal("-2.5")), state.stack2());
+   }
+
+   /**
+    * A frame cut off part way through, or damaged, ends the replay at the last good frame
+    */
+   @Test
+   void testTornFrame() throws IOException {
+      stk1.push(new BigDecimal("1"));
+      Journal.Commit();
+      stk1.push(new BigDecimal("2"));
+      Journal.Commit();
+      Journal.Stop();
+
+      Path journal = tempDir.resolve("session.jnl");
+      byte[] bytes = Files.readAllBytes(journal);
+      Files.write(journal, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+      Journal.Recovered state = Journal.Replay();
+      assertEquals(1, state.frames());
+      assertEquals(new BigDecimal("1"), state.stack1().peek());
+
+      bytes[bytes.length - 1] ^= 0x55;
+      Files.write(journal, bytes);
+      assertEquals(1, Journal.Replay().frames());
+
+      Files.write(journal, new byte[]{0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+      assertEquals(1, Journal.Replay().frames());
+   }
+
+   /**
+    * A large journal is compacted into a new snapshot, and a journal from an older snapshot is never replayed
+    */
+   @Test
+   void testCompaction() throws IOException {
+      Journal.compactBytes = 256;
+      Path journal = tempDir.resolve("session.jnl");
+
+      for (int i = 0; i < 200; i++) {
+         stk1.push(new BigDecimal(i));
+         Journal.Commit();
+         // The journal never grows past the larger of the limit and the snapshot, plus the frame that crossed it
+         long limit = java.lang.Math.max(Journal.compactBytes, Files.size(tempDir.resolve("session.snap")));
+         assertTrue(Files.size(journal) <= limit + 64);
+      }
+
+      // Keep the current journal, then force a new snapshot and put the old journal back
+      byte[] oldJournal = Files.readAllBytes(journal);
+      stk1.push(new BigDecimal("-1"));
+      Journal.Checkpoint();
+      Files.write(journal, oldJournal);
+
+      Journal.Recovered state = crash();
+      assertEquals(0, state.frames());
+      assertEquals(203, state.stack1().size());
+      assertEquals(new BigDecimal("-1"), state.stack1().peek());
+   }
+
+   /**
+    * Loading another stack starts a new snapshot under its name and a normal close removes the journal
+    */
+   @Test
+   void testLoadAndClose() throws IOException {
+      stk1.stackName = "other";
+      stk1.push(new BigDecimal("1"));
+      Journal.Commit();
+      Journal.Sync();
+
+      Journal.Recovered state = Journal.Replay();
+      assertEquals("other", state.name());
+      assertEquals(new BigDecimal("1"), state.stack1().peek());
+
+      Journal.Close();
+      assertFalse(Files.exists(tempDir.resolve("session.jnl")));
+      assertNull(Journal.Replay());
+   }
+
+}
@@ -199,13 +199,13 @@ class MathTest {
       // Test #1
       Math.Parse("^", stk);
       StackCommands.cmdRound(stk, "7");
-      assertEquals(2.3229978, stk.peek().doubleValue());
+      assertEquals(2.6182895, stk.peek().doubleValue());
 
       // Test #2
       stk.push(3.0);
       Math.Parse("^", stk);
       StackCommands.cmdRound(stk, "7");
-      assertEquals(12.5356367, stk.peek().doubleValue());
+      assertEquals(17.9495263, stk.peek().doubleValue());
       assertEquals(1, stk.size());
 
       // Test #3
@@ -383,6 +383,30 @@ class MathTest {
       assertEquals(new BigDecimal("6402373705728000"), Math.Factorial(new BigDecimal("18")));
       assertEquals(new BigDecimal("121645100408832000"), Math.Factorial(new BigDecimal("19")));
       assertEquals(new BigDecimal("2432902008176640000"), Math.Factorial(new BigDecimal("20")));
+
+      // Decimals are dropped and values below 2 return 1
+      assertEquals(new BigDecimal("120"), Math.Factorial(new BigDecimal("5.7")));
+      assertEquals(BigDecimal.ONE, Math.Factorial(new BigDecimal("1")));
+      assertEquals(BigDecimal.ONE, Math.Factorial(new BigDecimal("0.5")));
+      assertThrows(ArithmeticException.class, () -> Math.Factorial(BigDecimal.valueOf(Factorial.MAX_INPUT + 1L)));
+   }
+
+   /**
+    * Test the binary splitting factorial against a simple loop, including sizes large enough to run in parallel
+    */
+   @Test
+   void testFactorialLarge() {
+      for (int n : new int[]{31, 32, 33, 100, 1000, 5000, 10000}) {
+         BigInteger expected = BigInteger.ONE;
+         for (int i = 2; i <= n; i++) {
+            expected = expected.multiply(BigInteger.valueOf(i));
+         }
+         assertEquals(expected, Factorial.compute(n), "Factorial of " + n);
+         assertEquals(new BigDecimal(expected), Math.Factorial(new BigDecimal(n)));
+      }
+
+      // A repeated request is answered from the cache
+      assertSame(Factorial.compute(10000), Factorial.compute(10000));
    }
 
    /**
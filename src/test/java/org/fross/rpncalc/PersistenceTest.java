@@ -0,0 +1,169 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class PersistenceTest {
+   @TempDir
+   Path tempDir;
+
+   Path savedDirectory;
+   long savedDelay;
+   StackObj stk1;
+   StackObj stk2;
+
+   @BeforeEach
+   void setup() {
+      savedDirectory = StackFile.directory;
+      savedDelay = Persistence.flushDelay;
+      StackFile.directory = tempDir;
+
+      stk1 = new StackObj();
+      stk2 = new StackObj();
+      stk1.stackName = "junitpersist";
+      stk2.stackName = "junitpersist";
+   }
+
+   @AfterEach
+   void restore() {
+      Persistence.Close();
+      StackFile.directory = savedDirectory;
+      Persistence.flushDelay = savedDelay;
+   }
+
+   /**
+    * Run a change the way the main command loop does
+    */
+   void command(Runnable change) {
+      Persistence.Begin();
+      try {
+         change.run();
+      } finally {
+         Persistence.End();
+      }
+   }
+
+   /**
+    * Only the stacks that changed since they were last saved are written
+    */
+   @Test
+   void testOnlyChangedStacksWritten() throws IOException {
+      Persistence.flushDelay = 0;
+      Persistence.Start(stk1, stk2);
+
+      command(() -> stk1.push(new BigDecimal("1.25")));
+      Persistence.Flush();
+      assertEquals(List.of(new BigDecimal("1.25")), StackFile.read("junitpersist", "1"));
+
+      // The secondary stack had no file at startup so it was saved as well
+      assertTrue(StackFile.exists("junitpersist", "2"));
+      Files.delete(StackFile.path("junitpersist", "1"));
+      Files.delete(StackFile.path("junitpersist", "2"));
+
+      command(() -> stk2.push(new BigDecimal("7")));
+      Persistence.Flush();
+      assertFalse(StackFile.exists("junitpersist", "1"));
+      assertEquals(List.of(new BigDecimal("7")), StackFile.read("junitpersist", "2"));
+
+      // Swapping the stacks changes what belongs in each file
+      command(() -> StackOperations.cmdSwapStack(stk1, stk2));
+      StackManagement.ToggleCurrentStackNum();
+      Persistence.Flush();
+      assertEquals(List.of(new BigDecimal("7")), StackFile.read("junitpersist", "1"));
+      assertEquals(List.of(new BigDecimal("1.25")), StackFile.read("junitpersist", "2"));
+   }
+
+   /**
+    * Changes wait for the flush delay, several changes are written once and closing writes whatever is outstanding
+    */
+   @Test
+   void testDelayAndDrain() throws IOException {
+      StackFile.write(stk1.calcStack, "junitpersist", "1");
+      StackFile.write(stk2.calcStack, "junitpersist", "2");
+      Persistence.flushDelay = 60000;
+      Persistence.Start(stk1, stk2);
+
+      for (int i = 0; i < 1000; i++) {
+         BigDecimal value = new BigDecimal(i);
+         command(() -> stk1.push(value));
+      }
+      assertEquals(0, StackFile.read("junitpersist", "1").size());
+
+      Persistence.Close();
+      StackArray saved = StackFile.read("junitpersist", "1");
+      assertEquals(1000, saved.size());
+      assertEquals(new BigDecimal("999"), saved.peek());
+
+      // Once closed, saves happen straight away
+      List<String> order = new ArrayList<>();
+      Persistence.QueueFunctionWrite(() -> order.add("now"));
+      assertEquals(List.of("now"), order);
+   }
+
+   /**
+    * Loading another stack saves the current one first, and the newly loaded stack isn't written back unchanged
+    */
+   @Test
+   void testLoad() throws IOException {
+      Persistence.flushDelay = 0;
+      Persistence.Start(stk1, stk2);
+
+      command(() -> {
+         stk1.push(new BigDecimal("3"));
+         stk2.push(new BigDecimal("4"));
+         StackOperations.cmdLoad(stk1, stk2, "junitpersist2");
+         assertTrue(stk1.isEmpty());
+      });
+      Persistence.Flush();
+
+      assertEquals(List.of(new BigDecimal("3")), StackFile.read("junitpersist", "1"));
+      assertEquals(List.of(new BigDecimal("4")), StackFile.read("junitpersist", "2"));
+      assertFalse(StackFile.exists("junitpersist2", "1"));
+
+      command(() -> stk1.push(new BigDecimal("5")));
+      Persistence.Flush();
+      assertEquals(List.of(new BigDecimal("5")), StackFile.read("junitpersist2", "1"));
+      assertFalse(StackFile.exists("junitpersist2", "2"));
+   }
+
+}
@@ -0,0 +1,187 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class PowerTest {
+   static final MathContext MC34 = MathContext.DECIMAL128;
+
+   @AfterEach
+   void restoreDefaults() {
+      Main.configPrecision = Main.CONFIG_DEFAULT_PRECISION;
+      Main.configScaleCap = Main.CONFIG_DEFAULT_SCALE_CAP;
+   }
+
+   static BigDecimal pow(String base, String exponent) {
+      return Power.pow(new BigDecimal(base), new BigDecimal(exponent));
+   }
+
+   /**
+    * Integer exponents are exact when the precision is unlimited
+    */
+   @Test
+   void testIntegerExponent() {
+      assertEquals("1267650600228229401496703205376", pow("2", "100").toPlainString());
+      assertEquals("1267650600228229401496703205376", pow("2", "100.000").toPlainString());
+      assertEquals("-8", pow("-2", "3").toPlainString());
+      assertEquals("1524138393600000000000000", pow("123.456E10", "2").toPlainString());
+      assertEquals("0.015625", pow("0.5", "6").toPlainString());
+      assertEquals(BigDecimal.ONE, pow("0", "0"));
+      assertEquals(BigDecimal.ZERO, pow("0", "5"));
+   }
+
+   /**
+    * Negative exponents are rounded to the inexact precision
+    */
+   @Test
+   void testNegativeExponent() {
+      assertEquals("0.125", pow("2", "-3").toPlainString());
+      assertEquals("0.3333333333333333333333333333333333", pow("3", "-1").toPlainString());
+      assertThrows(ArithmeticException.class, () -> pow("0", "-2"));
+   }
+
+   /**
+    * With a precision set, every squaring is rounded
+    */
+   @Test
+   void testLimitedPrecision() {
+      Main.configPrecision = 10;
+      assertEquals("7.178979877E+23", pow("3", "50").toString());
+      assertEquals("1.414213562", pow("2", "0.5").toPlainString());
+   }
+
+   /**
+    * When the scale cap would trim the exact result only the digits it keeps are computed
+    */
+   @Test
+   void testScaleCap() {
+      Main.configScaleCap = 100;
+      BigDecimal base = new BigDecimal("1.0001");
+      assertEquals(Precision.limit(base.pow(1000)), Power.pow(base, BigDecimal.valueOf(1000)));
+
+      // The exact result would have seventy million digits
+      BigDecimal result = pow("1.0000001", "1E+7");
+      assertEquals(101, result.precision());
+      assertEquals("2.718281692544966271198550225777813", result.round(MC34).toPlainString());
+
+      // Without a cap huge exact results are refused
+      Main.configScaleCap = Precision.UNLIMITED;
+      assertThrows(ArithmeticException.class, () -> pow("1.0000001", "1E+7"));
+      assertThrows(ArithmeticException.class, () -> pow("10", "999999999"));
+   }
+
+   /**
+    * Decimal exponents use exp(y * ln(x))
+    */
+   @Test
+   void testRealExponent() {
+      assertEquals("1.414213562373095048801688724209698", pow("2", "0.5").toPlainString());
+      assertEquals("2", pow("4", "0.5").toPlainString());
+      assertEquals("2.618289539737534133127645947820834", pow("1.23456", "4.56789").toPlainString());
+      assertEquals(0, pow("2", "0.5").compareTo(new BigDecimal(2).sqrt(MC34)));
+
+      // Exponents too large to square with
+      assertEquals("1.969972612930460566309249994846149E+434", pow("1.0000001", "1E+10").toString());
+      assertEquals(BigDecimal.ONE, pow("-1", "1E+10"));
+      assertThrows(ArithmeticException.class, () -> pow("10", "2000000000"));
+   }
+
+   /**
+    * A negative base needs a fraction with an odd denominator
+    */
+   @Test
+   void testNegativeBase() {
+      assertEquals("-2", pow("-32", "0.2").toPlainString());
+      assertEquals("4", pow("-32", "0.4").toPlainString());
+      assertThrows(ArithmeticException.class, () -> pow("-4", "0.5"));
+      assertThrows(ArithmeticException.class, () -> pow("-2", "0.25"));
+   }
+
+   @Test
+   void testRoot() {
+      assertEquals("2", Power.root(new BigDecimal(8), 3, MC34).toPlainString());
+      assertEquals("-3", Power.root(new BigDecimal(-27), 3, MC34).toPlainString());
+      assertEquals("2.154434690031883721759293566519350", Power.root(BigDecimal.TEN, 3, MC34).toPlainString());
+      assertEquals("1E+100", Power.root(new BigDecimal("1E+300"), 3, MC34).toString());
+      assertThrows(ArithmeticException.class, () -> Power.root(new BigDecimal(-4), 2, MC34));
+      assertThrows(ArithmeticException.class, () -> Power.root(BigDecimal.TEN, 0, MC34));
+
+      // Agrees with BigDecimal.sqrt() at a high precision
+      MathContext mc = new MathContext(1000);
+      assertEquals(new BigDecimal(2).sqrt(mc), Power.root(new BigDecimal(2), 2, mc));
+   }
+
+   @Test
+   void testModPow() {
+      assertEquals("445", Power.modPow(new BigDecimal(4), new BigDecimal(13), new BigDecimal(497)).toPlainString());
+      assertEquals("5", Power.modPow(new BigDecimal(3), new BigDecimal(-1), new BigDecimal(7)).toPlainString());
+      assertEquals("719476260", Power.modPow(new BigDecimal(2), new BigDecimal("1E+18"), new BigDecimal(1000000007)).toPlainString());
+      assertThrows(ArithmeticException.class, () -> Power.modPow(new BigDecimal(2), new BigDecimal(-1), new BigDecimal(4)));
+      assertThrows(ArithmeticException.class, () -> Power.modPow(new BigDecimal("2.5"), BigDecimal.ONE, new BigDecimal(4)));
+      assertThrows(ArithmeticException.class, () -> Power.modPow(new BigDecimal(2), BigDecimal.ONE, BigDecimal.ZERO));
+   }
+
+   /**
+    * The stack commands replace their operands and leave the stack alone on an error
+    */
+   @Test
+   void testStackCommands() {
+      StackObj stk = new StackObj();
+      stk.push(new BigDecimal(64));
+      stk.push(new BigDecimal(6));
+      StackCommands.cmdRoot(stk);
+      assertEquals(1, stk.size());
+      assertEquals("2", stk.peek().toPlainString());
+
+      stk.push(new BigDecimal(100));
+      stk.push(new BigDecimal(7));
+      StackCommands.cmdModPow(stk);
+      assertEquals(1, stk.size());
+      assertEquals("2", stk.peek().toPlainString());
+
+      stk.clear();
+      stk.push(new BigDecimal(-4));
+      stk.push(new BigDecimal("0.5"));
+      Math.Parse("^", stk);
+      assertEquals(2, stk.size());
+      assertEquals("0.5", stk.peek().toPlainString());
+
+      StackCommands.cmdRoot(stk);
+      assertEquals(2, stk.size());
+   }
+
+}
@@ -0,0 +1,150 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class PrecisionTest {
+
+   @AfterEach
+   void restore() {
+      Main.configPrecision = Main.CONFIG_DEFAULT_PRECISION;
+      Main.configScaleCap = Main.CONFIG_DEFAULT_SCALE_CAP;
+   }
+
+   /**
+    * Unlimited precision keeps exact results exact and uses 34 digits for division
+    */
+   @Test
+   void testUnlimited() {
+      Main.configPrecision = Precision.UNLIMITED;
+      StackObj stk = new StackObj();
+
+      stk.push("123456789012345678901234567890");
+      stk.push("987654321098765432109876543210");
+      Math.Multiply(stk);
+      assertEquals("121932631137021795226185032733622923332237463801111263526900", stk.peek().toPlainString());
+
+      stk.clear();
+      stk.push(1);
+      stk.push(3);
+      Math.Divide(stk);
+      assertEquals(34, stk.peek().precision());
+   }
+
+   /**
+    * A fixed precision rounds every operation class, including the compact long arithmetic
+    */
+   @Test
+   void testFixedPrecision() {
+      Main.configPrecision = 5;
+      StackObj stk = new StackObj();
+
+      stk.push(123456);
+      stk.push(2);
+      Math.Multiply(stk);
+      assertEquals(new BigDecimal("2.4691E+5"), stk.peek());
+
+      stk.clear();
+      stk.push(123456);
+      stk.push(7);
+      stk.push("0.5");
+      StackCommands.cmdAddAll(stk, "");
+      assertEquals(1, stk.size());
+      assertEquals(new BigDecimal("1.2346E+5"), stk.peek());
+
+      stk.clear();
+      stk.push(1);
+      stk.push(3);
+      Math.Divide(stk);
+      assertEquals("0.33333", stk.peek().toPlainString());
+
+      stk.clear();
+      stk.push(2);
+      StackCommands.cmdSqrt(stk);
+      assertEquals("1.4142", stk.peek().toPlainString());
+
+      stk.clear();
+      stk.push(1);
+      StackTrig.cmdTrig(stk, "sin", "rad");
+      assertEquals("0.84147", stk.peek().toPlainString());
+
+      assertEquals("0.00018939", UnitConverter.convert(BigDecimal.ONE, "ft", "mi").getValue().toPlainString());
+   }
+
+   /**
+    * The scale cap stops repeated multiplication from growing the number of decimal places, but leaves short results
+    * alone
+    */
+   @Test
+   void testScaleCap() {
+      Main.configScaleCap = 40;
+      StackObj stk = new StackObj();
+
+      stk.push("1.1");
+      for (int i = 0; i < 100; i++) {
+         stk.push("1.1");
+         Math.Multiply(stk);
+      }
+      assertEquals(40, stk.peek().scale());
+
+      // addall is capped the same way as '+'
+      stk.clear();
+      stk.push("1.00000000000000000000000000000000000000000000000000000001");
+      stk.push(1);
+      StackCommands.cmdAddAll(stk, "");
+      assertEquals(40, stk.peek().scale());
+
+      // Small numbers with few significant digits are never trimmed
+      assertEquals(new BigDecimal("1E-40"), Precision.limit(new BigDecimal("1E-40")));
+      assertEquals(new BigDecimal("1.5E-60"), Precision.limit(new BigDecimal("1.5E-60")));
+
+      // No cap
+      Main.configScaleCap = Precision.UNLIMITED;
+      BigDecimal value = new BigDecimal("1.1").pow(100);
+      assertSame(value, Precision.limit(value));
+   }
+
+   @Test
+   void testParse() {
+      assertEquals(Precision.UNLIMITED, Precision.parse("unlimited"));
+      assertEquals(Precision.UNLIMITED, Precision.parse("Unl"));
+      assertEquals(50, Precision.parse("50"));
+      assertThrows(NumberFormatException.class, () -> Precision.parse("0"));
+      assertThrows(NumberFormatException.class, () -> Precision.parse("-3"));
+      assertEquals("unlimited", Precision.describe(Precision.UNLIMITED));
+   }
+
+}
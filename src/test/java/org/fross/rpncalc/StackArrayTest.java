@@ -0,0 +1,128 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class StackArrayTest {
+   static final String[] VALUES = {"0", "1", "-1", "0.00", "12.5", "-3.75", "1E+3", "2.5E-7", "123456789012345678", "-999999999999999999",
+         "9223372036854775807", "0.000000000000000001", "3.14159265358979323846264338", "1E+400", "42"};
+
+   /**
+    * Test the long arithmetic used for add, subtract and multiply gives exactly the same result as BigDecimal
+    */
+   @Test
+   void testCombineTop() {
+      for (String first : VALUES) {
+         for (String second : VALUES) {
+            BigDecimal a = new BigDecimal(first);
+            BigDecimal b = new BigDecimal(second);
+
+            assertCombine(a, b, '+', a.add(b, MathContext.UNLIMITED));
+            assertCombine(a, b, '-', a.subtract(b, MathContext.UNLIMITED));
+            assertCombine(a, b, '*', a.multiply(b, MathContext.UNLIMITED));
+         }
+      }
+   }
+
+   /**
+    * Test summing the stack matches adding each BigDecimal, including when the long total overflows
+    */
+   @Test
+   void testSum() {
+      Random random = new Random(42);
+      StackArray stk = new StackArray();
+      BigDecimal expected = BigDecimal.ZERO;
+
+      for (int i = 0; i < 1000; i++) {
+         BigDecimal value = BigDecimal.valueOf(random.nextLong() / 1000, random.nextInt(12) - 2);
+         stk.push(value);
+         expected = expected.add(value);
+      }
+      assertEquals(expected, stk.sum());
+
+      for (String v : VALUES) {
+         stk.push(new BigDecimal(v));
+         expected = expected.add(new BigDecimal(v));
+      }
+      assertEquals(expected, stk.sum());
+      assertEquals(BigDecimal.ZERO, new StackArray().sum());
+   }
+
+   /**
+    * Test compact results are read back correctly after moving them around the stack
+    */
+   @Test
+   void testCompactResultsMove() {
+      StackArray stk = new StackArray();
+      stk.push(new BigDecimal("1.5"));
+      stk.push(new BigDecimal("2.25"));
+      assertTrue(stk.combineTop('*'));
+
+      stk.add(0, new BigDecimal("7"));
+      assertEquals("[7, 3.375]", stk.toString());
+
+      StackArray copy = stk.copy();
+      stk.sort(java.util.Comparator.naturalOrder());
+      assertEquals("[3.375, 7]", stk.toString());
+      assertEquals("[7, 3.375]", copy.toString());
+
+      assertEquals(new BigDecimal("7"), stk.pop());
+      assertFalse(stk.combineTop('+'));
+   }
+
+   /**
+    * assertCombine(): Push the two values, combine them, and ensure the result is identical to the expected value
+    */
+   private static void assertCombine(BigDecimal a, BigDecimal b, char op, BigDecimal expected) {
+      StackObj stk = new StackObj();
+      stk.push(a);
+      stk.push(b);
+
+      switch (op) {
+         case '+' -> Math.Add(stk);
+         case '-' -> Math.Subtract(stk);
+         default -> Math.Multiply(stk);
+      }
+
+      // equals() checks the scale as well as the value
+      assertEquals(1, stk.size());
+      assertEquals(expected, stk.peek(), a + " " + op + " " + b);
+   }
+
+}
@@ -1161,6 +1161,41 @@ class StackCommandsTest {
 
    }
 
+   /**
+    * Test repeat runs the previous command the requested number of times and is undone in a single step
+    */
+   @Test
+   void testRepeatUndo() {
+      CommandHistory.clear();
+      StackObj stk = new StackObj();
+
+      try {
+         CommandParser.Parse(stk, stk, "1.5", "1.5", "");
+         CommandHistory.addCommand("1.5", "1.5", "");
+         StackCommands.cmdRepeat(stk, "4");
+         assertEquals(5, stk.size());
+
+         CommandParser.Parse(stk, stk, "+", "+", "");
+         CommandHistory.addCommand("+", "+", "");
+         StackCommands.cmdRepeat(stk, "3");
+         assertEquals(1, stk.size());
+         assertEquals("7.5", stk.peek().toPlainString());
+
+         // One undo reverses all three repetitions
+         StackCommands.cmdUndo(stk, "");
+         assertEquals(4, stk.size());
+         assertEquals("3.0", stk.peek().toPlainString());
+
+         // A command with a parameter is repeated with it
+         CommandParser.Parse(stk, stk, "dup 2", "dup", "2");
+         CommandHistory.addCommand("dup 2", "dup", "2");
+         StackCommands.cmdRepeat(stk, "2");
+         assertEquals(7, stk.size());
+      } finally {
+         CommandHistory.clear();
+      }
+   }
+
 
    /**
     * Test method for {@link org.fross.rpncalc.StackCommands#cmdRound(org.fross.rpncalc.StackObj, java.lang.String)}.
@@ -1349,6 +1384,33 @@ class StackCommandsTest {
       assertEquals("217.96E+18", stk.get(0).toEngineeringString());
    }
 
+   /**
+    * Test sorting a large stack and undoing the sort
+    */
+   @Test
+   void testSortingLarge() {
+      StackObj stk = new StackObj();
+
+      for (int i = 0; i < 200000; i++) {
+         stk.push(BigDecimal.valueOf((i * 7919L) % 200000, 2));
+      }
+
+      StackCommands.cmdSort(stk, "d");
+      assertEquals(200000, stk.size());
+      for (int i = 1; i < stk.size(); i++) {
+         assertTrue(stk.get(i - 1).compareTo(stk.get(i)) <= 0);
+      }
+
+      StackCommands.cmdSort(stk, "a");
+      assertEquals("1999.99", stk.get(0).toPlainString());
+      assertEquals("0.00", stk.peek().toPlainString());
+
+      // Undo both sorts and get back the original order
+      StackCommands.cmdUndo(stk, "1");
+      assertEquals("0.00", stk.get(0).toPlainString());
+      assertEquals("79.19", stk.get(1).toPlainString());
+   }
+
    /**
     * Test method for {@link org.fross.rpncalc.StackCommands#cmdSqrt(org.fross.rpncalc.StackObj)}.
     */
@@ -47,7 +47,7 @@ class StackConstantsTest {
       assertEquals(1, calcStack.size());
 
       // Ensure that the value is correct
-      assertEquals("3.14159265358979323846264338327950288419716939937510", calcStack.getAsString(0));
+      assertEquals("3.14159265358979323846264338327950288419716939937511", calcStack.getAsString(0));
    }
 
    /**
@@ -65,7 +65,7 @@ class StackConstantsTest {
       assertEquals(1, calcStack.size());
 
       // Ensure that the value is correct
-      assertEquals("1.61803398874989", calcStack.getAsString(0));
+      assertEquals("1.61803398874989484820458683436563811772030917980576", calcStack.getAsString(0));
    }
 
    /**
@@ -108,7 +108,7 @@ class StackConstantsTest {
       assertEquals(1, calcStack.size());
 
       // Ensure that the value is correct
-      assertEquals("2.71828182845904523536028747135266249775724709369995", calcStack.getAsString(0));
+      assertEquals("2.71828182845904523536028747135266249775724709369996", calcStack.getAsString(0));
    }
 
    /**
@@ -126,7 +126,7 @@ class StackConstantsTest {
       assertEquals(1, calcStack.size());
 
       // Ensure that the value is correct
-      assertEquals("0.577215664901532860606512090082402431", calcStack.getAsString(0));
+      assertEquals("0.577215664901532860606512090082402431042159335939924", calcStack.getAsString(0));
    }
 
    /**
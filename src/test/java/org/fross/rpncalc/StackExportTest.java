@@ -0,0 +1,167 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class StackExportTest {
+   @TempDir
+   Path tempDir;
+
+   /**
+    * Build a stack with compact values, values too large to be compact, and a range of scales
+    */
+   static StackArray mixedStack(int size) {
+      Random random = new Random(17);
+      StackArray stack = new StackArray();
+      for (int i = 0; i < size; i++) {
+         switch (i % 5) {
+            case 0 -> stack.push(BigDecimal.valueOf(random.nextLong() % 1000000000000L, random.nextInt(12)));
+            case 1 -> stack.push(new BigDecimal(new BigInteger(90, random), random.nextInt(40) - 20));
+            case 2 -> stack.push(BigDecimal.valueOf(-random.nextInt(1000), -random.nextInt(5)));
+            case 3 -> stack.push(BigDecimal.valueOf(i));
+            default -> stack.push(BigDecimal.valueOf(random.nextInt(100) - 50, 30));
+         }
+      }
+      return stack;
+   }
+
+   /**
+    * Compact values are formatted exactly as BigDecimal.toPlainString() does
+    */
+   @Test
+   void testAppendPlain() {
+      Random random = new Random(3);
+      long[] values = {0, 1, -1, 9, -10, 123456789012345678L, -999999999999999999L};
+      for (int scale = -20; scale <= 40; scale++) {
+         for (long value : values) {
+            StringBuilder sb = new StringBuilder();
+            StackExport.appendPlain(sb, value, scale);
+            assertEquals(BigDecimal.valueOf(value, scale).toPlainString(), sb.toString());
+         }
+         long value = random.nextLong() % 1000000000000000000L;
+         StringBuilder sb = new StringBuilder();
+         StackExport.appendPlain(sb, value, scale);
+         assertEquals(BigDecimal.valueOf(value, scale).toPlainString(), sb.toString());
+      }
+   }
+
+   /**
+    * Text is one plain number per line, bottom of the stack first, across several parallel blocks
+    */
+   @Test
+   void testText() throws IOException {
+      StackArray stack = mixedStack(StackExport.BLOCK_SIZE * 3 + 7);
+      Path file = tempDir.resolve("stack.txt");
+      StackExport.write(stack, file);
+
+      List<String> lines = Files.readAllLines(file);
+      assertEquals(stack.size(), lines.size());
+      for (int i = 0; i < stack.size(); i++) {
+         assertEquals(stack.get(i).toPlainString(), lines.get(i));
+      }
+   }
+
+   /**
+    * CSV has a header and the stack line number of each value, with line 1 being the top of the stack
+    */
+   @Test
+   void testCsv() throws IOException {
+      StackArray stack = mixedStack(10);
+      Path file = tempDir.resolve("stack.CSV");
+      StackExport.write(stack, file);
+
+      List<String> lines = Files.readAllLines(file);
+      assertEquals(StackExport.CSV_HEADER, lines.get(0));
+      assertEquals("10," + stack.get(0).toPlainString(), lines.get(1));
+      assertEquals("1," + stack.peek().toPlainString(), lines.get(10));
+   }
+
+   /**
+    * Every format reads back with import. Binary keeps the exact scale, text keeps the value
+    */
+   @Test
+   void testRoundTrip() throws IOException {
+      StackArray stack = mixedStack(StackExport.BLOCK_SIZE + 100);
+
+      for (String name : new String[]{"a.txt", "a.txt.gz", "a.csv", "a.csv.gz", "a.stk", "a.stk.gz"}) {
+         Path file = tempDir.resolve(name);
+         StackExport.write(stack, file);
+         StackArray imported = StackImport.read(file);
+
+         assertEquals(stack.size(), imported.size(), name);
+         for (int i = 0; i < stack.size(); i++) {
+            if (name.startsWith("a.stk")) {
+               assertEquals(stack.get(i), imported.get(i), name);
+            } else {
+               assertEquals(0, stack.get(i).compareTo(imported.get(i)), name);
+            }
+         }
+      }
+
+      try (InputStream in = new GZIPInputStream(Files.newInputStream(tempDir.resolve("a.txt.gz")))) {
+         assertArrayEquals(Files.readAllBytes(tempDir.resolve("a.txt")), in.readAllBytes());
+      }
+   }
+
+   /**
+    * An existing file is replaced and no temporary files are left behind, even when the export fails
+    */
+   @Test
+   void testReplace() throws IOException {
+      Path file = tempDir.resolve("stack.txt");
+      Files.writeString(file, "old contents that are longer than the new ones\n");
+
+      StackArray stack = new StackArray();
+      stack.push(new BigDecimal("1.5"));
+      StackExport.write(stack, file);
+      assertEquals("1.5\n", Files.readString(file));
+
+      assertThrows(IOException.class, () -> StackExport.write(stack, tempDir.resolve("missing").resolve("stack.txt")));
+      try (Stream<Path> files = Files.list(tempDir)) {
+         assertEquals(List.of(file), files.toList());
+      }
+   }
+
+}
@@ -0,0 +1,190 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.prefs.Preferences;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class StackFileTest {
+   @TempDir
+   Path tempDir;
+
+   Path savedDirectory;
+
+   @BeforeEach
+   void useTempDir() {
+      savedDirectory = StackFile.directory;
+      StackFile.directory = tempDir.resolve("stacks");
+   }
+
+   @AfterEach
+   void restoreDir() {
+      StackFile.directory = savedDirectory;
+   }
+
+   static StackArray stackOf(String... values) {
+      StackArray stack = new StackArray();
+      for (String value : values) {
+         stack.push(new BigDecimal(value));
+      }
+      return stack;
+   }
+
+   /**
+    * Every value comes back with the same unscaled value and scale
+    */
+   @Test
+   void testExactRoundTrip() throws IOException {
+      StackArray stack = stackOf("0", "-1", "1.10", "123.456E10", "-0.000000000000000000000000000001", "127", "128", "-128",
+            "-129", String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE), "999999999999999999", "1000000000000000000",
+            "3.141592653589793238462643383279502884197169399375105820974944592307816406286208998628034825342117068");
+      stack.push(new BigDecimal(BigInteger.TWO.pow(5000).negate(), -7));
+
+      StackFile.write(stack, "roundtrip", "1");
+      StackArray restored = StackFile.read("roundtrip", "1");
+
+      assertEquals(stack.size(), restored.size());
+      for (int i = 0; i < stack.size(); i++) {
+         assertEquals(stack.get(i), restored.get(i), "element " + i);
+      }
+   }
+
+   @Test
+   void testLargeStack() throws IOException {
+      Random random = new Random(42);
+      StackArray stack = new StackArray();
+      for (int i = 0; i < 300000; i++) {
+         stack.push(BigDecimal.valueOf(random.nextLong(), random.nextInt(40) - 20));
+      }
+
+      StackFile.write(stack, "large", "2");
+      StackArray restored = StackFile.read("large", "2");
+      assertEquals(stack.size(), restored.size());
+      assertEquals(stack.sum(), restored.sum());
+      assertEquals(stack.get(123456), restored.get(123456));
+   }
+
+   @Test
+   void testEmptyStack() throws IOException {
+      StackFile.write(new StackArray(), "empty", "1");
+      assertTrue(StackFile.exists("empty", "1"));
+      assertEquals(0, StackFile.read("empty", "1").size());
+   }
+
+   /**
+    * Saving replaces the file and leaves no temporary files behind
+    */
+   @Test
+   void testOverwrite() throws IOException {
+      StackFile.write(stackOf("1", "2", "3"), "over", "1");
+      StackFile.write(stackOf("4"), "over", "1");
+
+      assertEquals(List.of(new BigDecimal("4")), StackFile.read("over", "1"));
+      try (var files = Files.list(StackFile.directory)) {
+         assertEquals(1, files.count());
+      }
+   }
+
+   @Test
+   void testDamagedFile() throws IOException {
+      StackFile.write(stackOf("1.5", "2.5"), "damaged", "1");
+      Path file = StackFile.path("damaged", "1");
+
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[bytes.length - 6] ^= 0x01;
+      Files.write(file, bytes);
+      assertThrows(IOException.class, () -> StackFile.read("damaged", "1"));
+
+      Files.write(file, new byte[]{'R', 'P', 'N'});
+      assertThrows(IOException.class, () -> StackFile.read("damaged", "1"));
+
+      // Restoring a damaged stack gives an empty stack
+      assertEquals(0, StackManagement.RestoreStack("damaged", "1").size());
+   }
+
+   /**
+    * Names with characters that aren't allowed in file names are listed and deleted correctly
+    */
+   @Test
+   void testNames() throws IOException {
+      StackFile.write(stackOf("1"), "my stack/one*", "1");
+      StackFile.write(stackOf("1"), "my stack/one*", "2");
+      StackFile.write(stackOf("1"), "my.stack", "1");
+
+      assertEquals(List.of("my stack/one*", "my.stack"), List.copyOf(StackFile.names()));
+
+      StackFile.delete("my");
+      assertEquals(2, StackFile.names().size());
+
+      StackFile.delete("my stack/one*");
+      assertEquals(List.of("my.stack"), List.copyOf(StackFile.names()));
+      assertFalse(StackFile.exists("my stack/one*", "2"));
+   }
+
+   /**
+    * A stack saved by an earlier version in the preferences system is restored exactly and removed once it's saved to
+    * a stack file
+    */
+   @Test
+   void testLegacyMigration() throws Exception {
+      String node = StackManagement.PREFS_PATH + "/junitlegacy";
+      Preferences p = Preferences.userRoot().node(node + "/1");
+      p.putInt("StackElements", 2);
+      p.put("Stack0", "1.00000000000000000000000000001");
+      p.put("Stack1", "-42");
+
+      StackObj stk = new StackObj();
+      stk.setStackNameAndRestore("junitlegacy", "1");
+      assertEquals(2, stk.size());
+      assertEquals(new BigDecimal("1.00000000000000000000000000001"), stk.get(0));
+
+      StackManagement.SaveStack(stk, "1");
+      assertTrue(StackFile.exists("junitlegacy", "1"));
+      assertFalse(Preferences.userRoot().nodeExists(node));
+
+      stk.clear();
+      stk.setStackNameAndRestore("junitlegacy", "1");
+      assertEquals(new BigDecimal("-42"), stk.peek());
+   }
+
+}
@@ -0,0 +1,166 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class StackImportTest {
+   @TempDir
+   Path tempDir;
+
+   static StackArray read(String text) throws IOException {
+      return StackImport.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+   }
+
+   /**
+    * Every value has the same unscaled value and scale as new BigDecimal(String)
+    */
+   @Test
+   void testSameAsBigDecimal() throws IOException {
+      String[] values = {"0", "-0", "-0.00", "+5", ".5", "5.", "007", "00.10", "-1.0123", "123456789012345678",
+            "-999999999999999999", "1234567890123456789", "0.000000000000000000000000001", "12345678901234567.89",
+            "-3.123e17", "2.123E8", "4.56e-19", "1E+3", "١٢"};
+
+      StackArray stack = read(String.join("\n", values));
+      assertEquals(values.length, stack.size());
+      for (int i = 0; i < values.length; i++) {
+         BigDecimal expected = new BigDecimal(values[i]);
+         assertEquals(expected.unscaledValue(), stack.get(i).unscaledValue(), values[i]);
+         assertEquals(expected.scale(), stack.get(i).scale(), values[i]);
+      }
+   }
+
+   /**
+    * Windows line endings, empty lines and a missing final line break
+    */
+   @Test
+   void testLineEndings() throws IOException {
+      assertEquals(List.of(new BigDecimal("1"), new BigDecimal("2.5"), new BigDecimal("3")), read("1\r\n\r\n2.5\n\n3"));
+      assertEquals(0, read("").size());
+      assertEquals(0, read("\n\r\n").size());
+   }
+
+   /**
+    * Values spread over many chunks come back in file order
+    */
+   @Test
+   void testOrderAcrossChunks() throws IOException {
+      StringBuilder text = new StringBuilder();
+      int count = 600000;
+      for (int i = 0; i < count; i++) {
+         text.append(i % 7 == 0 ? "1.5e" + (i % 20) : Integer.toString(i)).append('\n');
+      }
+      assertTrue(text.length() > 3 * StackImport.CHUNK_SIZE);
+
+      StackArray stack = read(text.toString());
+      assertEquals(count, stack.size());
+      for (int i = 0; i < count; i++) {
+         BigDecimal expected = i % 7 == 0 ? new BigDecimal("1.5e" + (i % 20)) : BigDecimal.valueOf(i);
+         assertEquals(expected, stack.get(i));
+      }
+   }
+
+   /**
+    * The first bad line is reported with its line number, even in a later chunk or when longer than a chunk
+    */
+   @Test
+   void testBadLine() throws IOException {
+      StringBuilder text = new StringBuilder();
+      for (int i = 1; i <= 400000; i++) {
+         text.append(i == 300001 ? "12a" : "42").append('\n');
+      }
+      text.append("bad\n");
+      NumberFormatException ex = assertThrows(NumberFormatException.class, () -> read(text.toString()));
+      assertEquals("Line 300001 is not a number: '12a'", ex.getMessage());
+
+      String longLine = "1\n2\n" + "9".repeat(10) + "x".repeat(StackImport.CHUNK_SIZE * 2) + "\n3\n";
+      ex = assertThrows(NumberFormatException.class, () -> read(longLine));
+      assertEquals("Line 3 is not a number: '9999999999xxxxxxxxxxxxxxxxxxxxxxxxxxxxxx...'", ex.getMessage());
+
+      assertThrows(NumberFormatException.class, () -> read("1\n-\n"));
+      assertThrows(NumberFormatException.class, () -> read(".\n"));
+      assertThrows(NumberFormatException.class, () -> read("1.2.3\n"));
+      assertThrows(NumberFormatException.class, () -> read(" 1\n"));
+
+      // CSV lines need a comma before the number
+      assertEquals(List.of(new BigDecimal("2.5")), read("line,value\n1,2.5\n"));
+      ex = assertThrows(NumberFormatException.class, () -> read("line,value\r\n2,1\r\n7\r\n"));
+      assertEquals("Line 3 is not a number: '7'", ex.getMessage());
+   }
+
+   /**
+    * Gzip-compressed files are read the same as plain ones
+    */
+   @Test
+   void testGzip() throws IOException {
+      Path file = tempDir.resolve("stack.txt.gz");
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+         for (int i = 0; i < 100000; i++) {
+            out.write((i + ".25\n").getBytes(StandardCharsets.US_ASCII));
+         }
+      }
+
+      StackArray stack = StackImport.read(file);
+      assertEquals(100000, stack.size());
+      assertEquals(new BigDecimal("99999.25"), stack.peek());
+   }
+
+   /**
+    * A file with a bad line leaves the stack unchanged
+    */
+   @Test
+   void testImportKeepsStackOnError() throws IOException {
+      Path file = tempDir.resolve("bad.txt");
+      Files.writeString(file, "1\n2\nthree\n");
+
+      StackObj stk = new StackObj();
+      stk.push(new BigDecimal("10"));
+      StackOperations.importStackFromDisk(stk, file.toString());
+      assertEquals(List.of(new BigDecimal("10")), stk.getStack());
+
+      Files.writeString(file, "1\n2\n3\n");
+      StackOperations.importStackFromDisk(stk, file.toString());
+      assertEquals(List.of(BigDecimal.ONE, BigDecimal.TWO, new BigDecimal("3")), stk.getStack());
+   }
+
+}
@@ -119,7 +119,8 @@ class StackOperationsTest {
       // Clear out any saves items in the junittest saved stack if it exists
       try {
          Preferences.userRoot().node(StackManagement.PREFS_PATH + "/junittest").removeNode();
-      } catch (BackingStoreException e) {
+         StackFile.delete("junittest");
+      } catch (BackingStoreException | IOException e) {
          Output.printColorln(Output.RED, e.getMessage());
       }
 
@@ -170,14 +171,58 @@ class StackOperationsTest {
       assertEquals(11, stk2.size());
       assertEquals(1055, stk2.pop().doubleValue());
 
-      // Cleanup by removing the junittest stack from the preferences system
+      // Cleanup by removing the junittest stack from the preferences system and its stack files
       try {
          Preferences.userRoot().node(StackManagement.PREFS_PATH + "/junittest").removeNode();
-      } catch (BackingStoreException e) {
+         StackFile.delete("junittest");
+      } catch (BackingStoreException | IOException e) {
          Output.printColorln(Output.RED, e.getMessage());
       }
    }
 
+   /**
+    * Undo after a load returns to the stack as it was before the load
+    */
+   @Test
+   void testLoadUndo() throws IOException {
+      // Start from a test stack name so the load doesn't save over the default stack
+      StackObj stk1 = new StackObj();
+      StackObj stk2 = new StackObj();
+      stk1.stackName = "junittestundo2";
+      stk2.stackName = "junittestundo2";
+
+      StackArray saved = new StackArray();
+      saved.push(new BigDecimal("7"));
+      saved.push(new BigDecimal("8"));
+      saved.push(new BigDecimal("9"));
+      StackFile.write(saved, "junittestundo", "1");
+
+      try {
+         // Load over a non-empty stack
+         CommandParser.Parse(stk1, stk2, "5", "5", "");
+         CommandParser.Parse(stk1, stk2, "load junittestundo", "load", "junittestundo");
+         assertEquals(saved, stk1.getStack());
+         assertEquals(1, stk1.undoSize());
+         assertEquals(0, stk1.undoGet(0).size());
+         CommandParser.Parse(stk1, stk2, "undo", "undo", "");
+         assertEquals(0, stk1.size());
+
+         // Load over an empty stack
+         stk1 = new StackObj();
+         stk1.stackName = "junittestundo2";
+         stk2.stackName = "junittestundo2";
+         stk1.saveUndo();
+         CommandParser.Parse(stk1, stk2, "load junittestundo", "load", "junittestundo");
+         assertEquals(saved, stk1.getStack());
+         CommandParser.Parse(stk1, stk2, "undo 1", "undo", "1");
+         assertEquals(0, stk1.size());
+
+      } finally {
+         StackFile.delete("junittestundo");
+         StackFile.delete("junittestundo2");
+      }
+   }
+
    /**
     * Test stack output to file
     */
@@ -50,11 +50,12 @@ class StackTrigTest {
       assertEquals(0.20791, stk.peek().doubleValue());
       assertEquals(1, stk.size());
 
+      // 1.2e11 degrees is exactly 120 degrees once reduced
       stk.clear();
       stk.push(1.2e11);
       StackTrig.cmdTrig(stk, "sin", "");
       StackCommands.cmdRound(stk, "7");
-      assertEquals("0.8660255", stk.peek().toEngineeringString());
+      assertEquals("0.8660254", stk.peek().toEngineeringString());
       assertEquals(1, stk.size());
 
       // Testing Sine - Radians
@@ -84,7 +85,7 @@ class StackTrigTest {
       stk.push(1.2e11);
       StackTrig.cmdTrig(stk, "cos", "");
       StackCommands.cmdRound(stk, "7");
-      assertEquals("-0.4999999", stk.peek().toEngineeringString());
+      assertEquals("-0.5000000", stk.peek().toEngineeringString());
       assertEquals(1, stk.size());
 
       // Testing Cosine - Radians
@@ -114,7 +115,7 @@ class StackTrigTest {
       stk.push(1.2e11);
       StackTrig.cmdTrig(stk, "tan", "");
       StackCommands.cmdRound(stk, "7");
-      assertEquals("-1.7320512", stk.peek().toEngineeringString());
+      assertEquals("-1.7320508", stk.peek().toEngineeringString());
       assertEquals(1, stk.size());
 
       // Testing Tangent - Radians
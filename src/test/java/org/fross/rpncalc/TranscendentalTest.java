@@ -0,0 +1,143 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class TranscendentalTest {
+   static final MathContext MC = MathContext.DECIMAL128;
+
+   /**
+    * Compare numerically so the scale of the result doesn't matter
+    */
+   static void assertDecimal(String expected, BigDecimal actual) {
+      assertEquals(0, new BigDecimal(expected).compareTo(actual), "Expected " + expected + " but was " + actual);
+   }
+
+   @Test
+   void testPi() {
+      assertDecimal("3.141592653589793238462643383279503", Transcendental.pi(MC));
+      assertDecimal("3.14159", Transcendental.pi(new MathContext(6)));
+      assertDecimal("3.1415926535897932384626433832795028841971693993751", Transcendental.pi(new MathContext(50)));
+   }
+
+   @Test
+   void testSinCosTan() {
+      assertDecimal("0.9320390859672263496701344354948260", Transcendental.sin(new BigDecimal("1.2"), MC));
+      assertDecimal("0.3623577544766735776383733556230760", Transcendental.cos(new BigDecimal("1.2"), MC));
+      assertDecimal("-0.9320390859672263496701344354948260", Transcendental.sin(new BigDecimal("-1.2"), MC));
+      assertEquals(0, Transcendental.sin(BigDecimal.ZERO, MC).signum());
+
+      // sin^2 + cos^2 = 1 across all four quadrants and for large angles
+      for (String angle : new String[]{"0.1", "2", "3.5", "5", "-4", "123456789.123", "1.2E11"}) {
+         BigDecimal s = Transcendental.sin(new BigDecimal(angle), MC);
+         BigDecimal c = Transcendental.cos(new BigDecimal(angle), MC);
+         BigDecimal one = s.multiply(s).add(c.multiply(c)).round(new MathContext(30));
+         assertDecimal("1", one);
+         assertDecimal(s.divide(c, new MathContext(30)).toString(), Transcendental.tan(new BigDecimal(angle), MC).round(new MathContext(30)));
+      }
+
+      // Matches the double implementation for a large radian angle
+      assertEquals(java.lang.Math.sin(1.2e11), Transcendental.sin(new BigDecimal("1.2E11"), MC).doubleValue(), 1e-15);
+      // Angles next to a multiple of PI/2 keep full precision after the reduction cancels their leading digits
+      BigDecimal nearPi = new BigDecimal("3.14159265358979323846264338327950288");
+      assertDecimal("4.197169399375105820974944592307816E-36", Transcendental.sin(nearPi, MC));
+      assertDecimal("-4.197169399375105820974944592307816E-36", Transcendental.tan(nearPi, MC));
+      BigDecimal nearHalfPi = new BigDecimal("1.57079632679489661923132169163975144");
+      assertDecimal("2.098584699687552910487472296153908E-36", Transcendental.cos(nearHalfPi, MC));
+      assertDecimal("4.765116224038442048772078210186233E+35", Transcendental.tan(nearHalfPi, MC));
+      assertDecimal("-0.00003014435335948844921433028000865010", Transcendental.sin(new BigDecimal("355"), MC));
+   }
+
+   @Test
+   void testDegrees() {
+      assertDecimal("0", Transcendental.sinDegrees(new BigDecimal("180"), MC));
+      assertDecimal("-1", Transcendental.cosDegrees(new BigDecimal("540"), MC));
+      assertDecimal("-1", Transcendental.sinDegrees(new BigDecimal("-90"), MC));
+      assertDecimal("0.5", Transcendental.sinDegrees(new BigDecimal("30"), MC));
+      assertDecimal("-0.5", Transcendental.cosDegrees(new BigDecimal("1.2E11"), MC));
+      assertDecimal("1", Transcendental.tanDegrees(new BigDecimal("45"), MC));
+      assertDecimal("1.745329251994329576923690768488613E-21", Transcendental.cosDegrees(new BigDecimal("89.9999999999999999999"), MC));
+      assertThrows(ArithmeticException.class, () -> Transcendental.tanDegrees(new BigDecimal("270"), MC));
+      assertDecimal("180", Transcendental.toDegrees(Transcendental.pi(MC), MC));
+   }
+
+   @Test
+   void testArcTrig() {
+      assertDecimal("0.7853981633974483096156608458198757", Transcendental.atan(BigDecimal.ONE, MC));
+      assertDecimal("0.5235987755982988730771072305465838", Transcendental.asin(new BigDecimal("0.5"), MC));
+      assertDecimal("1.570796326794896619231321691639751", Transcendental.acos(BigDecimal.ZERO, MC));
+      assertDecimal("-1.570796326794896619231321691639751", Transcendental.asin(BigDecimal.ONE.negate(), MC));
+      assertDecimal("3.141592653589793238462643383279503", Transcendental.acos(BigDecimal.ONE.negate(), MC));
+      assertDecimal("0", Transcendental.acos(BigDecimal.ONE, MC));
+
+      // Round trip
+      BigDecimal x = new BigDecimal("2.123");
+      assertDecimal("2.123", Transcendental.tan(Transcendental.atan(x, MC), MC).round(new MathContext(30)));
+
+      assertThrows(ArithmeticException.class, () -> Transcendental.asin(new BigDecimal("1.0001"), MC));
+      assertThrows(ArithmeticException.class, () -> Transcendental.acos(new BigDecimal("-2"), MC));
+   }
+
+   @Test
+   void testExp() {
+      assertDecimal("1", Transcendental.exp(BigDecimal.ZERO, MC));
+      assertDecimal("2.718281828459045235360287471352662", Transcendental.exp(BigDecimal.ONE, MC));
+      assertDecimal("22026.46579480671651695790064528424", Transcendental.exp(BigDecimal.TEN, MC));
+      assertDecimal("0.08208499862389879516952867446715981", Transcendental.exp(new BigDecimal("-2.5"), MC));
+   }
+
+   @Test
+   void testLogarithms() {
+      assertDecimal("0", Transcendental.ln(BigDecimal.ONE, MC));
+      assertDecimal("4.815836215791188509869894626225363", Transcendental.ln(new BigDecimal("123.45"), MC));
+      assertDecimal("-0.00001000005000033333583335333350000143", Transcendental.ln(new BigDecimal("0.99999"), MC));
+      assertDecimal("2.302585092994045684017991454684364", Transcendental.ln(BigDecimal.TEN, MC));
+      assertDecimal("0.3010299956639811952137388947244930", Transcendental.log10(new BigDecimal("2"), MC));
+
+      // Exact powers of ten
+      assertEquals(new BigDecimal("3"), Transcendental.log10(new BigDecimal("1000"), MC));
+      assertEquals(new BigDecimal("-2"), Transcendental.log10(new BigDecimal("0.0100"), MC));
+
+      // ln and exp are inverses
+      BigDecimal x = new BigDecimal("9.87654321E22");
+      assertDecimal("9.87654321E22", Transcendental.exp(Transcendental.ln(x, MC), MC).round(new MathContext(30)));
+
+      assertThrows(ArithmeticException.class, () -> Transcendental.ln(BigDecimal.ZERO, MC));
+      assertThrows(ArithmeticException.class, () -> Transcendental.log10(new BigDecimal("-5"), MC));
+      assertThrows(IllegalArgumentException.class, () -> Transcendental.ln(BigDecimal.TEN, MathContext.UNLIMITED));
+   }
+
+}
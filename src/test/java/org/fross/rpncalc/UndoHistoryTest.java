@@ -0,0 +1,341 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class UndoHistoryTest {
+   /**
+    * Test that each kind of stack change is reversed when restoring an undo point
+    */
+   @Test
+   void testRestore() {
+      StackObj stk = new StackObj();
+      stk.push("1");
+      stk.push("2");
+      stk.push("3");
+
+      // Line 1: [1, 2, 3]
+      stk.saveUndo();
+      stk.pop();
+      stk.push("10");
+
+      // Line 2: [1, 2, 10]
+      stk.saveUndo();
+      stk.remove(0);
+      stk.push("20", 0);
+
+      // Line 3: [20, 2, 10]
+      stk.saveUndo();
+      stk.sort("descending");
+      stk.clear();
+      stk.push("99");
+
+      assertEquals(3, stk.undoSize());
+      assertEquals("[20, 2, 10]", stk.undoGet(2).toString());
+      assertEquals("[1, 2, 10]", stk.undoGet(1).toString());
+      assertEquals("[1, 2, 3]", stk.undoGet(0).toString());
+
+      // The current stack is not changed by looking at the undo states
+      assertEquals(1, stk.size());
+      assertEquals("99", stk.getAsString(0));
+
+      StackCommands.cmdUndo(stk, "");
+      assertEquals(2, stk.undoSize());
+      assertEquals("[20, 2, 10]", stk.getStack().toString());
+
+      StackCommands.cmdUndo(stk, "1");
+      assertEquals(0, stk.undoSize());
+      assertEquals("[1, 2, 3]", stk.getStack().toString());
+   }
+
+   /**
+    * Test rebuilding every undo state in a single pass
+    */
+   @Test
+   void testGetAll() {
+      StackObj stk = new StackObj();
+
+      for (int i = 1; i <= 5; i++) {
+         stk.saveUndo();
+         stk.push(i);
+      }
+
+      List<List<BigDecimal>> states = stk.undoGet();
+      assertEquals(5, states.size());
+      assertTrue(states.get(0).isEmpty());
+      assertEquals("[1, 2]", states.get(2).toString());
+      assertEquals("[1, 2, 3, 4]", states.get(4).toString());
+   }
+
+   /**
+    * Test removing undo points keeps the remaining ones correct
+    */
+   @Test
+   void testRemove() {
+      StackObj stk = new StackObj();
+
+      for (int i = 1; i <= 4; i++) {
+         stk.saveUndo();
+         stk.push(i);
+      }
+
+      // Remove the oldest and a middle undo point
+      stk.undoRemove(0);
+      stk.undoRemove(1);
+
+      assertEquals(2, stk.undoSize());
+      assertEquals("[1]", stk.undoGet(0).toString());
+      assertEquals("[1, 2, 3]", stk.undoGet(1).toString());
+
+      StackCommands.cmdUndo(stk, "1");
+      assertEquals("[1]", stk.getStack().toString());
+   }
+
+   /**
+    * Test the oldest undo points are evicted once the undo level limit is reached
+    */
+   @Test
+   void testEviction() {
+      int savedLevels = Main.configUndoLevels;
+      boolean savedSpill = Main.configUndoSpill;
+      Main.configUndoLevels = 3;
+      Main.configUndoSpill = false;
+
+      try {
+         StackObj stk = new StackObj();
+         for (int i = 1; i <= 6; i++) {
+            stk.saveUndo();
+            stk.push(i);
+         }
+
+         assertEquals(3, stk.undoSize());
+         assertEquals("[1, 2, 3]", stk.undoGet(0).toString());
+         assertEquals("[1, 2, 3, 4, 5]", stk.undoGet(2).toString());
+
+         StackCommands.cmdUndo(stk, "1");
+         assertEquals("[1, 2, 3]", stk.getStack().toString());
+      } finally {
+         Main.configUndoLevels = savedLevels;
+         Main.configUndoSpill = savedSpill;
+      }
+   }
+
+   /**
+    * Test evicted undo points can still be restored when they are spilled to disk
+    */
+   @Test
+   void testSpill() {
+      int savedLevels = Main.configUndoLevels;
+      boolean savedSpill = Main.configUndoSpill;
+      Main.configUndoLevels = 2;
+      Main.configUndoSpill = true;
+
+      try {
+         StackObj stk = new StackObj();
+         for (int i = 1; i <= 5; i++) {
+            stk.saveUndo();
+            stk.push(new BigDecimal("1.5").multiply(BigDecimal.valueOf(i)));
+         }
+         stk.saveUndo();
+         stk.sort("descending");
+
+         // All the undo points are still available even though only 2 are held in memory
+         assertEquals(6, stk.undoSize());
+         List<List<BigDecimal>> states = stk.undoGet();
+         assertTrue(states.get(0).isEmpty());
+         assertEquals("[1.5, 3.0]", states.get(2).toString());
+         assertEquals("[1.5, 3.0, 4.5, 6.0, 7.5]", states.get(5).toString());
+         assertEquals("[1.5, 3.0, 4.5]", stk.undoGet(3).toString());
+
+         // Remove a spilled undo point and restore into the spilled region
+         stk.undoRemove(1);
+         assertEquals(5, stk.undoSize());
+         StackCommands.cmdUndo(stk, "2");
+         assertEquals(1, stk.undoSize());
+         assertEquals("[1.5, 3.0]", stk.getStack().toString());
+      } finally {
+         Main.configUndoLevels = savedLevels;
+         Main.configUndoSpill = savedSpill;
+      }
+   }
+
+   /**
+    * Test only undo points beyond the undo level limit are spilled and the newest ones stay in memory
+    */
+   @Test
+   void testSpillKeepsLevelsInMemory() {
+      int savedLevels = Main.configUndoLevels;
+      boolean savedSpill = Main.configUndoSpill;
+      Main.configUndoLevels = 5;
+      Main.configUndoSpill = true;
+
+      try {
+         StackObj stk = new StackObj();
+         for (int i = 1; i <= 20; i++) {
+            stk.saveUndo();
+            stk.push(BigDecimal.valueOf(i));
+         }
+
+         assertEquals(20, stk.undoSize());
+         assertEquals(5, stk.undoHistory.memorySize());
+         assertEquals(15, stk.undoHistory.size() - stk.undoHistory.memorySize());
+         assertEquals("[1, 2, 3]", stk.undoGet(3).toString());
+         stk.undoHistory.clear();
+      } finally {
+         Main.configUndoLevels = savedLevels;
+         Main.configUndoSpill = savedSpill;
+      }
+   }
+
+   /**
+    * Test the spill file is created in the temp directory and is closed and deleted at shutdown
+    */
+   @Test
+   void testSpillFile() {
+      int savedLevels = Main.configUndoLevels;
+      boolean savedSpill = Main.configUndoSpill;
+      Main.configUndoLevels = 1;
+      Main.configUndoSpill = true;
+
+      try {
+         int before = countSpillFiles();
+         StackObj stk = new StackObj();
+         for (int i = 1; i <= 3; i++) {
+            stk.saveUndo();
+            stk.push(BigDecimal.valueOf(i));
+         }
+         assertEquals(3, stk.undoSize());
+         assertEquals(before + 1, countSpillFiles());
+
+         UndoHistory.closeSpills();
+         assertEquals(before, countSpillFiles());
+         assertEquals(1, stk.undoSize());
+      } finally {
+         Main.configUndoLevels = savedLevels;
+         Main.configUndoSpill = savedSpill;
+      }
+   }
+
+   /**
+    * countSpillFiles(): Number of undo spill files in the temp directory
+    */
+   private static int countSpillFiles() {
+      File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) -> name.startsWith(".rpncalc_undo_") && name.endsWith(".spill"));
+      return (files == null) ? 0 : files.length;
+   }
+
+   /**
+    * Test a transaction is undone as a single step and that undo inside it goes back one command
+    */
+   @Test
+   void testTransaction() {
+      StackObj stk = new StackObj();
+      stk.push("1");
+      stk.saveUndo();
+      stk.push("2");
+
+      stk.beginTransaction();
+      for (int i = 3; i <= 6; i++) {
+         stk.saveUndo();
+         stk.push(i);
+      }
+
+      // Undo inside the transaction reverses the last command only
+      StackCommands.cmdUndo(stk, "");
+      assertEquals("[1, 2, 3, 4, 5]", stk.getStack().toString());
+
+      // Nested transactions roll back on their own
+      stk.beginTransaction();
+      stk.saveUndo();
+      stk.sort("ascending");
+      stk.pop();
+      stk.rollbackTransaction();
+      assertEquals("[1, 2, 3, 4, 5]", stk.getStack().toString());
+
+      stk.commitTransaction();
+      assertEquals(2, stk.undoSize());
+
+      StackCommands.cmdUndo(stk, "");
+      assertEquals("[1, 2]", stk.getStack().toString());
+      StackCommands.cmdUndo(stk, "");
+      assertEquals("[1]", stk.getStack().toString());
+
+      // Rolling back the outer transaction leaves no undo point behind
+      stk.beginTransaction();
+      stk.saveUndo();
+      stk.push("7");
+      stk.rollbackTransaction();
+      assertEquals("[1]", stk.getStack().toString());
+      assertEquals(0, stk.undoSize());
+
+      assertThrows(IllegalStateException.class, () -> new UndoHistory().commit());
+   }
+
+   /**
+    * Test a transaction larger than the undo memory budget collapses to a single snapshot
+    */
+   @Test
+   void testTransactionCollapse() {
+      int savedMemory = Main.configUndoMemory;
+      Main.configUndoMemory = 0;
+
+      try {
+         StackObj stk = new StackObj();
+         stk.push("1");
+
+         stk.beginTransaction();
+         for (int i = 2; i <= 100; i++) {
+            stk.saveUndo();
+            stk.push(i);
+         }
+         assertFalse(stk.undoHistory.isRecording());
+         stk.commitTransaction();
+         assertTrue(stk.undoHistory.isRecording());
+
+         assertEquals(100, stk.size());
+         assertEquals(1, stk.undoSize());
+         StackCommands.cmdUndo(stk, "");
+         assertEquals("[1]", stk.getStack().toString());
+      } finally {
+         Main.configUndoMemory = savedMemory;
+      }
+   }
+
+}
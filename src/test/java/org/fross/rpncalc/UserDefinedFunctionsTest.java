@@ -34,6 +34,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -140,4 +143,45 @@ class UserDefinedFunctionsTest {
 
    }
 
+   /**
+    * Test that functions are served from memory and written through to the preferences system
+    */
+   @Test
+   void UDFWriteThroughTest() throws BackingStoreException {
+      final String name = TEST_FUNCTION_NAME + "-cache";
+      String prefsNode = UserFunctions.PREFS_PATH_FUNCTIONS + "/" + name;
+
+      // Record a two step function
+      UserFunctions.cmdRecord("on");
+      UserFunctions.RecordCommand("2");
+      UserFunctions.RecordCommand("*");
+      UserFunctions.cmdRecord("off " + name);
+
+      // Available immediately from memory
+      assertTrue(UserFunctions.FunctionExists(name));
+      assertEquals(List.of("2", "*"), UserFunctions.GetFunctionSteps(name));
+      assertTrue(UserFunctions.GetFunctionNames().contains(name));
+
+      // Once the queued writes finish it is in the preferences system
+      UserFunctions.FlushFunctionWrites();
+      assertTrue(Preferences.userRoot().nodeExists(prefsNode));
+      assertEquals(2, Preferences.userRoot().node(prefsNode).getInt("FunctionSteps", 0));
+
+      // Run it
+      StackObj stk = new StackObj();
+      stk.push("21");
+      CommandParser.Parse(stk, stk, name, name, "");
+      assertEquals("42", stk.peek().toPlainString());
+
+      // Reloading from preferences gives the same function
+      UserFunctions.LoadFunctions();
+      assertEquals(List.of("2", "*"), UserFunctions.GetFunctionSteps(name));
+
+      // Delete removes it from memory and, after the flush, from preferences
+      UserFunctions.FunctionDelete(name);
+      assertFalse(UserFunctions.FunctionExists(name));
+      UserFunctions.FlushFunctionWrites();
+      assertFalse(Preferences.userRoot().nodeExists(prefsNode));
+   }
+
 }
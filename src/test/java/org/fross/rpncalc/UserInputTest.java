@@ -0,0 +1,74 @@
+/* ------------------------------------------------------------------------------
+ * RPNCalc
+ *
+ * RPNCalc is is an easy to use console based RPN calculator
+ *
+ * Copyright (c) 2011-2026 Michael Fross
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ------------------------------------------------------------------------------*/
+package org.fross.rpncalc;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Michael Fross (michael@fross.org)
+ */
+class UserInputTest {
+
+   /**
+    * Ctrl-C is only caught between catchInterrupts() and releaseInterrupts(). Otherwise the previous handler runs
+    */
+   @Test
+   void testCatchInterrupts() throws IOException {
+      try (Terminal terminal = TerminalBuilder.builder().dumb(true).streams(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()).build()) {
+         AtomicInteger defaultCalls = new AtomicInteger();
+         terminal.handle(Terminal.Signal.INT, signal -> defaultCalls.incrementAndGet());
+         UserInput.setTerminal(terminal);
+
+         terminal.raise(Terminal.Signal.INT);
+         assertEquals(1, defaultCalls.get());
+         assertFalse(UserInput.checkInterrupt());
+
+         Terminal.SignalHandler previous = UserInput.catchInterrupts();
+         terminal.raise(Terminal.Signal.INT);
+         assertEquals(1, defaultCalls.get());
+         assertTrue(UserInput.checkInterrupt());
+         assertFalse(UserInput.checkInterrupt());
+
+         UserInput.releaseInterrupts(previous);
+         terminal.raise(Terminal.Signal.INT);
+         assertEquals(2, defaultCalls.get());
+         assertFalse(UserInput.checkInterrupt());
+      } finally {
+         UserInput.setTerminal(null);
+      }
+   }
+
+}